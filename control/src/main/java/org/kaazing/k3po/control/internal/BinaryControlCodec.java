@@ -0,0 +1,288 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kaazing.k3po.control.internal.command.AwaitCommand;
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.command.NotifyCommand;
+import org.kaazing.k3po.control.internal.command.PrepareCommand;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+import org.kaazing.k3po.control.internal.event.ErrorEvent;
+import org.kaazing.k3po.control.internal.event.FinishedEvent;
+import org.kaazing.k3po.control.internal.event.NotifiedEvent;
+import org.kaazing.k3po.control.internal.event.PreparedEvent;
+import org.kaazing.k3po.control.internal.event.StartedEvent;
+
+/**
+ * Control protocol version 3.0, length-prefixed binary frames carrying a session id,
+ * so that many scripts can be driven concurrently over one connection.
+ *
+ * <pre>
+ * connection := preface frame*
+ * preface    := 0x00 'K' '3' 0x03
+ * frame      := int32 length, int8 kind, int32 session, fields   (length counts kind, session and fields)
+ * string     := int32 length (-1 for null), UTF-8 bytes
+ * strings    := int32 count, string*
+ * </pre>
+ *
+ * FINISHED carries the observed script as a line diff against the PREPARED script of the same session,
+ * which is applied here so that listeners receive the complete observed script.
+ */
+final class BinaryControlCodec implements ControlCodec {
+
+    private static final String VERSION = "3.0";
+    private static final byte[] PREFACE = { 0x00, 'K', '3', 0x03 };
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int PREPARE = 1;
+    private static final int PREPARED = 2;
+    private static final int START = 3;
+    private static final int STARTED = 4;
+    private static final int ERROR = 5;
+    private static final int ABORT = 6;
+    private static final int FINISHED = 7;
+    private static final int AWAIT = 8;
+    private static final int NOTIFY = 9;
+    private static final int NOTIFIED = 10;
+
+    private final Map<Integer, String> preparedScripts;
+
+    BinaryControlCodec() {
+        this.preparedScripts = new HashMap<>();
+    }
+
+    @Override
+    public boolean isMultiplexed() {
+        return true;
+    }
+
+    @Override
+    public ByteBuffer encodePreface() {
+        return ByteBuffer.wrap(PREFACE.clone());
+    }
+
+    @Override
+    public ByteBuffer encode(int sessionId, Command command) {
+        List<byte[]> strings = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        int kind;
+
+        switch (command.getKind()) {
+        case PREPARE:
+            kind = PREPARE;
+            PrepareCommand prepare = (PrepareCommand) command;
+            List<String> properties = prepare.getOverriddenScriptProperties();
+            strings.add(encodeString(VERSION));
+            strings.add(null);
+            addStrings(prepare.getNames(), strings, counts);
+            addStrings(properties != null ? properties : Collections.<String>emptyList(), strings, counts);
+            break;
+        case START:
+            kind = START;
+            break;
+        case ABORT:
+            kind = ABORT;
+            break;
+        case AWAIT:
+            kind = AWAIT;
+            strings.add(encodeString(((AwaitCommand) command).getBarrier()));
+            break;
+        case NOTIFY:
+            kind = NOTIFY;
+            strings.add(encodeString(((NotifyCommand) command).getBarrier()));
+            break;
+        default:
+            throw new IllegalArgumentException("Urecognized command kind: " + command.getKind());
+        }
+
+        int length = 1 + 4 + 4 * counts.size();
+        for (byte[] string : strings) {
+            length += 4 + (string != null ? string.length : 0);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length);
+        frame.put((byte) kind);
+        frame.putInt(sessionId);
+
+        // PREPARE is the only command with lists: version, origin, names, then properties
+        int index = 0;
+        if (kind == PREPARE) {
+            putString(strings.get(index++), frame);
+            putString(strings.get(index++), frame);
+            for (int count : counts) {
+                frame.putInt(count);
+                for (int i = 0; i < count; i++) {
+                    putString(strings.get(index++), frame);
+                }
+            }
+        }
+        while (index < strings.size()) {
+            putString(strings.get(index++), frame);
+        }
+
+        frame.flip();
+        return frame;
+    }
+
+    @Override
+    public void decode(ByteBuffer buffer, EventReceiver receiver) {
+        while (buffer.remaining() >= 4) {
+            final int start = buffer.position();
+            final int length = buffer.getInt(start);
+            if (length < 5) {
+                throw new IllegalStateException("Invalid frame length: " + length);
+            }
+
+            if (buffer.remaining() < 4 + length) {
+                return;
+            }
+
+            ByteBuffer frame = buffer.duplicate();
+            frame.position(start + 4);
+            frame.limit(start + 4 + length);
+            buffer.position(start + 4 + length);
+
+            int kind = frame.get() & 0xff;
+            int sessionId = frame.getInt();
+            receiver.onEvent(sessionId, decodeEvent(kind, sessionId, frame));
+        }
+    }
+
+    private CommandEvent decodeEvent(int kind, int sessionId, ByteBuffer frame) {
+        switch (kind) {
+        case PREPARED:
+            PreparedEvent prepared = new PreparedEvent();
+            prepared.getBarriers().addAll(getStrings(frame));
+            prepared.setScript(getString(frame));
+            if (prepared.getScript() != null) {
+                preparedScripts.put(sessionId, prepared.getScript());
+            }
+            return prepared;
+        case STARTED:
+            return new StartedEvent();
+        case ERROR:
+            ErrorEvent error = new ErrorEvent();
+            error.setSummary(getString(frame));
+            error.setDescription(getString(frame));
+            return error;
+        case FINISHED:
+            FinishedEvent finished = new FinishedEvent();
+            finished.getCompletedBarriers().addAll(getStrings(frame));
+            finished.getIncompleteBarriers().addAll(getStrings(frame));
+            int prefix = frame.getInt();
+            int suffix = frame.getInt();
+            String replacement = getString(frame);
+            String preparedScript = preparedScripts.remove(sessionId);
+            finished.setScript(applyDiff(preparedScript != null ? preparedScript : "", prefix, suffix, replacement));
+            return finished;
+        case NOTIFIED:
+            NotifiedEvent notified = new NotifiedEvent();
+            notified.setBarrier(getString(frame));
+            return notified;
+        default:
+            throw new IllegalStateException("Invalid protocol frame: " + kind);
+        }
+    }
+
+    private static String applyDiff(String preparedScript, int prefix, int suffix, String replacement) {
+        List<String> lines = splitLines(preparedScript);
+        if (prefix < 0 || suffix < 0 || prefix + suffix > lines.size()) {
+            throw new IllegalStateException("Invalid script diff");
+        }
+
+        StringBuilder observed = new StringBuilder();
+        for (String line : lines.subList(0, prefix)) {
+            observed.append(line);
+        }
+        if (replacement != null) {
+            observed.append(replacement);
+        }
+        for (String line : lines.subList(lines.size() - suffix, lines.size())) {
+            observed.append(line);
+        }
+        return observed.toString();
+    }
+
+    private static List<String> splitLines(String script) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int end = script.indexOf('\n'); end != -1; end = script.indexOf('\n', start)) {
+            lines.add(script.substring(start, end + 1));
+            start = end + 1;
+        }
+        if (start < script.length()) {
+            lines.add(script.substring(start));
+        }
+        return lines;
+    }
+
+    private static byte[] encodeString(String value) {
+        return (value != null) ? value.getBytes(UTF_8) : null;
+    }
+
+    private static void addStrings(Iterable<String> values, List<byte[]> strings, List<Integer> counts) {
+        int count = 0;
+        for (String value : values) {
+            strings.add(encodeString(value));
+            count++;
+        }
+        counts.add(count);
+    }
+
+    private static void putString(byte[] value, ByteBuffer frame) {
+        if (value == null) {
+            frame.putInt(-1);
+        } else {
+            frame.putInt(value.length);
+            frame.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer frame) {
+        int length = frame.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > frame.remaining()) {
+            throw new IllegalStateException("Invalid string length: " + length);
+        }
+        ByteBuffer bytes = frame.slice();
+        bytes.limit(length);
+        frame.position(frame.position() + length);
+        return UTF_8.decode(bytes).toString();
+    }
+
+    private static List<String> getStrings(ByteBuffer frame) {
+        int count = frame.getInt();
+        if (count < 0 || count > frame.remaining()) {
+            throw new IllegalStateException("Invalid string count: " + count);
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(frame));
+        }
+        return values;
+    }
+}
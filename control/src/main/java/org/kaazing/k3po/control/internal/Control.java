@@ -16,7 +16,6 @@
 package org.kaazing.k3po.control.internal;
 
 import static java.lang.Integer.parseInt;
-import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.BufferedReader;
@@ -30,21 +29,16 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.kaazing.k3po.control.internal.command.AbortCommand;
 import org.kaazing.k3po.control.internal.command.AwaitCommand;
 import org.kaazing.k3po.control.internal.command.Command;
 import org.kaazing.k3po.control.internal.command.NotifyCommand;
-import org.kaazing.k3po.control.internal.command.PrepareCommand;
-import org.kaazing.k3po.control.internal.command.StartCommand;
 import org.kaazing.k3po.control.internal.event.CommandEvent;
 import org.kaazing.k3po.control.internal.event.ErrorEvent;
 import org.kaazing.k3po.control.internal.event.FinishedEvent;
@@ -68,14 +62,17 @@ public final class Control {
     private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     private final URL location;
+    private final ControlEncoder encoder;
     private URLConnection connection;
     BufferedReader textIn;
+    private Writer textOut;
 
     /**
      * @param location of k3po server to connect to.
      */
     public Control(URL location) {
         this.location = location;
+        this.encoder = new ControlEncoder();
     }
 
     /**
@@ -91,6 +88,10 @@ public final class Control {
         InputStream bytesIn = connection.getInputStream();
         CharsetDecoder decoder = UTF_8.newDecoder();
         textIn = new BufferedReader(new InputStreamReader(bytesIn, decoder));
+
+        OutputStream bytesOut = connection.getOutputStream();
+        CharsetEncoder charsetEncoder = UTF_8.newEncoder();
+        textOut = new OutputStreamWriter(bytesOut, charsetEncoder);
     }
 
     /**
@@ -118,6 +119,7 @@ public final class Control {
                 }
             } finally {
                 connection = null;
+                textOut = null;
             }
         }
     }
@@ -131,25 +133,8 @@ public final class Control {
 
         checkConnected();
 
-        switch (command.getKind()) {
-        case PREPARE:
-            writeCommand((PrepareCommand) command);
-            break;
-        case START:
-            writeCommand((StartCommand) command);
-            break;
-        case ABORT:
-            writeCommand((AbortCommand) command);
-            break;
-        case AWAIT:
-            writeCommand((AwaitCommand) command);
-            break;
-        case NOTIFY:
-            writeCommand((NotifyCommand) command);
-            break;
-        default:
-            throw new IllegalArgumentException("Urecognized command kind: " + command.getKind());
-        }
+        encoder.encode(command, textOut);
+        textOut.flush();
     }
 
     /**
@@ -204,77 +189,6 @@ public final class Control {
         return connection != null;
     }
 
-    private void writeCommand(PrepareCommand prepare) throws Exception {
-        OutputStream bytesOut = connection.getOutputStream();
-        CharsetEncoder encoder = UTF_8.newEncoder();
-        Writer textOut = new OutputStreamWriter(bytesOut, encoder);
-
-        Iterable<String> names = prepare.getNames();
-        List<String> overriddenScriptProperties = prepare.getOverriddenScriptProperties();
-
-        int contentLength = 0;
-        StringBuilder content = new StringBuilder();
-        if (overriddenScriptProperties != null) {
-            for (String property : overriddenScriptProperties) {
-                content.append(format("property %s\n", property));
-            }
-            contentLength = content.length();
-        }
-
-        textOut.append("PREPARE\n");
-        textOut.append("version:2.0\n");
-        textOut.append(String.format("content-length:%s\n", contentLength));
-        for (String name : names) {
-            textOut.append(format("name:%s\n", name));
-        }
-        textOut.append("\n");
-        textOut.append(content.toString());
-        textOut.flush();
-    }
-
-    private void writeCommand(StartCommand start) throws Exception {
-
-        OutputStream bytesOut = connection.getOutputStream();
-        CharsetEncoder encoder = UTF_8.newEncoder();
-        Writer textOut = new OutputStreamWriter(bytesOut, encoder);
-
-        textOut.append("START\n");
-        textOut.append("\n");
-        textOut.flush();
-    }
-
-    private void writeCommand(AbortCommand abort) throws IOException, CharacterCodingException {
-        OutputStream bytesOut = connection.getOutputStream();
-        CharsetEncoder encoder = UTF_8.newEncoder();
-        Writer textOut = new OutputStreamWriter(bytesOut, encoder);
-
-        textOut.append("ABORT\n");
-        textOut.append("\n");
-        textOut.flush();
-    }
-
-    private void writeCommand(NotifyCommand notify) throws IOException, CharacterCodingException {
-        OutputStream bytesOut = connection.getOutputStream();
-        CharsetEncoder encoder = UTF_8.newEncoder();
-        Writer textOut = new OutputStreamWriter(bytesOut, encoder);
-
-        textOut.append("NOTIFY\n");
-        textOut.append(format("barrier:%s\n", notify.getBarrier()));
-        textOut.append("\n");
-        textOut.flush();
-    }
-
-    private void writeCommand(AwaitCommand await) throws IOException, CharacterCodingException {
-        OutputStream bytesOut = connection.getOutputStream();
-        CharsetEncoder encoder = UTF_8.newEncoder();
-        Writer textOut = new OutputStreamWriter(bytesOut, encoder);
-
-        textOut.append("AWAIT\n");
-        textOut.append(format("barrier:%s\n", await.getBarrier()));
-        textOut.append("\n");
-        textOut.flush();
-    }
-
     private PreparedEvent readPreparedEvent() throws IOException {
         PreparedEvent prepared = new PreparedEvent();
         String line;
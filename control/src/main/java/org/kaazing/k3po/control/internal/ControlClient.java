@@ -0,0 +1,214 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking client for controlling the robot.
+ * A single I/O thread drives every {@link ControlSession} opened by this client, so running many scripts
+ * concurrently does not require a blocked thread per script.
+ * With control protocol version 3.0, sessions to the same k3po server also share one connection.
+ */
+public final class ControlClient implements Closeable {
+
+    /**
+     * System property selecting the control protocol version of the default client, "2.0" (default) or "3.0".
+     */
+    public static final String VERSION_PROPERTY = "org.kaazing.k3po.control.version";
+
+    private static ControlClient defaultClient;
+
+    private final String version;
+    private final Map<InetSocketAddress, ControlConnection> connections;
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * @return the client shared by all control sessions in this JVM
+     * @throws IOException if the selector cannot be opened
+     */
+    public static synchronized ControlClient getDefault() throws IOException {
+        if (defaultClient == null || defaultClient.closed) {
+            defaultClient = new ControlClient(System.getProperty(VERSION_PROPERTY, "2.0"));
+        }
+        return defaultClient;
+    }
+
+    /**
+     * Opens a client with its own I/O thread, using control protocol version 2.0.
+     * @throws IOException if the selector cannot be opened
+     */
+    public ControlClient() throws IOException {
+        this("2.0");
+    }
+
+    /**
+     * Opens a client with its own I/O thread.
+     * @param version of the control protocol, "2.0" or "3.0"
+     * @throws IOException if the selector cannot be opened
+     */
+    public ControlClient(String version) throws IOException {
+        if (!"2.0".equals(version) && !"3.0".equals(version)) {
+            throw new IllegalArgumentException("Unsupported control protocol version: " + version);
+        }
+        this.version = version;
+        this.connections = new HashMap<>();
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.thread = new Thread(this::run, "k3po-control");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Connects to the k3po server.
+     * @param location of k3po server to connect to, such as tcp://localhost:11642
+     * @param listener to receive the events of the new session
+     * @return a future completed with the connected session, or exceptionally if the connect fails
+     */
+    public CompletableFuture<ControlSession> connect(URL location, ControlListener listener) {
+        CompletableFuture<ControlSession> connectFuture = new CompletableFuture<>();
+
+        if (!"tcp".equals(location.getProtocol()) || location.getPort() == -1) {
+            connectFuture.completeExceptionally(new IllegalArgumentException("Unsupported control location: " + location));
+            return connectFuture;
+        }
+
+        // resolve on the calling thread, not the I/O thread
+        InetSocketAddress remoteAddress = new InetSocketAddress(location.getHost(), location.getPort());
+
+        execute(() -> {
+            ControlConnection connection = connections.get(remoteAddress);
+            if (connection == null) {
+                connection = openConnection(remoteAddress, connectFuture);
+                if (connection == null) {
+                    return;
+                }
+                if (connection.isMultiplexed()) {
+                    connections.put(remoteAddress, connection);
+                }
+            }
+            connection.newSession(listener, connectFuture);
+        });
+
+        return connectFuture;
+    }
+
+    /**
+     * Closes every session and stops the I/O thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    void closed(ControlConnection connection) {
+        connections.values().remove(connection);
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    private ControlConnection openConnection(InetSocketAddress remoteAddress,
+            CompletableFuture<ControlSession> connectFuture) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            ControlCodec codec = "3.0".equals(version) ? new BinaryControlCodec() : new TextControlCodec();
+            ControlConnection connection = new ControlConnection(this, channel, codec);
+            if (channel.connect(remoteAddress)) {
+                connection.connected(channel.register(selector, OP_READ, connection));
+            } else {
+                connection.register(channel.register(selector, OP_CONNECT, connection));
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e2) {
+                    // ignore
+                }
+            }
+            connectFuture.completeExceptionally(e);
+            return null;
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                    task.run();
+                }
+
+                selector.select();
+
+                Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                for (SelectionKey key : selectedKeys) {
+                    ControlConnection connection = (ControlConnection) key.attachment();
+                    connection.process();
+                }
+                selectedKeys.clear();
+            }
+        } catch (IOException e) {
+            closed = true;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ControlConnection connection = (ControlConnection) key.attachment();
+                connection.close(null);
+            }
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ignore
+            }
+
+            // fail any connects and writes still queued
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        }
+    }
+}
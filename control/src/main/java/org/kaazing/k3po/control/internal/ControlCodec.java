@@ -0,0 +1,59 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+
+/**
+ * Wire format of a control connection, for one version of the control protocol.
+ */
+interface ControlCodec {
+
+    /**
+     * @return true if the protocol carries many script sessions over one connection
+     */
+    boolean isMultiplexed();
+
+    /**
+     * @return the bytes to send before any command, or null if none
+     */
+    ByteBuffer encodePreface();
+
+    /**
+     * Encodes a command to bytes ready to be written to the wire.
+     * @param sessionId the script session of the command, ignored unless multiplexed
+     * @param command to encode
+     * @return the encoded command
+     * @throws CharacterCodingException if the command cannot be encoded as UTF-8
+     */
+    ByteBuffer encode(int sessionId, Command command) throws CharacterCodingException;
+
+    /**
+     * Decodes every complete event in the buffer, consuming their bytes.
+     * @param buffer the received bytes, ready for reading
+     * @param receiver to receive the decoded events
+     */
+    void decode(ByteBuffer buffer, EventReceiver receiver);
+
+    interface EventReceiver {
+
+        void onEvent(int sessionId, CommandEvent event);
+    }
+}
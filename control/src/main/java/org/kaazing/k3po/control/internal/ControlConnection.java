@@ -0,0 +1,272 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+
+/**
+ * A non-blocking control connection to k3po, driven by the I/O thread of a {@link ControlClient}.
+ * Carries a single {@link ControlSession} with control protocol version 2.0, or many with version 3.0.
+ * Sessions and connects are only touched by the I/O thread, writes may be queued from any thread.
+ */
+final class ControlConnection implements ControlCodec.EventReceiver {
+
+    private static final int INITIAL_READ_CAPACITY = 8192;
+
+    private final ControlClient client;
+    private final SocketChannel channel;
+    private final ControlCodec codec;
+    private final Map<Integer, ControlSession> sessions;
+    private final List<ControlSession> connecting;
+    private final Queue<PendingWrite> writes;
+
+    private ByteBuffer readBuffer;
+    private SelectionKey key;
+    private int nextSessionId;
+    private volatile boolean closed;
+
+    ControlConnection(ControlClient client, SocketChannel channel, ControlCodec codec) {
+        this.client = client;
+        this.channel = channel;
+        this.codec = codec;
+        this.sessions = new HashMap<>();
+        this.connecting = new ArrayList<>();
+        this.writes = new ConcurrentLinkedQueue<>();
+        this.readBuffer = ByteBuffer.allocate(INITIAL_READ_CAPACITY);
+
+        ByteBuffer preface = codec.encodePreface();
+        if (preface != null) {
+            writes.add(new PendingWrite(preface, new CompletableFuture<Void>()));
+        }
+    }
+
+    boolean isMultiplexed() {
+        return codec.isMultiplexed();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void execute(Runnable task) {
+        client.execute(task);
+    }
+
+    void newSession(ControlListener listener, CompletableFuture<ControlSession> connectFuture) {
+        ControlSession session = new ControlSession(this, nextSessionId++, listener, connectFuture);
+        if (key != null && channel.isConnected()) {
+            sessions.put(session.getSessionId(), session);
+            connectFuture.complete(session);
+        } else {
+            connecting.add(session);
+        }
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    void connected(SelectionKey key) {
+        this.key = key;
+        key.interestOps(OP_READ);
+
+        for (ControlSession session : connecting) {
+            sessions.put(session.getSessionId(), session);
+            session.getConnectFuture().complete(session);
+        }
+        connecting.clear();
+
+        flush();
+    }
+
+    void process() {
+        try {
+            if (key.isConnectable()) {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+                connected(key);
+            }
+
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            close(e);
+        }
+    }
+
+    CompletableFuture<Void> write(int sessionId, Command command) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+
+        if (closed) {
+            written.completeExceptionally(new IllegalStateException("Not connected"));
+            return written;
+        }
+
+        try {
+            // encode and enqueue together so concurrent writers keep their commands in order
+            synchronized (writes) {
+                writes.add(new PendingWrite(codec.encode(sessionId, command), written));
+            }
+            client.execute(this::flush);
+        } catch (CharacterCodingException e) {
+            written.completeExceptionally(e);
+        }
+
+        return written;
+    }
+
+    void disconnect(ControlSession session) {
+        flush();
+
+        if (sessions.remove(session.getSessionId()) != null) {
+            session.getListener().onClosed(null);
+        } else if (connecting.remove(session)) {
+            session.getConnectFuture().completeExceptionally(new IllegalStateException("Not connected"));
+        }
+
+        if (sessions.isEmpty() && connecting.isEmpty()) {
+            close(null);
+        }
+    }
+
+    void close(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (key != null) {
+            key.cancel();
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+
+        failWrites(cause);
+
+        Throwable connectFailure = (cause != null) ? cause : new IllegalStateException("Not connected");
+        for (ControlSession session : connecting) {
+            session.closed();
+            session.getConnectFuture().completeExceptionally(connectFailure);
+        }
+        connecting.clear();
+
+        for (ControlSession session : sessions.values()) {
+            session.closed();
+            session.getListener().onClosed(cause);
+        }
+        sessions.clear();
+
+        client.closed(this);
+    }
+
+    @Override
+    public void onEvent(int sessionId, CommandEvent event) {
+        ControlSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.getListener().onEvent(event);
+        }
+    }
+
+    private void failWrites(Throwable cause) {
+        for (PendingWrite write = writes.poll(); write != null; write = writes.poll()) {
+            write.future.completeExceptionally(new IllegalStateException("Not connected", cause));
+        }
+    }
+
+    private void flush() {
+        if (closed) {
+            // commands racing with close are failed rather than left pending
+            failWrites(null);
+            return;
+        }
+
+        if (key == null || !channel.isConnected()) {
+            return;
+        }
+
+        try {
+            for (PendingWrite write = writes.peek(); write != null; write = writes.peek()) {
+                channel.write(write.bytes);
+                if (write.bytes.hasRemaining()) {
+                    key.interestOps(key.interestOps() | OP_WRITE);
+                    return;
+                }
+                writes.remove();
+                write.future.complete(null);
+            }
+            key.interestOps(key.interestOps() & ~OP_WRITE);
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void read() throws IOException {
+        int bytesRead = channel.read(readBuffer);
+        if (bytesRead == -1) {
+            close(null);
+            return;
+        }
+
+        readBuffer.flip();
+        codec.decode(readBuffer, this);
+        readBuffer.compact();
+
+        if (!readBuffer.hasRemaining()) {
+            // event content is not limited in size, so grow until the whole event fits
+            ByteBuffer newReadBuffer = ByteBuffer.allocate(readBuffer.capacity() << 1);
+            readBuffer.flip();
+            newReadBuffer.put(readBuffer);
+            readBuffer = newReadBuffer;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final ByteBuffer bytes;
+        private final CompletableFuture<Void> future;
+
+        PendingWrite(ByteBuffer bytes, CompletableFuture<Void> future) {
+            this.bytes = bytes;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.List;
+
+import org.kaazing.k3po.control.internal.command.AwaitCommand;
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.command.NotifyCommand;
+import org.kaazing.k3po.control.internal.command.PrepareCommand;
+
+/**
+ * Encodes commands in the text based control protocol.
+ * Instances reuse their buffers and charset encoder, so each control connection should own one.
+ */
+final class ControlEncoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final StringBuilder text;
+    private final CharsetEncoder charsetEncoder;
+
+    ControlEncoder() {
+        this.text = new StringBuilder();
+        this.charsetEncoder = UTF_8.newEncoder();
+    }
+
+    /**
+     * Encodes a command to bytes ready to be written to the wire.
+     * @param command to encode
+     * @return the encoded command
+     * @throws CharacterCodingException if the command cannot be encoded as UTF-8
+     */
+    synchronized ByteBuffer encode(Command command) throws CharacterCodingException {
+        text.setLength(0);
+        try {
+            encode(command, text);
+        } catch (IOException e) {
+            // StringBuilder does not throw IOException
+            throw new IllegalStateException(e);
+        }
+        return charsetEncoder.encode(CharBuffer.wrap(text));
+    }
+
+    /**
+     * Encodes a command as text.
+     * @param command to encode
+     * @param textOut to append the encoded command to
+     * @throws IOException if appending to textOut fails
+     */
+    void encode(Command command, Appendable textOut) throws IOException {
+
+        switch (command.getKind()) {
+        case PREPARE:
+            encodePrepare((PrepareCommand) command, textOut);
+            break;
+        case START:
+            textOut.append("START\n");
+            textOut.append("\n");
+            break;
+        case ABORT:
+            textOut.append("ABORT\n");
+            textOut.append("\n");
+            break;
+        case AWAIT:
+            textOut.append("AWAIT\n");
+            textOut.append(format("barrier:%s\n", ((AwaitCommand) command).getBarrier()));
+            textOut.append("\n");
+            break;
+        case NOTIFY:
+            textOut.append("NOTIFY\n");
+            textOut.append(format("barrier:%s\n", ((NotifyCommand) command).getBarrier()));
+            textOut.append("\n");
+            break;
+        default:
+            throw new IllegalArgumentException("Urecognized command kind: " + command.getKind());
+        }
+    }
+
+    private void encodePrepare(PrepareCommand prepare, Appendable textOut) throws IOException {
+        Iterable<String> names = prepare.getNames();
+        List<String> overriddenScriptProperties = prepare.getOverriddenScriptProperties();
+
+        int contentLength = 0;
+        StringBuilder content = new StringBuilder();
+        if (overriddenScriptProperties != null) {
+            for (String property : overriddenScriptProperties) {
+                content.append(format("property %s\n", property));
+            }
+            contentLength = content.length();
+        }
+
+        textOut.append("PREPARE\n");
+        textOut.append("version:2.0\n");
+        textOut.append(format("content-length:%s\n", contentLength));
+        for (String name : names) {
+            textOut.append(format("name:%s\n", name));
+        }
+        textOut.append("\n");
+        textOut.append(content);
+    }
+}
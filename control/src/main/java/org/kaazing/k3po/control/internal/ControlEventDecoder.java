@@ -0,0 +1,164 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.lang.Integer.parseInt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+import org.kaazing.k3po.control.internal.event.ErrorEvent;
+import org.kaazing.k3po.control.internal.event.FinishedEvent;
+import org.kaazing.k3po.control.internal.event.NotifiedEvent;
+import org.kaazing.k3po.control.internal.event.PreparedEvent;
+import org.kaazing.k3po.control.internal.event.StartedEvent;
+
+/**
+ * Decodes events in the text based control protocol from bytes as they arrive on a non-blocking connection.
+ */
+final class ControlEventDecoder {
+
+    private static final Pattern HEADER_PATTERN = Pattern.compile("([a-z\\-]+):([^\n]+)");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Decodes the next complete event, consuming its bytes.
+     * @param buffer the received bytes, ready for reading
+     * @return the decoded event, or null if the buffer does not yet hold a complete event
+     */
+    CommandEvent decode(ByteBuffer buffer) {
+        final int start = buffer.position();
+        final int limit = buffer.limit();
+
+        int headersEnd = -1;
+        for (int i = start; i + 1 < limit; i++) {
+            if (buffer.get(i) == '\n' && buffer.get(i + 1) == '\n') {
+                headersEnd = i + 1;
+                break;
+            }
+        }
+
+        if (headersEnd == -1) {
+            return null;
+        }
+
+        String[] lines = decodeText(buffer, start, headersEnd).split("\n");
+        CommandEvent event = newEvent(lines[0]);
+
+        int length = -1;
+        for (int i = 1; i < lines.length; i++) {
+            Matcher matcher = HEADER_PATTERN.matcher(lines[i]);
+            if (matcher.matches()) {
+                String headerName = matcher.group(1);
+                String headerValue = matcher.group(2);
+                if ("content-length".equals(headerName)) {
+                    length = parseInt(headerValue);
+                } else {
+                    decodeHeader(event, headerName, headerValue);
+                }
+            }
+        }
+
+        // note: content-length is measured in bytes
+        final int contentStart = headersEnd + 1;
+        final int contentEnd = contentStart + Math.max(length, 0);
+        if (contentEnd > limit) {
+            return null;
+        }
+
+        if (length >= 0) {
+            decodeContent(event, length, decodeText(buffer, contentStart, contentEnd));
+        }
+
+        buffer.position(contentEnd);
+        return event;
+    }
+
+    private static CommandEvent newEvent(String eventType) {
+        switch (eventType) {
+        case "PREPARED":
+            return new PreparedEvent();
+        case "STARTED":
+            return new StartedEvent();
+        case "ERROR":
+            return new ErrorEvent();
+        case "FINISHED":
+            return new FinishedEvent();
+        case "NOTIFIED":
+            return new NotifiedEvent();
+        default:
+            throw new IllegalStateException("Invalid protocol frame: " + eventType);
+        }
+    }
+
+    private static void decodeHeader(CommandEvent event, String headerName, String headerValue) {
+        switch (event.getKind()) {
+        case PREPARED:
+            if ("barrier".equals(headerName)) {
+                ((PreparedEvent) event).getBarriers().add(headerValue);
+            }
+            break;
+        case FINISHED:
+            if ("notified".equals(headerName)) {
+                ((FinishedEvent) event).getCompletedBarriers().add(headerValue);
+            } else if ("awaiting".equals(headerName)) {
+                ((FinishedEvent) event).getIncompleteBarriers().add(headerValue);
+            }
+            break;
+        case NOTIFIED:
+            if ("barrier".equals(headerName)) {
+                ((NotifiedEvent) event).setBarrier(headerValue);
+            }
+            break;
+        case ERROR:
+            if ("summary".equals(headerName)) {
+                ((ErrorEvent) event).setSummary(headerValue);
+            }
+            break;
+        default:
+            // NOP allow unrecognized headers for future compatibility
+        }
+    }
+
+    private static void decodeContent(CommandEvent event, int length, String content) {
+        switch (event.getKind()) {
+        case PREPARED:
+            // note: zero-length script should be non-null
+            ((PreparedEvent) event).setScript(content);
+            break;
+        case FINISHED:
+            ((FinishedEvent) event).setScript(content);
+            break;
+        case ERROR:
+            if (length > 0) {
+                ((ErrorEvent) event).setDescription(content);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static String decodeText(ByteBuffer buffer, int start, int end) {
+        ByteBuffer text = buffer.duplicate();
+        text.limit(end);
+        text.position(start);
+        return UTF_8.decode(text).toString();
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+
+/**
+ * Receives the events of a {@link ControlSession}.
+ * Callbacks are made on the I/O thread of the {@link ControlClient} and must not block.
+ */
+public interface ControlListener {
+
+    /**
+     * Called when an event is received from k3po.
+     * @param event the received event
+     */
+    void onEvent(CommandEvent event);
+
+    /**
+     * Called once when the control connection is closed.
+     * @param cause the failure that closed the connection, or null if it was closed normally
+     */
+    void onClosed(Throwable cause);
+}
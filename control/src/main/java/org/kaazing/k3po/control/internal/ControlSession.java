@@ -0,0 +1,100 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.kaazing.k3po.control.internal.command.AwaitCommand;
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.command.NotifyCommand;
+
+/**
+ * A script session with k3po, driven by the I/O thread of a {@link ControlClient}.
+ * Commands may be written from any thread and are sent as soon as the I/O thread is woken up.
+ */
+public final class ControlSession {
+
+    private final ControlConnection connection;
+    private final int sessionId;
+    private final ControlListener listener;
+    private final CompletableFuture<ControlSession> connectFuture;
+
+    private volatile boolean closed;
+
+    ControlSession(ControlConnection connection, int sessionId, ControlListener listener,
+            CompletableFuture<ControlSession> connectFuture) {
+        this.connection = connection;
+        this.sessionId = sessionId;
+        this.listener = listener;
+        this.connectFuture = connectFuture;
+    }
+
+    /**
+     * Writes a command to the wire.
+     * @param command to write to the wire
+     * @return a future completed when the command has been written
+     */
+    public CompletableFuture<Void> writeCommand(Command command) {
+        if (closed) {
+            CompletableFuture<Void> written = new CompletableFuture<>();
+            written.completeExceptionally(new IllegalStateException("Not connected"));
+            return written;
+        }
+
+        return connection.write(sessionId, command);
+    }
+
+    public CompletableFuture<Void> notifyBarrier(String barrierName) {
+        final NotifyCommand notifyCommand = new NotifyCommand();
+        notifyCommand.setBarrier(barrierName);
+        return writeCommand(notifyCommand);
+    }
+
+    public CompletableFuture<Void> sendAwaitBarrier(String barrierName) {
+        final AwaitCommand awaitCommand = new AwaitCommand();
+        awaitCommand.setBarrier(barrierName);
+        return writeCommand(awaitCommand);
+    }
+
+    public boolean isConnected() {
+        return !closed && !connection.isClosed();
+    }
+
+    /**
+     * Disconnects from the k3po server, after any commands already written have been flushed.
+     * The connection itself is closed once none of its sessions remain.
+     */
+    public void disconnect() {
+        closed = true;
+        connection.execute(() -> connection.disconnect(this));
+    }
+
+    int getSessionId() {
+        return sessionId;
+    }
+
+    ControlListener getListener() {
+        return listener;
+    }
+
+    CompletableFuture<ControlSession> getConnectFuture() {
+        return connectFuture;
+    }
+
+    void closed() {
+        closed = true;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+
+import org.kaazing.k3po.control.internal.command.Command;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+
+/**
+ * Control protocol version 2.0, one script per connection in a line-oriented text format.
+ */
+final class TextControlCodec implements ControlCodec {
+
+    private final ControlEncoder encoder;
+    private final ControlEventDecoder decoder;
+
+    TextControlCodec() {
+        this.encoder = new ControlEncoder();
+        this.decoder = new ControlEventDecoder();
+    }
+
+    @Override
+    public boolean isMultiplexed() {
+        return false;
+    }
+
+    @Override
+    public ByteBuffer encodePreface() {
+        return null;
+    }
+
+    @Override
+    public ByteBuffer encode(int sessionId, Command command) throws CharacterCodingException {
+        return encoder.encode(command);
+    }
+
+    @Override
+    public void decode(ByteBuffer buffer, EventReceiver receiver) {
+        for (CommandEvent event = decoder.decode(buffer); event != null; event = decoder.decode(buffer)) {
+            receiver.onEvent(0, event);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.kaazing.k3po.control.internal.command.AbortCommand;
+import org.kaazing.k3po.control.internal.command.PrepareCommand;
+import org.kaazing.k3po.control.internal.command.StartCommand;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+import org.kaazing.k3po.control.internal.event.FinishedEvent;
+import org.kaazing.k3po.control.internal.event.PreparedEvent;
+import org.kaazing.k3po.control.internal.event.StartedEvent;
+import org.kaazing.k3po.driver.internal.RobotServer;
+
+public class ControlClientIT {
+
+    private static final URLStreamHandler TCP_HANDLER = new URLStreamHandler() {
+        @Override
+        protected URLConnection openConnection(URL location) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Rule
+    public TestRule timeout = new DisableOnDebug(new Timeout(10, SECONDS));
+
+    private RobotServer robot;
+    private ControlClient client;
+
+    @Before
+    public void setupRobot() throws Exception {
+        robot = new RobotServer(URI.create("tcp://localhost:9081"), false,
+                new URLClassLoader(new URL[]{new File("src/test/scripts").toURI().toURL()}));
+        robot.start();
+        client = new ControlClient("3.0");
+    }
+
+    @After
+    public void shutdownRobot() throws Exception {
+        client.close();
+        robot.stop();
+    }
+
+    @Test
+    public void shouldRunConcurrentSessionsWithVersion3() throws Exception {
+        URL location = new URL(null, "tcp://localhost:9081", TCP_HANDLER);
+        BlockingQueue<CommandEvent> acceptEvents = new LinkedBlockingQueue<>();
+        BlockingQueue<CommandEvent> abortEvents = new LinkedBlockingQueue<>();
+
+        ControlSession acceptSession = client.connect(location, new QueueingListener(acceptEvents)).get(5, SECONDS);
+        ControlSession abortSession = client.connect(location, new QueueingListener(abortEvents)).get(5, SECONDS);
+
+        // both sessions are prepared before either one finishes
+        acceptSession.writeCommand(prepare("org/kaazing/k3po/control/internal/accept.then.close")).get(5, SECONDS);
+        abortSession.writeCommand(prepare("org/kaazing/k3po/control/internal/connect.then.abort")).get(5, SECONDS);
+
+        String acceptScript = "accept \"tcp://localhost:8081\"\n" +
+                              "accepted\n" +
+                              "connected\n" +
+                              "close\n" +
+                              "closed\n";
+        String abortScript = "connect \"tcp://localhost:8082\"\n" +
+                             "connected\n" +
+                             "read [0..4]\n" +
+                             "close\n" +
+                             "closed\n";
+
+        assertEquals(acceptScript, ((PreparedEvent) acceptEvents.take()).getScript());
+        assertEquals(abortScript, ((PreparedEvent) abortEvents.take()).getScript());
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 8081));
+
+            acceptSession.writeCommand(new StartCommand()).get(5, SECONDS);
+            abortSession.writeCommand(new AbortCommand()).get(5, SECONDS);
+
+            // the observed script of the aborted session differs from the prepared script in every line
+            assertEquals("\n", ((FinishedEvent) abortEvents.take()).getScript());
+
+            // the observed script of the finished session matches the prepared script in every line
+            assertTrue(acceptEvents.take() instanceof StartedEvent);
+            assertEquals(acceptScript, ((FinishedEvent) acceptEvents.take()).getScript());
+        }
+    }
+
+    private static PrepareCommand prepare(String name) {
+        PrepareCommand prepare = new PrepareCommand();
+        prepare.setName(name);
+        return prepare;
+    }
+
+    private static final class QueueingListener implements ControlListener {
+
+        private final BlockingQueue<CommandEvent> events;
+
+        QueueingListener(BlockingQueue<CommandEvent> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onEvent(CommandEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onClosed(Throwable cause) {
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.control.internal;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.Charset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.k3po.control.internal.command.PrepareCommand;
+import org.kaazing.k3po.control.internal.command.StartCommand;
+import org.kaazing.k3po.control.internal.event.CommandEvent;
+import org.kaazing.k3po.control.internal.event.FinishedEvent;
+import org.kaazing.k3po.control.internal.event.PreparedEvent;
+import org.kaazing.k3po.control.internal.event.StartedEvent;
+
+public class ControlClientTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final URLStreamHandler TCP_HANDLER = new URLStreamHandler() {
+        @Override
+        protected URLConnection openConnection(URL location) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private ControlClient client;
+    private ServerSocket server;
+    private BlockingQueue<CommandEvent> events;
+
+    @Before
+    public void setupClient() throws Exception {
+        client = new ControlClient();
+        server = new ServerSocket();
+        server.bind(new InetSocketAddress("localhost", 0));
+        events = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void closeClient() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void shouldWriteCommandsAndReadEvents() throws Exception {
+        URL location = new URL(null, "tcp://localhost:" + server.getLocalPort(), TCP_HANDLER);
+        ControlSession session = client.connect(location, new ControlListener() {
+
+            @Override
+            public void onEvent(CommandEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onClosed(Throwable cause) {
+            }
+        }).get(5, SECONDS);
+
+        try (Socket socket = server.accept()) {
+            InputStream input = socket.getInputStream();
+            OutputStream output = socket.getOutputStream();
+
+            PrepareCommand prepare = new PrepareCommand();
+            prepare.setName("org/kaazing/robot/control/myscript");
+            session.writeCommand(prepare).get(5, SECONDS);
+
+            assertEquals("PREPARE\n" +
+                         "version:2.0\n" +
+                         "content-length:0\n" +
+                         "name:org/kaazing/robot/control/myscript\n" +
+                         "\n", read(input, 78));
+
+            String script = "# comment\nconnect tcp://localhost:8080\nconnected\n";
+
+            // events split across writes are reassembled
+            output.write(("PREPARED\n" +
+                          "content-length:" + script.length() + "\n" +
+                          "\n" +
+                          "# comm").getBytes(UTF_8));
+            output.flush();
+            output.write((script.substring(6) +
+                          "STARTED\n" +
+                          "\n").getBytes(UTF_8));
+            output.flush();
+
+            PreparedEvent expectedPrepared = new PreparedEvent();
+            expectedPrepared.setScript(script);
+
+            assertEquals(expectedPrepared, events.poll(5, SECONDS));
+            assertEquals(new StartedEvent(), events.poll(5, SECONDS));
+
+            session.writeCommand(new StartCommand()).get(5, SECONDS);
+            assertEquals("START\n\n", read(input, 7));
+
+            output.write(("FINISHED\n" +
+                          "content-length:" + script.length() + "\n" +
+                          "\n" +
+                          script).getBytes(UTF_8));
+            output.flush();
+
+            FinishedEvent expectedFinished = new FinishedEvent();
+            expectedFinished.setScript(script);
+
+            assertEquals(expectedFinished, events.poll(5, SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldMultiplexSessionsWithVersion3() throws Exception {
+        URL location = new URL(null, "tcp://localhost:" + server.getLocalPort(), TCP_HANDLER);
+        final BlockingQueue<CommandEvent> otherEvents = new LinkedBlockingQueue<>();
+
+        try (ControlClient multiplexingClient = new ControlClient("3.0")) {
+            ControlSession session = multiplexingClient.connect(location, new ControlListener() {
+
+                @Override
+                public void onEvent(CommandEvent event) {
+                    events.add(event);
+                }
+
+                @Override
+                public void onClosed(Throwable cause) {
+                }
+            }).get(5, SECONDS);
+
+            ControlSession otherSession = multiplexingClient.connect(location, new ControlListener() {
+
+                @Override
+                public void onEvent(CommandEvent event) {
+                    otherEvents.add(event);
+                }
+
+                @Override
+                public void onClosed(Throwable cause) {
+                }
+            }).get(5, SECONDS);
+
+            // both sessions share the one accepted connection
+            try (Socket socket = server.accept()) {
+                DataInputStream input = new DataInputStream(socket.getInputStream());
+                DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+
+                byte[] preface = new byte[4];
+                input.readFully(preface);
+                assertArrayEquals(new byte[] { 0x00, 'K', '3', 0x03 }, preface);
+
+                PrepareCommand prepare = new PrepareCommand();
+                prepare.setName("org/kaazing/robot/control/myscript");
+                otherSession.writeCommand(prepare).get(5, SECONDS);
+
+                assertEquals(62, input.readInt());
+                assertEquals(1, input.readByte());
+                assertEquals(1, input.readInt());
+                assertEquals("3.0", readString(input));
+                assertEquals(null, readString(input));
+                assertEquals(1, input.readInt());
+                assertEquals("org/kaazing/robot/control/myscript", readString(input));
+                assertEquals(0, input.readInt());
+
+                String script = "connect tcp://localhost:8080\nconnected\nclose\nclosed\n";
+                byte[] scriptBytes = script.getBytes(UTF_8);
+
+                output.writeInt(1 + 4 + 4 + 4 + scriptBytes.length);
+                output.writeByte(2);
+                output.writeInt(1);
+                output.writeInt(0);
+                output.writeInt(scriptBytes.length);
+                output.write(scriptBytes);
+                output.flush();
+
+                PreparedEvent expectedPrepared = new PreparedEvent();
+                expectedPrepared.setScript(script);
+
+                assertEquals(expectedPrepared, otherEvents.poll(5, SECONDS));
+
+                // observed script differs from the prepared script in the middle lines only
+                byte[] replacement = "connect failed\n".getBytes(UTF_8);
+
+                output.writeInt(1 + 4 + 4 + 4 + 4 + 4 + 4 + replacement.length);
+                output.writeByte(7);
+                output.writeInt(1);
+                output.writeInt(0);
+                output.writeInt(0);
+                output.writeInt(1);
+                output.writeInt(2);
+                output.writeInt(replacement.length);
+                output.write(replacement);
+                output.flush();
+
+                FinishedEvent expectedFinished = new FinishedEvent();
+                expectedFinished.setScript("connect tcp://localhost:8080\nconnect failed\nclose\nclosed\n");
+
+                assertEquals(expectedFinished, otherEvents.poll(5, SECONDS));
+
+                session.writeCommand(new StartCommand()).get(5, SECONDS);
+
+                assertEquals(5, input.readInt());
+                assertEquals(3, input.readByte());
+                assertEquals(0, input.readInt());
+                assertEquals(null, events.poll());
+            }
+        }
+    }
+
+    @Test
+    public void shouldFailToConnect() throws Exception {
+        int port = server.getLocalPort();
+        server.close();
+
+        URL location = new URL(null, "tcp://localhost:" + port, TCP_HANDLER);
+        try {
+            client.connect(location, null).get(5, SECONDS);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConnectException);
+            return;
+        }
+
+        throw new AssertionError("Expected connect to fail");
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String read(InputStream input, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int bytesRead = input.read(bytes, offset, length - offset);
+            if (bytesRead == -1) {
+                break;
+            }
+            offset += bytesRead;
+        }
+        return new String(bytes, 0, offset, UTF_8);
+    }
+}
@@ -19,15 +19,16 @@ import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
 import static org.jboss.netty.channel.Channels.pipeline;
 import static org.jboss.netty.channel.Channels.pipelineFactory;
-import static org.jboss.netty.util.CharsetUtil.UTF_8;
 import static org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory.newBootstrapFactory;
 import static org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory.newChannelAddressFactory;
 import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
 
-import java.io.ByteArrayInputStream;
 import java.net.SocketAddress;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,24 +51,26 @@ import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.local.DefaultLocalClientChannelFactory;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
+import org.jboss.netty.util.Timer;
 import org.kaazing.k3po.driver.internal.behavior.Barrier;
 import org.kaazing.k3po.driver.internal.behavior.Configuration;
 import org.kaazing.k3po.driver.internal.behavior.ScriptProgress;
 import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
 import org.kaazing.k3po.driver.internal.behavior.handler.CompletionHandler;
-import org.kaazing.k3po.driver.internal.behavior.parser.Parser;
-import org.kaazing.k3po.driver.internal.behavior.parser.ScriptValidator;
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
 import org.kaazing.k3po.driver.internal.behavior.visitor.GenerateConfigurationVisitor;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.VirtualTimeHandler;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.VirtualTimer;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory;
 import org.kaazing.k3po.driver.internal.netty.channel.CompositeChannelFuture;
 import org.kaazing.k3po.driver.internal.resolver.ClientBootstrapResolver;
 import org.kaazing.k3po.driver.internal.resolver.ServerBootstrapResolver;
 import org.kaazing.k3po.lang.internal.RegionInfo;
 import org.kaazing.k3po.lang.internal.ast.AstScriptNode;
-import org.kaazing.k3po.lang.internal.parser.ScriptParser;
 
 public class Robot {
 
@@ -90,17 +93,34 @@ public class Robot {
 
     private final ChannelAddressFactory addressFactory;
     private final BootstrapFactory bootstrapFactory;
+    private final ChannelHandler virtualTimeHandler;
 
     private ScriptProgress progress;
 
+    private final List<ChannelFuture> streamCompletionFutures = new ArrayList<>();
+
     private final ChannelHandler closeOnExceptionHandler = new CloseOnExceptionHandler();
 
     private final ConcurrentMap<String, Barrier> barriersByName = new ConcurrentHashMap<String, Barrier>();
 
     public Robot() {
+        this(Collections.<Class<?>, Object>emptyMap());
+    }
+
+    /**
+     * Creates a robot whose transports use the given long-lived resources, such as those of a
+     * {@link org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime}, instead of creating their own.
+     */
+    public Robot(Map<Class<?>, Object> injectables) {
         this.addressFactory = newChannelAddressFactory();
-        this.bootstrapFactory =
-                newBootstrapFactory(Collections.<Class<?>, Object>singletonMap(ChannelAddressFactory.class, addressFactory));
+
+        Map<Class<?>, Object> robotInjectables = new HashMap<>(injectables);
+        robotInjectables.put(ChannelAddressFactory.class, addressFactory);
+        this.bootstrapFactory = newBootstrapFactory(robotInjectables);
+
+        Timer timer = (Timer) injectables.get(Timer.class);
+        this.virtualTimeHandler =
+                (timer instanceof VirtualTimer) ? new VirtualTimeHandler((VirtualTimer) timer) : null;
 
         ChannelFutureListener stopConfigurationListener = createStopConfigurationListener();
         this.abortedFuture.addListener(stopConfigurationListener);
@@ -119,23 +139,39 @@ public class Robot {
         return disposedFuture;
     }
 
+    /**
+     * Returns the completion futures of each stream, in script order, once the script has been prepared.
+     */
+    public List<ChannelFuture> getStreamCompletionFutures() {
+        return streamCompletionFutures;
+    }
+
     public ChannelFuture prepare(String expectedScript) throws Exception {
+        configure(expectedScript);
+        return prepare();
+    }
 
-        if (preparedFuture != null) {
-            throw new IllegalStateException("Script already prepared");
-        }
+    /**
+     * Parses the script and generates its configuration, without binding any accept locations.
+     */
+    public void configure(String expectedScript) throws Exception {
+        configure(ScriptCache.compile(expectedScript));
+    }
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Expected script:\n" + expectedScript);
-        }
+    /**
+     * Generates the configuration of an already parsed script, without binding any accept locations.
+     */
+    public void configure(CompiledScript script) throws Exception {
 
-        final ScriptParser parser = new Parser();
-        AstScriptNode scriptAST = parser.parse(new ByteArrayInputStream(expectedScript.getBytes(UTF_8)));
+        if (configuration != null) {
+            throw new IllegalStateException("Script already configured");
+        }
 
-        final ScriptValidator validator = new ScriptValidator();
-        validator.validate(scriptAST);
+        String expectedScript = script.getText();
+        AstScriptNode scriptAST = script.getAst();
 
         if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Expected script:\n" + expectedScript);
             LOGGER.debug("Parsed script:\n" + scriptAST);
         }
 
@@ -144,12 +180,46 @@ public class Robot {
 
         final GenerateConfigurationVisitor visitor = new GenerateConfigurationVisitor(bootstrapFactory, addressFactory);
         configuration = scriptAST.accept(visitor, new GenerateConfigurationVisitor.State(barriersByName));
+    }
+
+    /**
+     * Binds the accept locations of a previously configured script.
+     */
+    public ChannelFuture prepare() throws Exception {
+
+        if (configuration == null) {
+            throw new IllegalStateException("Script has not been configured");
+        } else if (preparedFuture != null) {
+            throw new IllegalStateException("Script already prepared");
+        }
 
         preparedFuture = prepareConfiguration();
 
         return preparedFuture;
     }
 
+    /**
+     * Returns the accept locations of the configured script, or {@code null} if they cannot be resolved yet.
+     */
+    public Collection<URI> getAcceptURIs() {
+
+        if (configuration == null) {
+            throw new IllegalStateException("Script has not been configured");
+        }
+
+        List<URI> acceptURIs = new ArrayList<>();
+        for (ServerBootstrapResolver serverResolver : configuration.getServerResolvers()) {
+            try {
+                acceptURIs.add(serverResolver.resolveLocation());
+            } catch (RuntimeException e) {
+                // accept location depends on state not available until the script runs
+                LOGGER.debug("Unable to resolve accept location before start", e);
+                return null;
+            }
+        }
+        return acceptURIs;
+    }
+
     // ONLY used for testing, TODO, remove and use TestSpecification instead
     ChannelFuture prepareAndStart(String script) throws Exception {
         ChannelFuture preparedFuture = prepare(script);
@@ -206,10 +276,20 @@ public class Robot {
         if (preparedFuture == null) {
             // no need to clean up if never started
             
-            // except the bootstrap factory
+            // except the bootstrap factory and any resources of a configured script
             bootstrapFactory.shutdown();
             bootstrapFactory.releaseExternalResources();
 
+            if (configuration != null) {
+                for (AutoCloseable resource : configuration.getResources()) {
+                    try {
+                        resource.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+
             disposedFuture.setSuccess();
         } else if (!disposedFuture.isDone()) {
             ChannelFuture future = abort();
@@ -260,9 +340,12 @@ public class Robot {
 
     private ChannelFuture prepareConfiguration() throws Exception {
 
-        List<ChannelFuture> completionFutures = new ArrayList<>();
+        List<ChannelFuture> completionFutures = streamCompletionFutures;
         ChannelFutureListener streamCompletionListener = createStreamCompletionListener();
         for (ChannelPipeline pipeline : configuration.getClientAndServerPipelines()) {
+            if (virtualTimeHandler != null) {
+                pipeline.addFirst("virtual-time", virtualTimeHandler);
+            }
             CompletionHandler completionHandler = pipeline.get(CompletionHandler.class);
             ChannelFuture completionFuture = completionHandler.getHandlerFuture();
             completionFutures.add(completionFuture);
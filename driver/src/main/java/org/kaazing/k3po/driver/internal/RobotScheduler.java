@@ -0,0 +1,190 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+
+/**
+ * Decides when a prepared {@link Robot} may bind its accept locations and run.
+ *
+ * At most {@code maxConcurrency} robots are active at any time. A robot is only held back when the limit is
+ * reached, or when one of its accept locations collides with an accept location of an active robot, or of a
+ * robot queued ahead of it. Robots whose accept locations are unknown are treated as colliding with everything.
+ */
+public final class RobotScheduler {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RobotScheduler.class);
+
+    private final int maxConcurrency;
+    private final List<Admission> active;
+    private final List<Admission> pending;
+
+    public RobotScheduler(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.active = new ArrayList<>();
+        this.pending = new LinkedList<>();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Requests admission for a robot.
+     *
+     * @param acceptURIs the accept locations the robot will bind, or {@code null} if they cannot be determined
+     * @param releaseFuture completes when the robot no longer holds its accept locations
+     * @return a future that completes successfully once the robot may proceed
+     */
+    public ChannelFuture admit(Collection<URI> acceptURIs, ChannelFuture releaseFuture) {
+        final Admission admission = new Admission(acceptURIs);
+
+        synchronized (this) {
+            pending.add(admission);
+        }
+
+        releaseFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                release(admission);
+            }
+        });
+
+        schedule();
+
+        return admission.future;
+    }
+
+    private void release(Admission admission) {
+        synchronized (this) {
+            if (!active.remove(admission) && pending.remove(admission)) {
+                admission.future.cancel();
+            }
+        }
+
+        schedule();
+    }
+
+    private void schedule() {
+        List<Admission> admitted = new ArrayList<>();
+
+        synchronized (this) {
+            List<Admission> skipped = new ArrayList<>();
+            for (Admission candidate : pending) {
+                if (active.size() == maxConcurrency) {
+                    break;
+                }
+
+                if (collides(candidate, active) || collides(candidate, skipped)) {
+                    skipped.add(candidate);
+                } else {
+                    admitted.add(candidate);
+                    active.add(candidate);
+                }
+            }
+            pending.removeAll(admitted);
+        }
+
+        // complete outside the lock, listeners may request further admissions
+        for (Admission admission : admitted) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Admitting robot accepting at " + admission.acceptURIs);
+            }
+            admission.future.setSuccess();
+        }
+    }
+
+    private static boolean collides(Admission candidate, List<Admission> admissions) {
+        for (Admission admission : admissions) {
+            if (candidate.collidesWith(admission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean collides(URI location, URI otherLocation) {
+        int port = port(location);
+        int otherPort = port(otherLocation);
+
+        if (port == -1 || otherPort == -1) {
+            // no port, e.g. agrona:// or file:, only the same location collides
+            return location.equals(otherLocation);
+        }
+
+        // ephemeral ports never collide
+        // hosts are ignored, as wildcard and loopback aliases of the same port can overlap
+        return port != 0 && port == otherPort;
+    }
+
+    private static int port(URI location) {
+        int port = location.getPort();
+        if (port == -1 && location.getHost() != null) {
+            switch (location.getScheme()) {
+            case "http":
+            case "ws":
+                port = 80;
+                break;
+            case "https":
+            case "wss":
+                port = 443;
+                break;
+            default:
+                break;
+            }
+        }
+        return port;
+    }
+
+    private static final class Admission {
+
+        private final Collection<URI> acceptURIs;
+        private final ChannelFuture future;
+
+        Admission(Collection<URI> acceptURIs) {
+            this.acceptURIs = acceptURIs;
+            this.future = Channels.future(null, true);
+        }
+
+        boolean collidesWith(Admission that) {
+            if (this.acceptURIs == null || that.acceptURIs == null) {
+                return true;
+            }
+
+            for (URI location : this.acceptURIs) {
+                for (URI otherLocation : that.acceptURIs) {
+                    if (collides(location, otherLocation)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -15,16 +15,16 @@
  */
 package org.kaazing.k3po.driver.internal;
 
-import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.lang.String.format;
 import static org.jboss.netty.channel.Channels.pipeline;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
@@ -37,26 +37,43 @@ import org.jboss.netty.channel.ChildChannelStateEvent;
 import org.jboss.netty.channel.SimpleChannelHandler;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
-import org.jboss.netty.channel.socket.nio.NioClientBossPool;
-import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
-import org.jboss.netty.channel.socket.nio.NioServerBossPool;
-import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
-import org.jboss.netty.channel.socket.nio.NioWorker;
-import org.jboss.netty.channel.socket.nio.NioWorkerPool;
-import org.jboss.netty.channel.socket.nio.ShareableWorkerPool;
 import org.jboss.netty.handler.logging.LoggingHandler;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
+import org.kaazing.k3po.driver.internal.behavior.BehaviorSystemSpi;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptIndex;
 import org.kaazing.k3po.driver.internal.control.handler.ControlDecoder;
 import org.kaazing.k3po.driver.internal.control.handler.ControlEncoder;
+import org.kaazing.k3po.driver.internal.control.handler.ControlProtocolDetector;
 import org.kaazing.k3po.driver.internal.control.handler.ControlServerHandler;
+import org.kaazing.k3po.driver.internal.control.handler.ControlSessionHandler;
+import org.kaazing.k3po.driver.internal.executor.ExecutorServiceFactory;
+import org.kaazing.k3po.driver.internal.executor.spi.ExecutorServiceFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactorySpi;
+import org.kaazing.k3po.lang.el.spi.FunctionMapperSpi;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
+import org.kaazing.k3po.lang.types.TypeSystemSpi;
 
 public class RobotServer {
 
+    private static final int SCRIPT_CACHE_CAPACITY = 64;
+
+    private static final Class<?>[] SERVICES = {
+        BootstrapFactorySpi.class,
+        ChannelAddressFactorySpi.class,
+        ExecutorServiceFactorySpi.class,
+        FunctionMapperSpi.class,
+        BehaviorSystemSpi.class,
+        TypeSystemSpi.class
+    };
+
     private final ChannelGroup channelGroup;
     private final List<ControlServerHandler> controlHandlers;
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RobotServer.class);
@@ -65,20 +82,33 @@ public class RobotServer {
     private final URI controlURI;
     private Channel serverChannel;
     private final boolean verbose;
+    private final boolean virtualTime;
     private final ClassLoader scriptLoader;
 
-    private ShareableWorkerPool<NioWorker> sharedWorkerPool;
-    private NioClientSocketChannelFactory clientChannelFactory;
-    private NioServerSocketChannelFactory serverChannelFactory;
+    private TransportRuntime transportRuntime;
 
-    private AtomicReference<Robot> activeRobotRef  = new AtomicReference<Robot>(null);
+    private final RobotScheduler scheduler;
+    private final ScriptCache scriptCache;
+    private final List<ServiceRegistry> serviceRegistries;
 
     public RobotServer(URI controlURI, boolean verbose, ClassLoader scriptLoader) {
+        this(controlURI, verbose, scriptLoader, 1);
+    }
+
+    public RobotServer(URI controlURI, boolean verbose, ClassLoader scriptLoader, int maxConcurrency) {
+        this(controlURI, verbose, scriptLoader, maxConcurrency, false);
+    }
+
+    public RobotServer(URI controlURI, boolean verbose, ClassLoader scriptLoader, int maxConcurrency, boolean virtualTime) {
         this.controlURI = controlURI;
         this.verbose = verbose;
+        this.virtualTime = virtualTime;
         this.scriptLoader = scriptLoader;
+        this.scheduler = new RobotScheduler(maxConcurrency);
+        this.scriptCache = new ScriptCache(SCRIPT_CACHE_CAPACITY);
         this.channelGroup = new DefaultChannelGroup("robot-server");
         this.controlHandlers = new CopyOnWriteArrayList<>();
+        this.serviceRegistries = new ArrayList<>();
     }
 
     public void start() throws Exception {
@@ -86,23 +116,25 @@ public class RobotServer {
             throw new NullPointerException("controlURI");
         }
 
+        // discover service providers once, shared by all robots until stopped
+        registerServices(Thread.currentThread().getContextClassLoader());
+        if (scriptLoader != null) {
+            registerServices(scriptLoader);
+        }
+
         Map<String, Object> options = new HashMap<>();
         // TODO: options.put("tcp.transport", "socks://...");
 
         final ChannelAddressFactory addressFactory = ChannelAddressFactory.newChannelAddressFactory();
         ChannelAddress localAddress = addressFactory.newChannelAddress(controlURI, options);
 
-        NioClientBossPool clientBossPool = new NioClientBossPool(newCachedThreadPool(), 1);
-        NioServerBossPool serverBossPool = new NioServerBossPool(newCachedThreadPool(), 1);
-        NioWorkerPool workerPool = new NioWorkerPool(newCachedThreadPool(), 1);
-        sharedWorkerPool = new ShareableWorkerPool<>(workerPool);
-        clientChannelFactory = new NioClientSocketChannelFactory(clientBossPool, sharedWorkerPool);
-        serverChannelFactory = new NioServerSocketChannelFactory(serverBossPool, sharedWorkerPool);
+        // selectors and worker threads are shared by the control channels and all robots
+        transportRuntime = new TransportRuntime(ExecutorServiceFactory.newInstance(),
+                Runtime.getRuntime().availableProcessors(), virtualTime);
+        final Map<Class<?>, Object> robotInjectables = transportRuntime.getInjectables();
 
-        Map<Class<?>, Object> injectables = new HashMap<>();
+        Map<Class<?>, Object> injectables = new HashMap<>(robotInjectables);
         injectables.put(ChannelAddressFactory.class, addressFactory);
-        injectables.put(NioClientSocketChannelFactory.class, clientChannelFactory);
-        injectables.put(NioServerSocketChannelFactory.class, serverChannelFactory);
 
         bootstrapFactory = BootstrapFactory.newBootstrapFactory(injectables);
 
@@ -116,6 +148,11 @@ public class RobotServer {
 
                 ChannelPipeline pipeline = pipeline();
 
+                // control protocol 3.0 swaps in its own codec and session handler, 2.0 is used as is
+                ControlSessionHandler sessions = new ControlSessionHandler(() -> newControlHandler(robotInjectables));
+                ChannelHandler detector = new ControlProtocolDetector(sessions);
+                pipeline.addLast("control.protocol", detector);
+
                 ChannelHandler decoder = new ControlDecoder();
                 pipeline.addLast("control.decoder", decoder);
 
@@ -127,8 +164,7 @@ public class RobotServer {
                     pipeline.addLast("control.logging", logging);
                 }
 
-                ControlServerHandler controller = new ControlServerHandler(activeRobotRef);
-                controller.setScriptLoader(scriptLoader);
+                ControlServerHandler controller = newControlHandler(robotInjectables);
                 pipeline.addLast("control.handler", controller);
 
                 return pipeline;
@@ -163,6 +199,30 @@ public class RobotServer {
         serverChannel = server.bind(localAddress);
     }
 
+    private ControlServerHandler newControlHandler(Map<Class<?>, Object> robotInjectables) {
+        ControlServerHandler controller = new ControlServerHandler(scheduler);
+        controller.setScriptLoader(scriptLoader);
+        controller.setInjectables(robotInjectables);
+        controller.setScriptCache(scriptCache);
+        return controller;
+    }
+
+    /**
+     * Discovers service providers again, such as transports added to the class path since the server started
+     */
+    public void refreshServices() {
+        for (ServiceRegistry serviceRegistry : serviceRegistries) {
+            serviceRegistry.refresh();
+            serviceRegistry.discover(SERVICES);
+        }
+    }
+
+    private void registerServices(ClassLoader classLoader) {
+        ServiceRegistry serviceRegistry = ServiceRegistry.register(classLoader);
+        serviceRegistry.discover(SERVICES);
+        serviceRegistries.add(serviceRegistry);
+    }
+
     public void stop() throws TimeoutException {
         boolean isDebugEnabled = LOGGER.isDebugEnabled();
         if (serverChannel != null) {
@@ -187,31 +247,52 @@ public class RobotServer {
             // controller.completeShutDown(2000);
         }
 
-        if (clientChannelFactory != null) {
-            LOGGER.debug("Releasing tcp client channel factory");
-            clientChannelFactory.shutdown();
-            clientChannelFactory.releaseExternalResources();
-            LOGGER.debug("Released tcp client channel factory");
+        if (bootstrapFactory != null) {
+            LOGGER.debug("Releasing external resources");
+            bootstrapFactory.releaseExternalResources();
+            LOGGER.debug("External resources released.");
         }
 
-        if (serverChannelFactory != null) {
-            LOGGER.debug("Releasing tcp server channel factory");
-            serverChannelFactory.shutdown();
-            serverChannelFactory.releaseExternalResources();
-            LOGGER.debug("Released tcp server channel factory");
+        if (transportRuntime != null) {
+            LOGGER.debug("Releasing transport runtime");
+            transportRuntime.releaseExternalResources();
+            LOGGER.debug("Released transport runtime.");
         }
 
-        if (sharedWorkerPool != null) {
-            LOGGER.debug("Destroying shared worker pool");
-            sharedWorkerPool.destroy();
-            LOGGER.debug("Destroyed shared worker pool.");
+        for (ServiceRegistry serviceRegistry : serviceRegistries) {
+            serviceRegistry.unregister();
         }
+        serviceRegistries.clear();
 
-        if (bootstrapFactory != null) {
-            LOGGER.debug("Releasing external resources");
-            bootstrapFactory.releaseExternalResources();
-            LOGGER.debug("External resources released.");
+        if (isDebugEnabled) {
+            LOGGER.debug(getMetricsReport());
+        }
+    }
+
+    /**
+     * Returns the metrics of this server, such as script cache hits and misses or http connection reuse, one per
+     * line.
+     */
+    public String getMetricsReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(format("script cache: %d hits, %d misses%n",
+                scriptCache.getHitCount(), scriptCache.getMissCount()));
+        TransportRuntime transportRuntime = this.transportRuntime;
+        if (transportRuntime != null) {
+            report.append(format("%s%n", transportRuntime.getHttpConnectionMetrics()));
         }
+        return report.toString();
+    }
+
+    /**
+     * Sets the index of precompiled scripts, see {@link ScriptIndex}
+     */
+    public void setScriptIndex(ScriptIndex scriptIndex) {
+        scriptCache.setIndex(scriptIndex);
+    }
+
+    public ScriptCache getScriptCache() {
+        return scriptCache;
     }
 
     public void join() throws InterruptedException {
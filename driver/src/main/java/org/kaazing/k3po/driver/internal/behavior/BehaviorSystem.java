@@ -16,7 +16,6 @@
 package org.kaazing.k3po.driver.internal.behavior;
 
 import static java.util.Collections.unmodifiableMap;
-import static java.util.ServiceLoader.load;
 
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -25,6 +24,7 @@ import java.util.function.Function;
 import org.jboss.netty.channel.ChannelHandler;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 import org.kaazing.k3po.lang.internal.ast.AstReadConfigNode;
 import org.kaazing.k3po.lang.internal.ast.AstReadOptionNode;
 import org.kaazing.k3po.lang.internal.ast.AstWriteConfigNode;
@@ -105,6 +105,6 @@ public final class BehaviorSystem {
     }
 
     public static final BehaviorSystem newInstance() {
-        return new BehaviorSystem(load(BehaviorSystemSpi.class));
+        return new BehaviorSystem(ServiceRegistry.current().services(BehaviorSystemSpi.class));
     }
 }
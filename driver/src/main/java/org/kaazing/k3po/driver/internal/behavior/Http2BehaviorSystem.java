@@ -0,0 +1,255 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior;
+
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+import static org.kaazing.k3po.driver.internal.types.Http2TypeSystem.CONFIG_HEADER;
+import static org.kaazing.k3po.driver.internal.types.Http2TypeSystem.CONFIG_TRAILER;
+import static org.kaazing.k3po.driver.internal.types.Http2TypeSystem.OPTION_HUFFMAN;
+import static org.kaazing.k3po.driver.internal.types.Http2TypeSystem.OPTION_INDEXING;
+import static org.kaazing.k3po.driver.internal.types.Http2TypeSystem.OPTION_WINDOW;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jboss.netty.channel.ChannelHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.http2.Http2HeaderDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.http2.Http2HeaderEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.http2.Http2HeaderMissingDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.http2.Http2TrailerDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.http2.Http2TrailerEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.ReadConfigHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.WriteConfigHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.http2.ReadOptionHttp2WindowHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.http2.WriteOptionHttp2HuffmanHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.http2.WriteOptionHttp2IndexingHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.event.http.ReadHttpTrailersHandler;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.HpackIndexing;
+import org.kaazing.k3po.lang.internal.ast.AstReadConfigNode;
+import org.kaazing.k3po.lang.internal.ast.AstReadOptionNode;
+import org.kaazing.k3po.lang.internal.ast.AstWriteConfigNode;
+import org.kaazing.k3po.lang.internal.ast.AstWriteOptionNode;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstExactTextMatcher;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstValueMatcher;
+import org.kaazing.k3po.lang.internal.ast.value.AstValue;
+import org.kaazing.k3po.lang.types.StructuredTypeInfo;
+import org.kaazing.k3po.lang.types.TypeInfo;
+
+public class Http2BehaviorSystem implements BehaviorSystemSpi {
+
+    private final Map<TypeInfo<?>, ReadOptionFactory> readOptionFactories;
+    private final Map<TypeInfo<?>, WriteOptionFactory> writeOptionFactories;
+
+    private final Map<StructuredTypeInfo, ReadConfigFactory> readConfigFactories;
+    private final Map<StructuredTypeInfo, WriteConfigFactory> writeConfigFactories;
+
+    public Http2BehaviorSystem()
+    {
+        this.readOptionFactories = singletonMap(OPTION_WINDOW, Http2BehaviorSystem::newReadHttp2WindowHandler);
+
+        Map<TypeInfo<?>, WriteOptionFactory> writeOptionFactories = new LinkedHashMap<>();
+        writeOptionFactories.put(OPTION_HUFFMAN, Http2BehaviorSystem::newWriteHttp2HuffmanHandler);
+        writeOptionFactories.put(OPTION_INDEXING, Http2BehaviorSystem::newWriteHttp2IndexingHandler);
+        this.writeOptionFactories = unmodifiableMap(writeOptionFactories);
+
+        Map<StructuredTypeInfo, ReadConfigFactory> readConfigFactories = new LinkedHashMap<>();
+        readConfigFactories.put(CONFIG_HEADER, Http2BehaviorSystem::newReadHttp2HeaderHandler);
+        readConfigFactories.put(CONFIG_TRAILER, Http2BehaviorSystem::newReadHttp2TrailerHandler);
+        this.readConfigFactories = unmodifiableMap(readConfigFactories);
+
+        Map<StructuredTypeInfo, WriteConfigFactory> writeConfigFactories = new LinkedHashMap<>();
+        writeConfigFactories.put(CONFIG_HEADER, Http2BehaviorSystem::newWriteHttp2HeaderHandler);
+        writeConfigFactories.put(CONFIG_TRAILER, Http2BehaviorSystem::newWriteHttp2TrailerHandler);
+        this.writeConfigFactories = unmodifiableMap(writeConfigFactories);
+    }
+
+    @Override
+    public Set<StructuredTypeInfo> getReadConfigTypes()
+    {
+        return readConfigFactories.keySet();
+    }
+
+    @Override
+    public Set<StructuredTypeInfo> getWriteConfigTypes()
+    {
+        return writeConfigFactories.keySet();
+    }
+
+    @Override
+    public ReadConfigFactory readConfigFactory(
+        StructuredTypeInfo configType)
+    {
+        return readConfigFactories.get(configType);
+    }
+
+    @Override
+    public WriteConfigFactory writeConfigFactory(
+        StructuredTypeInfo configType)
+    {
+        return writeConfigFactories.get(configType);
+    }
+
+    @Override
+    public Set<TypeInfo<?>> getReadOptionTypes()
+    {
+        return readOptionFactories.keySet();
+    }
+
+    @Override
+    public Set<TypeInfo<?>> getWriteOptionTypes()
+    {
+        return writeOptionFactories.keySet();
+    }
+
+    @Override
+    public ReadOptionFactory readOptionFactory(
+        TypeInfo<?> optionType)
+    {
+        return readOptionFactories.get(optionType);
+    }
+
+    @Override
+    public WriteOptionFactory writeOptionFactory(
+        TypeInfo<?> optionType)
+    {
+        return writeOptionFactories.get(optionType);
+    }
+
+    private static ChannelHandler newReadHttp2WindowHandler(
+        AstReadOptionNode node)
+    {
+        int increment = Integer.parseInt(optionValue(node.getOptionValue()));
+        ReadOptionHttp2WindowHandler handler = new ReadOptionHttp2WindowHandler(increment);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static ChannelHandler newWriteHttp2HuffmanHandler(
+        AstWriteOptionNode node)
+    {
+        boolean huffman = Boolean.parseBoolean(optionValue(node.getOptionValue()));
+        WriteOptionHttp2HuffmanHandler handler = new WriteOptionHttp2HuffmanHandler(huffman);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static ChannelHandler newWriteHttp2IndexingHandler(
+        AstWriteOptionNode node)
+    {
+        String indexingName = optionValue(node.getOptionValue());
+        HpackIndexing indexing = HpackIndexing.valueOf(indexingName.toUpperCase(Locale.ROOT));
+        WriteOptionHttp2IndexingHandler handler = new WriteOptionHttp2IndexingHandler(indexing);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static ReadConfigHandler newReadHttp2HeaderHandler(
+        AstReadConfigNode node,
+        Function<AstValueMatcher, MessageDecoder> decoderFactory)
+    {
+        AstExactTextMatcher name = (AstExactTextMatcher) node.getMatcher("name");
+        requireNonNull(name);
+
+        if (node.isMissing()) {
+            Http2HeaderMissingDecoder decoder = new Http2HeaderMissingDecoder(name.getValue());
+            decoder.setRegionInfo(node.getRegionInfo());
+            ReadConfigHandler handler = new ReadConfigHandler(decoder);
+            handler.setRegionInfo(node.getRegionInfo());
+            return handler;
+        }
+
+        List<MessageDecoder> valueDecoders = new ArrayList<>();
+        for (AstValueMatcher matcher : node.getMatchers()) {
+            valueDecoders.add(decoderFactory.apply(matcher));
+        }
+
+        Http2HeaderDecoder decoder = new Http2HeaderDecoder(name.getValue(), valueDecoders);
+        decoder.setRegionInfo(node.getRegionInfo());
+        ReadConfigHandler handler = new ReadConfigHandler(decoder);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static ReadHttpTrailersHandler newReadHttp2TrailerHandler(
+        AstReadConfigNode node,
+        Function<AstValueMatcher, MessageDecoder> decoderFactory)
+    {
+        AstExactTextMatcher name = (AstExactTextMatcher) node.getMatcher("name");
+        requireNonNull(name);
+
+        List<MessageDecoder> valueDecoders = new ArrayList<>();
+        for (AstValueMatcher matcher : node.getMatchers()) {
+            valueDecoders.add(decoderFactory.apply(matcher));
+        }
+
+        Http2TrailerDecoder decoder = new Http2TrailerDecoder(name.getValue(), valueDecoders);
+        decoder.setRegionInfo(node.getRegionInfo());
+
+        // trailers arrive with END_STREAM, so decode them on input shutdown as for http:trailer
+        ReadHttpTrailersHandler handler = new ReadHttpTrailersHandler(decoder);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static WriteConfigHandler newWriteHttp2HeaderHandler(
+        AstWriteConfigNode node,
+        Function<AstValue<?>, MessageEncoder> encoderFactory)
+    {
+        AstValue<?> name = node.getValue("name");
+        MessageEncoder nameEncoder = encoderFactory.apply(name);
+
+        List<MessageEncoder> valueEncoders = new ArrayList<>();
+        for (AstValue<?> value : node.getValues()) {
+            valueEncoders.add(encoderFactory.apply(value));
+        }
+
+        WriteConfigHandler handler = new WriteConfigHandler(new Http2HeaderEncoder(nameEncoder, valueEncoders));
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static WriteConfigHandler newWriteHttp2TrailerHandler(
+        AstWriteConfigNode node,
+        Function<AstValue<?>, MessageEncoder> encoderFactory)
+    {
+        AstValue<?> name = node.getValue("name");
+        MessageEncoder nameEncoder = encoderFactory.apply(name);
+
+        List<MessageEncoder> valueEncoders = new ArrayList<>();
+        for (AstValue<?> value : node.getValues()) {
+            valueEncoders.add(encoderFactory.apply(value));
+        }
+
+        WriteConfigHandler handler = new WriteConfigHandler(new Http2TrailerEncoder(nameEncoder, valueEncoders));
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static String optionValue(
+        AstValue<?> value)
+    {
+        return String.valueOf(value.getValue());
+    }
+}
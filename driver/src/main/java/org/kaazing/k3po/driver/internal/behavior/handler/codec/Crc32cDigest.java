@@ -0,0 +1,74 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec;
+
+import java.security.MessageDigest;
+
+/**
+ * CRC-32C (Castagnoli) checksum, exposed as a {@link MessageDigest} producing the 4 byte big-endian checksum.
+ */
+final class Crc32cDigest extends MessageDigest {
+
+    private static final int POLYNOMIAL = 0x82f63b78;
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < TABLE.length; n++) {
+            int crc = n;
+            for (int k = 0; k < 8; k++) {
+                crc = ((crc & 1) != 0) ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLE[n] = crc;
+        }
+    }
+
+    private int crc = 0xffffffff;
+
+    Crc32cDigest() {
+        super("CRC32C");
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return 4;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        crc = (crc >>> 8) ^ TABLE[(crc ^ input) & 0xff];
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        int crc = this.crc;
+        for (int i = offset, limit = offset + len; i < limit; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ input[i]) & 0xff];
+        }
+        this.crc = crc;
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        int value = ~crc;
+        engineReset();
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+    }
+
+    @Override
+    protected void engineReset() {
+        crc = 0xffffffff;
+    }
+}
@@ -17,12 +17,21 @@ package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import static org.kaazing.k3po.driver.internal.behavior.handler.codec.Masker.IDENTITY_MASKER;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
 import java.util.function.Supplier;
 
+import org.agrona.concurrent.UnsafeBuffer;
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.CompositeChannelBuffer;
+import org.jboss.netty.buffer.ReadOnlyChannelBuffer;
+import org.jboss.netty.buffer.WrappedChannelBuffer;
 
 public final class Maskers {
 
+    private static final ByteOrder NATIVE_ORDER = ByteOrder.nativeOrder();
+
     public static Masker newMasker(byte[] maskingKey) {
         for (byte aMaskingKey : maskingKey) {
             if (aMaskingKey != 0x00) {
@@ -83,22 +92,24 @@ public final class Maskers {
 
     private abstract static class AbstractMasker extends Masker {
 
+        private static final byte[] EMPTY_BYTES = new byte[0];
+
+        // reused across calls to access each nio view without allocating
+        private final UnsafeBuffer unsafe = new UnsafeBuffer(EMPTY_BYTES);
+
         private int offset;
 
         protected final ChannelBuffer applyMask(ChannelBuffer buffer, byte[] maskingKey) {
 
+            if (isReadOnly(buffer)) {
+                // received in place from a read-only region, so mask an owned copy instead
+                buffer = buffer.copy();
+            }
+
             int readerIndex = buffer.readerIndex();
             int writerIndex = buffer.writerIndex();
 
-            for (int index = readerIndex; index < writerIndex; index++) {
-                int maskIndex = (index + offset) % maskingKey.length;
-                byte mask = maskingKey[maskIndex];
-                if (mask != 0x00) {
-                    byte value = buffer.getByte(index);
-                    value ^= mask;
-                    buffer.setByte(index, value);
-                }
-            }
+            mask(buffer, readerIndex, writerIndex - readerIndex, (readerIndex + offset) % maskingKey.length, maskingKey);
 
             offset = (offset + writerIndex - readerIndex) % maskingKey.length;
 
@@ -115,17 +126,87 @@ public final class Maskers {
                 offset += maskingKey.length;
             }
 
-            for (int index = readerIndex; index < writerIndex; index++) {
-                int maskIndex = (index + offset) % maskingKey.length;
-                byte mask = maskingKey[maskIndex];
-                if (mask != 0x00) {
-                    byte value = buffer.getByte(index);
-                    value ^= mask;
-                    buffer.setByte(index, value);
+            mask(buffer, readerIndex, writerIndex - readerIndex, (readerIndex + offset) % maskingKey.length, maskingKey);
+
+            return buffer;
+        }
+
+        // XORs the bytes in place, starting at maskIndex in the masking key
+        private void mask(ChannelBuffer buffer, int index, int length, int maskIndex, byte[] maskingKey) {
+            // nio views share content with the buffer, for heap, direct and composite buffers alike
+            for (ByteBuffer nioBuffer : buffer.toByteBuffers(index, length)) {
+                maskIndex = mask(nioBuffer, maskIndex, maskingKey);
+            }
+        }
+
+        private int mask(ByteBuffer buffer, int maskIndex, byte[] maskingKey) {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            int keyLength = maskingKey.length;
+
+            if (buffer.isReadOnly()) {
+                throw new ReadOnlyBufferException();
+            }
+
+            // unsafe access avoids assembling words byte by byte for heap buffers
+            UnsafeBuffer unsafe = this.unsafe;
+            unsafe.wrap(buffer);
+            try {
+                if (Long.BYTES % keyLength == 0) {
+                    // whole key repeats within a word, so the key index is unchanged after each word
+                    long mask = maskWord(maskIndex, maskingKey);
+
+                    for (; position + Long.BYTES <= limit; position += Long.BYTES) {
+                        unsafe.putLong(position, unsafe.getLong(position, NATIVE_ORDER) ^ mask, NATIVE_ORDER);
+                    }
+                }
+
+                for (; position < limit; position++) {
+                    unsafe.putByte(position, (byte) (unsafe.getByte(position) ^ maskingKey[maskIndex]));
+                    if (++maskIndex == keyLength) {
+                        maskIndex = 0;
+                    }
                 }
             }
+            finally {
+                // do not keep the masked buffer reachable
+                unsafe.wrap(EMPTY_BYTES);
+            }
 
-            return buffer;
+            return maskIndex;
+        }
+    }
+
+    // repeats the masking key from maskIndex into a word, laid out in native byte order
+    private static long maskWord(int maskIndex, byte[] maskingKey) {
+        int keyLength = maskingKey.length;
+        long mask = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int shift = NATIVE_ORDER == ByteOrder.LITTLE_ENDIAN ? i * Byte.SIZE : (Long.BYTES - 1 - i) * Byte.SIZE;
+            mask |= (maskingKey[(maskIndex + i) % keyLength] & 0xffL) << shift;
+        }
+        return mask;
+    }
+
+    // walks the buffer structure rather than taking full nio views, which are copies for agrona messages read in place
+    private static boolean isReadOnly(ChannelBuffer buffer) {
+        if (buffer instanceof ReadOnlyChannelBuffer) {
+            return true;
+        }
+        else if (buffer instanceof CompositeChannelBuffer) {
+            for (ChannelBuffer component : ((CompositeChannelBuffer) buffer).decompose(0, buffer.capacity())) {
+                if (isReadOnly(component)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if (buffer instanceof WrappedChannelBuffer) {
+            return isReadOnly(((WrappedChannelBuffer) buffer).unwrap());
+        }
+        else {
+            // an empty view is enough to tell, without copying any content
+            return !buffer.hasArray() && buffer.toByteBuffer(0, 0).isReadOnly();
         }
     }
 }
@@ -17,20 +17,29 @@ package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import static java.util.Objects.requireNonNull;
 import static org.jboss.netty.buffer.ChannelBuffers.EMPTY_BUFFER;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelHandlerContext;
-import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
 import org.kaazing.k3po.lang.internal.RegionInfo;
 
 public abstract class MessageDecoder {
 
+    // beyond this many referenced chunks, trailing chunks are merged to bound composite index lookups
+    private static final int MAX_CUMULATION_COMPONENTS = 16;
+
+    private static final ChannelBuffer[] EMPTY_COMPONENTS = new ChannelBuffer[0];
+
     private final RegionInfo regionInfo;
-    private ChannelBuffer cumulation;
+    private final List<ChannelBuffer> components;
 
     protected MessageDecoder(RegionInfo regionInfo) {
         this.regionInfo = requireNonNull(regionInfo);
+        this.components = new ArrayList<>();
     }
 
     public ChannelBuffer decodeLast(ChannelBuffer buffer) throws Exception {
@@ -50,13 +59,19 @@ public abstract class MessageDecoder {
 
     private ChannelBuffer decode0(ChannelBuffer buffer, boolean isLast) throws Exception {
         try {
-            // If we don't have a cumulation buffer yet, create it
-            if (cumulation == null) {
-                cumulation = ChannelBuffers.dynamicBuffer();
+            ChannelBuffer cumulation;
+            if (components.isEmpty()) {
+                // decode the input in place, referencing it only if bytes remain once decoded
+                cumulation = buffer;
+            } else {
+                if (buffer.readable()) {
+                    // Reference the input bytes instead of copying them
+                    append(buffer.readSlice(buffer.readableBytes()));
+                }
+                cumulation = wrappedBuffer(components.toArray(EMPTY_COMPONENTS));
             }
 
-            // Write the input bytes in the cumulation buffer
-            cumulation.writeBytes(buffer);
+            int cumulationBytes = cumulation.readableBytes();
 
             Object decoded;
             if (isLast) {
@@ -66,28 +81,105 @@ public abstract class MessageDecoder {
             }
 
             if (decoded == null) {
+                if (cumulation == buffer) {
+                    if (buffer.readable()) {
+                        // retain the unread input until more data arrives
+                        components.add(buffer.readSlice(buffer.readableBytes()));
+                    }
+                } else {
+                    discard(cumulationBytes - cumulation.readableBytes());
+                }
                 // Not enough data yet, keeping accumulating more (unless last)
                 return null;
             }
 
-            ChannelBuffer remaining = EMPTY_BUFFER;
+            // Let the VM know we're done with the cumulated chunks
+            components.clear();
+
+            // The decoder may not have consumed all of our accumulated bytes; pass
+            // on the remaining bytes, without slicing them.
+            return cumulation.readable() ? cumulation : EMPTY_BUFFER;
+        }
+        catch (Exception e) {
+            // clean up on failure to prevent side-effects when re-using decoder
+            components.clear();
+            throw e;
+        }
+    }
+
+    private void append(ChannelBuffer input) {
+        long cumulationBytes = input.readableBytes();
+        for (ChannelBuffer component : components) {
+            cumulationBytes += component.readableBytes();
+        }
+
+        if (cumulationBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Read exceeds %d bytes", Integer.MAX_VALUE));
+        }
 
-            if (cumulation.readable()) {
-                // The decoder did not consume all of our accumulated bytes; create
-                // the ChannelBuffer to pass on.
-                remaining = cumulation.readBytes(cumulation.readableBytes());
+        components.add(input);
+
+        if (components.size() > MAX_CUMULATION_COMPONENTS) {
+            // merge trailing chunks until each chunk is at least twice the size of the merged chunk after it,
+            // so each byte is copied a logarithmic number of times however many chunks arrive
+            int last = components.size() - 1;
+            int first = last - 1;
+            int mergedBytes = components.get(last).readableBytes() + components.get(first).readableBytes();
+            while (first > 0 && components.get(first - 1).readableBytes() < 2L * mergedBytes) {
+                first--;
+                mergedBytes += components.get(first).readableBytes();
             }
 
-            // Let the VM know we're done with the cumulation buffer
-            cumulation = null;
+            List<ChannelBuffer> merging = components.subList(first, last + 1);
+            ChannelBuffer merged = ChannelBuffers.buffer(input.order(), mergedBytes);
+            for (ChannelBuffer component : merging) {
+                merged.writeBytes(component, component.readerIndex(), component.readableBytes());
+            }
+            merging.clear();
+            components.add(merged);
+        }
+    }
 
-            return remaining;
+    private void discard(int consumedBytes) {
+        while (consumedBytes > 0) {
+            ChannelBuffer component = components.get(0);
+            int componentBytes = component.readableBytes();
+            if (componentBytes <= consumedBytes) {
+                components.remove(0);
+                consumedBytes -= componentBytes;
+            } else {
+                component.skipBytes(consumedBytes);
+                consumedBytes = 0;
+            }
         }
-        catch (ScriptProgressException e) {
-            // clean up on failure to prevent side-effects when re-using decoder
-            cumulation = null;
-            throw e;
+    }
+
+    // compares the leading readable bytes in place, so matching does not retain the buffer
+    protected static boolean startsWith(ChannelBuffer buffer, ChannelBuffer prefix) {
+        int length = prefix.readableBytes();
+        if (buffer.readableBytes() < length) {
+            return false;
         }
+
+        int index = buffer.readerIndex();
+        int prefixIndex = prefix.readerIndex();
+        int offset = 0;
+
+        if (buffer.order() == prefix.order()) {
+            for (; offset + Long.BYTES <= length; offset += Long.BYTES) {
+                if (buffer.getLong(index + offset) != prefix.getLong(prefixIndex + offset)) {
+                    return false;
+                }
+            }
+        }
+
+        for (; offset < length; offset++) {
+            if (buffer.getByte(index + offset) != prefix.getByte(prefixIndex + offset)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     protected ChannelBuffer createCumulationBuffer(ChannelHandlerContext ctx) {
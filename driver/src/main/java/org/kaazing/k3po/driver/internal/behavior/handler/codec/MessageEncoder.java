@@ -16,10 +16,19 @@
 package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.stream.ChunkedInput;
 
 
 public interface MessageEncoder {
 
     ChannelBuffer encode();
 
+    /**
+     * Encodes the message as a sequence of chunks, so large values can be written as the channel drains.
+     * By default the whole message is a single chunk.
+     */
+    default ChunkedInput encodeChunked() {
+        return new ChunkedBuffer(encode());
+    }
+
 }
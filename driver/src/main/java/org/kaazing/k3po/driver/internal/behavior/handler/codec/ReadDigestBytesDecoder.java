@@ -0,0 +1,141 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec;
+
+import static java.lang.String.format;
+import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
+import org.kaazing.k3po.driver.internal.util.Utils;
+import org.kaazing.k3po.lang.internal.RegionInfo;
+
+/**
+ * Verifies a fixed number of bytes by digest, updating the digest as each chunk arrives.
+ *
+ * Bytes are consumed as soon as they are digested, so the payload is never cumulated.
+ */
+public class ReadDigestBytesDecoder extends MessageDecoder {
+
+    private static final int SCRATCH_SIZE = 8192;
+
+    private final long length;
+    private final String algorithm;
+    private final byte[] expected;
+    private final MessageDigest digest;
+
+    private long remaining;
+    private byte[] scratch;
+
+    public ReadDigestBytesDecoder(RegionInfo regionInfo, long length, String algorithm, byte[] expected) {
+        super(regionInfo);
+        if (length < 0) {
+            throw new IllegalArgumentException(format("Invalid length: %d", length));
+        }
+        this.length = length;
+        this.algorithm = algorithm;
+        this.expected = expected;
+        this.digest = newDigest(algorithm);
+        this.remaining = length;
+
+        if (expected.length != digest.getDigestLength()) {
+            throw new IllegalArgumentException(format("%s digest must be %d bytes, found %d", algorithm,
+                    digest.getDigestLength(), expected.length));
+        }
+    }
+
+    @Override
+    protected Object decodeBuffer(ChannelBuffer buffer) throws Exception {
+
+        int readableBytes = (int) Math.min(remaining, buffer.readableBytes());
+        if (readableBytes > 0) {
+            update(buffer, readableBytes);
+            buffer.skipBytes(readableBytes);
+            remaining -= readableBytes;
+        }
+
+        if (remaining > 0) {
+            return null;
+        }
+
+        remaining = length;
+        byte[] observed = digest.digest();
+        if (!MessageDigest.isEqual(observed, expected)) {
+            throw new ScriptProgressException(getRegionInfo(), format("%s %s", algorithm, Utils.format(observed)));
+        }
+
+        return buffer;
+    }
+
+    @Override
+    protected Object decodeBufferLast(ChannelBuffer buffer) throws Exception {
+        Object decoded = decodeBuffer(buffer);
+        if (decoded == null) {
+            long observedLength = length - remaining;
+            remaining = length;
+            digest.reset();
+            throw new ScriptProgressException(getRegionInfo(), format("%d bytes", observedLength));
+        }
+        return decoded;
+    }
+
+    @Override
+    public String toString() {
+        return format("%d bytes %s %s", length, algorithm, Utils.format(expected));
+    }
+
+    private void update(ChannelBuffer buffer, int readableBytes) {
+        for (ByteBuffer nioBuffer : buffer.toByteBuffers(buffer.readerIndex(), readableBytes)) {
+            if (nioBuffer.hasArray()) {
+                digest.update(nioBuffer.array(), nioBuffer.arrayOffset() + nioBuffer.position(), nioBuffer.remaining());
+            } else {
+                if (scratch == null) {
+                    scratch = new byte[SCRATCH_SIZE];
+                }
+                while (nioBuffer.hasRemaining()) {
+                    int chunk = Math.min(scratch.length, nioBuffer.remaining());
+                    nioBuffer.get(scratch, 0, chunk);
+                    digest.update(scratch, 0, chunk);
+                }
+            }
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        switch (algorithm) {
+        case "sha256":
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        case "crc32c":
+            return new Crc32cDigest();
+        default:
+            throw new IllegalArgumentException(format("Unsupported digest algorithm: %s", algorithm));
+        }
+    }
+
+    // unit tests
+    ReadDigestBytesDecoder(long length, String algorithm, byte[] expected) {
+        this(newSequential(0, 0), length, algorithm, expected);
+    }
+}
@@ -39,10 +39,11 @@ public class ReadExactBytesDecoder extends MessageDecoder {
             return null;
         }
 
-        ChannelBuffer observed = buffer.readSlice(expected.readableBytes());
-        if (!observed.equals(expected)) {
+        if (!startsWith(buffer, expected)) {
+            ChannelBuffer observed = buffer.slice(buffer.readerIndex(), expected.readableBytes());
             throw new ScriptProgressException(getRegionInfo(), Utils.format(observed));
         }
+        buffer.skipBytes(expected.readableBytes());
 
         return buffer;
     }
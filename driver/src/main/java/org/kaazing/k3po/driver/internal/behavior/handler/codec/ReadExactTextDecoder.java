@@ -55,15 +55,15 @@ public class ReadExactTextDecoder extends MessageDecoder {
             return null;
         }
 
-        ChannelBuffer observed = buffer.readSlice(expected.readableBytes());
-        if (!observed.equals(expected)) {
-            String observedText = observed.toString(charset);
+        if (!startsWith(buffer, expected)) {
+            String observedText = buffer.toString(buffer.readerIndex(), expected.readableBytes(), charset);
             // TODO: general escaping strategy (AstRegion in exception, plus Formatter?)
             observedText = observedText.replace("\r", "\\r");
             observedText = observedText.replace("\n", "\\n");
             observedText = observedText.replace("\t", "\\t");
             throw new ScriptProgressException(getRegionInfo(), format("\"%s\"", observedText));
         }
+        buffer.skipBytes(expected.readableBytes());
 
         return buffer;
     }
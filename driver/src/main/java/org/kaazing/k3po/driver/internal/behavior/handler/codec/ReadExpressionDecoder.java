@@ -16,8 +16,10 @@
 package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
 
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 import javax.el.ValueExpression;
 
@@ -30,12 +32,12 @@ import org.kaazing.k3po.lang.internal.el.ExpressionContext;
 public class ReadExpressionDecoder extends MessageDecoder {
 
     private final ValueExpression expression;
-    private final ExpressionContext environment;
+    private final Supplier<byte[]> supplier;
 
     public ReadExpressionDecoder(RegionInfo regionInfo, ValueExpression expression, ExpressionContext environment) {
         super(regionInfo);
         this.expression = expression;
-        this.environment = environment;
+        this.supplier = newSupplier(expression, environment, byte[].class);
     }
 
     @Override
@@ -46,11 +48,7 @@ public class ReadExpressionDecoder extends MessageDecoder {
     @Override
     protected Object decodeBuffer(ChannelBuffer buffer) throws Exception {
 
-        final byte[] expected;
-        // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-        synchronized (environment) {
-            expected = (byte[]) expression.getValue(environment);
-        }
+        byte[] expected = supplier.get();
 
         if (buffer.readableBytes() < expected.length) {
             return null;
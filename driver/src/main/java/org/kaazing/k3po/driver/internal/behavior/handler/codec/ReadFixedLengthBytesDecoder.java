@@ -58,13 +58,10 @@ public abstract class ReadFixedLengthBytesDecoder<T> extends MessageDecoder {
         }
 
         if (captureName == null) {
-            buffer.readSlice(length);
+            buffer.skipBytes(length);
         } else {
             T value = readBuffer(buffer);
-            // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-            synchronized (environment) {
-                environment.getELResolver().setValue(environment, null, captureName, value);
-            }
+            environment.publish(captureName, value);
 
             if (LOGGER.isDebugEnabled()) {
                 Object formatValue = (value instanceof byte[]) ? AstLiteralBytesValue.toString((byte[]) value) : value;
@@ -81,13 +78,10 @@ public abstract class ReadFixedLengthBytesDecoder<T> extends MessageDecoder {
             return null;
         }
         if (captureName == null) {
-            buffer.readSlice(length);
+            buffer.skipBytes(length);
         } else {
             T value = readBuffer(buffer);
-            // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-            synchronized (environment) {
-                environment.getELResolver().setValue(environment, null, captureName, value);
-            }
+            environment.publish(captureName, value);
 
             if (LOGGER.isDebugEnabled()) {
                 Object formatValue = (value instanceof byte[]) ? AstLiteralBytesValue.toString((byte[]) value) : value;
@@ -18,7 +18,13 @@ package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 import static java.lang.String.format;
 import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.logging.InternalLogger;
@@ -29,19 +35,63 @@ import org.kaazing.k3po.lang.internal.el.ExpressionContext;
 import org.kaazing.k3po.lang.internal.regex.NamedGroupMatcher;
 import org.kaazing.k3po.lang.internal.regex.NamedGroupPattern;
 
+/**
+ * Matches a regular expression against inbound bytes.
+ *
+ * Only newly arrived bytes are decoded on each call, appending to the characters decoded so far, until the read
+ * matches or fails. Matching is not resumable: each call restarts the match from the first decoded character, so
+ * a read that spans many chunks costs time proportional to the characters decoded so far per chunk. A chunk is only
+ * scanned once while no match is possible yet, and the read fails as soon as the matcher did not need the end of
+ * the input to reject it.
+ *
+ * To keep the rescanning bounded, the read fails once {@code maxScanLength} characters have been decoded without a
+ * match. The default of {@value #DEFAULT_MAX_SCAN_LENGTH_VALUE} characters can be changed with the
+ * {@value #MAX_SCAN_LENGTH_PROPERTY} system property.
+ */
 public class ReadRegexDecoder extends MessageDecoder {
 
+    public static final String MAX_SCAN_LENGTH_PROPERTY = "org.kaazing.k3po.driver.regex.maxScanLength";
+
+    public static final int DEFAULT_MAX_SCAN_LENGTH_VALUE = 1024 * 1024;
+
+    public static final int DEFAULT_MAX_SCAN_LENGTH =
+            Integer.getInteger(MAX_SCAN_LENGTH_PROPERTY, DEFAULT_MAX_SCAN_LENGTH_VALUE);
+
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ReadRegexDecoder.class);
 
     private final NamedGroupPattern pattern;
     private final Charset charset;
     private final ExpressionContext environment;
+    private final int maxScanLength;
+
+    private final CharsetDecoder decoder;
+    private final StringBuilder decoded;
+    private CharBuffer chars;
+    private int decodedBytes;
+
+    // decoded character and byte counts at the end of each decoded chunk, as pairs
+    private int[] boundaries;
+    private int boundaryCount;
 
     public ReadRegexDecoder(RegionInfo regionInfo, NamedGroupPattern pattern, Charset charset, ExpressionContext environment) {
+        this(regionInfo, pattern, charset, environment, DEFAULT_MAX_SCAN_LENGTH);
+    }
+
+    public ReadRegexDecoder(RegionInfo regionInfo, NamedGroupPattern pattern, Charset charset, ExpressionContext environment,
+            int maxScanLength) {
         super(regionInfo);
+        if (maxScanLength < 1) {
+            throw new IllegalArgumentException("maxScanLength must be at least 1");
+        }
         this.pattern = pattern;
         this.environment = environment;
         this.charset = charset;
+        this.maxScanLength = maxScanLength;
+        this.decoder = charset.newDecoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.decoded = new StringBuilder();
+        this.boundaries = new int[16];
     }
 
     @Override
@@ -65,42 +115,131 @@ public class ReadRegexDecoder extends MessageDecoder {
     }
 
     private Object decodeBuffer(final ChannelBuffer buffer, boolean isLast) throws Exception {
+        try {
+            decodeAvailable(buffer, isLast);
+
+            final NamedGroupMatcher matcher = pattern.matcher(decoded);
+
+            // TODO: Need to deal with anchoring
+            // a match of all input is also a prefix match, so a single scan decides while no match is possible yet
+            boolean prefixMatched = matcher.lookingAt();
+
+            if (!prefixMatched) {
+                // We keep looking while we don't match but it is still possible to match
+                if (!isLast && matcher.hitEnd()) {
+                    if (decoded.length() >= maxScanLength) {
+                        throw new ScriptProgressException(getRegionInfo(),
+                                format("\"%s\" (no match within %d characters)", decoded, maxScanLength));
+                    }
+                    return null;
+                }
+
+                // If we never matched we fail.
+                throw new ScriptProgressException(getRegionInfo(), format("\"%s\"", decoded));
+            }
 
-        final ChannelBuffer observedBytes = buffer.slice();
-        final String observed = observedBytes.toString(charset);
+            // prefer matching all input, as the prefix match may stop short of it
+            if (matcher.end() != decoded.length() && !matcher.matches()) {
+                matcher.lookingAt();
+            }
 
-        final NamedGroupMatcher matcher = pattern.matcher(observed);
+            captureGroups(matcher);
 
-        // TODO: Need to deal with anchoring
-        boolean allInputMatched = matcher.matches();
-        boolean prefixMatched = allInputMatched || matcher.lookingAt();
-        boolean noMatchMayMatchLater = !prefixMatched && matcher.hitEnd();
+            // skip the bytes we actually matched
+            buffer.skipBytes(matchedBytes(buffer, matcher.end()));
 
-        // We keep looking while we match or while we don't match but it is still possible to match
-        if ((allInputMatched || !isLast) && noMatchMayMatchLater) {
-            return null;
+            reset();
+            return buffer;
+        } catch (Exception e) {
+            // clean up on failure to prevent side-effects when re-using decoder
+            reset();
+            throw e;
         }
+    }
 
-        // If we never matched we fail.
-        if (!prefixMatched) {
-            throw new ScriptProgressException(getRegionInfo(), format("\"%s\"", observed));
+    private void decodeAvailable(ChannelBuffer buffer, boolean endOfInput) {
+
+        if (buffer.readableBytes() < decodedBytes) {
+            // not a continuation of the previous cumulation, start over
+            reset();
         }
 
-        captureGroups(matcher);
+        int index = buffer.readerIndex() + decodedBytes;
+        int length = buffer.writerIndex() - index;
+        ByteBuffer in = buffer.toByteBuffer(index, length);
+        int position = in.position();
 
-        // skip the bytes we actually matched
-        buffer.skipBytes(matcher.end());
+        int capacity = (int) Math.ceil(length * (double) decoder.maxCharsPerByte()) + 1;
+        if (chars == null || chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(capacity);
+        }
 
-        return buffer;
+        // incomplete multi-byte characters remain in the buffer until more bytes arrive
+        CoderResult result;
+        do {
+            result = decoder.decode(in, chars, endOfInput);
+            chars.flip();
+            decoded.append(chars);
+            chars.clear();
+        } while (result.isOverflow());
+
+        if (endOfInput) {
+            decoder.flush(chars);
+            chars.flip();
+            decoded.append(chars);
+            chars.clear();
+        }
+
+        decodedBytes += in.position() - position;
+
+        if (boundaries.length < (boundaryCount + 1) * 2) {
+            boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+        }
+        boundaries[boundaryCount * 2] = decoded.length();
+        boundaries[boundaryCount * 2 + 1] = decodedBytes;
+        boundaryCount++;
+    }
+
+    private int matchedBytes(ChannelBuffer buffer, int matchedChars) {
+        if (matchedChars == decoded.length()) {
+            return decodedBytes;
+        }
+
+        // start from the last chunk boundary within the match
+        int boundaryChars = 0;
+        int boundaryBytes = 0;
+        for (int i = 0; i < boundaryCount && boundaries[i * 2] <= matchedChars; i++) {
+            boundaryChars = boundaries[i * 2];
+            boundaryBytes = boundaries[i * 2 + 1];
+        }
+
+        if (boundaryChars == matchedChars) {
+            return boundaryBytes;
+        }
+
+        // decode the rest of the match again, the same way, so malformed input is counted as it was decoded
+        CharsetDecoder matchDecoder = charset.newDecoder()
+                                             .onMalformedInput(CodingErrorAction.REPLACE)
+                                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        int index = buffer.readerIndex() + boundaryBytes;
+        ByteBuffer in = buffer.toByteBuffer(index, decodedBytes - boundaryBytes);
+        int position = in.position();
+        matchDecoder.decode(in, CharBuffer.allocate(matchedChars - boundaryChars), false);
+
+        return boundaryBytes + in.position() - position;
+    }
+
+    private void reset() {
+        decoder.reset();
+        decoded.setLength(0);
+        decodedBytes = 0;
+        boundaryCount = 0;
     }
 
     private void captureGroups(NamedGroupMatcher matcher) {
         for (String captureName : matcher.groupNames()) {
             String captured = matcher.group(captureName);
-            // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-            synchronized (environment) {
-                environment.getELResolver().setValue(environment, null, captureName, captured);
-            }
+            environment.publish(captureName, captured);
 
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(format("Setting value for ${%s} to %s", captureName, captured));
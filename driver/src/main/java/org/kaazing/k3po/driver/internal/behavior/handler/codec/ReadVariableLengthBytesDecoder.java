@@ -17,6 +17,9 @@ package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import static java.lang.String.format;
 import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
+
+import java.util.function.Supplier;
 
 import javax.el.ValueExpression;
 
@@ -32,6 +35,7 @@ public class ReadVariableLengthBytesDecoder extends MessageDecoder {
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ReadVariableLengthBytesDecoder.class);
 
     private final ValueExpression length;
+    private final Supplier<Integer> lengthSupplier;
     private final ExpressionContext environment;
     private final String captureName;
 
@@ -43,6 +47,7 @@ public class ReadVariableLengthBytesDecoder extends MessageDecoder {
             String captureName) {
         super(regionInfo);
         this.length = length;
+        this.lengthSupplier = newSupplier(length, environment, Integer.class);
         this.environment = environment;
         this.captureName = captureName;
     }
@@ -54,25 +59,18 @@ public class ReadVariableLengthBytesDecoder extends MessageDecoder {
 
     @Override
     protected Object decodeBuffer(ChannelBuffer buffer) throws Exception {
-        final int resolvedLength;
-        // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-        synchronized (environment) {
-            resolvedLength = (Integer) length.getValue(environment);
-        }
+        int resolvedLength = lengthSupplier.get();
 
         if (buffer.readableBytes() < resolvedLength) {
             return null;
         }
 
         if (captureName == null) {
-            buffer.readSlice(resolvedLength);
+            buffer.skipBytes(resolvedLength);
         } else {
             byte[] bytes = new byte[resolvedLength];
             buffer.readBytes(bytes, 0, resolvedLength);
-            // TODO: Remove when JUEL sync bug is fixed https://github.com/k3po/k3po/issues/147
-            synchronized (environment) {
-                environment.getELResolver().setValue(environment, null, captureName, bytes);
-            }
+            environment.publish(captureName, bytes);
 
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(format("Setting value for ${%s} to %s", captureName, AstLiteralBytesValue.toString(bytes)));
@@ -16,24 +16,42 @@
 package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
 import static org.jboss.netty.buffer.ChannelBuffers.buffer;
+import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
 import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
 
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
 import java.util.function.Supplier;
 
 import javax.el.ValueExpression;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.stream.ChunkedInput;
+import org.jboss.netty.handler.stream.ChunkedNioStream;
+import org.jboss.netty.handler.stream.ChunkedStream;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
+import org.kaazing.k3po.lang.internal.el.TypeConverterImpl;
 
+/**
+ * Encodes the value of an expression.
+ *
+ * Besides values convertible to {@code byte[]}, the expression may produce an {@link InputStream},
+ * a {@link ReadableByteChannel} or a {@link ChunkedInput}, which is then written in chunks rather than
+ * being materialized.
+ */
 public class WriteExpressionEncoder implements MessageEncoder {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(WriteExpressionEncoder.class);
 
-    private final Supplier<byte[]> supplier;
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final TypeConverterImpl CONVERTER = new TypeConverterImpl();
+
+    private final Supplier<?> supplier;
     private final ValueExpression expression;
 
-    public WriteExpressionEncoder(Supplier<byte[]> supplier, ValueExpression expression) {
+    public WriteExpressionEncoder(Supplier<?> supplier, ValueExpression expression) {
         this.supplier = supplier;
         this.expression = expression;
     }
@@ -41,22 +59,76 @@ public class WriteExpressionEncoder implements MessageEncoder {
     @Override
     public ChannelBuffer encode() {
 
-        final byte[] value = supplier.get();
+        final Object value = supplier.get();
         final ChannelBuffer result;
-        if (value != null) {
-            result = wrappedBuffer(value);
-        } else {
+        if (value == null) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Value of expression is null. Encoding as a 0 length buffer");
             }
             result = buffer(0);
+        } else if (isChunked(value)) {
+            // not written as chunks by this caller, so drain in full
+            result = drain(newChunkedInput(value));
+        } else {
+            result = wrappedBuffer(CONVERTER.convert(value, byte[].class));
         }
         return result;
     }
 
+    @Override
+    public ChunkedInput encodeChunked() {
+
+        final Object value = supplier.get();
+        if (value == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Value of expression is null. Encoding as a 0 length buffer");
+            }
+            return new ChunkedBuffer(buffer(0));
+        } else if (isChunked(value)) {
+            return newChunkedInput(value);
+        } else {
+            return new ChunkedBuffer(wrappedBuffer(CONVERTER.convert(value, byte[].class)));
+        }
+    }
+
     @Override
     public String toString() {
         return expression.getExpressionString();
     }
 
+    private static boolean isChunked(Object value) {
+        return value instanceof InputStream || value instanceof ReadableByteChannel || value instanceof ChunkedInput;
+    }
+
+    private static ChunkedInput newChunkedInput(Object value) {
+        if (value instanceof InputStream) {
+            return new ChunkedStream((InputStream) value, CHUNK_SIZE);
+        } else if (value instanceof ReadableByteChannel) {
+            return new ChunkedNioStream((ReadableByteChannel) value, CHUNK_SIZE);
+        } else {
+            return (ChunkedInput) value;
+        }
+    }
+
+    private static ChannelBuffer drain(ChunkedInput input) {
+        ChannelBuffer result = dynamicBuffer(CHUNK_SIZE);
+        try {
+            try {
+                while (!input.isEndOfInput()) {
+                    ChannelBuffer chunk = (ChannelBuffer) input.nextChunk();
+                    if (chunk != null) {
+                        result.writeBytes(chunk);
+                    }
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
 }
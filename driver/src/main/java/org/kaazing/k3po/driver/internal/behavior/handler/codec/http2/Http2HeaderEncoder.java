@@ -0,0 +1,55 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec.http2;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.List;
+
+import org.jboss.netty.channel.Channel;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ConfigEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2ChannelConfig;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2Headers;
+
+public class Http2HeaderEncoder implements ConfigEncoder {
+
+    private final MessageEncoder nameEncoder;
+    private final List<MessageEncoder> valueEncoders;
+
+    public Http2HeaderEncoder(MessageEncoder nameEncoder, List<MessageEncoder> valueEncoders) {
+        this.nameEncoder = nameEncoder;
+        this.valueEncoders = valueEncoders;
+    }
+
+    @Override
+    public void encode(Channel channel) throws Exception {
+        Http2ChannelConfig http2Config = (Http2ChannelConfig) channel.getConfig();
+        Http2Headers writeHeaders = http2Config.getWriteHeaders();
+
+        String name = nameEncoder.encode().toString(US_ASCII);
+        for (MessageEncoder valueEncoder : valueEncoders) {
+            String value = valueEncoder.encode().toString(US_ASCII);
+            writeHeaders.add(name, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format("http2:header %s %s", nameEncoder, valueEncoders);
+    }
+}
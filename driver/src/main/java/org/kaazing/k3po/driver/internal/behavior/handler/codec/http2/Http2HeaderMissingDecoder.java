@@ -0,0 +1,49 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec.http2;
+
+import static java.lang.String.format;
+
+import org.jboss.netty.channel.Channel;
+import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.AbstractConfigDecoder;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2ChannelConfig;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2Headers;
+
+public class Http2HeaderMissingDecoder extends AbstractConfigDecoder {
+
+    private final String name;
+
+    public Http2HeaderMissingDecoder(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean decode(Channel channel) throws Exception {
+        Http2ChannelConfig http2Config = (Http2ChannelConfig) channel.getConfig();
+        Http2Headers headers = http2Config.getReadHeaders();
+        if (headers.contains(name)) {
+            throw new ScriptProgressException(getRegionInfo(), format("HTTP/2 header not missing: %s", name));
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return format("http2:header %s missing", name);
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec.http2;
+
+import static java.lang.String.format;
+import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
+import static org.jboss.netty.util.CharsetUtil.UTF_8;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.jboss.netty.channel.Channel;
+import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.AbstractConfigDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageDecoder;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2ChannelConfig;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2Headers;
+
+public class Http2TrailerDecoder extends AbstractConfigDecoder {
+
+    private final String name;
+    private final List<MessageDecoder> valueDecoders;
+
+    public Http2TrailerDecoder(String name, List<MessageDecoder> valueDecoders) {
+        this.name = name;
+        this.valueDecoders = valueDecoders;
+    }
+
+    @Override
+    public boolean decode(Channel channel) throws Exception {
+        Http2ChannelConfig http2Config = (Http2ChannelConfig) channel.getConfig();
+        Http2Headers headers = http2Config.getReadTrailers();
+        for (MessageDecoder valueDecoder : valueDecoders) {
+            decodeValue(headers, valueDecoder);
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return format("http2:trailer %s %s", name, valueDecoders);
+    }
+
+    private void decodeValue(Http2Headers headers, MessageDecoder valueDecoder) throws Exception {
+        List<String> values = headers.getAll(name);
+        int valueCount = values.size();
+        if (valueCount == 0) {
+            throw new ScriptProgressException(getRegionInfo(), format("Missing HTTP/2 trailer: %s", name));
+        }
+        else if (valueCount == 1) {
+            // efficiently handle single-valued trailer
+            valueDecoder.decodeLast(copiedBuffer(values.get(0), UTF_8));
+        }
+        else {
+            // attempt to match each trailer value with decoder, consuming the first match
+            // throw last decode failure exception if none match
+            Exception decodeFailure = null;
+            for (Iterator<String> $i = values.iterator(); $i.hasNext();) {
+                String value = $i.next();
+                try {
+                    valueDecoder.decodeLast(copiedBuffer(value, UTF_8));
+                    $i.remove();
+                    break;
+                }
+                catch (Exception e) {
+                    decodeFailure = e;
+                }
+            }
+
+            if (values.size() != valueCount) {
+                headers.remove(name);
+                for (String value : values) {
+                    headers.add(name, value);
+                }
+            }
+            else {
+                assert decodeFailure != null;
+                throw decodeFailure;
+            }
+        }
+    }
+
+}
@@ -17,21 +17,33 @@ package org.kaazing.k3po.driver.internal.behavior.handler.command;
 
 import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
 import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+import static org.jboss.netty.channel.Channels.future;
 import static org.jboss.netty.channel.Channels.write;
 import static org.kaazing.k3po.driver.internal.behavior.handler.codec.Masker.IDENTITY_MASKER;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.stream.ChunkedInput;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.Masker;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
 
 public class WriteHandler extends AbstractCommandHandler {
 
+    // chunks are coalesced into writes of at least this size, unless the message ends first
+    private static final int WRITE_CHUNK_SIZE = 8192;
+
     private final List<MessageEncoder> encoders;
     private final Masker masker;
 
+    private LinkedList<ChunkedInput> inputs;
+
     public WriteHandler(List<MessageEncoder> encoders, Masker masker) {
         if (encoders == null) {
             throw new NullPointerException("encoders");
@@ -44,23 +56,12 @@ public class WriteHandler extends AbstractCommandHandler {
 
     @Override
     protected void invokeCommand(ChannelHandlerContext ctx) throws Exception {
-        ChannelBuffer[] buffers = new ChannelBuffer[encoders.size()];
-        int idx = 0;
+        inputs = new LinkedList<>();
         for (MessageEncoder encoder : encoders) {
-            buffers[idx] = encoder.encode();
-            idx++;
+            inputs.add(encoder.encodeChunked());
         }
 
-        if (masker == IDENTITY_MASKER) {
-            // avoid unnecessary copy when masking disabled
-            ChannelBuffer bytes = wrappedBuffer(buffers);
-            write(ctx, getHandlerFuture(), bytes);
-        }
-        else {
-            ChannelBuffer bytes = copiedBuffer(buffers);
-            ChannelBuffer maskedBytes = masker.applyMask(bytes);
-            write(ctx, getHandlerFuture(), maskedBytes);
-        }
+        writeChunks(ctx);
     }
 
     @Override
@@ -73,4 +74,93 @@ public class WriteHandler extends AbstractCommandHandler {
         return sb;
     }
 
+    // writes the next chunks until the message is complete, or until the channel is no longer writable,
+    // resuming when the last pending write completes, so large messages are written with bounded memory
+    private void writeChunks(final ChannelHandlerContext ctx) {
+        final ChannelFuture handlerFuture = getHandlerFuture();
+        final Channel channel = ctx.getChannel();
+
+        ChannelFutureListener failHandler = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    handlerFuture.setFailure(future.getCause());
+                }
+            }
+        };
+
+        try {
+            while (!handlerFuture.isDone()) {
+                ChannelBuffer bytes = nextChunks();
+
+                if (inputs.isEmpty()) {
+                    write(ctx, handlerFuture, bytes);
+                    return;
+                }
+
+                ChannelFuture writeFuture = future(channel);
+                writeFuture.addListener(failHandler);
+                write(ctx, writeFuture, bytes);
+
+                if (!writeFuture.isDone() && !channel.isWritable()) {
+                    writeFuture.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            synchronized (ctx) {
+                                writeChunks(ctx);
+                            }
+                        }
+                    });
+                    return;
+                }
+            }
+
+            closeInputs();
+        }
+        catch (Exception e) {
+            closeInputs();
+            handlerFuture.setFailure(e);
+        }
+    }
+
+    private ChannelBuffer nextChunks() throws Exception {
+        List<ChannelBuffer> chunks = new ArrayList<>();
+        int size = 0;
+        while (size < WRITE_CHUNK_SIZE && !inputs.isEmpty()) {
+            ChunkedInput input = inputs.getFirst();
+            ChannelBuffer chunk = (ChannelBuffer) input.nextChunk();
+            if (chunk != null) {
+                chunks.add(chunk);
+                size += chunk.readableBytes();
+            }
+            if (input.isEndOfInput()) {
+                input.close();
+                inputs.removeFirst();
+            }
+        }
+
+        ChannelBuffer[] buffers = chunks.toArray(new ChannelBuffer[chunks.size()]);
+        if (masker == IDENTITY_MASKER) {
+            // avoid unnecessary copy when masking disabled
+            return wrappedBuffer(buffers);
+        }
+        else {
+            return masker.applyMask(copiedBuffer(buffers));
+        }
+    }
+
+    private void closeInputs() {
+        if (inputs != null) {
+            for (ChunkedInput input : inputs) {
+                try {
+                    input.close();
+                }
+                catch (Exception e) {
+                    // ignore, already failing or complete
+                }
+            }
+            inputs.clear();
+        }
+    }
+
 }
@@ -28,9 +28,9 @@ import org.kaazing.k3po.driver.internal.netty.bootstrap.file.FileChannel;
 public class ReadOptionFileOffsetHandler extends AbstractCommandHandler {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ReadOptionFileOffsetHandler.class);
-    private final int offset;
+    private final long offset;
 
-    public ReadOptionFileOffsetHandler(int offset) {
+    public ReadOptionFileOffsetHandler(long offset) {
         this.offset = offset;
     }
 
@@ -24,9 +24,9 @@ import org.kaazing.k3po.driver.internal.netty.bootstrap.file.FileChannel;
 public class WriteOptionFileOffsetHandler extends AbstractCommandHandler {
 
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(WriteOptionFileOffsetHandler.class);
-    private final int offset;
+    private final long offset;
 
-    public WriteOptionFileOffsetHandler(int offset) {
+    public WriteOptionFileOffsetHandler(long offset) {
         this.offset = offset;
     }
 
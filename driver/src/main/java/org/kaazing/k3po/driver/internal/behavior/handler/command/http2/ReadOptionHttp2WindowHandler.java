@@ -0,0 +1,55 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.command.http2;
+
+import static java.lang.String.format;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.AbstractCommandHandler;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2StreamChannel;
+
+public class ReadOptionHttp2WindowHandler extends AbstractCommandHandler {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ReadOptionHttp2WindowHandler.class);
+    private final int increment;
+
+    public ReadOptionHttp2WindowHandler(int increment) {
+        this.increment = increment;
+    }
+
+    @Override
+    protected void invokeCommand(ChannelHandlerContext ctx) throws Exception {
+        Http2StreamChannel channel = (Http2StreamChannel) ctx.getChannel();
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(format("Growing read window by %d for channel %s", increment, channel));
+        }
+        try {
+            channel.windowUpdate(increment);
+            getHandlerFuture().setSuccess();
+        } catch (Throwable t) {
+            getHandlerFuture().setFailure(t);
+        }
+    }
+
+    @Override
+    protected StringBuilder describe(StringBuilder sb) {
+        return sb.append(format("read option http2:window %d", increment));
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.command.http2;
+
+import static java.lang.String.format;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.AbstractCommandHandler;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.HpackIndexing;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http2.Http2ChannelConfig;
+
+public class WriteOptionHttp2IndexingHandler extends AbstractCommandHandler {
+
+    private final HpackIndexing indexing;
+
+    public WriteOptionHttp2IndexingHandler(HpackIndexing indexing) {
+        this.indexing = indexing;
+    }
+
+    @Override
+    protected void invokeCommand(ChannelHandlerContext ctx) throws Exception {
+        Http2ChannelConfig config = (Http2ChannelConfig) ctx.getChannel().getConfig();
+        config.setIndexing(indexing);
+        getHandlerFuture().setSuccess();
+    }
+
+    @Override
+    protected StringBuilder describe(StringBuilder sb) {
+        return sb.append(format("write option http2:indexing %s", indexing.name().toLowerCase()));
+    }
+
+}
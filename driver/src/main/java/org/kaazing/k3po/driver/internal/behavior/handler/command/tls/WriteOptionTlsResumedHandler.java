@@ -0,0 +1,51 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.command.tls;
+
+import static java.lang.String.format;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.AbstractCommandHandler;
+import org.kaazing.k3po.driver.internal.ext.tls.bootstrap.TlsChannelConfig;
+
+public class WriteOptionTlsResumedHandler extends AbstractCommandHandler {
+
+    private final boolean resumed;
+
+    public WriteOptionTlsResumedHandler(boolean resumed) {
+        this.resumed = resumed;
+    }
+
+    @Override
+    protected void invokeCommand(ChannelHandlerContext ctx) throws Exception {
+        TlsChannelConfig config = (TlsChannelConfig) ctx.getChannel().getConfig();
+        boolean observed = config.isResumed();
+        if (observed == resumed) {
+            getHandlerFuture().setSuccess();
+        }
+        else {
+            String message = format("write option tls:resumed %s", observed);
+            getHandlerFuture().setFailure(new ScriptProgressException(getRegionInfo(), message));
+        }
+    }
+
+    @Override
+    protected StringBuilder describe(StringBuilder sb) {
+        return sb.append(format("write option tls:resumed %s", resumed));
+    }
+
+}
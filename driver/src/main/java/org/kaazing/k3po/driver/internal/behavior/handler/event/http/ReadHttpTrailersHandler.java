@@ -19,15 +19,15 @@ import static java.util.EnumSet.of;
 
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelHandlerContext;
-import org.kaazing.k3po.driver.internal.behavior.handler.codec.http.HttpTrailerDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ConfigDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.event.AbstractEventHandler;
 import org.kaazing.k3po.driver.internal.netty.channel.ShutdownInputEvent;
 
 public class ReadHttpTrailersHandler extends AbstractEventHandler {
 
-    private HttpTrailerDecoder httpTrailerDecoder;
+    private ConfigDecoder httpTrailerDecoder;
 
-    public ReadHttpTrailersHandler(HttpTrailerDecoder httpTrailerDecoder) {
+    public ReadHttpTrailersHandler(ConfigDecoder httpTrailerDecoder) {
         super(of(ChannelEventKind.INPUT_SHUTDOWN));
         this.httpTrailerDecoder = httpTrailerDecoder;
     }
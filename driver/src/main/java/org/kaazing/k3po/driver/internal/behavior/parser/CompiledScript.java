@@ -0,0 +1,50 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.parser;
+
+import org.kaazing.k3po.lang.internal.ast.AstScriptNode;
+import org.kaazing.k3po.lang.internal.el.ExpressionContext;
+
+/**
+ * A parsed and validated script, together with the expression environment its expressions are bound to.
+ */
+public final class CompiledScript {
+
+    private final String text;
+    private final AstScriptNode ast;
+    private final ExpressionContext environment;
+
+    CompiledScript(String text, AstScriptNode ast, ExpressionContext environment) {
+        this.text = text;
+        this.ast = ast;
+        this.environment = environment;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public AstScriptNode getAst() {
+        return ast;
+    }
+
+    /**
+     * Discards property values and captured variables left behind by a previous run.
+     */
+    public void resetEnvironment() {
+        environment.clearVariables();
+    }
+}
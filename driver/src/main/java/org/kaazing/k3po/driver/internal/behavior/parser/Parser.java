@@ -31,7 +31,11 @@ public class Parser implements ScriptParser {
     private final ScriptParser parser;
 
     public Parser() {
-        parser = new ScriptParserImpl();
+        this(new ScriptParserImpl());
+    }
+
+    public Parser(ScriptParser parser) {
+        this.parser = parser;
     }
 
     @Override
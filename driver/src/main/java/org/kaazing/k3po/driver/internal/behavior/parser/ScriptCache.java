@@ -0,0 +1,279 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.parser;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
+
+import java.io.ByteArrayInputStream;
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaazing.k3po.lang.internal.ast.AstScriptNode;
+import org.kaazing.k3po.lang.internal.el.ExpressionContext;
+import org.kaazing.k3po.lang.internal.parser.ScriptParserImpl;
+
+/**
+ * Bounded LRU cache of parsed and validated scripts.
+ *
+ * Scripts are keyed by a digest of their text, as aggregated for a prepare including origin and property overrides,
+ * so a cached script is only reused for the same content, wherever that content was read from, and never goes stale.
+ * Expressions in a parsed script are bound to a single environment, so a cached script is leased to one robot at a
+ * time, and its environment is reset before each lease.
+ *
+ * Scripts compiled ahead of time can be seeded, see {@link #seed(CompiledScript)}, and scripts aggregated from the
+ * scripts of a {@link ScriptIndex} are parsed without being validated again.
+ */
+public final class ScriptCache {
+
+    private final Map<Key, Entry> entries;
+    private final Map<Key, SoftReference<Entry>> seeds;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private volatile ScriptIndex index;
+
+    public ScriptCache(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.seeds = new HashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Sets the index of scripts known to validate, scripts aggregated from indexed scripts are then only parsed
+     */
+    public void setIndex(ScriptIndex index) {
+        this.index = index;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Leases the cached script for the given key.
+     *
+     * @return the cached script, or {@code null} if absent or already leased
+     */
+    public CompiledScript acquire(Key key) {
+        CompiledScript script = null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = takeSeed(key);
+            }
+            if (entry != null && !entry.leased) {
+                entry.leased = true;
+                script = entry.script;
+            }
+        }
+
+        if (script == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        script.resetEnvironment();
+        return script;
+    }
+
+    /**
+     * Parses and validates a script, caching it as leased.
+     *
+     * @param key the cache key, for the script text
+     * @param text the script text, including origin and property overrides
+     */
+    public CompiledScript compile(Key key, String text) throws Exception {
+        return compile(key, text, emptyList(), emptyList());
+    }
+
+    /**
+     * Parses and validates a script, caching it as leased.
+     *
+     * @param key the cache key, for the script text
+     * @param text the script text, including property overrides
+     * @param names the names of the scripts the script text was aggregated from, empty if it includes an origin
+     * @param scripts the texts of the named scripts, in order
+     */
+    public CompiledScript compile(Key key, String text, List<String> names, List<String> scripts) throws Exception {
+        CompiledScript script = compile(text, !isIndexed(names, scripts));
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.leased) {
+                entry = new Entry(script);
+                entry.leased = true;
+                entries.put(key, entry);
+            }
+        }
+
+        return script;
+    }
+
+    /**
+     * Adds a script compiled ahead of time, keyed by its text, leased on the first acquire of its key, unless the
+     * garbage collector reclaims it before.
+     */
+    public void seed(CompiledScript script) {
+        Key key = new Key(script.getText());
+        synchronized (entries) {
+            seeds.put(key, new SoftReference<>(new Entry(script)));
+        }
+    }
+
+    /**
+     * Returns a leased script to the cache.
+     */
+    public void release(CompiledScript script) {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                if (entry.script == script) {
+                    entry.leased = false;
+                    break;
+                }
+            }
+        }
+    }
+
+    public static CompiledScript compile(String text) throws Exception {
+        return compile(text, true);
+    }
+
+    private static CompiledScript compile(String text, boolean validate) throws Exception {
+        ExpressionContext environment = new ExpressionContext();
+        Parser parser = new Parser(new ScriptParserImpl(newExpressionFactory(), environment));
+        AstScriptNode ast = parser.parse(new ByteArrayInputStream(text.getBytes(UTF_8)));
+
+        if (validate) {
+            ScriptValidator validator = new ScriptValidator();
+            validator.validate(ast);
+        }
+
+        return new CompiledScript(text, ast, environment);
+    }
+
+    /*
+     * Scripts validate independently of each other and of property values, but origin scripts are not indexed
+     */
+    private boolean isIndexed(List<String> names, List<String> scripts) {
+        ScriptIndex index = this.index;
+        if (index == null || names.isEmpty() || names.size() != scripts.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < scripts.size(); i++) {
+            if (!index.contains(names.get(i), scripts.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // guarded by entries
+    private Entry takeSeed(Key key) {
+        SoftReference<Entry> seed = seeds.remove(key);
+        Entry entry = (seed != null) ? seed.get() : null;
+        if (entry != null) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public static final class Key {
+
+        private final byte[] digest;
+        private final int hashCode;
+
+        /**
+         * @param text the script text, as aggregated for a prepare including origin and property overrides
+         */
+        public Key(String text) {
+            this.digest = digest(text);
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+            return Arrays.equals(this.digest, that.digest);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        }
+
+        private static byte[] digest(String text) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(text.getBytes(UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform supports SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompiledScript script;
+        private boolean leased;
+
+        Entry(CompiledScript script) {
+            this.script = script;
+        }
+    }
+}
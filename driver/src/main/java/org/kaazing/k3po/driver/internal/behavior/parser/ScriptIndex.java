@@ -0,0 +1,114 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.parser;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scripts known to parse and validate, such as the scripts precompiled by the build, by script name.
+ *
+ * Each script name maps to the SHA-256 digest of the script text it was validated as, so a script changed since it
+ * was indexed no longer matches and is validated as usual. Scripts validate independently of each other and of
+ * property values, so a script aggregated from indexed scripts need not be validated again, see {@link ScriptCache}.
+ */
+public final class ScriptIndex {
+
+    private static final int MAGIC = 0x6b33706f;
+    private static final int VERSION = 2;
+    private static final int DIGEST_LENGTH = 32;
+
+    private final Map<String, ByteBuffer> digests;
+
+    public ScriptIndex() {
+        this.digests = new ConcurrentHashMap<>();
+    }
+
+    public int size() {
+        return digests.size();
+    }
+
+    /**
+     * Adds a script that parses and validates
+     * @param scriptName the script name, without extension
+     * @param text the script text
+     */
+    public void add(String scriptName, String text) {
+        digests.put(scriptName, digest(text));
+    }
+
+    /**
+     * @param scriptName the script name, without extension
+     * @param text the script text
+     * @return true if the script was indexed as this text
+     */
+    public boolean contains(String scriptName, String text) {
+        ByteBuffer digest = digests.get(scriptName);
+        return digest != null && digest.equals(digest(text));
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(digests.size());
+            for (Map.Entry<String, ByteBuffer> entry : digests.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.write(entry.getValue().array());
+            }
+        }
+    }
+
+    public static ScriptIndex read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized script index: " + path);
+            }
+
+            ScriptIndex index = new ScriptIndex();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String scriptName = in.readUTF();
+                byte[] digest = new byte[DIGEST_LENGTH];
+                in.readFully(digest);
+                index.digests.put(scriptName, ByteBuffer.wrap(digest));
+            }
+            return index;
+        }
+    }
+
+    private static ByteBuffer digest(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(text.getBytes(UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.kaazing.k3po.driver.internal.behavior.visitor;
 import static java.lang.String.format;
 import static org.jboss.netty.channel.Channels.pipeline;
 import static org.jboss.netty.util.CharsetUtil.UTF_8;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -34,6 +35,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import javax.el.ExpressionFactory;
 import javax.el.ValueExpression;
 
 import org.agrona.LangUtil;
@@ -57,6 +59,7 @@ import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadByteArrayBytesDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadByteLengthBytesDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadDigestBytesDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExactBytesDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExactTextDecoder;
 import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExpressionDecoder;
@@ -134,6 +137,7 @@ import org.kaazing.k3po.lang.internal.ast.AstWriteNotifyNode;
 import org.kaazing.k3po.lang.internal.ast.AstWriteOptionNode;
 import org.kaazing.k3po.lang.internal.ast.AstWriteValueNode;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstByteLengthBytesMatcher;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstDigestBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactTextMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExpressionMatcher;
@@ -175,6 +179,9 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
         private ByteOrder endian;
 
+        // expressions are evaluated in a scope per stream, layered over the script environment
+        private ExpressionContext scope;
+
         /* The pipelineAsMap is built by each node that is visited. */
         private Map<String, ChannelHandler> pipelineAsMap;
 
@@ -198,6 +205,13 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
             return barrier;
         }
 
+        private ExpressionContext lookupScope(ExpressionContext environment) {
+            if (scope == null) {
+                scope = environment.newScope();
+            }
+            return scope;
+        }
+
         public class PipelineFactory {
             private Map<URI, List<ChannelPipeline>> pipelines = new HashMap<>();
 
@@ -262,6 +276,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
         // masking is a no-op by default for each stream
         state.readUnmasker = Masker.IDENTITY_MASKER;
         state.writeMasker = Masker.IDENTITY_MASKER;
+        state.scope = null;
         state.pipelineAsMap = new LinkedHashMap<>();
 
         for (AstStreamableNode streamable : acceptedNode.getStreamables()) {
@@ -351,6 +366,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
         // masking is a no-op by default for each stream
         state.readUnmasker = Masker.IDENTITY_MASKER;
         state.writeMasker = Masker.IDENTITY_MASKER;
+        state.scope = null;
 
         state.pipelineAsMap = new LinkedHashMap<>();
 
@@ -488,7 +504,8 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
         List<MessageEncoder> messageEncoders = new ArrayList<>();
 
         for (AstValue<?> val : node.getValues()) {
-            messageEncoders.add(val.accept(new GenerateWriteEncoderVisitor(), state.endian));
+            messageEncoders.add(val.accept(new GenerateWriteEncoderVisitor(state.configuration.getExpressionFactory(), state),
+                    state.endian));
         }
         WriteHandler handler = new WriteHandler(messageEncoders, state.writeMasker);
         handler.setRegionInfo(node.getRegionInfo());
@@ -499,10 +516,22 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
     private static final class GenerateWriteEncoderVisitor implements AstValue.Visitor<MessageEncoder, ByteOrder> {
 
+        private final ExpressionFactory factory;
+        private final State state;
+
+        GenerateWriteEncoderVisitor(ExpressionFactory factory, State state) {
+            this.factory = factory;
+            this.state = state;
+        }
+
         @Override
         public MessageEncoder visit(AstExpressionValue<?> value, ByteOrder endian) {
-            Supplier<byte[]> supplier = () -> value.getValue(byte[].class);
-            return new WriteExpressionEncoder(supplier, value.getExpression());
+            // evaluate without coercion to byte[], so the value can also be a stream written in chunks
+            ExpressionContext environment = state.lookupScope(value.getEnvironment());
+            ValueExpression expression = value.getExpression();
+            ValueExpression untyped = factory.createValueExpression(environment, expression.getExpressionString(), Object.class);
+            Supplier<Object> supplier = newSupplier(untyped, environment, Object.class);
+            return new WriteExpressionEncoder(supplier, expression);
         }
 
         @Override
@@ -687,7 +716,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
         List<MessageDecoder> messageDecoders = new ArrayList<>();
 
         for (AstValueMatcher matcher : node.getMatchers()) {
-            messageDecoders.add(matcher.accept(new GenerateReadDecoderVisitor(), state.configuration));
+            messageDecoders.add(matcher.accept(new GenerateReadDecoderVisitor(state), state.configuration));
         }
 
         ReadHandler handler = new ReadHandler(messageDecoders, state.readUnmasker);
@@ -700,10 +729,16 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
     private static final class GenerateReadDecoderVisitor implements AstValueMatcher.Visitor<MessageDecoder, Configuration> {
 
+        private final State state;
+
+        GenerateReadDecoderVisitor(State state) {
+            this.state = state;
+        }
+
         @Override
         public MessageDecoder visit(AstExpressionMatcher matcher, Configuration config) {
             ValueExpression expression = matcher.getValue();
-            ExpressionContext environment = matcher.getEnvironment();
+            ExpressionContext environment = state.lookupScope(matcher.getEnvironment());
             return new ReadExpressionDecoder(matcher.getRegionInfo(), expression, environment);
         }
 
@@ -712,13 +747,20 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
             int length = matcher.getLength();
             String captureName = matcher.getCaptureName();
-            ExpressionContext environment = matcher.getEnvironment();
+            ExpressionContext environment = state.lookupScope(matcher.getEnvironment());
             MessageDecoder decoder =
                     (captureName != null) ? new ReadByteArrayBytesDecoder(matcher.getRegionInfo(), length, environment,
                             captureName) : new ReadByteArrayBytesDecoder(matcher.getRegionInfo(), length);
             return decoder;
         }
 
+        @Override
+        public MessageDecoder visit(AstDigestBytesMatcher matcher, Configuration config) {
+
+            return new ReadDigestBytesDecoder(matcher.getRegionInfo(), matcher.getLength(), matcher.getAlgorithm(),
+                    matcher.getDigest());
+        }
+
         @Override
         public MessageDecoder visit(AstByteLengthBytesMatcher matcher, Configuration config) {
 
@@ -767,7 +809,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
                 String captureName = matcher.getCaptureName();
                 RegionInfo regionInfo = matcher.getRegionInfo();
 
-                ExpressionContext environment = matcher.getEnvironment();
+                ExpressionContext environment = state.lookupScope(matcher.getEnvironment());
                 @SuppressWarnings("unchecked") Constructor<MessageDecoder> constructor =
                         (Constructor<MessageDecoder>) clazz.getConstructor(RegionInfo.class, ExpressionContext.class, String.class);
                 decoder = constructor.newInstance(regionInfo, environment, captureName);
@@ -787,7 +829,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
         @Override
         public MessageDecoder visit(AstRegexMatcher matcher, Configuration config) {
-            ExpressionContext environment = matcher.getEnvironment();
+            ExpressionContext environment = state.lookupScope(matcher.getEnvironment());
             MessageDecoder result;
             result = new ReadRegexDecoder(matcher.getRegionInfo(), matcher.getValue(), UTF_8, environment);
             return result;
@@ -808,7 +850,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
 
             ValueExpression length = matcher.getLength();
             String captureName = matcher.getCaptureName();
-            ExpressionContext environment = matcher.getEnvironment();
+            ExpressionContext environment = state.lookupScope(matcher.getEnvironment());
             MessageDecoder decoder =
                     (captureName != null) ? new ReadVariableLengthBytesDecoder(matcher.getRegionInfo(), length, environment,
                             captureName) : new ReadVariableLengthBytesDecoder(matcher.getRegionInfo(), length, environment);
@@ -922,7 +964,7 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
     @Override
     public Configuration visit(AstWriteConfigNode node, State state) {
 
-        Function<AstValue<?>, MessageEncoder> encoderFactory = v -> v.accept(new GenerateWriteEncoderVisitor(), state.endian);
+        Function<AstValue<?>, MessageEncoder> encoderFactory = v -> v.accept(new GenerateWriteEncoderVisitor(state.configuration.getExpressionFactory()), state.endian);
         ChannelHandler handler = behaviorSystem.newWriteConfigHandler(node, encoderFactory);
 
         if (handler != null) {
@@ -1017,7 +1059,8 @@ public class GenerateConfigurationVisitor implements AstNode.Visitor<Configurati
         @Override
         public Masker visit(AstExpressionValue<?> value, State state) {
 
-            Supplier<byte[]> supplier = () -> value.getValue(byte[].class);
+            ExpressionContext environment = state.lookupScope(value.getEnvironment());
+            Supplier<byte[]> supplier = newSupplier(value.getExpression(), environment, byte[].class);
             return Maskers.newMasker(supplier);
         }
 
@@ -21,8 +21,19 @@ public abstract class ControlMessage {
         PREPARE, PREPARED, START, STARTED, ERROR, ABORT, FINISHED, AWAIT, NOTIFY, NOTIFIED
     }
 
+    // identifies the script session on a multiplexed (version 3.0) control connection
+    private int sessionId;
+
     public abstract Kind getKind();
 
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
     public abstract int hashCode();
 
     public abstract boolean equals(Object obj);
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import static java.lang.String.format;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.decodeKind;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.readString;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.readStrings;
+import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.PROPERTY_NODE;
+
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+import org.kaazing.k3po.driver.internal.control.AbortMessage;
+import org.kaazing.k3po.driver.internal.control.AwaitMessage;
+import org.kaazing.k3po.driver.internal.control.ControlMessage;
+import org.kaazing.k3po.driver.internal.control.NotifyMessage;
+import org.kaazing.k3po.driver.internal.control.PrepareMessage;
+import org.kaazing.k3po.driver.internal.control.StartMessage;
+import org.kaazing.k3po.lang.internal.parser.ScriptParseException;
+import org.kaazing.k3po.lang.internal.parser.ScriptParserImpl;
+
+/**
+ * Decodes control protocol version 3.0 frames, see {@link BinaryControlProtocol}.
+ * Unlike the text protocol, the content of a frame is not limited to 32 KB, but frames
+ * longer than {@link #DEFAULT_MAX_FRAME_LENGTH} are rejected unless a larger limit is configured.
+ */
+public class BinaryControlDecoder extends FrameDecoder {
+
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private final int maxFrameLength;
+
+    public BinaryControlDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public BinaryControlDecoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+
+        if (buffer.readableBytes() < 4) {
+            return null;
+        }
+
+        int frameLength = buffer.getInt(buffer.readerIndex());
+        if (frameLength < 5 || frameLength > maxFrameLength) {
+            throw new IllegalArgumentException(format("Invalid frame length: %d", frameLength));
+        }
+
+        if (buffer.readableBytes() < 4 + frameLength) {
+            return null;
+        }
+
+        buffer.skipBytes(4);
+        ChannelBuffer frame = buffer.readSlice(frameLength);
+
+        ControlMessage.Kind kind = decodeKind(frame.readUnsignedByte());
+        int sessionId = frame.readInt();
+
+        ControlMessage message = decodeMessage(kind, frame);
+        message.setSessionId(sessionId);
+        return message;
+    }
+
+    private ControlMessage decodeMessage(ControlMessage.Kind kind, ChannelBuffer frame) throws ScriptParseException {
+        switch (kind) {
+        case PREPARE:
+            return decodePrepare(frame);
+        case START:
+            return new StartMessage();
+        case ABORT:
+            return new AbortMessage();
+        case NOTIFY:
+            NotifyMessage notifyMessage = new NotifyMessage();
+            notifyMessage.setBarrier(readString(frame));
+            return notifyMessage;
+        case AWAIT:
+            AwaitMessage awaitMessage = new AwaitMessage();
+            awaitMessage.setBarrier(readString(frame));
+            return awaitMessage;
+        default:
+            throw new IllegalArgumentException(format("Unrecognized message kind: %s", kind));
+        }
+    }
+
+    private PrepareMessage decodePrepare(ChannelBuffer frame) throws ScriptParseException {
+        PrepareMessage prepareMessage = new PrepareMessage();
+        prepareMessage.setVersion(readString(frame));
+        prepareMessage.setOrigin(readString(frame));
+        prepareMessage.setNames(readStrings(frame));
+
+        List<String> properties = readStrings(frame);
+        ScriptParserImpl parser = new ScriptParserImpl();
+        for (String property : properties) {
+            // confirm parse-able
+            parser.parseWithStrategy(property, PROPERTY_NODE);
+        }
+        prepareMessage.setProperties(properties);
+
+        return prepareMessage;
+    }
+}
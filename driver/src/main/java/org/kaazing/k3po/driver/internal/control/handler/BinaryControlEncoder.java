@@ -0,0 +1,144 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.encodeKind;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.splitLines;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.writeString;
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.writeStrings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.kaazing.k3po.driver.internal.control.ControlMessage;
+import org.kaazing.k3po.driver.internal.control.ErrorMessage;
+import org.kaazing.k3po.driver.internal.control.FinishedMessage;
+import org.kaazing.k3po.driver.internal.control.NotifiedMessage;
+import org.kaazing.k3po.driver.internal.control.NotifyMessage;
+import org.kaazing.k3po.driver.internal.control.PreparedMessage;
+
+/**
+ * Encodes control protocol version 3.0 frames, see {@link BinaryControlProtocol}.
+ * Remembers the prepared script of each session so that FINISHED can be sent as a diff.
+ */
+public class BinaryControlEncoder extends OneToOneEncoder {
+
+    private final ConcurrentMap<Integer, String> preparedScripts = new ConcurrentHashMap<>();
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object message) throws Exception {
+
+        if (message instanceof ControlMessage) {
+            ControlMessage controlMessage = (ControlMessage) message;
+
+            ChannelBuffer buf = dynamicBuffer(channel.getConfig().getBufferFactory());
+            buf.writeInt(0);
+            buf.writeByte(encodeKind(controlMessage.getKind()));
+            buf.writeInt(controlMessage.getSessionId());
+
+            switch (controlMessage.getKind()) {
+            case PREPARED:
+                encodePreparedMessage((PreparedMessage) controlMessage, buf);
+                break;
+            case STARTED:
+                break;
+            case ERROR:
+                ErrorMessage errorMessage = (ErrorMessage) controlMessage;
+                writeString(errorMessage.getSummary(), buf);
+                writeString(errorMessage.getDescription(), buf);
+                break;
+            case FINISHED:
+                encodeFinishedMessage((FinishedMessage) controlMessage, buf);
+                break;
+            case NOTIFY:
+                writeString(((NotifyMessage) controlMessage).getBarrier(), buf);
+                break;
+            case NOTIFIED:
+                writeString(((NotifiedMessage) controlMessage).getBarrier(), buf);
+                break;
+            default:
+                // unknown message
+                return message;
+            }
+
+            buf.setInt(0, buf.writerIndex() - 4);
+            return buf;
+        }
+
+        // unknown message
+        return message;
+    }
+
+    private void encodePreparedMessage(PreparedMessage preparedMessage, ChannelBuffer buf) {
+        String script = preparedMessage.getScript();
+        if (script != null) {
+            preparedScripts.put(preparedMessage.getSessionId(), script);
+        }
+
+        writeStrings(sharedBarriers(preparedMessage.getBarriers()), buf);
+        writeString(script, buf);
+    }
+
+    private void encodeFinishedMessage(FinishedMessage finishedMessage, ChannelBuffer buf) {
+        writeStrings(sharedBarriers(finishedMessage.getCompletedBarriers()), buf);
+        writeStrings(sharedBarriers(finishedMessage.getIncompleteBarriers()), buf);
+
+        String preparedScript = preparedScripts.remove(finishedMessage.getSessionId());
+        String observedScript = finishedMessage.getScript();
+        List<String> expected = splitLines(preparedScript != null ? preparedScript : "");
+        List<String> observed = splitLines(observedScript != null ? observedScript : "");
+
+        int prefix = 0;
+        int maxPrefix = Math.min(expected.size(), observed.size());
+        while (prefix < maxPrefix && expected.get(prefix).equals(observed.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix &&
+                expected.get(expected.size() - 1 - suffix).equals(observed.get(observed.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        StringBuilder replacement = new StringBuilder();
+        for (String line : observed.subList(prefix, observed.size() - suffix)) {
+            replacement.append(line);
+        }
+
+        buf.writeInt(prefix);
+        buf.writeInt(suffix);
+        writeString(replacement.toString(), buf);
+    }
+
+    private static List<String> sharedBarriers(List<String> barriers) {
+        List<String> shared = new ArrayList<>(barriers.size());
+        for (String barrier : barriers) {
+            // ~ denote injected barriers, which need not be shared with test framework
+            if (!barrier.startsWith("~")) {
+                shared.add(barrier);
+            }
+        }
+        return shared;
+    }
+}
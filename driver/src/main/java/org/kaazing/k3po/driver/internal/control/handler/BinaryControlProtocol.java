@@ -0,0 +1,130 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import static org.jboss.netty.util.CharsetUtil.UTF_8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.kaazing.k3po.driver.internal.control.ControlMessage.Kind;
+
+/**
+ * Control protocol version 3.0, a length-prefixed binary framing that multiplexes script sessions.
+ *
+ * <pre>
+ * connection := preface frame*
+ * preface    := 0x00 'K' '3' 0x03
+ * frame      := int32 length, int8 kind, int32 session, fields   (length counts kind, session and fields)
+ * string     := int32 length (-1 for null), UTF-8 bytes
+ * strings    := int32 count, string*
+ *
+ * PREPARE  := string version, string origin, strings names, strings properties
+ * PREPARED := strings barriers, string script
+ * NOTIFY, AWAIT, NOTIFIED := string barrier
+ * ERROR    := string summary, string description
+ * FINISHED := strings notified, strings awaiting, int32 prefix, int32 suffix, string replacement
+ * START, STARTED, ABORT := (no fields)
+ *
+ * kind := 1 PREPARE, 2 PREPARED, 3 START, 4 STARTED, 5 ERROR, 6 ABORT, 7 FINISHED, 8 AWAIT, 9 NOTIFY, 10 NOTIFIED
+ * </pre>
+ *
+ * FINISHED carries the observed script as a line diff against the PREPARED script of the same session:
+ * the first prefix lines and the last suffix lines of the prepared script, with the replacement in between.
+ * All integers are big-endian.
+ */
+final class BinaryControlProtocol {
+
+    static final String VERSION = "3.0";
+
+    static final byte[] PREFACE = { 0x00, 'K', '3', 0x03 };
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private BinaryControlProtocol() {
+        // utility class
+    }
+
+    static int encodeKind(Kind kind) {
+        return kind.ordinal() + 1;
+    }
+
+    static Kind decodeKind(int code) {
+        if (code < 1 || code > KINDS.length) {
+            throw new IllegalArgumentException("Unrecognized message kind: " + code);
+        }
+        return KINDS[code - 1];
+    }
+
+    static void writeString(String value, ChannelBuffer buffer) {
+        if (value == null) {
+            buffer.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            buffer.writeInt(bytes.length);
+            buffer.writeBytes(bytes);
+        }
+    }
+
+    static String readString(ChannelBuffer buffer) {
+        int length = buffer.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.readableBytes()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        String value = buffer.toString(buffer.readerIndex(), length, UTF_8);
+        buffer.skipBytes(length);
+        return value;
+    }
+
+    static void writeStrings(List<String> values, ChannelBuffer buffer) {
+        buffer.writeInt(values.size());
+        for (String value : values) {
+            writeString(value, buffer);
+        }
+    }
+
+    static List<String> readStrings(ChannelBuffer buffer) {
+        int count = buffer.readInt();
+        if (count < 0 || count > buffer.readableBytes()) {
+            throw new IllegalArgumentException("Invalid string count: " + count);
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    /**
+     * Splits a script into lines, each keeping its line terminator, so that joining the lines is lossless.
+     */
+    static List<String> splitLines(String script) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int end = script.indexOf('\n'); end != -1; end = script.indexOf('\n', start)) {
+            lines.add(script.substring(start, end + 1));
+            start = end + 1;
+        }
+        if (start < script.length()) {
+            lines.add(script.substring(start));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import static org.kaazing.k3po.driver.internal.control.handler.BinaryControlProtocol.PREFACE;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Serves control protocol versions 2.0 and 3.0 side by side on the same port.
+ *
+ * Text (2.0) connections begin with an upper case command name, so they pass through to the text codec
+ * already in the pipeline. Binary (3.0) connections begin with a preface starting with a zero byte, in which case
+ * the text codec is replaced by the binary codec and the session handler is added ahead of "control.handler".
+ */
+public class ControlProtocolDetector extends FrameDecoder {
+
+    private final ControlSessionHandler sessionHandler;
+
+    public ControlProtocolDetector(ControlSessionHandler sessionHandler) {
+        this.sessionHandler = sessionHandler;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+
+        if (!buffer.readable()) {
+            return null;
+        }
+
+        ChannelPipeline pipeline = ctx.getPipeline();
+
+        if (buffer.getByte(buffer.readerIndex()) == PREFACE[0]) {
+            if (buffer.readableBytes() < PREFACE.length) {
+                return null;
+            }
+
+            for (int i = 0; i < PREFACE.length; i++) {
+                if (buffer.readByte() != PREFACE[i]) {
+                    throw new IllegalArgumentException("Unrecognized control protocol preface");
+                }
+            }
+
+            pipeline.replace("control.decoder", "control.decoder", new BinaryControlDecoder());
+            pipeline.replace("control.encoder", "control.encoder", new BinaryControlEncoder());
+            pipeline.addBefore("control.handler", "control.sessions", sessionHandler);
+        }
+
+        pipeline.remove(this);
+
+        // forward any remaining bytes to the selected decoder
+        return buffer.readable() ? buffer.readBytes(buffer.readableBytes()) : null;
+    }
+}
@@ -18,22 +18,20 @@ package org.kaazing.k3po.driver.internal.control.handler;
 import static java.lang.String.format;
 import static java.lang.Thread.currentThread;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.FileSystems.newFileSystem;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.PROPERTY_NODE;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.FileSystem;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import org.jboss.netty.channel.ChannelFuture;
@@ -46,7 +44,10 @@ import org.jboss.netty.channel.socket.nio.NioSocketChannel;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
 import org.kaazing.k3po.driver.internal.Robot;
+import org.kaazing.k3po.driver.internal.RobotScheduler;
 import org.kaazing.k3po.driver.internal.behavior.Barrier;
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
 import org.kaazing.k3po.driver.internal.control.AwaitMessage;
 import org.kaazing.k3po.driver.internal.control.ErrorMessage;
 import org.kaazing.k3po.driver.internal.control.FinishedMessage;
@@ -60,34 +61,46 @@ import org.kaazing.k3po.lang.internal.parser.ScriptParserImpl;
 
 public class ControlServerHandler extends ControlUpstreamHandler {
 
-    private static final Map<String, Object> EMPTY_ENVIRONMENT = Collections.<String, Object>emptyMap();
-
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ControlServerHandler.class);
     private static final String ERROR_MSG_NOT_PREPARED = "Script has not been prepared or is still preparing\n";
     private static final String ERROR_MSG_ALREADY_PREPARED = "Script already prepared\n";
     private static final String ERROR_MSG_ALREADY_STARTED = "Script has already been started\n";
 
-    // the dispose future of the robot that is executing the current test. Will be used to check when it is disposed 
-    // in order to start this test
-    private AtomicReference<Robot> activeRobotRef;
-    
+    // decides when the robot for this control connection may bind and run, alongside robots of other connections
+    private final RobotScheduler scheduler;
+
     private Robot robot;
     private ChannelFutureListener whenAbortedOrFinished;
+    private String version = "2.0";
     
     private volatile boolean isFinishedSent = false;
 
     private final ChannelFuture channelClosedFuture = Channels.future(null);
 
     private ClassLoader scriptLoader;
+    private Map<Class<?>, Object> injectables = Collections.emptyMap();
+    private ScriptCache scriptCache;
     
-    public ControlServerHandler(AtomicReference<Robot> activeRobotRef) {
-        this.activeRobotRef = activeRobotRef;
+    public ControlServerHandler(RobotScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void setInjectables(Map<Class<?>, Object> injectables) {
+        this.injectables = injectables;
     }
     
     public void setScriptLoader(ClassLoader scriptLoader) {
         this.scriptLoader = scriptLoader;
     }
 
+    public void setScriptCache(ScriptCache scriptCache) {
+        this.scriptCache = scriptCache;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     // Note that this is more than just the channel close future. It's a future that means not only
     // that this channel has closed but it is a future that tells us when this obj has processed the closed event.
     public ChannelFuture getChannelClosedFuture() {
@@ -96,61 +109,36 @@ public class ControlServerHandler extends ControlUpstreamHandler {
 
     @Override
     public void channelClosed(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception {
+        dispose().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                channelClosedFuture.setSuccess();
+                ctx.sendUpstream(e);
+            }
+        });
+    }
+
+    public ChannelFuture dispose() {
         if (robot != null) {
-            robot.dispose().addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    channelClosedFuture.setSuccess();
-                    ctx.sendUpstream(e);
-                    activeRobotRef.compareAndSet(robot, null);
-                }
-            });
+            return robot.dispose();
         }
+
+        ChannelFuture disposed = Channels.future(null);
+        disposed.setSuccess();
+        return disposed;
     }
 
     @Override
     public void prepareReceived(final ChannelHandlerContext ctx, MessageEvent evt) throws Exception {
-        if (robot != null && robot.getPreparedFuture() != null) {
+        if (robot != null) {
             sendErrorMessage(ctx, ERROR_MSG_ALREADY_PREPARED);
             return;
         }
 
-        if (robot == null) {
-            robot = new Robot();
-        }
-
-        if (activeRobotRef.get() != robot && ! activeRobotRef.compareAndSet(null, robot)) {
-            Robot activeRobot = activeRobotRef.get();
-            if (activeRobot == null) {
-                // it seems the active robot finished in the mean time, so we will try again
-                prepareReceived(ctx, evt);
-            } else {
-                activeRobot.getDisposedFuture().addListener(new ChannelFutureListener() {
-                    @Override
-                    public void operationComplete(ChannelFuture future) throws Exception {
-                        ((NioSocketChannel) ctx.getChannel()).getWorker().executeInIoThread(() -> {
-                            try {
-                                prepareReceived(ctx, evt);
-                            } catch (Exception e) {
-                                sendErrorMessage(ctx, e);
-                            }
-                        }, true);
-                    }
-                });
-                return;
-            }
-        }
-
-        //just in case it was called after connection was closed (test timeout ?)
-        if (ctx.getChannel().getCloseFuture().isDone()) {
-            return;
-        }
-
         final PrepareMessage prepare = (PrepareMessage) evt.getMessage();
 
         // enforce control protocol version
-        String version = prepare.getVersion();
-        if (!"2.0".equals(version)) {
+        if (!version.equals(prepare.getVersion())) {
             sendVersionError(ctx);
             return;
         }
@@ -162,8 +150,10 @@ public class ControlServerHandler extends ControlUpstreamHandler {
 
         whenAbortedOrFinished = whenAbortedOrFinished(ctx);
 
-        String originScript = "";
         String origin = prepare.getOrigin();
+        List<String> properyOverrides = prepare.getProperties();
+
+        String originScript = "";
         if (origin != null) {
             try {
                 originScript = OriginScript.get(origin);
@@ -172,36 +162,83 @@ public class ControlServerHandler extends ControlUpstreamHandler {
             }
         }
 
-        ChannelFuture prepareFuture;
-
-        String aggregatedScript = originScript + aggregateScript(scriptNames, scriptLoader);
-        List<String> properyOverrides = prepare.getProperties();
+        List<String> scripts = new ArrayList<>();
+        List<URL> scriptSources = new ArrayList<>();
+        String aggregatedScript = originScript + aggregateScript(scriptNames, scriptLoader, scriptSources, scripts);
         // consider hard fail in the future, when test frameworks support
         // override per test method
 
         aggregatedScript = injectOverridenProperties(aggregatedScript, properyOverrides);
 
-        if (scriptLoader != null) {
-            Thread currentThread = currentThread();
-            ClassLoader contextClassLoader = currentThread.getContextClassLoader();
-            try {
+        // cached by content, so scripts sent by the client or changed on disk are only reused when unchanged
+        ScriptCache.Key scriptKey = new ScriptCache.Key(aggregatedScript);
+        CompiledScript script = (scriptCache != null) ? scriptCache.acquire(scriptKey) : null;
+
+        final Robot robot = new Robot(injectables);
+        this.robot = robot;
+
+        Thread currentThread = currentThread();
+        ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try {
+            if (scriptLoader != null) {
                 currentThread.setContextClassLoader(scriptLoader);
-                prepareFuture = robot.prepare(aggregatedScript);
-            } finally {
-                currentThread.setContextClassLoader(contextClassLoader);
             }
-        } else {
-            prepareFuture = robot.prepare(aggregatedScript);
+
+            if (script == null) {
+                // origin scripts are not indexed
+                List<String> indexedNames = (origin == null) ? scriptNames : Collections.<String>emptyList();
+                script = (scriptCache != null)
+                        ? scriptCache.compile(scriptKey, aggregatedScript, indexedNames, scripts)
+                        : ScriptCache.compile(aggregatedScript);
+            }
+
+            if (scriptCache != null) {
+                final CompiledScript leasedScript = script;
+                robot.getDisposedFuture().addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        scriptCache.release(leasedScript);
+                    }
+                });
+            }
+
+            robot.configure(script);
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
         }
 
-        final String scriptToRun = aggregatedScript;
-        prepareFuture.addListener(new ChannelFutureListener() {
+        // wait for robots with colliding accept locations, or for a free slot, before binding
+        final String scriptToRun = script.getText();
+        ChannelFuture admittedFuture = scheduler.admit(robot.getAcceptURIs(), robot.getDisposedFuture());
+        admittedFuture.addListener(new ChannelFutureListener() {
             @Override
-            public void operationComplete(final ChannelFuture f) {
-                PreparedMessage prepared = new PreparedMessage();
-                prepared.setScript(scriptToRun);
-                prepared.getBarriers().addAll(robot.getBarriersByName().keySet());
-                writeEvent(ctx, prepared);
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    // disposed while waiting for admission
+                    return;
+                }
+
+                ((NioSocketChannel) ctx.getChannel()).getWorker().executeInIoThread(() -> {
+                    //just in case it was admitted after connection was closed (test timeout ?)
+                    if (ctx.getChannel().getCloseFuture().isDone()) {
+                        return;
+                    }
+
+                    try {
+                        ChannelFuture prepareFuture = robot.prepare();
+                        prepareFuture.addListener(new ChannelFutureListener() {
+                            @Override
+                            public void operationComplete(final ChannelFuture f) {
+                                PreparedMessage prepared = new PreparedMessage();
+                                prepared.setScript(scriptToRun);
+                                prepared.getBarriers().addAll(robot.getBarriersByName().keySet());
+                                writeEvent(ctx, prepared);
+                            }
+                        });
+                    } catch (Exception e) {
+                        sendErrorMessage(ctx, e);
+                    }
+                }, true);
             }
         });
     }
@@ -239,52 +276,61 @@ public class ControlServerHandler extends ControlUpstreamHandler {
      */
     public static String aggregateScript(List<String> scriptNames, ClassLoader scriptLoader)
             throws URISyntaxException, IOException {
+        return aggregateScript(scriptNames, scriptLoader, new ArrayList<URL>(), new ArrayList<String>());
+    }
+
+    private static String aggregateScript(
+        List<String> scriptNames,
+        ClassLoader scriptLoader,
+        List<URL> scriptSources,
+        List<String> scripts) throws URISyntaxException, IOException {
         final StringBuilder aggregatedScript = new StringBuilder();
         for (String scriptName : scriptNames) {
-            String scriptNameWithExtension = format("%s.rpt", scriptName);
-            Path scriptPath = Paths.get(scriptNameWithExtension);
-            scriptNameWithExtension = URI.create(scriptNameWithExtension).normalize().getPath();
-            String script = null;
-
-            assert !scriptPath.isAbsolute();
-
-            // resolve relative scripts in local file system
-            if (scriptLoader != null) {
-                // resolve relative scripts from class loader to support
-                // separated specification projects that include Robot scripts only
-                URL resource = scriptLoader.getResource(scriptNameWithExtension);
-                if (resource != null) {
-                    URI resourceURI = resource.toURI();
-                    if ("file".equals(resourceURI.getScheme())) {
-                        Path resourcePath = Paths.get(resourceURI);
-                        script = readScript(resourcePath);
-                    } else {
-                        try (FileSystem fileSystem = newFileSystem(resourceURI, EMPTY_ENVIRONMENT)) {
-                            Path resourcePath = Paths.get(resourceURI);
-                            script = readScript(resourcePath);
-                        }
-                    }
-                }
-            }
+            String script = readScript(scriptName, scriptLoader, scriptSources);
 
             if (script == null) {
-                throw new RuntimeException("Script not found: " + scriptPath);
+                throw new RuntimeException("Script not found: " + Paths.get(format("%s.rpt", scriptName)));
             }
 
+            scripts.add(script);
             aggregatedScript.append(script);
         }
         return aggregatedScript.toString();
     }
 
-    private static String readScript(Path scriptPath) throws IOException {
-        List<String> lines = Files.readAllLines(scriptPath, UTF_8);
-        StringBuilder sb = new StringBuilder();
-        for (String line : lines) {
-            sb.append(line);
-            sb.append("\n");
+    /**
+     * Reads a script from the script path, with line endings normalized
+     *
+     * @param scriptName the script name, without extension
+     * @param scriptLoader the script path
+     * @param scriptSources the resources read from, to be added to
+     * @return the script text, or null if not found
+     */
+    public static String readScript(String scriptName, ClassLoader scriptLoader, List<URL> scriptSources)
+            throws IOException {
+        String scriptNameWithExtension = format("%s.rpt", scriptName);
+        assert !Paths.get(scriptNameWithExtension).isAbsolute();
+        scriptNameWithExtension = URI.create(scriptNameWithExtension).normalize().getPath();
+
+        // resolve relative scripts from class loader to support
+        // separated specification projects that include Robot scripts only
+        URL resource = (scriptLoader != null) ? scriptLoader.getResource(scriptNameWithExtension) : null;
+        if (resource == null) {
+            return null;
+        }
+
+        scriptSources.add(resource);
+
+        // reads jar entries without opening a file system, so scripts of the same jar can be read concurrently
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(),
+                UTF_8.newDecoder()))) {
+            StringBuilder sb = new StringBuilder();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                sb.append(line);
+                sb.append("\n");
+            }
+            return sb.toString();
         }
-        String script = sb.toString();
-        return script;
     }
 
     @Override
@@ -410,7 +456,7 @@ public class ControlServerHandler extends ControlUpstreamHandler {
     private void sendVersionError(ChannelHandlerContext ctx) {
         ErrorMessage errorMessage = new ErrorMessage();
         errorMessage.setSummary("Bad control protocol version");
-        errorMessage.setDescription("Robot requires control protocol version 2.0");
+        errorMessage.setDescription(format("Robot requires control protocol version %s", version));
         writeEvent(ctx, errorMessage);
     }
 
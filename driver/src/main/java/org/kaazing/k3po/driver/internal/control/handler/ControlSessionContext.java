@@ -0,0 +1,112 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.MessageEvent;
+import org.kaazing.k3po.driver.internal.control.ControlMessage;
+import org.kaazing.k3po.driver.internal.control.FinishedMessage;
+
+/**
+ * The context of one script session on a multiplexed control connection.
+ * Events written by the session's {@link ControlServerHandler} are tagged with the session id on the way down,
+ * and its upstream events stop here, since the connection is shared with the other sessions.
+ */
+final class ControlSessionContext implements ChannelHandlerContext {
+
+    private final ChannelHandlerContext ctx;
+    private final int sessionId;
+    private final ControlServerHandler handler;
+    private final ControlSessionHandler sessions;
+
+    private volatile Object attachment;
+
+    ControlSessionContext(ChannelHandlerContext ctx, int sessionId, ControlServerHandler handler,
+            ControlSessionHandler sessions) {
+        this.ctx = ctx;
+        this.sessionId = sessionId;
+        this.handler = handler;
+        this.sessions = sessions;
+    }
+
+    int getSessionId() {
+        return sessionId;
+    }
+
+    @Override
+    public ControlServerHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public Channel getChannel() {
+        return ctx.getChannel();
+    }
+
+    @Override
+    public ChannelPipeline getPipeline() {
+        return ctx.getPipeline();
+    }
+
+    @Override
+    public String getName() {
+        return ctx.getName();
+    }
+
+    @Override
+    public boolean canHandleUpstream() {
+        return true;
+    }
+
+    @Override
+    public boolean canHandleDownstream() {
+        return false;
+    }
+
+    @Override
+    public void sendUpstream(ChannelEvent e) {
+        // session events do not propagate past the shared connection
+    }
+
+    @Override
+    public void sendDownstream(ChannelEvent e) {
+        Object message = (e instanceof MessageEvent) ? ((MessageEvent) e).getMessage() : null;
+
+        if (message instanceof ControlMessage) {
+            ((ControlMessage) message).setSessionId(sessionId);
+        }
+
+        ctx.sendDownstream(e);
+
+        if (message instanceof FinishedMessage) {
+            sessions.finished(this);
+        }
+    }
+
+    @Override
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    @Override
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+}
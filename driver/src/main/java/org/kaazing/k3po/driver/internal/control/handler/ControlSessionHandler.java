@@ -0,0 +1,115 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.control.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.kaazing.k3po.driver.internal.control.ControlMessage;
+import org.kaazing.k3po.driver.internal.control.ControlMessage.Kind;
+import org.kaazing.k3po.driver.internal.control.ErrorMessage;
+
+/**
+ * Multiplexes the script sessions of a version 3.0 control connection, each with its own {@link ControlServerHandler}.
+ * A session starts with PREPARE and ends once FINISHED has been written, or when the connection closes.
+ */
+public class ControlSessionHandler extends SimpleChannelUpstreamHandler {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ControlSessionHandler.class);
+
+    private final Supplier<ControlServerHandler> handlerFactory;
+    private final ConcurrentMap<Integer, ControlSessionContext> sessions;
+
+    public ControlSessionHandler(Supplier<ControlServerHandler> handlerFactory) {
+        this.handlerFactory = handlerFactory;
+        this.sessions = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        ControlMessage message = (ControlMessage) e.getMessage();
+        int sessionId = message.getSessionId();
+
+        ControlSessionContext session = sessions.get(sessionId);
+        if (session == null) {
+            if (message.getKind() != Kind.PREPARE) {
+                ErrorMessage errorMessage = new ErrorMessage();
+                errorMessage.setSessionId(sessionId);
+                errorMessage.setSummary("Internal error");
+                errorMessage.setDescription("Script has not been prepared or is still preparing\n");
+                Channels.write(ctx, Channels.future(null), errorMessage);
+                return;
+            }
+
+            ControlServerHandler handler = handlerFactory.get();
+            handler.setVersion(BinaryControlProtocol.VERSION);
+            session = new ControlSessionContext(ctx, sessionId, handler, this);
+            sessions.put(sessionId, session);
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("control session " + sessionId + " opened");
+            }
+        }
+
+        session.getHandler().messageReceived(session, e);
+    }
+
+    @Override
+    public void channelClosed(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception {
+        List<ControlSessionContext> closing = new ArrayList<>(sessions.values());
+        sessions.clear();
+
+        if (closing.isEmpty()) {
+            ctx.sendUpstream(e);
+            return;
+        }
+
+        // forward the close once every session has disposed its robot
+        final AtomicInteger remaining = new AtomicInteger(closing.size());
+        for (ControlSessionContext session : closing) {
+            session.getHandler().dispose().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (remaining.decrementAndGet() == 0) {
+                        ctx.sendUpstream(e);
+                    }
+                }
+            });
+        }
+    }
+
+    void finished(ControlSessionContext session) {
+        if (sessions.remove(session.getSessionId(), session)) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("control session " + session.getSessionId() + " finished");
+            }
+            session.getHandler().dispose();
+        }
+    }
+}
@@ -15,7 +15,7 @@
  */
 package org.kaazing.k3po.driver.internal.executor;
 
-import java.util.ServiceLoader;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -23,18 +23,18 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.kaazing.k3po.driver.internal.executor.spi.ExecutorServiceFactorySpi;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 
 public final class ExecutorServiceFactory {
 
     private final SortedMap<String, ExecutorServiceFactorySpi> executorServiceFactories;
 
     public static ExecutorServiceFactory newInstance(ClassLoader loader) {
-        return newInstance(ServiceLoader.load(ExecutorServiceFactorySpi.class, loader));
+        return newInstance(ServiceRegistry.lookup(loader).newServices(ExecutorServiceFactorySpi.class));
     }
 
     public static ExecutorServiceFactory newInstance() {
-        ServiceLoader<ExecutorServiceFactorySpi> loader = loadExecutorServiceFactorySpi();
-        return newInstance(loader);
+        return newInstance(ServiceRegistry.current().newServices(ExecutorServiceFactorySpi.class));
     }
 
     private ExecutorServiceFactory(SortedMap<String, ExecutorServiceFactorySpi> executorServiceFactories) {
@@ -42,11 +42,11 @@ public final class ExecutorServiceFactory {
     }
 
     private static ExecutorServiceFactory newInstance(
-            ServiceLoader<ExecutorServiceFactorySpi> loader) {
+            List<ExecutorServiceFactorySpi> spis) {
         SortedMap<String, ExecutorServiceFactorySpi> executorServiceFactories =
                 new TreeMap<>();
 
-        for (ExecutorServiceFactorySpi spi : loader) {
+        for (ExecutorServiceFactorySpi spi : spis) {
             String executorName = spi.getName();
 
             ExecutorServiceFactorySpi oldExecutorServiceFactorySpi = executorServiceFactories.get(executorName);
@@ -98,10 +98,4 @@ public final class ExecutorServiceFactory {
 
         return "";
     }
-
-    private static ServiceLoader<ExecutorServiceFactorySpi> loadExecutorServiceFactorySpi() {
-        Class<ExecutorServiceFactorySpi> service = ExecutorServiceFactorySpi.class;
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        return (classLoader != null) ? ServiceLoader.load(service, classLoader) : ServiceLoader.load(service);
-    }
 }
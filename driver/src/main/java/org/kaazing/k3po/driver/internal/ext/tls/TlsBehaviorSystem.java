@@ -16,6 +16,8 @@
 package org.kaazing.k3po.driver.internal.ext.tls;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.kaazing.k3po.driver.internal.ext.tls.TlsTypeSystem.OPTION_RESUMED;
 
 import java.util.Map;
 import java.util.Set;
@@ -25,6 +27,11 @@ import org.kaazing.k3po.driver.internal.behavior.ReadConfigFactory;
 import org.kaazing.k3po.driver.internal.behavior.ReadOptionFactory;
 import org.kaazing.k3po.driver.internal.behavior.WriteConfigFactory;
 import org.kaazing.k3po.driver.internal.behavior.WriteOptionFactory;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.tls.ReadOptionTlsResumedHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.tls.WriteOptionTlsResumedHandler;
+import org.kaazing.k3po.lang.internal.ast.AstReadOptionNode;
+import org.kaazing.k3po.lang.internal.ast.AstWriteOptionNode;
+import org.kaazing.k3po.lang.internal.ast.value.AstValue;
 import org.kaazing.k3po.lang.types.StructuredTypeInfo;
 import org.kaazing.k3po.lang.types.TypeInfo;
 
@@ -38,8 +45,8 @@ public class TlsBehaviorSystem implements BehaviorSystemSpi {
 
     public TlsBehaviorSystem()
     {
-        this.readOptionFactories = emptyMap();
-        this.writeOptionFactories = emptyMap();
+        this.readOptionFactories = singletonMap(OPTION_RESUMED, TlsBehaviorSystem::newReadTlsResumedHandler);
+        this.writeOptionFactories = singletonMap(OPTION_RESUMED, TlsBehaviorSystem::newWriteTlsResumedHandler);
         this.readConfigFactories = emptyMap();
         this.writeConfigFactories = emptyMap();
     }
@@ -95,4 +102,28 @@ public class TlsBehaviorSystem implements BehaviorSystemSpi {
     {
         return writeOptionFactories.get(optionType);
     }
+
+    private static ReadOptionTlsResumedHandler newReadTlsResumedHandler(
+        AstReadOptionNode node)
+    {
+        boolean resumed = Boolean.parseBoolean(optionValue(node.getOptionValue()));
+        ReadOptionTlsResumedHandler handler = new ReadOptionTlsResumedHandler(resumed);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static WriteOptionTlsResumedHandler newWriteTlsResumedHandler(
+        AstWriteOptionNode node)
+    {
+        boolean resumed = Boolean.parseBoolean(optionValue(node.getOptionValue()));
+        WriteOptionTlsResumedHandler handler = new WriteOptionTlsResumedHandler(resumed);
+        handler.setRegionInfo(node.getRegionInfo());
+        return handler;
+    }
+
+    private static String optionValue(
+        AstValue<?> value)
+    {
+        return String.valueOf(value.getValue());
+    }
 }
@@ -16,6 +16,7 @@
 package org.kaazing.k3po.driver.internal.ext.tls;
 
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.unmodifiableSet;
 
 import java.net.URI;
@@ -33,6 +34,7 @@ public final class TlsTypeSystem implements TypeSystemSpi
     public static final TypeInfo<String> OPTION_KEY_STORE_PASSWORD = new TypeInfo<>("keyStorePassword", String.class);
     public static final TypeInfo<String> OPTION_TRUST_STORE_FILE = new TypeInfo<>("trustStoreFile", String.class);
     public static final TypeInfo<String> OPTION_TRUST_STORE_PASSWORD = new TypeInfo<>("trustStorePassword", String.class);
+    public static final TypeInfo<Boolean> OPTION_RESUMED = new TypeInfo<>("resumed", Boolean.class);
 
     private final Set<TypeInfo<?>> acceptOptions;
     private final Set<TypeInfo<?>> connectOptions;
@@ -59,8 +61,8 @@ public final class TlsTypeSystem implements TypeSystemSpi
         connectOptions.add(OPTION_TRUST_STORE_PASSWORD);
         this.connectOptions = unmodifiableSet(connectOptions);
 
-        this.readOptions = emptySet();
-        this.writeOptions = emptySet();
+        this.readOptions = singleton(OPTION_RESUMED);
+        this.writeOptions = singleton(OPTION_RESUMED);
         this.readConfigs = emptySet();
         this.writeConfigs = emptySet();;
     }
@@ -24,6 +24,7 @@ import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.DefaultChannelCo
 public class DefaultTlsChannelConfig extends DefaultChannelConfig implements TlsChannelConfig {
 
     private SSLParameters parameters;
+    private boolean resumed;
     private File keyStoreFile;
     private char[] keyStorePassword;
     private File trustStoreFile;
@@ -39,6 +40,16 @@ public class DefaultTlsChannelConfig extends DefaultChannelConfig implements Tls
         return parameters;
     }
 
+    @Override
+    public void setResumed(boolean resumed) {
+        this.resumed = resumed;
+    }
+
+    @Override
+    public boolean isResumed() {
+        return resumed;
+    }
+
     @Override
     public void setKeyStoreFile(
         File keyStoreFile)
@@ -24,6 +24,7 @@ import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.DefaultServerCha
 public class DefaultTlsServerChannelConfig extends DefaultServerChannelConfig implements TlsServerChannelConfig {
 
     private SSLParameters parameters;
+    private boolean resumed;
     private File keyStoreFile;
     private char[] keyStorePassword;
     private File trustStoreFile;
@@ -39,6 +40,16 @@ public class DefaultTlsServerChannelConfig extends DefaultServerChannelConfig im
         return parameters;
     }
 
+    @Override
+    public void setResumed(boolean resumed) {
+        this.resumed = resumed;
+    }
+
+    @Override
+    public boolean isResumed() {
+        return resumed;
+    }
+
     @Override
     public void setKeyStoreFile(
         File keyStoreFile)
@@ -32,10 +32,10 @@ public class TlsBootstrapFactorySpi extends BootstrapFactorySpi {
     private final TlsClientChannelFactory clientChannelFactory;
 
     public TlsBootstrapFactorySpi() {
-        SecureRandom random = new SecureRandom();
-        this.serverChannelSink = new TlsServerChannelSink(random);
+        TlsContextCache tlsContexts = new TlsContextCache(new SecureRandom());
+        this.serverChannelSink = new TlsServerChannelSink(tlsContexts);
         this.serverChannelFactory = new TlsServerChannelFactory(serverChannelSink);
-        this.clientChannelSinkFactory = new TlsClientChannelSinkFactory(random);
+        this.clientChannelSinkFactory = new TlsClientChannelSinkFactory(tlsContexts);
         this.clientChannelFactory = new TlsClientChannelFactory(clientChannelSinkFactory);
     }
 
@@ -27,6 +27,10 @@ public interface TlsChannelConfig extends ChannelConfig {
 
     SSLParameters getParameters();
 
+    void setResumed(boolean resumed);
+
+    boolean isResumed();
+
     void setKeyStoreFile(File keyStoreFile);
 
     File getKeyStoreFile();
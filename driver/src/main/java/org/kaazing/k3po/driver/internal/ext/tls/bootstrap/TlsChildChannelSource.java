@@ -61,11 +61,16 @@ public class TlsChildChannelSource extends SimpleChannelHandler {
 
     private final NavigableMap<ChannelAddress, TlsServerChannel> tlsBindings;
 
+    private final TlsContextCache tlsContexts;
+
     private volatile TlsChildChannel tlsChildChannel;
 
-    public TlsChildChannelSource(NavigableMap<ChannelAddress, TlsServerChannel> tlsBindings) {
+    public TlsChildChannelSource(
+        NavigableMap<ChannelAddress, TlsServerChannel> tlsBindings,
+        TlsContextCache tlsContexts) {
 
         this.tlsBindings = tlsBindings;
+        this.tlsContexts = tlsContexts;
     }
 
     @Override
@@ -116,6 +121,8 @@ public class TlsChildChannelSource extends SimpleChannelHandler {
             TlsChannelConfig tlsChildConfig = tlsChildChannel.getConfig();
             tlsChildConfig.setParameters(tlsEngine.getSSLParameters());
 
+            tlsChildConfig.setResumed(tlsContexts.resumed(tlsSession));
+
             ChannelFuture tlsCloseFuture = handler.getSSLEngineInboundCloseFuture();
             tlsCloseFuture.addListener(new ChannelFutureListener() {
                 @Override
@@ -31,20 +31,14 @@ import static org.kaazing.k3po.driver.internal.netty.channel.Channels.abortOutpu
 import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireInputShutdown;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.URI;
-import java.security.KeyStore;
-import java.security.SecureRandom;
 import java.util.Objects;
 
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.SSLSession;
 
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -67,13 +61,13 @@ import org.kaazing.k3po.driver.internal.netty.channel.WriteAbortEvent;
 
 public class TlsClientChannelSink extends AbstractChannelSink {
 
-    private final SecureRandom random;
+    private final TlsContextCache tlsContexts;
     private final BootstrapFactory bootstrapFactory;
 
     private Channel transport;
 
-    public TlsClientChannelSink(SecureRandom random, BootstrapFactory bootstrapFactory) {
-        this.random = random;
+    public TlsClientChannelSink(TlsContextCache tlsContexts, BootstrapFactory bootstrapFactory) {
+        this.tlsContexts = tlsContexts;
         this.bootstrapFactory = bootstrapFactory;
     }
 
@@ -132,30 +126,8 @@ public class TlsClientChannelSink extends AbstractChannelSink {
             @Override
             public ChannelPipeline getPipeline() throws Exception {
 
-                KeyManager[] keyManagers = null;
-                if (keyStoreFile != null)
-                {
-                    KeyStore keys = KeyStore.getInstance("JKS");
-                    keys.load(new FileInputStream(keyStoreFile), keyStorePassword);
-
-                    KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
-                    kmf.init(keys, keyStorePassword);
-                    keyManagers = kmf.getKeyManagers();
-                }
-
-                TrustManager[] trustManagers = null;
-                if (trustStoreFile != null)
-                {
-                    KeyStore trusts = KeyStore.getInstance("JKS");
-                    trusts.load(new FileInputStream(trustStoreFile), trustStorePassword);
-
-                    TrustManagerFactory tmf = TrustManagerFactory.getInstance("SunX509");
-                    tmf.init(trusts);
-                    trustManagers = tmf.getTrustManagers();
-                }
-
-                SSLContext tlsContext = SSLContext.getInstance("TLS");
-                tlsContext.init(keyManagers, trustManagers, random);
+                SSLContext tlsContext =
+                        tlsContexts.context(keyStoreFile, keyStorePassword, trustStoreFile, trustStorePassword);
 
                 String tlsHostname = tlsLocation.getHost();
                 int tlsPort = tlsLocation.getPort();
@@ -197,6 +169,8 @@ public class TlsClientChannelSink extends AbstractChannelSink {
                                 TlsChannelConfig tlsConnectConfig = tlsClientChannel.getConfig();
                                 SSLEngine tlsEngine = sslHandler.getEngine();
                                 tlsConnectConfig.setParameters(tlsEngine.getSSLParameters());
+                                SSLSession tlsSession = tlsEngine.getSession();
+                                tlsConnectConfig.setResumed(tlsContexts.resumed(tlsSession));
 
                                 TlsClientChannelSource tlsChannelSource = pipeline.get(TlsClientChannelSource.class);
 
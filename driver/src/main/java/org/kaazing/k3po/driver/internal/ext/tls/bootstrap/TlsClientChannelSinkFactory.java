@@ -15,18 +15,16 @@
  */
 package org.kaazing.k3po.driver.internal.ext.tls.bootstrap;
 
-import java.security.SecureRandom;
-
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
 
 public class TlsClientChannelSinkFactory {
 
-    private final SecureRandom random;
+    private final TlsContextCache tlsContexts;
     private BootstrapFactory bootstrapFactory;
 
-    public TlsClientChannelSinkFactory(SecureRandom random)
+    public TlsClientChannelSinkFactory(TlsContextCache tlsContexts)
     {
-        this.random = random;
+        this.tlsContexts = tlsContexts;
     }
 
     public void setBootstrapFactory(BootstrapFactory bootstrapFactory) {
@@ -34,6 +32,6 @@ public class TlsClientChannelSinkFactory {
     }
 
     public TlsClientChannelSink newChannelSink() {
-        return new TlsClientChannelSink(random, bootstrapFactory);
+        return new TlsClientChannelSink(tlsContexts, bootstrapFactory);
     }
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.ext.tls.bootstrap;
+
+import static java.nio.file.Files.readAllBytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Shares initialized {@link SSLContext}s between connections, keyed by the content of the key store and trust store
+ * and their passwords, so a changed store on disk gets a new context.
+ *
+ * Sharing a context also shares its session caches, so a client resumes the session it last negotiated with the same
+ * host and port, and a server resumes the sessions it issued. The ids of the sessions negotiated through each session
+ * cache are remembered, to tell a resumed session from a new one.
+ */
+public final class TlsContextCache {
+
+    // ids no longer in the session cache cannot be resumed, they are dropped past this
+    private static final int MAX_SESSION_IDS = 1024;
+
+    private final SecureRandom random;
+    private final ConcurrentMap<String, SSLContext> contexts;
+    private final ConcurrentMap<SSLSessionContext, Set<ByteBuffer>> sessionIds;
+
+    public TlsContextCache(SecureRandom random) {
+        this.random = random;
+        this.contexts = new ConcurrentHashMap<>();
+        this.sessionIds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records the session of a completed handshake
+     * @param session the negotiated session
+     * @return true if the session cache of the session has seen its id before, that is the session was resumed
+     */
+    public boolean resumed(
+        SSLSession session)
+    {
+        SSLSessionContext sessionContext = session.getSessionContext();
+        byte[] id = session.getId();
+        if (sessionContext == null || id == null || id.length == 0) {
+            return false;
+        }
+
+        Set<ByteBuffer> ids = sessionIds.computeIfAbsent(sessionContext, c -> ConcurrentHashMap.newKeySet());
+        boolean resumed = !ids.add(ByteBuffer.wrap(id));
+        if (!resumed && ids.size() > MAX_SESSION_IDS) {
+            ids.removeIf(seen -> sessionContext.getSession(seen.array()) == null);
+        }
+
+        return resumed;
+    }
+
+    public SSLContext context(
+        File keyStoreFile,
+        char[] keyStorePassword,
+        File trustStoreFile,
+        char[] trustStorePassword) throws Exception
+    {
+        byte[] keyStore = (keyStoreFile != null) ? readAllBytes(keyStoreFile.toPath()) : null;
+        byte[] trustStore = (trustStoreFile != null) ? readAllBytes(trustStoreFile.toPath()) : null;
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        update(digest, keyStore, keyStorePassword);
+        update(digest, trustStore, trustStorePassword);
+        String key = Base64.getEncoder().encodeToString(digest.digest());
+
+        SSLContext context = contexts.get(key);
+        if (context == null) {
+            SSLContext newContext = newContext(keyStore, keyStorePassword, trustStore, trustStorePassword);
+            context = contexts.putIfAbsent(key, newContext);
+            if (context == null) {
+                context = newContext;
+            }
+        }
+
+        return context;
+    }
+
+    private SSLContext newContext(
+        byte[] keyStore,
+        char[] keyStorePassword,
+        byte[] trustStore,
+        char[] trustStorePassword) throws Exception
+    {
+        KeyManager[] keyManagers = null;
+        if (keyStore != null)
+        {
+            KeyStore keys = KeyStore.getInstance("JKS");
+            keys.load(new ByteArrayInputStream(keyStore), keyStorePassword);
+
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
+            kmf.init(keys, keyStorePassword);
+            keyManagers = kmf.getKeyManagers();
+        }
+
+        TrustManager[] trustManagers = null;
+        if (trustStore != null)
+        {
+            KeyStore trusts = KeyStore.getInstance("JKS");
+            trusts.load(new ByteArrayInputStream(trustStore), trustStorePassword);
+
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance("SunX509");
+            tmf.init(trusts);
+            trustManagers = tmf.getTrustManagers();
+        }
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers, trustManagers, random);
+        return context;
+    }
+
+    private static void update(
+        MessageDigest digest,
+        byte[] store,
+        char[] password)
+    {
+        // length prefixed, so that store and password boundaries are part of the key
+        int storeLength = (store != null) ? store.length : -1;
+        int passwordLength = (password != null) ? password.length : -1;
+
+        updateInt(digest, storeLength);
+        if (store != null) {
+            digest.update(store);
+        }
+
+        updateInt(digest, passwordLength);
+        if (password != null) {
+            for (char ch : password) {
+                digest.update((byte) (ch >>> 8));
+                digest.update((byte) ch);
+            }
+        }
+    }
+
+    private static void updateInt(
+        MessageDigest digest,
+        int value)
+    {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+}
@@ -24,23 +24,16 @@ import static org.jboss.netty.channel.Channels.fireChannelUnbound;
 import static org.jboss.netty.channel.Channels.pipeline;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.URI;
-import java.security.KeyStore;
-import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
 
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelException;
@@ -61,16 +54,19 @@ import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 
 public class TlsServerChannelSink extends AbstractServerChannelSink<TlsServerChannel> {
 
-    private final SecureRandom random;
+    private final TlsContextCache tlsContexts;
     private final ConcurrentNavigableMap<ChannelAddress, TlsServerChannel> tlsBindings;
     private final ConcurrentMap<ChannelAddress, TlsTransport> tlsTransports;
 
-    public TlsServerChannelSink(SecureRandom random) {
-        this(random, new ConcurrentSkipListMap<ChannelAddress, TlsServerChannel>(ChannelAddress.ADDRESS_COMPARATOR));
+    public TlsServerChannelSink(TlsContextCache tlsContexts) {
+        this(tlsContexts, new ConcurrentSkipListMap<ChannelAddress, TlsServerChannel>(ChannelAddress.ADDRESS_COMPARATOR));
     }
 
-    private TlsServerChannelSink(SecureRandom random, ConcurrentNavigableMap<ChannelAddress, TlsServerChannel> tlsBindings) {
-        this.random = random;
+    private TlsServerChannelSink(
+        TlsContextCache tlsContexts,
+        ConcurrentNavigableMap<ChannelAddress, TlsServerChannel> tlsBindings)
+    {
+        this.tlsContexts = tlsContexts;
         this.tlsBindings = tlsBindings;
         this.tlsTransports = new ConcurrentHashMap<>();
     }
@@ -97,34 +93,21 @@ public class TlsServerChannelSink extends AbstractServerChannelSink<TlsServerCha
             char[] trustStorePassword = tlsConnectConfig.getTrustStorePassword();
 
             ChannelPipelineFactory pipelineFactory = new ChannelPipelineFactory() {
-                @Override
-                public ChannelPipeline getPipeline() throws Exception {
 
-                    KeyManager[] keyManagers = null;
-                    if (keyStoreFile != null)
-                    {
-                        KeyStore keys = KeyStore.getInstance("JKS");
-                        keys.load(new FileInputStream(keyStoreFile), keyStorePassword);
+                // resolved once per bind, the accepted connections share its session cache
+                private volatile SSLContext tlsContext;
 
-                        KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
-                        kmf.init(keys, keyStorePassword);
-                        keyManagers = kmf.getKeyManagers();
-                    }
+                @Override
+                public ChannelPipeline getPipeline() throws Exception {
 
-                    TrustManager[] trustManagers = null;
-                    if (trustStoreFile != null)
+                    SSLContext tlsContext = this.tlsContext;
+                    if (tlsContext == null)
                     {
-                        KeyStore trusts = KeyStore.getInstance("JKS");
-                        trusts.load(new FileInputStream(trustStoreFile), trustStorePassword);
-
-                        TrustManagerFactory tmf = TrustManagerFactory.getInstance("SunX509");
-                        tmf.init(trusts);
-                        trustManagers = tmf.getTrustManagers();
+                        tlsContext =
+                                tlsContexts.context(keyStoreFile, keyStorePassword, trustStoreFile, trustStorePassword);
+                        this.tlsContext = tlsContext;
                     }
 
-                    SSLContext tlsContext = SSLContext.getInstance("TLS");
-                    tlsContext.init(keyManagers, trustManagers, random);
-
                     SSLEngine tlsEngine = tlsContext.createSSLEngine();
                     tlsEngine.setUseClientMode(false);
                     //sslEngine.setNeedClientAuth(true);
@@ -138,7 +121,7 @@ public class TlsServerChannelSink extends AbstractServerChannelSink<TlsServerCha
                     SslHandler sslHandler = new SslHandler(tlsEngine);
                     sslHandler.setIssueHandshake(true);
 
-                    return pipeline(sslHandler, new TlsChildChannelSource(tlsBindings));
+                    return pipeline(sslHandler, new TlsChildChannelSource(tlsBindings, tlsContexts));
                 }
             };
 
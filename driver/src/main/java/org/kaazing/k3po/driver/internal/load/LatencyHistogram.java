@@ -0,0 +1,135 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.load;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram with power-of-two microsecond buckets.
+ *
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within a factor
+ * of two, which is enough to compare runs without the memory cost of exact recording.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = Long.SIZE + 1;
+
+    private final String name;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong min;
+    private final AtomicLong max;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.min = new AtomicLong(Long.MAX_VALUE);
+        this.max = new AtomicLong();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        long micros = Math.max(unit.toMicros(duration), 0L);
+
+        buckets.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        total.addAndGet(micros);
+
+        long currentMin;
+        while (micros < (currentMin = min.get()) && !min.compareAndSet(currentMin, micros)) {
+            // retry
+        }
+
+        long currentMax;
+        while (micros > (currentMax = max.get()) && !max.compareAndSet(currentMax, micros)) {
+            // retry
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos, NANOSECONDS);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMinMicros() {
+        return (count.get() != 0L) ? min.get() : 0L;
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public long getMeanMicros() {
+        long count = this.count.get();
+        return (count != 0L) ? total.get() / count : 0L;
+    }
+
+    /**
+     * Returns the upper bound in microseconds of the bucket containing the given percentile.
+     *
+     * @param percentile between {@code 0} and {@code 100}
+     */
+    public long getPercentileMicros(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        long count = this.count.get();
+        if (count == 0L) {
+            return 0L;
+        }
+
+        long threshold = Math.max((long) Math.ceil(count * percentile / 100.0), 1L);
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += buckets.get(i);
+            if (cumulative >= threshold) {
+                return Math.min(upperBound(i), getMaxMicros());
+            }
+        }
+
+        return getMaxMicros();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d min=%dus mean=%dus p50=%dus p90=%dus p99=%dus max=%dus", name, getCount(),
+                getMinMicros(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(90),
+                getPercentileMicros(99), getMaxMicros());
+    }
+
+    static int bucket(long micros) {
+        return Long.SIZE - numberOfLeadingZeros(micros);
+    }
+
+    static long upperBound(int bucket) {
+        return (bucket < Long.SIZE - 1) ? (1L << bucket) - 1L : Long.MAX_VALUE;
+    }
+}
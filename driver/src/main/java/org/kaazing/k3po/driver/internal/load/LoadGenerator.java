@@ -0,0 +1,291 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.load;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.kaazing.k3po.driver.internal.Robot;
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime;
+import org.kaazing.k3po.lang.internal.ast.AstAcceptNode;
+import org.kaazing.k3po.lang.internal.ast.AstScriptNode;
+import org.kaazing.k3po.lang.internal.ast.AstStreamNode;
+
+/**
+ * Replays the connect streams of a script many times, concurrently and optionally at a target rate.
+ *
+ * Each iteration runs in a new {@link Robot}, so pipelines are generated again for every iteration, while threads and
+ * selectors are shared through the {@link TransportRuntime}. Captured values and properties are bound to the expression
+ * environment of a parsed script, so the script is parsed at most once per concurrent iteration, and a parsed script is
+ * only reused, with its environment reset, once the iteration using it is disposed. Scripts with accept streams are
+ * rejected, as every iteration would bind the same accept locations.
+ *
+ * An iteration passes when every one of its streams completes successfully.
+ */
+public final class LoadGenerator {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(LoadGenerator.class);
+
+    private final String script;
+    private final Map<Class<?>, Object> injectables;
+    private final Timer timer;
+
+    private int iterations = 1;
+    private int concurrency = 1;
+    private double rate;
+    private long timeoutMillis;
+
+    public LoadGenerator(String script, TransportRuntime runtime) {
+        this.script = script;
+        this.injectables = runtime.getInjectables();
+        this.timer = runtime.getTimer();
+    }
+
+    /**
+     * Sets the total number of times the script is run.
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be at least 1");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Sets the maximum number of iterations running at the same time.
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Sets the target number of iterations started per second, or {@code 0} to start them as fast as concurrency allows.
+     */
+    public void setRate(double rate) {
+        if (rate < 0.0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the time after which a running iteration is aborted, or {@code 0} to wait indefinitely.
+     */
+    public void setTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0L) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public LoadReport run() throws Exception {
+        CompiledScript compiled = ScriptCache.compile(script);
+        int streamCount = countStreams(compiled.getAst());
+
+        Queue<CompiledScript> compiledScripts = new ConcurrentLinkedQueue<>();
+        compiledScripts.add(compiled);
+
+        LatencyHistogram scriptLatency = new LatencyHistogram("script");
+        List<LatencyHistogram> streamLatencies = new ArrayList<>(streamCount);
+        for (int i = 0; i < streamCount; i++) {
+            streamLatencies.add(new LatencyHistogram(String.format("stream %d", i + 1)));
+        }
+
+        Iterations state = new Iterations(compiledScripts, scriptLatency, streamLatencies);
+
+        long intervalNanos = (rate != 0.0) ? (long) (SECONDS.toNanos(1L) / rate) : 0L;
+        long startedAt = currentTimeMillis();
+        long nextStartAt = nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            state.permits.acquire();
+
+            if (intervalNanos != 0L) {
+                long delayNanos = nextStartAt - nanoTime();
+                if (delayNanos > 0L) {
+                    NANOSECONDS.sleep(delayNanos);
+                }
+                nextStartAt += intervalNanos;
+            }
+
+            launch(state);
+        }
+
+        // wait for the remaining iterations to complete
+        state.permits.acquire(concurrency);
+
+        List<Long> streamFailures = new ArrayList<>(streamCount);
+        for (int i = 0; i < streamCount; i++) {
+            streamFailures.add(state.streamFailures.get(i));
+        }
+
+        return new LoadReport(state.passed.get(), state.failed.get(), currentTimeMillis() - startedAt, scriptLatency,
+                streamLatencies, streamFailures);
+    }
+
+    private static int countStreams(AstScriptNode ast) {
+        for (AstStreamNode stream : ast.getStreams()) {
+            if (stream instanceof AstAcceptNode) {
+                throw new IllegalArgumentException("Load generation supports connect streams only");
+            }
+        }
+
+        return ast.getStreams().size();
+    }
+
+    private void launch(final Iterations state) {
+        final Robot robot = new Robot(injectables);
+
+        // completed either by the finish listener or by a failure to start, even if start fails after finishing
+        final AtomicBoolean completed = new AtomicBoolean();
+        CompiledScript compiled = state.compiledScripts.poll();
+        try {
+            if (compiled == null) {
+                // all parsed scripts are in use by running iterations
+                compiled = ScriptCache.compile(script);
+            }
+            final CompiledScript iterationScript = compiled;
+
+            robot.configure(compiled);
+            robot.prepare();
+
+            final long startedAt = nanoTime();
+
+            final List<ChannelFuture> streamFutures = robot.getStreamCompletionFutures();
+            for (int i = 0; i < streamFutures.size(); i++) {
+                final LatencyHistogram streamLatency = state.streamLatencies.get(i);
+                streamFutures.get(i).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isSuccess()) {
+                            streamLatency.recordNanos(nanoTime() - startedAt);
+                        }
+                    }
+                });
+            }
+
+            final Timeout timeout = (timeoutMillis != 0L) ? timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    robot.abort();
+                }
+            }, timeoutMillis, MILLISECONDS) : null;
+
+            robot.finish().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (timeout != null) {
+                        timeout.cancel();
+                    }
+
+                    if (!completed.compareAndSet(false, true)) {
+                        return;
+                    }
+
+                    state.scriptLatency.recordNanos(nanoTime() - startedAt);
+
+                    // streams still running when the iteration finishes were aborted
+                    boolean passed = true;
+                    for (int i = 0; i < streamFutures.size(); i++) {
+                        if (!streamFutures.get(i).isSuccess()) {
+                            state.streamFailures.incrementAndGet(i);
+                            passed = false;
+                        }
+                    }
+
+                    if (passed) {
+                        state.passed.incrementAndGet();
+                    } else {
+                        state.failed.incrementAndGet();
+                    }
+
+                    dispose(robot, iterationScript, state);
+                }
+            });
+
+            robot.start();
+        } catch (Exception e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Failed to start iteration", e);
+            }
+            if (completed.compareAndSet(false, true)) {
+                state.failed.incrementAndGet();
+                dispose(robot, compiled, state);
+            }
+        }
+    }
+
+    private static void dispose(Robot robot, final CompiledScript compiled, final Iterations state) {
+        robot.dispose().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (compiled != null) {
+                    // no expression of the disposed iteration is evaluated any more
+                    compiled.resetEnvironment();
+                    state.compiledScripts.add(compiled);
+                }
+                state.permits.release();
+            }
+        });
+    }
+
+    private final class Iterations {
+
+        private final Semaphore permits;
+        private final Queue<CompiledScript> compiledScripts;
+        private final AtomicLong passed;
+        private final AtomicLong failed;
+        private final AtomicLongArray streamFailures;
+        private final LatencyHistogram scriptLatency;
+        private final List<LatencyHistogram> streamLatencies;
+
+        Iterations(Queue<CompiledScript> compiledScripts, LatencyHistogram scriptLatency,
+                List<LatencyHistogram> streamLatencies) {
+            this.permits = new Semaphore(concurrency);
+            this.compiledScripts = compiledScripts;
+            this.passed = new AtomicLong();
+            this.failed = new AtomicLong();
+            this.streamFailures = new AtomicLongArray(streamLatencies.size());
+            this.scriptLatency = scriptLatency;
+            this.streamLatencies = streamLatencies;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.load;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link LoadGenerator} run.
+ */
+public final class LoadReport {
+
+    private final long passed;
+    private final long failed;
+    private final long elapsedMillis;
+    private final LatencyHistogram scriptLatency;
+    private final List<LatencyHistogram> streamLatencies;
+    private final List<Long> streamFailures;
+
+    LoadReport(long passed, long failed, long elapsedMillis, LatencyHistogram scriptLatency,
+            List<LatencyHistogram> streamLatencies, List<Long> streamFailures) {
+        this.passed = passed;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        this.scriptLatency = scriptLatency;
+        this.streamLatencies = unmodifiableList(streamLatencies);
+        this.streamFailures = unmodifiableList(streamFailures);
+    }
+
+    /**
+     * Returns the number of iterations whose streams all completed successfully.
+     */
+    public long getPassed() {
+        return passed;
+    }
+
+    /**
+     * Returns the number of iterations with at least one failed stream, or that failed to start.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the latency from start to finish of each iteration.
+     */
+    public LatencyHistogram getScriptLatency() {
+        return scriptLatency;
+    }
+
+    /**
+     * Returns the latency from start to completion of each stream, in script order.
+     */
+    public List<LatencyHistogram> getStreamLatencies() {
+        return streamLatencies;
+    }
+
+    /**
+     * Returns the number of iterations in which each stream failed, in script order.
+     */
+    public List<Long> getStreamFailures() {
+        return streamFailures;
+    }
+
+    @Override
+    public String toString() {
+        long iterations = passed + failed;
+        double rate = (elapsedMillis != 0L) ? iterations * 1000.0 / elapsedMillis : 0.0;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("iterations=%d passed=%d failed=%d elapsed=%dms rate=%.1f/s%n", iterations, passed,
+                failed, elapsedMillis, rate));
+        sb.append(scriptLatency).append(String.format("%n"));
+        for (int i = 0; i < streamLatencies.size(); i++) {
+            sb.append(streamLatencies.get(i)).append(String.format(" failed=%d%n", streamFailures.get(i)));
+        }
+        return sb.toString();
+    }
+}
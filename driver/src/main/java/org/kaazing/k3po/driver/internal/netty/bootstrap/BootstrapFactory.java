@@ -20,10 +20,10 @@ import static java.util.Collections.emptyMap;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.ServiceLoader;
 
 import org.jboss.netty.util.ExternalResourceReleasable;
 import org.kaazing.k3po.driver.internal.executor.ExecutorServiceFactory;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 
 public final class BootstrapFactory implements ExternalResourceReleasable {
 
@@ -39,11 +39,9 @@ public final class BootstrapFactory implements ExternalResourceReleasable {
     }
 
     public static BootstrapFactory newBootstrapFactory(Map<Class<?>, Object> injectables) {
-        ServiceLoader<BootstrapFactorySpi> loader = loadBootstrapFactorySpi();
-
-        // load BootstrapFactorySpi instances
+        // new BootstrapFactorySpi instances, as each holds the resources injected below
         Map<String, BootstrapFactorySpi> bootstrapFactories = new HashMap<>();
-        for (BootstrapFactorySpi bootstrapFactorySpi : loader) {
+        for (BootstrapFactorySpi bootstrapFactorySpi : ServiceRegistry.current().newServices(BootstrapFactorySpi.class)) {
             String transportName = bootstrapFactorySpi.getTransportName();
             BootstrapFactorySpi oldBootstrapFactorySpi = bootstrapFactories.put(transportName,
                     bootstrapFactorySpi);
@@ -89,11 +87,6 @@ public final class BootstrapFactory implements ExternalResourceReleasable {
         return bootstrapFactory.newClientBootstrap();
     }
 
-    private static ServiceLoader<BootstrapFactorySpi> loadBootstrapFactorySpi() {
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        return (loader != null) ? ServiceLoader.load(BootstrapFactorySpi.class, loader) : ServiceLoader.load(BootstrapFactorySpi.class);
-    }
-
     private BootstrapFactorySpi findBootstrapFactory(String transportName) throws BootstrapException {
 
         if (transportName == null) {
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.netty.channel.socket.nio.NioClientBossPool;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioDatagramWorkerPool;
+import org.jboss.netty.channel.socket.nio.NioServerBossPool;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.jboss.netty.channel.socket.nio.ShareableWorkerPool;
+import org.jboss.netty.util.ExternalResourceReleasable;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timer;
+import org.kaazing.k3po.driver.internal.executor.ExecutorServiceFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.agrona.AgronaClientChannelFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.agrona.AgronaServerChannelFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.http.HttpConnectionMetrics;
+
+/**
+ * Long-lived transport resources shared by all robots of a server.
+ *
+ * Selectors, worker threads and timers are created once, and injected into each {@link BootstrapFactory}
+ * as {@link #getInjectables() injectables}. Transport providers borrow channels from these shared resources,
+ * and only close their own channels on shutdown. Transports layered on top of tcp, such as http, tls and
+ * bbosh, share the tcp resources implicitly.
+ *
+ * With virtual time, the shared timer is a {@link VirtualTimer}, so idle timeouts such as udp timeouts advance
+ * instantly once every stream is blocked on time.
+ *
+ * Metrics such as {@link #getHttpConnectionMetrics() http connection reuse} are injected the same way, so they
+ * accumulate across robots.
+ */
+public final class TransportRuntime implements ExternalResourceReleasable {
+
+    private final ShareableWorkerPool<NioWorker> workerPool;
+    private final NioClientSocketChannelFactory clientChannelFactory;
+    private final NioServerSocketChannelFactory serverChannelFactory;
+    private final NioDatagramWorkerPool datagramWorkerPool;
+    private final Timer timer;
+    private final AgronaClientChannelFactory agronaClientChannelFactory;
+    private final AgronaServerChannelFactory agronaServerChannelFactory;
+    private final HttpConnectionMetrics httpConnectionMetrics;
+
+    public TransportRuntime() {
+        this(ExecutorServiceFactory.newInstance(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public TransportRuntime(ExecutorServiceFactory executorServiceFactory, int workerCount) {
+        this(executorServiceFactory, workerCount, false);
+    }
+
+    public TransportRuntime(ExecutorServiceFactory executorServiceFactory, int workerCount, boolean virtualTime) {
+        NioClientBossPool clientBossPool = new NioClientBossPool(executorServiceFactory.newExecutorService("boss.client"), 1);
+        NioServerBossPool serverBossPool = new NioServerBossPool(executorServiceFactory.newExecutorService("boss.server"), 1);
+        this.workerPool = new ShareableWorkerPool<>(
+                new NioWorkerPool(executorServiceFactory.newExecutorService("worker"), workerCount));
+        this.clientChannelFactory = new NioClientSocketChannelFactory(clientBossPool, workerPool);
+        this.serverChannelFactory = new NioServerSocketChannelFactory(serverBossPool, workerPool);
+        this.datagramWorkerPool =
+                new NioDatagramWorkerPool(executorServiceFactory.newExecutorService("worker.datagram"), workerCount);
+        this.timer = virtualTime ? new VirtualTimer() : new HashedWheelTimer();
+        this.agronaClientChannelFactory = new AgronaClientChannelFactory();
+        this.agronaServerChannelFactory = new AgronaServerChannelFactory();
+        this.httpConnectionMetrics = new HttpConnectionMetrics();
+    }
+
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public HttpConnectionMetrics getHttpConnectionMetrics() {
+        return httpConnectionMetrics;
+    }
+
+    public Map<Class<?>, Object> getInjectables() {
+        Map<Class<?>, Object> injectables = new HashMap<>();
+        injectables.put(NioClientSocketChannelFactory.class, clientChannelFactory);
+        injectables.put(NioServerSocketChannelFactory.class, serverChannelFactory);
+        injectables.put(NioDatagramWorkerPool.class, datagramWorkerPool);
+        injectables.put(Timer.class, timer);
+        injectables.put(AgronaClientChannelFactory.class, agronaClientChannelFactory);
+        injectables.put(AgronaServerChannelFactory.class, agronaServerChannelFactory);
+        injectables.put(HttpConnectionMetrics.class, httpConnectionMetrics);
+        return injectables;
+    }
+
+    @Override
+    public void releaseExternalResources() {
+        clientChannelFactory.shutdown();
+        clientChannelFactory.releaseExternalResources();
+
+        serverChannelFactory.shutdown();
+        serverChannelFactory.releaseExternalResources();
+
+        workerPool.destroy();
+
+        datagramWorkerPool.shutdown();
+        datagramWorkerPool.releaseExternalResources();
+
+        timer.stop();
+
+        agronaClientChannelFactory.releaseExternalResources();
+        agronaServerChannelFactory.releaseExternalResources();
+    }
+}
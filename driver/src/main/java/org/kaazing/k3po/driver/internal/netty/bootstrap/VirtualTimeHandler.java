@@ -0,0 +1,55 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap;
+
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandler.Sharable;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+
+/**
+ * Reports the transport events of a stream pipeline to a {@link VirtualTimer}.
+ *
+ * Upstream events, such as reads, count as activity, while downstream operations, such as connects and writes,
+ * hold the virtual clock until their future completes.
+ */
+@Sharable
+public final class VirtualTimeHandler implements ChannelUpstreamHandler, ChannelDownstreamHandler {
+
+    private final VirtualTimer timer;
+
+    public VirtualTimeHandler(VirtualTimer timer) {
+        this.timer = timer;
+    }
+
+    @Override
+    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        timer.activity();
+        ctx.sendUpstream(e);
+    }
+
+    @Override
+    public void handleDownstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        timer.track(e.getFuture());
+        ctx.sendDownstream(e);
+    }
+
+    @Override
+    public String toString() {
+        return "virtual-time";
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+
+/**
+ * A {@link Timer} running on a virtual clock, for scripts dominated by idle timeouts.
+ *
+ * The virtual clock follows real time, and timeouts that are due run straight away. Streams report their
+ * transport reads and writes as {@link #activity() activity}, and their pending operations are
+ * {@link #track(ChannelFuture) tracked} until they complete. Once no operation is pending, and neither transport
+ * nor timer activity has happened for the quiescence period, every stream is considered blocked on time, and the
+ * clock jumps to the next deadline instead of waiting for it.
+ *
+ * Timeouts expire in deadline order, and in scheduling order for equal deadlines, so ordering is the same as in
+ * real time while idle waits collapse to the quiescence period. A stream that never goes quiet only keeps the
+ * clock from jumping, so timeouts never expire later than they would in real time.
+ */
+public final class VirtualTimer implements Timer {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(VirtualTimer.class);
+
+    private static final long DEFAULT_QUIESCENCE_MILLIS = 10L;
+
+    private final long quiescenceNanos;
+    private final PriorityQueue<VirtualTimeout> timeouts;
+    private final Thread thread;
+
+    private final long origin;
+
+    private long skipped;
+    private long sequence;
+    private long lastActivity;
+    private int pending;
+    private boolean stopped;
+
+    public VirtualTimer() {
+        this(DEFAULT_QUIESCENCE_MILLIS, MILLISECONDS);
+    }
+
+    /**
+     * @param quiescence how long no transport or timer activity must last before the clock is advanced
+     * @param unit of quiescence
+     */
+    public VirtualTimer(long quiescence, TimeUnit unit) {
+        if (quiescence < 0) {
+            throw new IllegalArgumentException("quiescence must not be negative");
+        }
+        this.quiescenceNanos = unit.toNanos(quiescence);
+        this.timeouts = new PriorityQueue<>();
+        this.origin = System.nanoTime();
+        this.lastActivity = origin;
+        this.thread = new Thread(this::run, "virtual-timer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @param unit of the returned time
+     * @return the virtual time elapsed since this timer was created
+     */
+    public synchronized long currentTime(TimeUnit unit) {
+        return unit.convert(currentTime(), NANOSECONDS);
+    }
+
+    /**
+     * Records a transport read or write, deferring the next clock advance by the quiescence period.
+     */
+    public synchronized void activity() {
+        lastActivity = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * Holds the clock while an operation such as a connect or a write is pending, then records its completion
+     * as activity.
+     *
+     * @param future of the pending operation
+     */
+    public void track(ChannelFuture future) {
+        synchronized (this) {
+            pending++;
+            activity();
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                synchronized (VirtualTimer.this) {
+                    pending--;
+                    activity();
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (stopped) {
+            throw new IllegalStateException("Cannot enqueue after stop");
+        }
+
+        long deadline = currentTime() + Math.max(unit.toNanos(delay), 0L);
+        VirtualTimeout timeout = new VirtualTimeout(task, deadline, sequence++);
+        timeouts.add(timeout);
+        activity();
+        return timeout;
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException(
+                    "VirtualTimer.stop() cannot be called from " + TimerTask.class.getSimpleName());
+        }
+
+        Set<Timeout> unprocessed;
+        synchronized (this) {
+            stopped = true;
+            unprocessed = new HashSet<Timeout>(timeouts);
+            timeouts.clear();
+            notifyAll();
+        }
+
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return unprocessed;
+    }
+
+    private long currentTime() {
+        return System.nanoTime() - origin + skipped;
+    }
+
+    private synchronized boolean remove(VirtualTimeout timeout) {
+        if (timeouts.remove(timeout)) {
+            activity();
+            return true;
+        }
+        return false;
+    }
+
+    private void run() {
+        List<VirtualTimeout> expired = new ArrayList<>();
+
+        while (awaitExpired(expired)) {
+            for (VirtualTimeout timeout : expired) {
+                try {
+                    timeout.task.run(timeout);
+                } catch (Throwable t) {
+                    if (LOGGER.isWarnEnabled()) {
+                        LOGGER.warn("An exception was thrown by " + TimerTask.class.getSimpleName() + ".", t);
+                    }
+                }
+            }
+            expired.clear();
+
+            synchronized (this) {
+                // give the streams woken up by these timeouts a chance to make progress in real time
+                activity();
+            }
+        }
+    }
+
+    private synchronized boolean awaitExpired(List<VirtualTimeout> expired) {
+        try {
+            while (!stopped) {
+                VirtualTimeout next = timeouts.peek();
+                if (next == null) {
+                    wait();
+                    continue;
+                }
+
+                long currentTime = currentTime();
+                if (next.deadline > currentTime) {
+                    long remainingNanos = next.deadline - currentTime;
+                    if (pending != 0) {
+                        NANOSECONDS.timedWait(this, remainingNanos);
+                        continue;
+                    }
+
+                    long quietNanos = System.nanoTime() - lastActivity;
+                    if (quietNanos < quiescenceNanos) {
+                        NANOSECONDS.timedWait(this, Math.min(quiescenceNanos - quietNanos, remainingNanos));
+                        continue;
+                    }
+
+                    skipped += remainingNanos;
+                    currentTime = next.deadline;
+                }
+
+                while (next != null && next.deadline <= currentTime) {
+                    timeouts.poll();
+                    next.expired = true;
+                    expired.add(next);
+                    next = timeouts.peek();
+                }
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private final class VirtualTimeout implements Timeout, Comparable<VirtualTimeout> {
+
+        private final TimerTask task;
+        private final long deadline;
+        private final long sequence;
+
+        private volatile boolean expired;
+        private volatile boolean cancelled;
+
+        VirtualTimeout(TimerTask task, long deadline, long sequence) {
+            this.task = task;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public Timer getTimer() {
+            return VirtualTimer.this;
+        }
+
+        @Override
+        public TimerTask getTask() {
+            return task;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return expired;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void cancel() {
+            if (remove(this)) {
+                cancelled = true;
+            }
+        }
+
+        @Override
+        public int compareTo(VirtualTimeout that) {
+            if (this.deadline != that.deadline) {
+                return (this.deadline < that.deadline) ? -1 : 1;
+            }
+            return Long.compare(this.sequence, that.sequence);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("VirtualTimeout(deadline: %dns, task: %s)", deadline, task);
+        }
+    }
+}
@@ -15,18 +15,38 @@
  */
 package org.kaazing.k3po.driver.internal.netty.bootstrap.agrona;
 
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import javax.annotation.Resource;
+
+import org.jboss.netty.channel.ChannelFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedChannelFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedServerChannelFactory;
 
 public class AgronaBootstrapFactorySpi extends BootstrapFactorySpi {
 
-    private final AgronaServerChannelFactory serverChannelFactory;
-    private final AgronaClientChannelFactory clientChannelFactory;
+    private final Collection<ChannelFactory> channelFactories;
+    private AgronaServerChannelFactory sharedServerChannelFactory;
+    private AgronaClientChannelFactory sharedClientChannelFactory;
+    private ChannelFactory serverChannelFactory;
+    private ChannelFactory clientChannelFactory;
 
     public AgronaBootstrapFactorySpi() {
-        this.serverChannelFactory = new AgronaServerChannelFactory();
-        this.clientChannelFactory = new AgronaClientChannelFactory();
+        this.channelFactories = new ConcurrentLinkedDeque<>();
+    }
+
+    @Resource
+    public void setAgronaServerChannelFactory(AgronaServerChannelFactory serverChannelFactory) {
+        this.sharedServerChannelFactory = serverChannelFactory;
+    }
+
+    @Resource
+    public void setAgronaClientChannelFactory(AgronaClientChannelFactory clientChannelFactory) {
+        this.sharedClientChannelFactory = clientChannelFactory;
     }
 
     /**
@@ -43,6 +63,16 @@ public class AgronaBootstrapFactorySpi extends BootstrapFactorySpi {
      */
     @Override
     public synchronized ClientBootstrap newClientBootstrap() throws Exception {
+        if (clientChannelFactory == null && sharedClientChannelFactory != null) {
+            // shared, only close channels created via this provider
+            clientChannelFactory = new SharedChannelFactory(sharedClientChannelFactory);
+            channelFactories.add(clientChannelFactory);
+        } else if (clientChannelFactory == null) {
+            // unshared
+            clientChannelFactory = new AgronaClientChannelFactory();
+            channelFactories.add(clientChannelFactory);
+        }
+
         return new ClientBootstrap(clientChannelFactory);
     }
 
@@ -51,19 +81,31 @@ public class AgronaBootstrapFactorySpi extends BootstrapFactorySpi {
      */
     @Override
     public synchronized ServerBootstrap newServerBootstrap() throws Exception {
+        if (serverChannelFactory == null && sharedServerChannelFactory != null) {
+            // shared, only close channels created via this provider
+            serverChannelFactory = new SharedServerChannelFactory(sharedServerChannelFactory);
+            channelFactories.add(serverChannelFactory);
+        } else if (serverChannelFactory == null) {
+            // unshared
+            serverChannelFactory = new AgronaServerChannelFactory();
+            channelFactories.add(serverChannelFactory);
+        }
+
         return new ServerBootstrap(serverChannelFactory);
     }
 
     @Override
     public void shutdown() {
-        serverChannelFactory.shutdown();
-        clientChannelFactory.shutdown();
+        for (ChannelFactory channelFactory : channelFactories) {
+            channelFactory.shutdown();
+        }
     }
 
     @Override
     public void releaseExternalResources() {
         shutdown();
-        serverChannelFactory.releaseExternalResources();
-        clientChannelFactory.releaseExternalResources();
+        for (ChannelFactory channelFactory : channelFactories) {
+            channelFactory.releaseExternalResources();
+        }
     }
 }
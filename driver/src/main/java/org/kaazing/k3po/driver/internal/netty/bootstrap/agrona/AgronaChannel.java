@@ -17,10 +17,8 @@ package org.kaazing.k3po.driver.internal.netty.bootstrap.agrona;
 
 import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
 import static org.jboss.netty.channel.Channels.fireMessageReceived;
-import static org.agrona.BitUtil.SIZE_OF_INT;
 
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelSink;
@@ -30,6 +28,7 @@ import org.kaazing.k3po.driver.internal.netty.channel.agrona.AgronaChannelAddres
 
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
 
 public abstract class AgronaChannel extends AbstractChannel<AgronaChannelConfig> {
 
@@ -37,19 +36,33 @@ public abstract class AgronaChannel extends AbstractChannel<AgronaChannelConfig>
 
     final MessageHandler messageHandler = new MessageHandler() {
 
+        private AgronaMessageBuffer message;
+
         @Override
         public void onMessage(int msgTypeId, MutableDirectBuffer buffer, int index, int length) {
-            ChannelBuffer message = ChannelBuffers.buffer(SIZE_OF_INT + length);
-            message.setInt(0, msgTypeId);
-            buffer.getBytes(index, message.array(), message.arrayOffset() + SIZE_OF_INT, length);
-            message.writerIndex(SIZE_OF_INT + length);
+            if (message == null) {
+                message = new AgronaMessageBuffer();
+            }
+
+            // read the payload in place, copying it only if the message outlives this handler
+            message.wrap(msgTypeId, buffer, index, length);
             fireMessageReceived(AgronaChannel.this, message);
+
+            if (message.isRetained()) {
+                message.detach();
+                message = null;
+            }
+            else {
+                message.unwrap();
+            }
         }
 
     };
 
     final ChannelBuffer writeBuffer = dynamicBuffer(8192);
 
+    final UnsafeBuffer writePayload = new UnsafeBuffer(writeBuffer.array());
+
     AgronaChannel(AgronaServerChannel parent, ChannelFactory factory,
             ChannelPipeline pipeline, ChannelSink sink, AgronaWorker worker) {
         super(parent, factory, pipeline, sink, new DefaultAgronaChannelConfig());
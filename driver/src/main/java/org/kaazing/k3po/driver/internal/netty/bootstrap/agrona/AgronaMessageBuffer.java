@@ -0,0 +1,313 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.agrona;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static org.jboss.netty.buffer.ChannelBuffers.EMPTY_BUFFER;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+import org.jboss.netty.buffer.AbstractChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DuplicatedChannelBuffer;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.buffer.SlicedChannelBuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * A read-only view of an agrona message, laid out as the message type id followed by the payload, reading the
+ * payload in place from the ring or broadcast buffer.
+ *
+ * The view is only valid while the message handler runs. If the message may outlive the handler, because it was
+ * not fully read or a slice or duplicate was taken, {@link #detach()} copies the payload so the view, and anything
+ * derived from it, stays valid once the buffer region is reused.
+ */
+final class AgronaMessageBuffer extends AbstractChannelBuffer {
+
+    private int msgTypeId;
+    private DirectBuffer buffer;
+    private int offset;
+    private int length;
+    private boolean shared;
+
+    void wrap(int msgTypeId, DirectBuffer buffer, int offset, int length) {
+        this.msgTypeId = msgTypeId;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.shared = false;
+        setIndex(0, SIZE_OF_INT + length);
+    }
+
+    /**
+     * @return true if the message may still be referenced once the handler returns
+     */
+    boolean isRetained() {
+        return shared || readable();
+    }
+
+    /**
+     * Copies the payload out of the underlying buffer
+     */
+    void detach() {
+        byte[] payload = new byte[length];
+        buffer.getBytes(offset, payload, 0, length);
+        buffer = new UnsafeBuffer(payload);
+        offset = 0;
+    }
+
+    /**
+     * Releases the underlying buffer, once the message is no longer referenced
+     */
+    void unwrap() {
+        buffer = null;
+    }
+
+    @Override
+    public ChannelBufferFactory factory() {
+        return HeapChannelBufferFactory.getInstance(order());
+    }
+
+    @Override
+    public int capacity() {
+        return SIZE_OF_INT + length;
+    }
+
+    @Override
+    public ByteOrder order() {
+        return BIG_ENDIAN;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return false;
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int arrayOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte getByte(int index) {
+        checkIndex(index, 1);
+        if (index < SIZE_OF_INT) {
+            return (byte) (msgTypeId >>> ((SIZE_OF_INT - 1 - index) << 3));
+        }
+        return buffer.getByte(offset + index - SIZE_OF_INT);
+    }
+
+    @Override
+    public short getShort(int index) {
+        if (index < SIZE_OF_INT) {
+            return (short) ((getByte(index) & 0xff) << 8 | getByte(index + 1) & 0xff);
+        }
+        checkIndex(index, 2);
+        return buffer.getShort(offset + index - SIZE_OF_INT, BIG_ENDIAN);
+    }
+
+    @Override
+    public int getUnsignedMedium(int index) {
+        return (getByte(index) & 0xff) << 16 | (getByte(index + 1) & 0xff) << 8 | getByte(index + 2) & 0xff;
+    }
+
+    @Override
+    public int getInt(int index) {
+        if (index == 0) {
+            checkIndex(index, SIZE_OF_INT);
+            return msgTypeId;
+        }
+        if (index < SIZE_OF_INT) {
+            return (getShort(index) & 0xffff) << 16 | getShort(index + 2) & 0xffff;
+        }
+        checkIndex(index, SIZE_OF_INT);
+        return buffer.getInt(offset + index - SIZE_OF_INT, BIG_ENDIAN);
+    }
+
+    @Override
+    public long getLong(int index) {
+        if (index < SIZE_OF_INT) {
+            return (getInt(index) & 0xffffffffL) << 32 | getInt(index + 4) & 0xffffffffL;
+        }
+        checkIndex(index, 8);
+        return buffer.getLong(offset + index - SIZE_OF_INT, BIG_ENDIAN);
+    }
+
+    @Override
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        while (length > 0 && index < SIZE_OF_INT) {
+            dst[dstIndex++] = getByte(index++);
+            length--;
+        }
+        if (length > 0) {
+            buffer.getBytes(offset + index - SIZE_OF_INT, dst, dstIndex, length);
+        }
+    }
+
+    @Override
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        if (dst.hasArray()) {
+            getBytes(index, dst.array(), dst.arrayOffset() + dstIndex, length);
+        }
+        else {
+            dst.setBytes(dstIndex, copyOf(index, length));
+        }
+    }
+
+    @Override
+    public void getBytes(int index, ByteBuffer dst) {
+        int length = dst.remaining();
+        if (dst.hasArray()) {
+            getBytes(index, dst.array(), dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + length);
+        }
+        else {
+            dst.put(copyOf(index, length));
+        }
+    }
+
+    @Override
+    public void getBytes(int index, OutputStream out, int length) throws IOException {
+        out.write(copyOf(index, length));
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        return out.write(ByteBuffer.wrap(copyOf(index, length)));
+    }
+
+    @Override
+    public void setByte(int index, int value) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setShort(int index, int value) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setMedium(int index, int value) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public void setBytes(int index, ByteBuffer src) {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public ChannelBuffer copy(int index, int length) {
+        ChannelBuffer copy = ChannelBuffers.buffer(order(), length);
+        getBytes(index, copy.array(), copy.arrayOffset(), length);
+        copy.writerIndex(length);
+        return copy;
+    }
+
+    @Override
+    public ChannelBuffer slice(int index, int length) {
+        if (length == 0) {
+            return EMPTY_BUFFER;
+        }
+        shared = true;
+        return new SlicedChannelBuffer(this, index, length);
+    }
+
+    @Override
+    public ChannelBuffer duplicate() {
+        shared = true;
+        return new DuplicatedChannelBuffer(this);
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer(int index, int length) {
+        // not a view, the underlying region is only valid while the handler runs, so read-only
+        // to fail fast on in-place writes that would otherwise be silently lost
+        return ByteBuffer.wrap(copyOf(index, length)).order(order()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(msgTypeId=" + msgTypeId + ", ridx=" + readerIndex() +
+                ", widx=" + writerIndex() + ", cap=" + capacity() + ")";
+    }
+
+    private byte[] copyOf(int index, int length) {
+        byte[] bytes = new byte[length];
+        getBytes(index, bytes, 0, length);
+        return bytes;
+    }
+
+    private void checkIndex(int index, int fieldLength) {
+        if (index < 0 || fieldLength < 0 || index + fieldLength > capacity()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index + ", length: " + fieldLength +
+                    " (expected: range(0, " + capacity() + "))");
+        }
+    }
+}
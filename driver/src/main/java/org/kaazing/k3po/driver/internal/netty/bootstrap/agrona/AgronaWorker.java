@@ -151,14 +151,18 @@ public final class AgronaWorker implements Runnable {
             throw new ChannelException(message);
         }
         else {
-            UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[readableBytes - SIZE_OF_INT]);
+            // hand the accumulated payload to the writer in place, the writer copies it into the ring;
+            // the agrona ring buffer in use has no tryClaim/commit, so this single copy remains, and the
+            // per-channel write buffer is reused to avoid allocating per message
             int msgTypeId = writeBuffer.getInt(0);
-            writeBuffer.getBytes(SIZE_OF_INT, srcBuffer.byteArray());
-            writeBuffer.writerIndex(0);
+            int length = readableBytes - SIZE_OF_INT;
+            UnsafeBuffer srcBuffer = channel.writePayload;
+            srcBuffer.wrap(writeBuffer.array(), writeBuffer.arrayOffset() + SIZE_OF_INT, length);
 
             AgronaChannelAddress remoteAddress = channel.getRemoteAddress();
             ChannelWriter writer = remoteAddress.getWriter();
-            writer.write(msgTypeId, srcBuffer, 0, srcBuffer.capacity());
+            writer.write(msgTypeId, srcBuffer, 0, length);
+            writeBuffer.writerIndex(0);
 
             return true;
         }
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.channel;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+
+/**
+ * Borrows channels from a {@link ChannelFactory} shared across robots.
+ *
+ * Channels created through this factory are tracked, so that {@link #shutdown()} closes only those channels
+ * and never releases the resources of the shared factory.
+ */
+public class SharedChannelFactory implements ChannelFactory {
+
+    protected final ChannelGroup channels;
+
+    private final ChannelFactory sharedFactory;
+
+    public SharedChannelFactory(ChannelFactory sharedFactory) {
+        this.sharedFactory = sharedFactory;
+        this.channels = new DefaultChannelGroup();
+    }
+
+    @Override
+    public Channel newChannel(ChannelPipeline pipeline) {
+        Channel channel = sharedFactory.newChannel(pipeline);
+        channels.add(channel);
+        return channel;
+    }
+
+    @Override
+    public void shutdown() {
+        channels.close();
+    }
+
+    @Override
+    public void releaseExternalResources() {
+        // shared resources are released by their owner
+        shutdown();
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.channel;
+
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandler.Sharable;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChildChannelStateEvent;
+import org.jboss.netty.channel.ServerChannel;
+import org.jboss.netty.channel.ServerChannelFactory;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+
+/**
+ * Borrows server channels from a {@link ServerChannelFactory} shared across robots.
+ *
+ * Both the server channels and their accepted child channels are tracked, so that {@link #shutdown()} closes
+ * only those channels and never releases the resources of the shared factory.
+ */
+public class SharedServerChannelFactory extends SharedChannelFactory implements ServerChannelFactory {
+
+    private final ChannelHandler childTracker;
+
+    public SharedServerChannelFactory(ServerChannelFactory sharedFactory) {
+        super(sharedFactory);
+        this.childTracker = new ChildChannelTracker();
+    }
+
+    @Override
+    public ServerChannel newChannel(ChannelPipeline pipeline) {
+        pipeline.addFirst("shared.child.tracker", childTracker);
+        return (ServerChannel) super.newChannel(pipeline);
+    }
+
+    @Sharable
+    private final class ChildChannelTracker extends SimpleChannelUpstreamHandler {
+
+        @Override
+        public void childChannelOpen(ChannelHandlerContext ctx, ChildChannelStateEvent e) throws Exception {
+            channels.add(e.getChildChannel());
+            super.childChannelOpen(ctx, e);
+        }
+
+    }
+
+}
@@ -15,8 +15,9 @@
  */
 package org.kaazing.k3po.driver.internal.netty.bootstrap.file;
 
+import org.agrona.IoUtil;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelException;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
@@ -24,6 +25,8 @@ import org.jboss.netty.channel.ChannelSink;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.UpstreamMessageEvent;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.AbstractChannel;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 import org.kaazing.k3po.driver.internal.netty.channel.file.FileChannelAddress;
@@ -31,9 +34,13 @@ import org.kaazing.k3po.driver.internal.netty.channel.file.FileChannelAddress;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.net.SocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.NonWritableChannelException;
+import java.util.function.Consumer;
 
 import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
@@ -41,11 +48,26 @@ import static org.jboss.netty.channel.Channels.fireChannelOpen;
 
 public final class FileChannel extends AbstractChannel<FileChannelConfig> {
 
-    // Note that read position and write position are independent in the script. We are keeping
-    // two buffers(view on the same MappedByteBuffer) to achieve this and also don't have to
-    // manage positions explicitly
-    private ChannelBuffer readBuffer;
-    private ChannelBuffer writeBuffer;
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(FileChannel.class);
+
+    // Note that read position and write position are independent in the script. Reads map one window
+    // of the file at a time and writes slide their own window, so files of any length can be read
+    // and written with bounded mappings
+    private final WriteWindow writeWindow = new WriteWindow();
+
+    private RandomAccessFile file;
+    private java.nio.channels.FileChannel channel;
+    private MapMode mapMode;
+    private int windowSize;
+
+    // extent of the file seen by reads, grows as writes append to the file
+    private long length;
+    private long readOffset;
+    private long writeOffset;
+    private boolean appended;
+
+    // incremented whenever reads restart, so that an earlier delivery stops at its next window
+    private int readGeneration;
 
     FileChannel(ChannelFactory factory, ChannelPipeline pipeline, ChannelSink sink) {
         super(null, factory, pipeline, sink, new DefaultFileChannelConfig());
@@ -65,8 +87,7 @@ public final class FileChannel extends AbstractChannel<FileChannelConfig> {
 
     @Override
     protected boolean setClosed() {
-        // Do we need to call MappedByteBuffer#force() ?
-        // Also unmap the memory mapper buffer without waiting for GC ??
+        closeFile();
         return super.setClosed();
     }
 
@@ -81,43 +102,64 @@ public final class FileChannel extends AbstractChannel<FileChannelConfig> {
         return localAddress != null ? localAddress.toString() : super.toString();
     }
 
-    void write(ChannelBuffer channelBuffer) {
-        writeBuffer.writeBytes(channelBuffer);
+    void write(ChannelBuffer channelBuffer) throws IOException {
+        if (mapMode != READ_WRITE) {
+            throw new NonWritableChannelException();
+        }
+
+        long fileSize = channel.size();
+        while (channelBuffer.readable()) {
+            int writeLength = channelBuffer.readableBytes();
+            if (writeOffset >= fileSize) {
+                // append growth, written through the channel so the file grows by no more than is written
+                ByteBuffer appendBuffer = channelBuffer.toByteBuffer();
+                while (appendBuffer.hasRemaining()) {
+                    writeOffset += channel.write(appendBuffer, writeOffset);
+                }
+                channelBuffer.skipBytes(writeLength);
+                appended = true;
+                break;
+            }
+
+            ByteBuffer window = writeWindow.map(writeOffset, fileSize);
+            int windowOffset = (int) (writeOffset - writeWindow.position);
+            int windowLength = (int) Math.min(writeLength, window.capacity() - windowOffset);
+            window.limit(windowOffset + windowLength).position(windowOffset);
+            channelBuffer.readBytes(window);
+            writeWindow.dirty = true;
+            writeOffset += windowLength;
+        }
+
+        length = Math.max(length, writeOffset);
     }
 
-    public void setWriteOffset(int offset) {
-        writeBuffer.writerIndex(offset);
+    public void setWriteOffset(long offset) {
+        checkOffset(offset);
+        writeOffset = offset;
     }
 
-    public void setReadOffset(int offset) {
-        readBuffer.readerIndex(offset);
+    public void setReadOffset(long offset) {
+        checkOffset(offset);
+        readOffset = offset;
     }
 
     public void fireMessageReceived(ChannelHandlerContext ctx) {
-        Channels.fireMessageReceived(ctx, readBuffer, ctx.getChannel().getRemoteAddress());
+        SocketAddress remoteAddress = ctx.getChannel().getRemoteAddress();
+        fireChunks(chunk -> Channels.fireMessageReceived(ctx, chunk, remoteAddress));
     }
 
     void fireMessageReceived(FileChannel fileChannel, ChannelAddress fileAddress) {
-        MessageEvent msg = new UpstreamMessageEvent(fileChannel, fileChannel.readBuffer, fileAddress);
-        fileChannel.getPipeline().sendUpstream(msg);
+        fileChannel.fireChunks(chunk -> {
+            MessageEvent msg = new UpstreamMessageEvent(fileChannel, chunk, fileAddress);
+            fileChannel.getPipeline().sendUpstream(msg);
+        });
     }
 
-    void mapFile() throws IOException {
+    void openFile() throws IOException {
         FileChannelAddress address = (FileChannelAddress) getLocalAddress();
-        MappedByteBuffer mappedBuffer = mapFile(address.getLocation(), address.mode(), address.size());
-        readBuffer = ChannelBuffers.wrappedBuffer(mappedBuffer);
-        setReadOffset(0);
-        writeBuffer = ChannelBuffers.wrappedBuffer(mappedBuffer);
-        setWriteOffset(0);
-    }
-
-    private static MappedByteBuffer mapFile(URI fileAddress, String mode, long size) throws IOException {
-        if (fileAddress.isOpaque()) {
-            // robot scripts specify relative file uri as opaque !
-            URI currentDir = new File(".").toURI();
-            fileAddress = currentDir.resolve(fileAddress.getSchemeSpecificPart());
-        }
-        File location = new File(fileAddress);
+        File location = location(address.getLocation());
+        String mode = address.mode();
+        long size = address.size();
 
         if (!location.exists()) {
             if (mode.equals("r")) {
@@ -130,7 +172,6 @@ public final class FileChannel extends AbstractChannel<FileChannelConfig> {
             }
         }
 
-        MapMode mapMode;
         switch (mode) {
             case "r":
                 mapMode = READ_ONLY;
@@ -145,15 +186,127 @@ public final class FileChannel extends AbstractChannel<FileChannelConfig> {
                 throw new IllegalArgumentException(String.format("Unknown mode = %s for file = %s", mode, location));
         }
 
-        try (RandomAccessFile file = new RandomAccessFile(location, mode);
-             java.nio.channels.FileChannel channel = file.getChannel()) {
+        file = new RandomAccessFile(location, mode);
+        channel = file.getChannel();
 
-            if (size == 0) {
-                size = channel.size();
+        long fileSize = channel.size();
+        if (size > fileSize) {
+            if (mapMode == READ_ONLY) {
+                closeFile();
+                String msg = String.format("File = %s is shorter than size = %d, cannot be extended in read only mode",
+                        location, size);
+                throw new IllegalArgumentException(msg);
+            }
+            file.setLength(size);
+        }
+
+        windowSize = (int) Math.min(address.window(), Integer.MAX_VALUE);
+        length = (size == 0) ? fileSize : size;
+        readOffset = 0;
+        writeOffset = 0;
+    }
+
+    /*
+     * Reads are delivered as a stream of chunks, one per window, so that reading a large file never
+     * needs a mapping of the whole file. The next window is only mapped once the previous chunk has
+     * been consumed, and is unmapped once delivered, copying out any bytes the pipeline still holds.
+     * Delivery stops when a chunk is left untouched, as no read remains to consume the next one, or
+     * when reads restart from a new offset.
+     */
+    private void fireChunks(Consumer<ChannelBuffer> chunks) {
+        int generation = ++readGeneration;
+        long position = readOffset;
+        while (position < length && channel != null && generation == readGeneration) {
+            int chunkLength = (int) Math.min(windowSize, length - position);
+            MappedByteBuffer mapping;
+            try {
+                mapping = channel.map(mapMode, position, chunkLength);
+            }
+            catch (IOException e) {
+                throw new ChannelException(String.format("Failed to map file = %s at %d", this, position), e);
             }
+            position += chunkLength;
 
-            return channel.map(mapMode, 0, size);
+            FileChunkBuffer chunk = new FileChunkBuffer(mapping);
+            chunks.accept(chunk);
+
+            if (chunk.isUntouched()) {
+                // no read consumed the chunk, so the window is left to the garbage collector
+                break;
+            }
+
+            if (chunk.isRetained()) {
+                chunk.detach();
+            }
+            chunk.unmap();
+        }
+    }
+
+    private void checkOffset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException(String.format("Negative offset %d for file = %s", offset, this));
+        }
+    }
+
+    private void closeFile() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            writeWindow.unmap();
+            if (appended) {
+                channel.force(false);
+            }
+            channel.close();
+            file.close();
+        }
+        catch (IOException e) {
+            LOGGER.warn(String.format("Failed to close file = %s", this), e);
+        }
+        finally {
+            channel = null;
+            file = null;
+        }
+    }
+
+    private static File location(URI fileAddress) {
+        if (fileAddress.isOpaque()) {
+            // robot scripts specify relative file uri as opaque !
+            URI currentDir = new File(".").toURI();
+            fileAddress = currentDir.resolve(fileAddress.getSchemeSpecificPart());
         }
+        return new File(fileAddress);
     }
 
+    /*
+     * A region of the file mapped for writes, remapped when a write falls outside of it. It is never
+     * handed to the pipeline, so it can be unmapped as soon as it slides or the channel closes
+     */
+    private final class WriteWindow {
+
+        private MappedByteBuffer buffer;
+        private long position;
+        private boolean dirty;
+
+        ByteBuffer map(long at, long limit) throws IOException {
+            if (buffer == null || at < position || at >= position + buffer.capacity()) {
+                unmap();
+                position = at;
+                buffer = channel.map(mapMode, at, Math.min(windowSize, limit - at));
+            }
+            return buffer.duplicate();
+        }
+
+        void unmap() {
+            if (buffer != null) {
+                if (dirty) {
+                    buffer.force();
+                    dirty = false;
+                }
+                IoUtil.unmap(buffer);
+                buffer = null;
+            }
+        }
+    }
 }
@@ -49,7 +49,7 @@ public class FileChannelSink extends AbstractChannelSink {
 
         ChannelFuture connectFuture = evt.getFuture();
         try {
-            fileChannel.mapFile();
+            fileChannel.openFile();
             connectFuture.setSuccess();
         } catch (Throwable t) {
             connectFuture.setFailure(t);
@@ -58,7 +58,7 @@ public class FileChannelSink extends AbstractChannelSink {
         fileChannel.setConnected();
         Channels.fireChannelConnected(fileChannel, fileAddress);
 
-        // Send a read event using memory mapped buffer contents so that reads in the
+        // Send read events using memory mapped chunks of the file contents so that reads in the
         // scripts can be matched
         fileChannel.fireMessageReceived(fileChannel, fileAddress);
     }
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.file;
+
+import static org.jboss.netty.buffer.ChannelBuffers.EMPTY_BUFFER;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+import org.agrona.IoUtil;
+import org.jboss.netty.buffer.AbstractChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.DuplicatedChannelBuffer;
+import org.jboss.netty.buffer.SlicedChannelBuffer;
+
+/**
+ * A window of the file delivered to the pipeline as a chunk, reading the mapped file in place.
+ *
+ * The mapping is only valid until the next window is delivered. If the chunk may outlive the delivery, because it
+ * was not fully read or a slice, duplicate or nio view was taken, {@link #detach()} copies the bytes from the first
+ * referenced index, so the chunk, and anything derived from it, stays valid once the window is unmapped.
+ */
+final class FileChunkBuffer extends AbstractChannelBuffer {
+
+    private final MappedByteBuffer mapping;
+    private final int capacity;
+
+    private ChannelBuffer buffer;
+    private int offset;
+    private int sharedFrom;
+
+    FileChunkBuffer(MappedByteBuffer mapping) {
+        this.mapping = mapping;
+        this.capacity = mapping.capacity();
+        this.buffer = wrappedBuffer(mapping);
+        this.sharedFrom = capacity;
+        setIndex(0, capacity);
+    }
+
+    /**
+     * @return true if the chunk was neither read nor referenced by the pipeline
+     */
+    boolean isUntouched() {
+        return readerIndex() == 0 && sharedFrom == capacity;
+    }
+
+    /**
+     * @return true if the chunk may still be referenced once delivered
+     */
+    boolean isRetained() {
+        return sharedFrom < capacity || readable();
+    }
+
+    /**
+     * Copies the bytes that may still be referenced out of the mapped window
+     */
+    void detach() {
+        int from = Math.min(sharedFrom, readerIndex());
+        buffer = buffer.copy(from, capacity - from);
+        offset = from;
+    }
+
+    /**
+     * Releases the mapped window, once the chunk no longer reads from it
+     */
+    void unmap() {
+        IoUtil.unmap(mapping);
+    }
+
+    @Override
+    public ChannelBufferFactory factory() {
+        return buffer.factory();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public ByteOrder order() {
+        return buffer.order();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int arrayOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return buffer.getByte(index - offset);
+    }
+
+    @Override
+    public short getShort(int index) {
+        return buffer.getShort(index - offset);
+    }
+
+    @Override
+    public int getUnsignedMedium(int index) {
+        return buffer.getUnsignedMedium(index - offset);
+    }
+
+    @Override
+    public int getInt(int index) {
+        return buffer.getInt(index - offset);
+    }
+
+    @Override
+    public long getLong(int index) {
+        return buffer.getLong(index - offset);
+    }
+
+    @Override
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        buffer.getBytes(index - offset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        buffer.getBytes(index - offset, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getBytes(int index, ByteBuffer dst) {
+        buffer.getBytes(index - offset, dst);
+    }
+
+    @Override
+    public void getBytes(int index, OutputStream out, int length) throws IOException {
+        buffer.getBytes(index - offset, out, length);
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        return buffer.getBytes(index - offset, out, length);
+    }
+
+    @Override
+    public void setByte(int index, int value) {
+        buffer.setByte(index - offset, value);
+    }
+
+    @Override
+    public void setShort(int index, int value) {
+        buffer.setShort(index - offset, value);
+    }
+
+    @Override
+    public void setMedium(int index, int value) {
+        buffer.setMedium(index - offset, value);
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        buffer.setInt(index - offset, value);
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        buffer.setLong(index - offset, value);
+    }
+
+    @Override
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        buffer.setBytes(index - offset, src, srcIndex, length);
+    }
+
+    @Override
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        buffer.setBytes(index - offset, src, srcIndex, length);
+    }
+
+    @Override
+    public void setBytes(int index, ByteBuffer src) {
+        buffer.setBytes(index - offset, src);
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        return buffer.setBytes(index - offset, in, length);
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        return buffer.setBytes(index - offset, in, length);
+    }
+
+    @Override
+    public ChannelBuffer copy(int index, int length) {
+        return buffer.copy(index - offset, length);
+    }
+
+    @Override
+    public ChannelBuffer slice(int index, int length) {
+        if (length == 0) {
+            return EMPTY_BUFFER;
+        }
+        shared(index);
+        return new SlicedChannelBuffer(this, index, length);
+    }
+
+    @Override
+    public ChannelBuffer duplicate() {
+        shared(0);
+        return new DuplicatedChannelBuffer(this);
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer(int index, int length) {
+        shared(index);
+        return buffer.toByteBuffer(index - offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(ridx=" + readerIndex() + ", widx=" + writerIndex() +
+                ", cap=" + capacity() + ")";
+    }
+
+    private void shared(int index) {
+        sharedFrom = Math.min(sharedFrom, index);
+    }
+}
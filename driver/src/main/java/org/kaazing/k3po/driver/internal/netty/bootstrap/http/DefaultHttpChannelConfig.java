@@ -36,6 +36,7 @@ public class DefaultHttpChannelConfig extends DefaultChannelConfig implements Ht
     private QueryStringDecoder readQuery;
     private QueryStringEncoder writeQuery;
     private HttpHeaders writeTrailers;
+    private boolean keepAlive;
 
     @Override
     public void setMethod(HttpMethod method) {
@@ -133,6 +134,16 @@ public class DefaultHttpChannelConfig extends DefaultChannelConfig implements Ht
         return writeQuery;
     }
 
+    @Override
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
     @Override
     public HttpHeaders getWriteTrailers() {
         if (writeTrailers == null) {
@@ -148,4 +159,15 @@ public class DefaultHttpChannelConfig extends DefaultChannelConfig implements Ht
         }
         return readHeaders;
     }
+
+    @Override
+    protected boolean setOption0(String key, Object value) {
+        if ("keepAlive".equals(key)) {
+            keepAlive = (value instanceof Boolean) ? (Boolean) value : Boolean.parseBoolean(String.valueOf(value));
+        } else {
+            return false;
+        }
+
+        return true;
+    }
 }
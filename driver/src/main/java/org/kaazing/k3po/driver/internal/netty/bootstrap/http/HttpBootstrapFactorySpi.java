@@ -17,6 +17,7 @@ package org.kaazing.k3po.driver.internal.netty.bootstrap.http;
 
 import javax.annotation.Resource;
 
+import org.jboss.netty.util.Timer;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
@@ -42,6 +43,16 @@ public class HttpBootstrapFactorySpi extends BootstrapFactorySpi {
         clientChannelSinkFactory.setBootstrapFactory(bootstrapFactory);
     }
 
+    @Resource
+    public void setTimer(Timer timer) {
+        clientChannelSinkFactory.getConnectionPool().setTimer(timer);
+    }
+
+    @Resource
+    public void setConnectionMetrics(HttpConnectionMetrics metrics) {
+        clientChannelSinkFactory.getConnectionPool().setMetrics(metrics);
+    }
+
     /**
      * Returns the name of the transport provided by factories using this
      * service provider.
@@ -69,7 +80,8 @@ public class HttpBootstrapFactorySpi extends BootstrapFactorySpi {
 
     @Override
     public void shutdown() {
-        // ignore, no external resources to shutdown as it always runs on top of another transport (tcp)
+        // close idle keep-alive connections, other transport resources are owned by the underlying transport (tcp)
+        clientChannelSinkFactory.getConnectionPool().shutdown();
     }
 
     @Override
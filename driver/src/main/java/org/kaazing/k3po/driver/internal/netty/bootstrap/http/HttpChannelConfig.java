@@ -61,6 +61,10 @@ public interface HttpChannelConfig extends ChannelConfig {
 
     HttpRequestForm getRequestForm();
 
+    void setKeepAlive(boolean keepAlive);
+
+    boolean isKeepAlive();
+
     HttpHeaders getWriteTrailers();
 
     HttpHeaders getReadTrailers();
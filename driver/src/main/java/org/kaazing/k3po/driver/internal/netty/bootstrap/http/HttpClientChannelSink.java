@@ -39,6 +39,8 @@ import static org.kaazing.k3po.driver.internal.netty.bootstrap.http.HttpRequestF
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -72,13 +74,16 @@ public class HttpClientChannelSink extends AbstractChannelSink {
 
     private final ChannelPipelineFactory pipelineFactory;
     private final BootstrapFactory bootstrapFactory;
+    private final HttpConnectionPool connectionPool;
 
     private Channel transport;
     private HttpRequest httpBufferedRequest;
 
-    public HttpClientChannelSink(BootstrapFactory bootstrapFactory, ChannelPipelineFactory pipelineFactory) {
+    public HttpClientChannelSink(BootstrapFactory bootstrapFactory, ChannelPipelineFactory pipelineFactory,
+            HttpConnectionPool connectionPool) {
         this.bootstrapFactory = bootstrapFactory;
         this.pipelineFactory = pipelineFactory;
+        this.connectionPool = connectionPool;
     }
 
     @Override
@@ -121,18 +126,19 @@ public class HttpClientChannelSink extends AbstractChannelSink {
         final HttpClientChannel httpConnectChannel = (HttpClientChannel) evt.getChannel();
         final ChannelFuture httpConnectFuture = evt.getFuture();
         final ChannelAddress httpRemoteAddress = (ChannelAddress) evt.getValue();
-        ChannelAddress address = httpRemoteAddress.getTransport();
+        final ChannelAddress address = httpRemoteAddress.getTransport();
         String schemeName = address.getLocation().getScheme();
         String httpSchemeName = httpRemoteAddress.getLocation().getScheme();
+        final boolean keepAlive = httpConnectChannel.getConfig().isKeepAlive();
 
-        ClientBootstrap bootstrap = bootstrapFactory.newClientBootstrap(schemeName);
+        final ClientBootstrap bootstrap = bootstrapFactory.newClientBootstrap(schemeName);
         bootstrap.setPipelineFactory(pipelineFactory);
-        bootstrap.setOptions(httpConnectChannel.getConfig().getTransportOptions());
-        bootstrap.setOption(format("%s.nextProtocol", schemeName), httpSchemeName);
+        Map<String, Object> transportOptions = new HashMap<>(httpConnectChannel.getConfig().getTransportOptions());
+        transportOptions.put(format("%s.nextProtocol", schemeName), httpSchemeName);
+        bootstrap.setOptions(transportOptions);
+        final HttpConnectionPool.Key poolKey = new HttpConnectionPool.Key(address, transportOptions);
 
-        // TODO: reuse connections with keep-alive
-        ChannelFuture connectFuture = bootstrap.connect(address);
-        connectFuture.addListener(new ChannelFutureListener() {
+        ChannelFutureListener connectListener = new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture connectFuture) throws Exception {
                 if (connectFuture.isSuccess()) {
@@ -150,6 +156,9 @@ public class HttpClientChannelSink extends AbstractChannelSink {
                     }
 
                     channelSource.setHttpChannel(httpConnectChannel);
+                    if (keepAlive) {
+                        channelSource.setConnectionPool(connectionPool, poolKey);
+                    }
                     httpConnectChannel.setRemoteAddress(httpRemoteAddress);
                     httpConnectChannel.setConnected();
 
@@ -159,7 +168,14 @@ public class HttpClientChannelSink extends AbstractChannelSink {
                     httpConnectFuture.setFailure(connectFuture.getCause());
                 }
             }
-        });
+        };
+
+        if (keepAlive) {
+            // reuse an idle persistent connection to the same transport address with the same options, if any
+            connectionPool.acquire(poolKey, () -> bootstrap.connect(address), connectListener);
+        } else {
+            bootstrap.connect(address).addListener(connectListener);
+        }
     }
 
     @Override
@@ -267,6 +283,12 @@ public class HttpClientChannelSink extends AbstractChannelSink {
     @Override
     protected void abortOutputRequested(ChannelPipeline pipeline, final WriteAbortEvent evt) throws Exception {
         HttpClientChannel channel = (HttpClientChannel) pipeline.getChannel();
+        if (channel.getConfig().isKeepAlive() && !channel.isOpen()) {
+            // response already complete, transport may have been released for reuse
+            evt.getFuture().setSuccess();
+            return;
+        }
+
         ChannelFuture flushFuture = Channels.future(channel);
         flushRequested(channel, flushFuture);
         flushFuture.addListener(new ChannelFutureListener() {
@@ -20,17 +20,23 @@ import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
 public class HttpClientChannelSinkFactory {
 
     private final HttpClientChannelPipelineFactory pipelineFactory;
+    private final HttpConnectionPool connectionPool;
     private BootstrapFactory bootstrapFactory;
 
     public HttpClientChannelSinkFactory() {
         pipelineFactory = new HttpClientChannelPipelineFactory();
+        connectionPool = new HttpConnectionPool();
     }
 
     public void setBootstrapFactory(BootstrapFactory bootstrapFactory) {
         this.bootstrapFactory = bootstrapFactory;
     }
 
+    public HttpConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     public HttpClientChannelSink newChannelSink() {
-        return new HttpClientChannelSink(bootstrapFactory, pipelineFactory);
+        return new HttpClientChannelSink(bootstrapFactory, pipelineFactory, connectionPool);
     }
 }
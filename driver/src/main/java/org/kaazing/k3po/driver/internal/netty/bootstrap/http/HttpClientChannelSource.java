@@ -22,7 +22,9 @@ import static org.jboss.netty.channel.Channels.fireChannelInterestChanged;
 import static org.jboss.netty.channel.Channels.fireChannelUnbound;
 import static org.jboss.netty.channel.Channels.fireExceptionCaught;
 import static org.jboss.netty.channel.Channels.fireMessageReceived;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.isKeepAlive;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.SWITCHING_PROTOCOLS;
+import static org.kaazing.k3po.driver.internal.netty.bootstrap.http.HttpClientChannel.HttpState.CONTENT_COMPLETE;
 import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireInputAborted;
 import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireInputShutdown;
 
@@ -38,6 +40,8 @@ import org.jboss.netty.channel.SimpleChannelHandler;
 import org.jboss.netty.handler.codec.http.HttpChunk;
 import org.jboss.netty.handler.codec.http.HttpChunkTrailer;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpHeaders.Names;
+import org.jboss.netty.handler.codec.http.HttpHeaders.Values;
 import org.jboss.netty.handler.codec.http.HttpRequestEncoder;
 import org.jboss.netty.handler.codec.http.HttpResponse;
 import org.jboss.netty.handler.codec.http.HttpResponseDecoder;
@@ -47,18 +51,27 @@ import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 public class HttpClientChannelSource extends HttpChannelHandler {
 
     private HttpClientChannel httpClientChannel;
+    private HttpConnectionPool connectionPool;
+    private HttpConnectionPool.Key poolKey;
+    private boolean keepAlive;
 
     public void setHttpChannel(HttpClientChannel httpClientChannel) {
         assert this.httpClientChannel == null;
         this.httpClientChannel = httpClientChannel;
     }
 
+    public void setConnectionPool(HttpConnectionPool connectionPool, HttpConnectionPool.Key poolKey) {
+        this.connectionPool = connectionPool;
+        this.poolKey = poolKey;
+    }
+
     @Override
     protected void httpMessageReceived(ChannelHandlerContext ctx, MessageEvent e, HttpResponse httpResponse) throws Exception {
         HttpChannelConfig httpChildConfig = httpClientChannel.getConfig();
         httpChildConfig.setStatus(httpResponse.getStatus());
         httpChildConfig.setVersion(httpResponse.getProtocolVersion());
         httpChildConfig.getReadHeaders().set(httpResponse.headers());
+        keepAlive = isKeepAlive(httpResponse);
 
         if (httpResponse.getStatus().getCode() == SWITCHING_PROTOCOLS.getCode()) {
             Channel transport = ctx.getChannel();
@@ -91,6 +104,7 @@ public class HttpClientChannelSource extends HttpChannelHandler {
             if (!httpResponse.isChunked()) {
                 HttpClientChannel httpClientChannel = this.httpClientChannel;
                 this.httpClientChannel = null;
+                releaseTransport(ctx, httpClientChannel);
                 fireInputShutdown(httpClientChannel);
 
                 boolean wasConnected = httpClientChannel.isConnected();
@@ -123,6 +137,7 @@ public class HttpClientChannelSource extends HttpChannelHandler {
                 httpClientChannel.getConfig().getReadTrailers().set(trailingHeaders);
             }
             this.httpClientChannel = null;
+            releaseTransport(ctx, httpClientChannel);
             fireInputShutdown(httpClientChannel);
 
             if (httpClientChannel.setClosed()) {
@@ -159,6 +174,9 @@ public class HttpClientChannelSource extends HttpChannelHandler {
     @Override
     public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
 
+        // connection pool observes transport close directly
+        connectionPool = null;
+
         HttpClientChannel httpClientChannel = this.httpClientChannel;
         if (httpClientChannel != null) {
 
@@ -180,6 +198,26 @@ public class HttpClientChannelSource extends HttpChannelHandler {
         }
     }
 
+    // release before notifying completion, so streams triggered by completion can reuse the connection
+    private void releaseTransport(ChannelHandlerContext ctx, HttpClientChannel httpClientChannel) {
+        HttpConnectionPool connectionPool = this.connectionPool;
+        if (connectionPool != null) {
+            this.connectionPool = null;
+
+            Channel transport = ctx.getChannel();
+            HttpChannelConfig httpClientConfig = httpClientChannel.getConfig();
+            boolean requestComplete = httpClientChannel.state() == CONTENT_COMPLETE;
+            boolean requestKeepAlive = !httpClientConfig.hasWriteHeaders() ||
+                    !httpClientConfig.getWriteHeaders().contains(Names.CONNECTION, Values.CLOSE, true);
+
+            if (keepAlive && requestComplete && requestKeepAlive) {
+                connectionPool.release(poolKey, transport);
+            } else {
+                transport.close();
+            }
+        }
+    }
+
     @Sharable
     private static class NoopChannelHandler extends SimpleChannelHandler {
     }
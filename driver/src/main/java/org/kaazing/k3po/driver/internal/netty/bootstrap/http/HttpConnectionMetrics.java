@@ -0,0 +1,70 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http;
+
+import static java.lang.String.format;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts of persistent HTTP connections, accumulated across the connection pools of all robots sharing a
+ * {@link org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime}.
+ */
+public final class HttpConnectionMetrics {
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public long getConnects() {
+        return connects.get();
+    }
+
+    public long getReuses() {
+        return reuses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the fraction of acquired connections that were reused rather than newly connected.
+     */
+    public double getReuseRatio() {
+        long reuses = getReuses();
+        long acquisitions = getConnects() + reuses;
+        return (acquisitions != 0) ? (double) reuses / acquisitions : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return format("http connections: %d connected, %d reused (reuse ratio %.2f), %d evicted",
+                getConnects(), getReuses(), getReuseRatio(), getEvictions());
+    }
+
+    void connected() {
+        connects.incrementAndGet();
+    }
+
+    void reused() {
+        reuses.incrementAndGet();
+    }
+
+    void evicted() {
+        evictions.incrementAndGet();
+    }
+}
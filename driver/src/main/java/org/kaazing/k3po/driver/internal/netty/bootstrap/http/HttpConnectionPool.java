@@ -0,0 +1,477 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jboss.netty.channel.Channels.succeededFuture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+/**
+ * Pool of persistent HTTP/1.1 transport connections, keyed by transport address and transport options, so a connection
+ * is only reused by a connect that would have opened it the same way.
+ *
+ * Connections are acquired when an http client channel connects with the {@code keepAlive} option, and released back to
+ * the pool when the response completes on a connection that can be reused. At most {@code maxConnectionsPerHost}
+ * connections are open to the same transport address, further acquisitions wait for a connection to be released or
+ * closed. Idle connections are evicted once idle for longer than {@code idleTimeout}, checked whenever the pool is used
+ * and, given a {@link #setTimer(Timer) timer}, when the eldest idle connection times out. Acquisitions still waiting
+ * when the pool shuts down fail.
+ */
+public final class HttpConnectionPool {
+
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.kaazing.k3po.driver.http.maxConnectionsPerHost";
+    public static final String IDLE_TIMEOUT_PROPERTY = "org.kaazing.k3po.driver.http.idleTimeout";
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, 6);
+    public static final long DEFAULT_IDLE_TIMEOUT = Long.getLong(IDLE_TIMEOUT_PROPERTY, 30000L);
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(HttpConnectionPool.class);
+
+    private final int maxConnectionsPerHost;
+    private final long idleTimeoutNanos;
+    private final Map<Key, Host> hosts;
+    private final TimerTask evictTask;
+
+    private Timer timer;
+    private Timeout evictTimeout;
+    private HttpConnectionMetrics metrics;
+
+    private long connects;
+    private long reuses;
+    private long evictions;
+
+    public HttpConnectionPool() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT, MILLISECONDS);
+    }
+
+    public HttpConnectionPool(int maxConnectionsPerHost, long idleTimeout, TimeUnit unit) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerHost must be positive: " + maxConnectionsPerHost);
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.hosts = new HashMap<>();
+        this.evictTask = new EvictTask();
+    }
+
+    /**
+     * Sets the timer used to evict idle connections when the pool is not being used.
+     */
+    public synchronized void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Sets the metrics this pool adds its connects, reuses and evictions to, shared with other pools.
+     */
+    public synchronized void setMetrics(HttpConnectionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Acquires a connection for the key, notifying the listener with either an idle connection or the result of a new
+     * connect.
+     */
+    public void acquire(Key key, Supplier<ChannelFuture> connector, ChannelFutureListener listener) {
+        Host host;
+        Channel idle;
+        boolean connect = false;
+        List<Channel> evicted;
+
+        synchronized (this) {
+            evicted = evictIdle(System.nanoTime());
+
+            host = hosts.computeIfAbsent(key, Host::new);
+            idle = host.pollIdle();
+            if (idle != null) {
+                countReuse();
+            } else if (host.connections < maxConnectionsPerHost) {
+                host.connections++;
+                countConnect();
+                connect = true;
+            } else {
+                // wait for a connection to be released or closed
+                host.pending.add(new PendingAcquire(connector, listener));
+            }
+        }
+
+        closeAll(evicted);
+
+        if (idle != null) {
+            succeededFuture(idle).addListener(listener);
+        } else if (connect) {
+            connect(host, connector, listener);
+        }
+    }
+
+    /**
+     * Releases a connection after a completed response, either to the next waiting acquisition or to the idle pool.
+     */
+    public void release(Key key, Channel transport) {
+        PendingAcquire pending = null;
+        List<Channel> evicted;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            evicted = evictIdle(now);
+
+            Host host = hosts.get(key);
+            if (host != null && transport.isConnected()) {
+                pending = host.pending.poll();
+                if (pending != null) {
+                    countReuse();
+                } else {
+                    host.idle.addFirst(new IdleConnection(transport, now));
+                    scheduleEviction(now);
+                }
+            }
+        }
+
+        closeAll(evicted);
+
+        if (pending != null) {
+            succeededFuture(transport).addListener(pending.listener);
+        }
+    }
+
+    /**
+     * Closes all idle connections and fails waiting acquisitions, connections still in use are closed with their owning
+     * channels.
+     */
+    public void shutdown() {
+        List<Channel> idle = new ArrayList<>();
+        List<PendingAcquire> pending = new ArrayList<>();
+
+        synchronized (this) {
+            for (Host host : hosts.values()) {
+                for (IdleConnection connection : host.idle) {
+                    idle.add(connection.transport);
+                }
+                host.idle.clear();
+                pending.addAll(host.pending);
+                host.pending.clear();
+            }
+
+            if (evictTimeout != null) {
+                evictTimeout.cancel();
+                evictTimeout = null;
+            }
+
+            if (LOGGER.isDebugEnabled() && connects != 0) {
+                LOGGER.debug(String.format("HTTP connections: %d connected, %d reused (reuse ratio %.2f), %d evicted",
+                        connects, reuses, getReuseRatio(), evictions));
+            }
+        }
+
+        closeAll(idle);
+
+        for (PendingAcquire acquire : pending) {
+            // no channel was ever connected for a waiting acquisition
+            ChannelFuture failedFuture = new DefaultChannelFuture(null, false);
+            failedFuture.setFailure(new ChannelException("HTTP connection pool shut down"));
+            failedFuture.addListener(acquire.listener);
+        }
+    }
+
+    public synchronized long getConnectCount() {
+        return connects;
+    }
+
+    public synchronized long getReuseCount() {
+        return reuses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of acquisitions served by an already open connection.
+     */
+    public synchronized double getReuseRatio() {
+        long acquisitions = connects + reuses;
+        return (acquisitions != 0) ? (double) reuses / acquisitions : 0.0;
+    }
+
+    private void connect(final Host host, Supplier<ChannelFuture> connector, ChannelFutureListener listener) {
+        ChannelFuture connectFuture;
+        try {
+            connectFuture = connector.get();
+        } catch (RuntimeException e) {
+            closed(host);
+            throw e;
+        }
+
+        connectFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    Channel transport = future.getChannel();
+                    transport.getCloseFuture().addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            closed(host, future.getChannel());
+                        }
+                    });
+                } else {
+                    closed(host);
+                }
+            }
+        });
+        connectFuture.addListener(listener);
+    }
+
+    private void closed(Host host, Channel transport) {
+        synchronized (this) {
+            Iterator<IdleConnection> iterator = host.idle.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().transport == transport) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+
+        closed(host);
+    }
+
+    private void closed(Host host) {
+        PendingAcquire pending;
+
+        synchronized (this) {
+            host.connections--;
+            pending = host.pending.poll();
+            if (pending != null) {
+                host.connections++;
+                countConnect();
+            } else if (host.connections == 0 && host.idle.isEmpty()) {
+                hosts.remove(host.key, host);
+            }
+        }
+
+        if (pending != null) {
+            connect(host, pending.connector, pending.listener);
+        }
+    }
+
+    private List<Channel> evictIdle(long now) {
+        List<Channel> evicted = null;
+
+        for (Host host : hosts.values()) {
+            // most recently released connections are first, so the eldest are evicted from the end
+            Iterator<IdleConnection> iterator = host.idle.descendingIterator();
+            while (iterator.hasNext()) {
+                IdleConnection connection = iterator.next();
+                if (now - connection.releasedAt < idleTimeoutNanos) {
+                    break;
+                }
+
+                iterator.remove();
+                countEviction();
+
+                if (evicted == null) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(connection.transport);
+            }
+        }
+
+        return evicted;
+    }
+
+    private void scheduleEviction(long now) {
+        if (timer == null || evictTimeout != null) {
+            return;
+        }
+
+        // most recently released connections are first, so the eldest of each host is last
+        IdleConnection eldest = null;
+        for (Host host : hosts.values()) {
+            IdleConnection connection = host.idle.peekLast();
+            if (connection != null && (eldest == null || connection.releasedAt - eldest.releasedAt < 0)) {
+                eldest = connection;
+            }
+        }
+
+        if (eldest != null) {
+            long delay = Math.max(eldest.releasedAt + idleTimeoutNanos - now, 0L);
+            try {
+                evictTimeout = timer.newTimeout(evictTask, delay, NANOSECONDS);
+            } catch (IllegalStateException e) {
+                // timer stopped, idle connections are still evicted when the pool is used
+            }
+        }
+    }
+
+    // guarded by this
+    private void countConnect() {
+        connects++;
+        if (metrics != null) {
+            metrics.connected();
+        }
+    }
+
+    // guarded by this
+    private void countReuse() {
+        reuses++;
+        if (metrics != null) {
+            metrics.reused();
+        }
+    }
+
+    // guarded by this
+    private void countEviction() {
+        evictions++;
+        if (metrics != null) {
+            metrics.evicted();
+        }
+    }
+
+    private static void closeAll(List<Channel> transports) {
+        if (transports != null) {
+            for (Channel transport : transports) {
+                transport.close();
+            }
+        }
+    }
+
+    private final class EvictTask implements TimerTask {
+
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            List<Channel> evicted;
+
+            synchronized (HttpConnectionPool.this) {
+                if (evictTimeout != timeout) {
+                    return;
+                }
+                evictTimeout = null;
+
+                long now = System.nanoTime();
+                evicted = evictIdle(now);
+                scheduleEviction(now);
+            }
+
+            closeAll(evicted);
+        }
+    }
+
+    /**
+     * Identifies connections that can be used interchangeably, opened to the same transport address with the same
+     * transport options.
+     */
+    public static final class Key {
+
+        private final ChannelAddress address;
+        private final Map<String, Object> options;
+
+        public Key(ChannelAddress address, Map<String, Object> options) {
+            this.address = address;
+            this.options = new HashMap<>(options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, options);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+            return Objects.equals(this.address, that.address) &&
+                    this.options.equals(that.options);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s", address, options);
+        }
+    }
+
+    private static final class Host {
+        private final Key key;
+        private final Deque<IdleConnection> idle;
+        private final Deque<PendingAcquire> pending;
+        private int connections;
+
+        Host(Key key) {
+            this.key = key;
+            this.idle = new ArrayDeque<>();
+            this.pending = new ArrayDeque<>();
+        }
+
+        Channel pollIdle() {
+            IdleConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (connection.transport.isConnected()) {
+                    return connection.transport;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Channel transport;
+        private final long releasedAt;
+
+        IdleConnection(Channel transport, long releasedAt) {
+            this.transport = transport;
+            this.releasedAt = releasedAt;
+        }
+    }
+
+    private static final class PendingAcquire {
+        private final Supplier<ChannelFuture> connector;
+        private final ChannelFutureListener listener;
+
+        PendingAcquire(Supplier<ChannelFuture> connector, ChannelFutureListener listener) {
+            this.connector = connector;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.DefaultChannelConfig;
+
+public class DefaultHttp2ChannelConfig extends DefaultChannelConfig implements Http2ChannelConfig {
+
+    private final Http2Settings localSettings;
+    private final Http2Headers writeHeaders;
+    private final Http2Headers readHeaders;
+    private final Http2Headers writeTrailers;
+    private final Http2Headers readTrailers;
+
+    private volatile Http2Settings remoteSettings;
+    private boolean huffman;
+    private HpackIndexing indexing;
+
+    public DefaultHttp2ChannelConfig() {
+        this.localSettings = new Http2Settings();
+        this.remoteSettings = new Http2Settings();
+        this.writeHeaders = new Http2Headers();
+        this.readHeaders = new Http2Headers();
+        this.writeTrailers = new Http2Headers();
+        this.readTrailers = new Http2Headers();
+        this.huffman = true;
+        this.indexing = HpackIndexing.INCREMENTAL;
+    }
+
+    @Override
+    public Http2Settings getLocalSettings() {
+        return localSettings;
+    }
+
+    @Override
+    public Http2Settings getRemoteSettings() {
+        return remoteSettings;
+    }
+
+    @Override
+    public void setRemoteSettings(Http2Settings remoteSettings) {
+        this.remoteSettings = remoteSettings;
+    }
+
+    @Override
+    public Http2Headers getWriteHeaders() {
+        return writeHeaders;
+    }
+
+    @Override
+    public Http2Headers getReadHeaders() {
+        return readHeaders;
+    }
+
+    @Override
+    public Http2Headers getWriteTrailers() {
+        return writeTrailers;
+    }
+
+    @Override
+    public Http2Headers getReadTrailers() {
+        return readTrailers;
+    }
+
+    @Override
+    public void setHuffman(boolean huffman) {
+        this.huffman = huffman;
+    }
+
+    @Override
+    public boolean isHuffman() {
+        return huffman;
+    }
+
+    @Override
+    public void setIndexing(HpackIndexing indexing) {
+        this.indexing = indexing;
+    }
+
+    @Override
+    public HpackIndexing getIndexing() {
+        return indexing;
+    }
+
+    @Override
+    protected boolean setOption0(String key, Object value) {
+        return Http2Options.setSetting(localSettings, key, value);
+    }
+}
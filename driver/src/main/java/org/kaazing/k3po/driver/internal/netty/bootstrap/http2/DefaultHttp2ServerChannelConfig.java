@@ -0,0 +1,37 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.DefaultServerChannelConfig;
+
+public class DefaultHttp2ServerChannelConfig extends DefaultServerChannelConfig implements Http2ServerChannelConfig {
+
+    private final Http2Settings localSettings;
+
+    public DefaultHttp2ServerChannelConfig() {
+        this.localSettings = new Http2Settings();
+    }
+
+    @Override
+    public Http2Settings getLocalSettings() {
+        return localSettings;
+    }
+
+    @Override
+    protected boolean setOption0(String key, Object value) {
+        return Http2Options.setSetting(localSettings, key, value);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * HPACK header block decoder, see RFC 7541.
+ *
+ * One decoder instance holds the dynamic table state for all header blocks received on the same connection.
+ */
+final class HpackDecoder {
+
+    private final HpackHeaderTable table;
+    private int maxTableSize;
+
+    HpackDecoder(int maxTableSize) {
+        this.table = new HpackHeaderTable(maxTableSize);
+        this.maxTableSize = maxTableSize;
+    }
+
+    /**
+     * Updates the limit advertised in local SETTINGS_HEADER_TABLE_SIZE, applied once acknowledged by the peer.
+     */
+    void setMaxTableSize(int maxTableSize) {
+        this.maxTableSize = maxTableSize;
+        if (table.maxSize() > maxTableSize) {
+            table.setMaxSize(maxTableSize);
+        }
+    }
+
+    int tableSize() {
+        return table.size();
+    }
+
+    void decode(ChannelBuffer block, Http2Headers headers) throws Http2Exception {
+        boolean headerSeen = false;
+        while (block.readable()) {
+            int first = block.getUnsignedByte(block.readerIndex());
+            if ((first & 0x80) != 0) {
+                // indexed header field
+                int index = decodeInteger(block, 7);
+                String[] entry = table.get(index);
+                headers.add(entry[0], entry[1]);
+                headerSeen = true;
+            }
+            else if ((first & 0x40) != 0) {
+                // literal header field with incremental indexing
+                String[] entry = decodeLiteral(block, 6);
+                table.add(entry[0], entry[1]);
+                headers.add(entry[0], entry[1]);
+                headerSeen = true;
+            }
+            else if ((first & 0x20) != 0) {
+                // dynamic table size update, only permitted at the start of a header block
+                if (headerSeen) {
+                    throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Table size update after header field");
+                }
+                int newSize = decodeInteger(block, 5);
+                if (newSize > maxTableSize) {
+                    throw new Http2Exception(Http2Error.COMPRESSION_ERROR,
+                            "Table size update " + newSize + " exceeds limit " + maxTableSize);
+                }
+                table.setMaxSize(newSize);
+            }
+            else {
+                // literal header field without indexing, or never indexed
+                String[] entry = decodeLiteral(block, 4);
+                headers.add(entry[0], entry[1]);
+                headerSeen = true;
+            }
+        }
+    }
+
+    private String[] decodeLiteral(ChannelBuffer block, int prefixBits) throws Http2Exception {
+        int nameIndex = decodeInteger(block, prefixBits);
+        String name = (nameIndex != 0) ? table.get(nameIndex)[0] : decodeString(block);
+        String value = decodeString(block);
+        return new String[] { name, value };
+    }
+
+    private static String decodeString(ChannelBuffer block) throws Http2Exception {
+        if (!block.readable()) {
+            throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Truncated string literal");
+        }
+
+        boolean huffman = (block.getUnsignedByte(block.readerIndex()) & 0x80) != 0;
+        int length = decodeInteger(block, 7);
+        if (length > block.readableBytes()) {
+            throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Truncated string literal");
+        }
+
+        byte[] octets = new byte[length];
+        block.readBytes(octets);
+        if (huffman) {
+            octets = HpackHuffman.decode(octets);
+        }
+
+        return new String(octets, ISO_8859_1);
+    }
+
+    static int decodeInteger(ChannelBuffer block, int prefixBits) throws Http2Exception {
+        int prefixMask = (1 << prefixBits) - 1;
+        int value = block.readUnsignedByte() & prefixMask;
+        if (value < prefixMask) {
+            return value;
+        }
+
+        int shift = 0;
+        int octet;
+        do {
+            if (!block.readable()) {
+                throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Truncated integer");
+            }
+            if (shift > 28) {
+                throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Integer overflow");
+            }
+            octet = block.readUnsignedByte();
+            value += (octet & 0x7f) << shift;
+            shift += 7;
+        } while ((octet & 0x80) != 0);
+
+        if (value < 0) {
+            throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Integer overflow");
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * HPACK header block encoder, see RFC 7541.
+ *
+ * One encoder instance holds the dynamic table state for all header blocks sent on the same connection, so header
+ * blocks must be written to the transport in the same order they are encoded.
+ */
+final class HpackEncoder {
+
+    private final HpackHeaderTable table;
+    private int pendingMaxTableSize;
+
+    HpackEncoder(int maxTableSize) {
+        this.table = new HpackHeaderTable(maxTableSize);
+        this.pendingMaxTableSize = -1;
+    }
+
+    /**
+     * Applies the peer SETTINGS_HEADER_TABLE_SIZE, signalled at the start of the next header block.
+     */
+    void setMaxTableSize(int maxTableSize) {
+        if (maxTableSize != table.maxSize()) {
+            table.setMaxSize(maxTableSize);
+            pendingMaxTableSize = maxTableSize;
+        }
+    }
+
+    int tableSize() {
+        return table.size();
+    }
+
+    void encode(Http2Headers headers, ChannelBuffer block, boolean huffman, HpackIndexing indexing) {
+        if (pendingMaxTableSize != -1) {
+            encodeInteger(block, 0x20, 5, pendingMaxTableSize);
+            pendingMaxTableSize = -1;
+        }
+
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.name(i);
+            String value = headers.value(i);
+            HpackIndexing fieldIndexing = isSensitive(name) ? HpackIndexing.NEVER : indexing;
+
+            int index = table.indexOf(name, value);
+            if (index > 0) {
+                encodeInteger(block, 0x80, 7, index);
+                continue;
+            }
+
+            int nameIndex = -index;
+            switch (fieldIndexing) {
+            case INCREMENTAL:
+                encodeInteger(block, 0x40, 6, nameIndex);
+                table.add(name, value);
+                break;
+            case NEVER:
+                encodeInteger(block, 0x10, 4, nameIndex);
+                break;
+            default:
+                encodeInteger(block, 0x00, 4, nameIndex);
+                break;
+            }
+
+            if (nameIndex == 0) {
+                encodeString(block, name, huffman);
+            }
+            encodeString(block, value, huffman);
+        }
+    }
+
+    private static boolean isSensitive(String name) {
+        // see RFC 7541 section 7.1.3, avoid exposing credentials to compression attacks
+        return "authorization".equals(name) || "proxy-authorization".equals(name);
+    }
+
+    private static void encodeString(ChannelBuffer block, String value, boolean huffman) {
+        byte[] octets = value.getBytes(ISO_8859_1);
+        if (huffman && HpackHuffman.encodedLength(octets) < octets.length) {
+            byte[] encoded = HpackHuffman.encode(octets);
+            encodeInteger(block, 0x80, 7, encoded.length);
+            block.writeBytes(encoded);
+        }
+        else {
+            encodeInteger(block, 0x00, 7, octets.length);
+            block.writeBytes(octets);
+        }
+    }
+
+    static void encodeInteger(ChannelBuffer block, int mask, int prefixBits, int value) {
+        int prefixMask = (1 << prefixBits) - 1;
+        if (value < prefixMask) {
+            block.writeByte(mask | value);
+            return;
+        }
+
+        block.writeByte(mask | prefixMask);
+        value -= prefixMask;
+        while (value >= 0x80) {
+            block.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        block.writeByte(value);
+    }
+}
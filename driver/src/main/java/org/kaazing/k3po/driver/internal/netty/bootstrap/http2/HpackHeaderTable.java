@@ -0,0 +1,199 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * HPACK static and dynamic header tables, see RFC 7541 section 2.3.
+ */
+final class HpackHeaderTable {
+
+    static final String[][] STATIC_TABLE = {
+        { ":authority", "" },
+        { ":method", "GET" },
+        { ":method", "POST" },
+        { ":path", "/" },
+        { ":path", "/index.html" },
+        { ":scheme", "http" },
+        { ":scheme", "https" },
+        { ":status", "200" },
+        { ":status", "204" },
+        { ":status", "206" },
+        { ":status", "304" },
+        { ":status", "400" },
+        { ":status", "404" },
+        { ":status", "500" },
+        { "accept-charset", "" },
+        { "accept-encoding", "gzip, deflate" },
+        { "accept-language", "" },
+        { "accept-ranges", "" },
+        { "accept", "" },
+        { "access-control-allow-origin", "" },
+        { "age", "" },
+        { "allow", "" },
+        { "authorization", "" },
+        { "cache-control", "" },
+        { "content-disposition", "" },
+        { "content-encoding", "" },
+        { "content-language", "" },
+        { "content-length", "" },
+        { "content-location", "" },
+        { "content-range", "" },
+        { "content-type", "" },
+        { "cookie", "" },
+        { "date", "" },
+        { "etag", "" },
+        { "expect", "" },
+        { "expires", "" },
+        { "from", "" },
+        { "host", "" },
+        { "if-match", "" },
+        { "if-modified-since", "" },
+        { "if-none-match", "" },
+        { "if-range", "" },
+        { "if-unmodified-since", "" },
+        { "last-modified", "" },
+        { "link", "" },
+        { "location", "" },
+        { "max-forwards", "" },
+        { "proxy-authenticate", "" },
+        { "proxy-authorization", "" },
+        { "range", "" },
+        { "referer", "" },
+        { "refresh", "" },
+        { "retry-after", "" },
+        { "server", "" },
+        { "set-cookie", "" },
+        { "strict-transport-security", "" },
+        { "transfer-encoding", "" },
+        { "user-agent", "" },
+        { "vary", "" },
+        { "via", "" },
+        { "www-authenticate", "" }
+    };
+
+    static final int STATIC_TABLE_LENGTH = STATIC_TABLE.length;
+
+    // see RFC 7541 section 4.1, each entry has 32 octets of overhead
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private final Deque<String[]> dynamicTable;
+    private int size;
+    private int maxSize;
+
+    HpackHeaderTable(int maxSize) {
+        this.dynamicTable = new ArrayDeque<>();
+        this.maxSize = maxSize;
+    }
+
+    int length() {
+        return STATIC_TABLE_LENGTH + dynamicTable.size();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the name and value at the one-based index, spanning static then dynamic table.
+     */
+    String[] get(int index) throws Http2Exception {
+        if (index < 1 || index > length()) {
+            throw new Http2Exception(Http2Error.COMPRESSION_ERROR, "Invalid header table index " + index);
+        }
+
+        if (index <= STATIC_TABLE_LENGTH) {
+            return STATIC_TABLE[index - 1];
+        }
+
+        int dynamicIndex = index - STATIC_TABLE_LENGTH - 1;
+        Iterator<String[]> iterator = dynamicTable.iterator();
+        for (int i = 0; i < dynamicIndex; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * Returns the index of the matching name and value, or the negated index of a matching name only, or zero.
+     */
+    int indexOf(String name, String value) {
+        int nameIndex = 0;
+        for (int i = 0; i < STATIC_TABLE_LENGTH; i++) {
+            String[] entry = STATIC_TABLE[i];
+            if (entry[0].equals(name)) {
+                if (entry[1].equals(value)) {
+                    return i + 1;
+                }
+                if (nameIndex == 0) {
+                    nameIndex = -(i + 1);
+                }
+            }
+        }
+
+        int index = STATIC_TABLE_LENGTH;
+        for (String[] entry : dynamicTable) {
+            index++;
+            if (entry[0].equals(name)) {
+                if (entry[1].equals(value)) {
+                    return index;
+                }
+                if (nameIndex == 0) {
+                    nameIndex = -index;
+                }
+            }
+        }
+
+        return nameIndex;
+    }
+
+    void add(String name, String value) {
+        int entrySize = entrySize(name, value);
+        if (entrySize > maxSize) {
+            // see RFC 7541 section 4.4, an entry larger than the table empties the table
+            dynamicTable.clear();
+            size = 0;
+            return;
+        }
+
+        evict(maxSize - entrySize);
+        dynamicTable.addFirst(new String[] { name, value });
+        size += entrySize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evict(maxSize);
+    }
+
+    static int entrySize(String name, String value) {
+        return name.length() + value.length() + ENTRY_OVERHEAD;
+    }
+
+    private void evict(int targetSize) {
+        while (size > targetSize && !dynamicTable.isEmpty()) {
+            String[] entry = dynamicTable.removeLast();
+            size -= entrySize(entry[0], entry[1]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import javax.annotation.Resource;
+
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+
+public class Http2BootstrapFactorySpi extends BootstrapFactorySpi {
+
+    private final Http2ServerChannelSink serverChannelSink;
+    private final Http2ServerChannelFactory serverChannelFactory;
+    private final Http2ClientChannelSinkFactory clientChannelSinkFactory;
+    private final Http2ClientChannelFactory clientChannelFactory;
+
+    public Http2BootstrapFactorySpi() {
+        this.serverChannelSink = new Http2ServerChannelSink();
+        this.serverChannelFactory = new Http2ServerChannelFactory(serverChannelSink);
+        this.clientChannelSinkFactory = new Http2ClientChannelSinkFactory();
+        this.clientChannelFactory = new Http2ClientChannelFactory(clientChannelSinkFactory);
+    }
+
+    @Resource
+    public void setBootstrapFactory(BootstrapFactory bootstrapFactory) {
+        serverChannelSink.setBootstrapFactory(bootstrapFactory);
+        clientChannelSinkFactory.setBootstrapFactory(bootstrapFactory);
+    }
+
+    /**
+     * Returns the name of the transport provided by factories using this
+     * service provider.
+     */
+    @Override
+    public String getTransportName() {
+        return "http2";
+    }
+
+    /**
+     * Returns a {@link ClientBootstrap} instance for the named transport.
+     */
+    @Override
+    public synchronized ClientBootstrap newClientBootstrap() throws Exception {
+        return new ClientBootstrap(clientChannelFactory);
+    }
+
+    /**
+     * Returns a {@link ServerBootstrap} instance for the named transport.
+     */
+    @Override
+    public synchronized ServerBootstrap newServerBootstrap() throws Exception {
+        return new ServerBootstrap(serverChannelFactory);
+    }
+
+    @Override
+    public void shutdown() {
+        // close multiplexed connections, other transport resources are owned by the underlying transport (tcp)
+        clientChannelSinkFactory.shutdown();
+    }
+
+    @Override
+    public void releaseExternalResources() {
+        // ignore, no external resources to shutdown as it always runs on top of another transport (tcp)
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.ChannelConfig;
+
+public interface Http2ChannelConfig extends ChannelConfig {
+
+    /**
+     * Returns the SETTINGS sent by this endpoint when the transport connection is established.
+     */
+    Http2Settings getLocalSettings();
+
+    /**
+     * Returns the SETTINGS most recently received from the peer on the transport connection.
+     */
+    Http2Settings getRemoteSettings();
+
+    void setRemoteSettings(Http2Settings remoteSettings);
+
+    Http2Headers getWriteHeaders();
+
+    Http2Headers getReadHeaders();
+
+    Http2Headers getWriteTrailers();
+
+    Http2Headers getReadTrailers();
+
+    void setHuffman(boolean huffman);
+
+    boolean isHuffman();
+
+    void setIndexing(HpackIndexing indexing);
+
+    HpackIndexing getIndexing();
+}
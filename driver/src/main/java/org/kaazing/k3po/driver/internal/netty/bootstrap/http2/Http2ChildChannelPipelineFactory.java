@@ -0,0 +1,43 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+import java.util.NavigableMap;
+
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+final class Http2ChildChannelPipelineFactory implements ChannelPipelineFactory {
+
+    private final NavigableMap<ChannelAddress, Http2ServerChannel> http2Bindings;
+    private final Http2Settings localSettings;
+
+    public Http2ChildChannelPipelineFactory(
+            NavigableMap<ChannelAddress, Http2ServerChannel> http2Bindings,
+            Http2Settings localSettings) {
+        this.http2Bindings = http2Bindings;
+        this.localSettings = localSettings;
+    }
+
+    @Override
+    public ChannelPipeline getPipeline() throws Exception {
+        return pipeline(new Http2FrameDecoder(true), new Http2ConnectionHandler(localSettings, http2Bindings));
+    }
+
+}
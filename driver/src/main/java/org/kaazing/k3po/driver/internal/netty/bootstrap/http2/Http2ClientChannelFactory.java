@@ -0,0 +1,50 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.channel.Channels.fireChannelOpen;
+
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelPipeline;
+
+public class Http2ClientChannelFactory implements ChannelFactory {
+
+    private final Http2ClientChannelSinkFactory channelSinkFactory;
+
+    public Http2ClientChannelFactory(Http2ClientChannelSinkFactory channelSinkFactory) {
+        this.channelSinkFactory = channelSinkFactory;
+    }
+
+    @Override
+    public Http2StreamChannel newChannel(ChannelPipeline pipeline) {
+        Http2StreamChannel http2Channel = new Http2StreamChannel(null, this, pipeline, channelSinkFactory.newChannelSink());
+        fireChannelOpen(http2Channel);
+
+        // see Http2ConnectionHandler for http2Channel.setReadable(true) when response headers are received
+        http2Channel.setReadable(false);
+
+        return http2Channel;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void releaseExternalResources() {
+    }
+
+}
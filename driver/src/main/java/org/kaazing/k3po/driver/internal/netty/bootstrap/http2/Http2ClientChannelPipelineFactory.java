@@ -0,0 +1,36 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+
+final class Http2ClientChannelPipelineFactory implements ChannelPipelineFactory {
+
+    private final Http2Settings localSettings;
+
+    public Http2ClientChannelPipelineFactory(Http2Settings localSettings) {
+        this.localSettings = localSettings;
+    }
+
+    @Override
+    public ChannelPipeline getPipeline() throws Exception {
+        return pipeline(new Http2FrameDecoder(false), new Http2ConnectionHandler(localSettings));
+    }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.lang.String.format;
+import static org.jboss.netty.channel.Channels.fireChannelBound;
+import static org.jboss.netty.channel.Channels.fireChannelConnected;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+public class Http2ClientChannelSink extends Http2StreamChannelSink {
+
+    private final BootstrapFactory bootstrapFactory;
+    private final ConcurrentMap<ChannelAddress, ChannelFuture> connections;
+
+    public Http2ClientChannelSink(
+            BootstrapFactory bootstrapFactory,
+            ConcurrentMap<ChannelAddress, ChannelFuture> connections) {
+        this.bootstrapFactory = bootstrapFactory;
+        this.connections = connections;
+    }
+
+    @Override
+    protected void bindRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        ChannelFuture http2BindFuture = evt.getFuture();
+        Http2StreamChannel http2ConnectChannel = (Http2StreamChannel) evt.getChannel();
+        ChannelAddress http2LocalAddress = (ChannelAddress) evt.getValue();
+        http2ConnectChannel.setLocalAddress(http2LocalAddress);
+        http2ConnectChannel.setBound();
+
+        fireChannelBound(http2ConnectChannel, http2LocalAddress);
+        http2BindFuture.setSuccess();
+    }
+
+    @Override
+    protected void connectRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        final Http2StreamChannel http2ConnectChannel = (Http2StreamChannel) evt.getChannel();
+        final ChannelFuture http2ConnectFuture = evt.getFuture();
+        final ChannelAddress http2RemoteAddress = (ChannelAddress) evt.getValue();
+        final ChannelAddress address = http2RemoteAddress.getTransport();
+
+        // streams to the same transport address are multiplexed over a single connection
+        ChannelFuture connectFuture = connections.get(address);
+        if (connectFuture == null) {
+            ChannelFuture newConnectFuture = connect(http2ConnectChannel, http2RemoteAddress);
+            connectFuture = connections.putIfAbsent(address, newConnectFuture);
+            if (connectFuture == null) {
+                connectFuture = newConnectFuture;
+                connectFuture.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isSuccess()) {
+                            future.getChannel().getCloseFuture().addListener(new ChannelFutureListener() {
+                                @Override
+                                public void operationComplete(ChannelFuture closeFuture) throws Exception {
+                                    connections.remove(address, future);
+                                }
+                            });
+                        }
+                        else {
+                            connections.remove(address, future);
+                        }
+                    }
+                });
+            }
+            else {
+                newConnectFuture.getChannel().close();
+            }
+        }
+
+        connectFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture connectFuture) throws Exception {
+                if (connectFuture.isSuccess()) {
+                    Channel transport = connectFuture.getChannel();
+                    Http2ConnectionHandler connection = transport.getPipeline().get(Http2ConnectionHandler.class);
+
+                    try {
+                        connection.sendPreface(transport);
+                        connection.attach(http2ConnectChannel);
+                    }
+                    catch (ChannelException e) {
+                        http2ConnectFuture.setFailure(e);
+                        return;
+                    }
+
+                    if (!http2ConnectChannel.isBound()) {
+                        ChannelAddress http2LocalAddress = http2RemoteAddress;
+                        http2ConnectChannel.setLocalAddress(http2LocalAddress);
+                        http2ConnectChannel.setBound();
+                        fireChannelBound(http2ConnectChannel, http2LocalAddress);
+                    }
+
+                    http2ConnectChannel.setRemoteAddress(http2RemoteAddress);
+                    http2ConnectChannel.setConnected();
+
+                    http2ConnectFuture.setSuccess();
+                    fireChannelConnected(http2ConnectChannel, http2RemoteAddress);
+                }
+                else {
+                    http2ConnectFuture.setFailure(connectFuture.getCause());
+                }
+            }
+        });
+    }
+
+    private ChannelFuture connect(Http2StreamChannel http2ConnectChannel, ChannelAddress http2RemoteAddress) {
+        ChannelAddress address = http2RemoteAddress.getTransport();
+        String schemeName = address.getLocation().getScheme();
+        String http2SchemeName = http2RemoteAddress.getLocation().getScheme();
+
+        Http2ChannelConfig config = http2ConnectChannel.getConfig();
+        Http2Settings localSettings = config.getLocalSettings();
+        if (!localSettings.isSet(Http2Settings.ENABLE_PUSH)) {
+            // pushed streams are refused, so avoid the peer sending them at all
+            Http2Options.setSetting(localSettings, Http2Options.ENABLE_PUSH, 0);
+        }
+
+        ClientBootstrap bootstrap = bootstrapFactory.newClientBootstrap(schemeName);
+        bootstrap.setPipelineFactory(new Http2ClientChannelPipelineFactory(localSettings));
+        bootstrap.setOptions(config.getTransportOptions());
+        bootstrap.setOption(format("%s.nextProtocol", schemeName), http2SchemeName);
+
+        return bootstrap.connect(address);
+    }
+}
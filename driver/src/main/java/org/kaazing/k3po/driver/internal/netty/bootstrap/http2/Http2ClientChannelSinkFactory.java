@@ -0,0 +1,48 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.util.internal.ConcurrentHashMap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+public class Http2ClientChannelSinkFactory {
+
+    private final ConcurrentMap<ChannelAddress, ChannelFuture> connections;
+    private BootstrapFactory bootstrapFactory;
+
+    public Http2ClientChannelSinkFactory() {
+        connections = new ConcurrentHashMap<>();
+    }
+
+    public void setBootstrapFactory(BootstrapFactory bootstrapFactory) {
+        this.bootstrapFactory = bootstrapFactory;
+    }
+
+    public Http2ClientChannelSink newChannelSink() {
+        return new Http2ClientChannelSink(bootstrapFactory, connections);
+    }
+
+    public void shutdown() {
+        for (ChannelFuture connectFuture : connections.values()) {
+            connectFuture.getChannel().close();
+        }
+        connections.clear();
+    }
+}
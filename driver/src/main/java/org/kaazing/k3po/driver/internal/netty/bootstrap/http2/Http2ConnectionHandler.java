@@ -0,0 +1,1177 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.lang.String.format;
+import static org.jboss.netty.buffer.ChannelBuffers.EMPTY_BUFFER;
+import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
+import static org.jboss.netty.channel.Channels.fireChannelBound;
+import static org.jboss.netty.channel.Channels.fireChannelClosed;
+import static org.jboss.netty.channel.Channels.fireChannelConnected;
+import static org.jboss.netty.channel.Channels.fireChannelDisconnected;
+import static org.jboss.netty.channel.Channels.fireChannelInterestChanged;
+import static org.jboss.netty.channel.Channels.fireChannelOpen;
+import static org.jboss.netty.channel.Channels.fireChannelUnbound;
+import static org.jboss.netty.channel.Channels.fireMessageReceived;
+import static org.kaazing.k3po.driver.internal.channel.Channels.chainFutures;
+import static org.kaazing.k3po.driver.internal.channel.Channels.remoteAddress;
+import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireInputAborted;
+import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireInputShutdown;
+import static org.kaazing.k3po.driver.internal.netty.channel.Channels.fireOutputAborted;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.logging.InternalLogger;
+import org.jboss.netty.logging.InternalLoggerFactory;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+/**
+ * HTTP/2 connection endpoint on a transport channel, multiplexing {@link Http2StreamChannel}s.
+ *
+ * Owns the HPACK encoder and decoder state, the local and remote SETTINGS and the connection flow-control windows.
+ * Header blocks are encoded and written while holding the connection monitor, so the order of header blocks on the
+ * transport always matches the order of HPACK encoder state changes.
+ *
+ * Stream events are queued while holding the connection monitor and fired in order once it is released, so stream
+ * pipelines never run with the connection locked. Received DATA is credited back to the peer only once delivered to
+ * a readable stream, so each stream applies back pressure as the script reads.
+ */
+public class Http2ConnectionHandler extends SimpleChannelHandler {
+
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(Http2ConnectionHandler.class);
+
+    private final boolean server;
+    private final NavigableMap<ChannelAddress, Http2ServerChannel> bindings;
+    private final Http2Settings localSettings;
+    private final Http2Settings remoteSettings;
+    private final HpackEncoder encoder;
+    private final HpackDecoder decoder;
+    private final Map<Integer, Http2StreamChannel> streams;
+    private final Deque<Http2StreamChannel> pendingOpens;
+    private final Set<Http2StreamChannel> blocked;
+    private final Deque<Runnable> events;
+
+    private Channel transport;
+    private boolean prefaceSent;
+    private int nextStreamId;
+    private int lastRemoteStreamId;
+    private int activeLocalStreams;
+    private int sendWindow;
+    private int receiveWindow;
+    private boolean goAway;
+    private boolean firing;
+
+    private int continuationStreamId;
+    private int continuationFlags;
+    private int promisedStreamId;
+    private ChannelBuffer headerBlock;
+
+    public Http2ConnectionHandler(Http2Settings localSettings) {
+        this(false, localSettings, null);
+    }
+
+    public Http2ConnectionHandler(Http2Settings localSettings, NavigableMap<ChannelAddress, Http2ServerChannel> bindings) {
+        this(true, localSettings, bindings);
+    }
+
+    private Http2ConnectionHandler(
+            boolean server,
+            Http2Settings localSettings,
+            NavigableMap<ChannelAddress, Http2ServerChannel> bindings) {
+        this.server = server;
+        this.bindings = bindings;
+        this.localSettings = localSettings;
+        this.remoteSettings = new Http2Settings();
+        this.encoder = new HpackEncoder(Http2Settings.DEFAULT_HEADER_TABLE_SIZE);
+        this.decoder = new HpackDecoder(Http2Settings.DEFAULT_HEADER_TABLE_SIZE);
+        this.streams = new HashMap<>();
+        this.pendingOpens = new ArrayDeque<>();
+        this.blocked = new LinkedHashSet<>();
+        this.events = new ArrayDeque<>();
+        this.nextStreamId = server ? 2 : 1;
+        this.sendWindow = Http2Settings.DEFAULT_INITIAL_WINDOW_SIZE;
+        this.receiveWindow = Http2Settings.DEFAULT_INITIAL_WINDOW_SIZE;
+    }
+
+    public synchronized Http2Settings getRemoteSettings() {
+        return remoteSettings;
+    }
+
+    public synchronized int getActiveStreamCount() {
+        return streams.size();
+    }
+
+    public synchronized boolean isGoAway() {
+        return goAway;
+    }
+
+    @Override
+    public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        sendPreface(ctx.getChannel());
+        super.channelConnected(ctx, e);
+    }
+
+    /**
+     * Sends the connection preface and local SETTINGS, at most once per connection.
+     */
+    public synchronized void sendPreface(Channel transport) {
+        this.transport = transport;
+        if (!prefaceSent) {
+            prefaceSent = true;
+            if (!server) {
+                transport.write(Http2FrameDecoder.CONNECTION_PREFACE.duplicate());
+            }
+            transport.write(Http2Frame.settings(localSettings).encode());
+        }
+    }
+
+    /**
+     * Attaches a client stream, the stream identifier is assigned when the request headers are sent.
+     */
+    synchronized void attach(Http2StreamChannel stream) {
+        if (goAway || !transport.isConnected()) {
+            throw new ChannelException("HTTP/2 connection closed");
+        }
+
+        stream.connection = this;
+        stream.getConfig().setRemoteSettings(remoteSettings);
+    }
+
+    void write(Http2StreamChannel stream, ChannelBuffer data, ChannelFuture future) {
+        synchronized (this) {
+            if (stream.endStreamSent || stream.reset) {
+                fireLater(() -> future.setFailure(new ChannelException("HTTP/2 stream output closed")));
+            }
+            else {
+                queueHeaders(stream, null);
+                stream.writes.add(Http2Write.data(data, future));
+                flush(stream);
+            }
+        }
+        fireEvents();
+    }
+
+    void flush(Http2StreamChannel stream, ChannelFuture future) {
+        synchronized (this) {
+            if (stream.headersQueued) {
+                fireLater(future::setSuccess);
+            }
+            else {
+                queueHeaders(stream, future);
+            }
+            flush(stream);
+        }
+        fireEvents();
+    }
+
+    void shutdownOutput(Http2StreamChannel stream, ChannelFuture future) {
+        synchronized (this) {
+            if (stream.endStreamSent || stream.reset) {
+                fireLater(future::setSuccess);
+            }
+            else {
+                queueHeaders(stream, null);
+                stream.writes.add(Http2Write.endStream(future));
+                flush(stream);
+            }
+        }
+        fireEvents();
+    }
+
+    synchronized void windowUpdate(Http2StreamChannel stream, int increment) {
+        stream.receiveWindow += increment;
+        if (stream.streamId != 0 && !stream.endStreamReceived) {
+            transport.write(Http2Frame.windowUpdate(stream.streamId, increment).encode());
+        }
+    }
+
+    /**
+     * Delivers DATA received while the stream was not readable, once the stream is readable again.
+     */
+    void readableChanged(Http2StreamChannel stream) {
+        synchronized (this) {
+            deliver(stream);
+        }
+        fireEvents();
+    }
+
+    /**
+     * Resets the stream with RST_STREAM, failing any writes still pending.
+     */
+    private void reset(Http2StreamChannel stream, Http2Error error) {
+        if (stream.reset) {
+            return;
+        }
+        stream.reset = true;
+        stream.reads.clear();
+
+        if (stream.streamId != 0 && !(stream.endStreamSent && stream.endStreamReceived)) {
+            transport.write(Http2Frame.rstStream(stream.streamId, error).encode());
+        }
+
+        failWrites(stream, new ChannelException(format("HTTP/2 stream reset: %s", error)));
+        streamClosed(stream);
+    }
+
+    synchronized Channel getTransport() {
+        return transport;
+    }
+
+    /**
+     * Resets the stream and aborts both directions, as RST_STREAM cannot abort one direction alone.
+     */
+    void abort(Http2StreamChannel stream, Http2Error error) {
+        synchronized (this) {
+            reset(stream, error);
+            abortStream(stream);
+        }
+        fireEvents();
+    }
+
+    /**
+     * Closes the stream, resetting it first if either direction has not yet ended.
+     */
+    void close(Http2StreamChannel stream) {
+        synchronized (this) {
+            if (!(stream.endStreamSent && stream.endStreamReceived)) {
+                reset(stream, Http2Error.CANCEL);
+            }
+            abortStream(stream);
+        }
+        fireEvents();
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        Http2Frame frame = (Http2Frame) e.getMessage();
+
+        try {
+            synchronized (this) {
+                frameReceived(ctx, frame);
+            }
+        }
+        catch (Http2Exception ex) {
+            if (ex.isConnectionError()) {
+                connectionError(ctx.getChannel(), ex);
+            }
+            else {
+                streamError(ex);
+            }
+        }
+        finally {
+            fireEvents();
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
+        Throwable cause = e.getCause();
+        if (cause instanceof Http2Exception) {
+            connectionError(ctx.getChannel(), (Http2Exception) cause);
+        }
+        else {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("HTTP/2 transport failed", cause);
+            }
+            ctx.getChannel().close();
+        }
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        synchronized (this) {
+            goAway = true;
+            List<Http2StreamChannel> aborted = new ArrayList<>(streams.values());
+            aborted.addAll(pendingOpens);
+            streams.clear();
+            pendingOpens.clear();
+            blocked.clear();
+
+            for (Http2StreamChannel stream : aborted) {
+                failWrites(stream, new ChannelException("HTTP/2 connection closed"));
+                abortStream(stream);
+            }
+        }
+        fireEvents();
+
+        super.channelClosed(ctx, e);
+    }
+
+    private void frameReceived(ChannelHandlerContext ctx, Http2Frame frame) throws Http2Exception {
+        if (continuationStreamId != 0 &&
+                (frame.type() != Http2Frame.CONTINUATION || frame.streamId() != continuationStreamId)) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Expected CONTINUATION on stream " + continuationStreamId);
+        }
+
+        switch (frame.type()) {
+        case Http2Frame.DATA:
+            dataReceived(frame);
+            break;
+        case Http2Frame.HEADERS:
+            headersReceived(ctx, frame);
+            break;
+        case Http2Frame.PRIORITY:
+            if (frame.streamId() == 0 || frame.payload().readableBytes() != 5) {
+                throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid PRIORITY frame");
+            }
+            break;
+        case Http2Frame.RST_STREAM:
+            rstStreamReceived(frame);
+            break;
+        case Http2Frame.SETTINGS:
+            settingsReceived(frame);
+            break;
+        case Http2Frame.PUSH_PROMISE:
+            pushPromiseReceived(ctx, frame);
+            break;
+        case Http2Frame.PING:
+            pingReceived(frame);
+            break;
+        case Http2Frame.GOAWAY:
+            goAwayReceived(frame);
+            break;
+        case Http2Frame.WINDOW_UPDATE:
+            windowUpdateReceived(frame);
+            break;
+        case Http2Frame.CONTINUATION:
+            continuationReceived(ctx, frame);
+            break;
+        default:
+            // see RFC 7540 section 4.1, unknown frame types are ignored
+            break;
+        }
+    }
+
+    private void dataReceived(Http2Frame frame) throws Http2Exception {
+        int streamId = frame.streamId();
+        if (streamId == 0) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "DATA on stream 0");
+        }
+
+        int length = frame.payload().readableBytes();
+        receiveWindow -= length;
+        if (receiveWindow < 0) {
+            throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, "Connection receive window exceeded");
+        }
+
+        // replenish the connection window immediately, streams apply back pressure individually
+        if (length > 0) {
+            receiveWindow += length;
+            transport.write(Http2Frame.windowUpdate(0, length).encode());
+        }
+
+        ChannelBuffer data = removePadding(frame);
+
+        Http2StreamChannel stream = streams.get(streamId);
+        if (stream == null || stream.endStreamReceived) {
+            throw new Http2Exception(Http2Error.STREAM_CLOSED, streamId, "DATA on closed stream");
+        }
+
+        stream.receiveWindow -= length;
+        if (stream.receiveWindow < 0) {
+            throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, streamId, "Stream receive window exceeded");
+        }
+
+        if (data.readable()) {
+            stream.reads.add(data);
+        }
+
+        // padding is never delivered, so credit it as consumed straight away
+        consumed(stream, length - data.readableBytes());
+
+        if (frame.hasFlag(Http2Frame.FLAG_END_STREAM)) {
+            endStreamReceived(stream);
+        }
+        else {
+            deliver(stream);
+        }
+    }
+
+    private void headersReceived(ChannelHandlerContext ctx, Http2Frame frame) throws Http2Exception {
+        int streamId = frame.streamId();
+        if (streamId == 0) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "HEADERS on stream 0");
+        }
+
+        ChannelBuffer fragment = removePadding(frame);
+        if (frame.hasFlag(Http2Frame.FLAG_PRIORITY)) {
+            if (fragment.readableBytes() < 5) {
+                throw new Http2Exception(Http2Error.FRAME_SIZE_ERROR, "Truncated HEADERS priority");
+            }
+            fragment.skipBytes(5);
+        }
+
+        if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+            headerBlockReceived(ctx, streamId, frame.flags(), fragment);
+        }
+        else {
+            continuationStreamId = streamId;
+            continuationFlags = frame.flags();
+            promisedStreamId = 0;
+            headerBlock = dynamicBuffer(fragment.readableBytes() * 2);
+            headerBlock.writeBytes(fragment);
+        }
+    }
+
+    private void continuationReceived(ChannelHandlerContext ctx, Http2Frame frame) throws Http2Exception {
+        if (continuationStreamId == 0) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Unexpected CONTINUATION");
+        }
+
+        headerBlock.writeBytes(frame.payload());
+
+        if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+            int streamId = continuationStreamId;
+            ChannelBuffer block = headerBlock;
+            continuationStreamId = 0;
+            headerBlock = null;
+
+            if (promisedStreamId != 0) {
+                pushPromiseBlockReceived(promisedStreamId, block);
+            }
+            else {
+                headerBlockReceived(ctx, streamId, continuationFlags, block);
+            }
+        }
+    }
+
+    private void headerBlockReceived(ChannelHandlerContext ctx, int streamId, int flags, ChannelBuffer block)
+            throws Http2Exception {
+        // always decode to keep HPACK state in sync, even when the stream is discarded
+        Http2Headers headers = new Http2Headers();
+        decoder.decode(block, headers);
+        boolean endStream = (flags & Http2Frame.FLAG_END_STREAM) != 0;
+
+        Http2StreamChannel stream = streams.get(streamId);
+        if (stream == null) {
+            if (server && (streamId & 0x01) == 1 && streamId > lastRemoteStreamId) {
+                lastRemoteStreamId = streamId;
+                if (goAway) {
+                    transport.write(Http2Frame.rstStream(streamId, Http2Error.REFUSED_STREAM).encode());
+                }
+                else {
+                    requestReceived(ctx, streamId, headers, endStream);
+                }
+                return;
+            }
+            throw new Http2Exception(Http2Error.STREAM_CLOSED, streamId, "HEADERS on closed stream");
+        }
+
+        if (stream.endStreamReceived) {
+            throw new Http2Exception(Http2Error.STREAM_CLOSED, streamId, "HEADERS after END_STREAM");
+        }
+
+        if (!stream.headersReceived) {
+            String status = headers.get(":status");
+            if (status != null && status.startsWith("1") && !endStream) {
+                // interim response, see RFC 7540 section 8.1
+                return;
+            }
+
+            stream.headersReceived = true;
+            stream.getConfig().getReadHeaders().add(headers);
+
+            if (!stream.isReadable()) {
+                fireLater(() -> {
+                    stream.setReadable(true);
+                    fireChannelInterestChanged(stream);
+                });
+            }
+        }
+        else if (endStream) {
+            stream.getConfig().getReadTrailers().add(headers);
+        }
+        else {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, streamId, "Trailers without END_STREAM");
+        }
+
+        if (endStream) {
+            endStreamReceived(stream);
+        }
+    }
+
+    private void requestReceived(ChannelHandlerContext ctx, int streamId, Http2Headers headers, boolean endStream) {
+        Channel transport = ctx.getChannel();
+        String authority = headers.get(":authority");
+        String path = headers.get(":path");
+        if (authority == null) {
+            authority = headers.get("host");
+        }
+
+        Entry<ChannelAddress, Http2ServerChannel> binding = null;
+        if (authority != null && path != null) {
+            // channel's local address is resolved address so get the bind address from
+            // server channel's attachment
+            ChannelAddress transportCandidate = (ChannelAddress) transport.getParent().getAttachment();
+            URI location = URI.create(format("http2://%s%s", authority, path));
+            ChannelAddress candidate = new ChannelAddress(location, transportCandidate);
+            binding = bindings.floorEntry(candidate);
+        }
+
+        if (binding == null) {
+            Http2Headers notFound = new Http2Headers().add(":status", "404");
+            writeHeaders(streamId, notFound, true, true, HpackIndexing.INCREMENTAL, null);
+            if (!endStream) {
+                transport.write(Http2Frame.rstStream(streamId, Http2Error.NO_ERROR).encode());
+            }
+            return;
+        }
+
+        Http2ServerChannel parent = binding.getValue();
+        ChannelFactory factory = parent.getFactory();
+        ChannelPipeline pipeline;
+        try {
+            pipeline = parent.getConfig().getPipelineFactory().getPipeline();
+        }
+        catch (Exception e) {
+            throw new ChannelException(e);
+        }
+
+        ChannelAddress localAddress = parent.getLocalAddress();
+        URI location = URI.create(format("http2://%s%s", authority, path));
+        ChannelAddress remoteAddress = new ChannelAddress(location, remoteAddress(transport), true);
+
+        Http2StreamChannel stream = new Http2StreamChannel(parent, factory, pipeline, new Http2StreamChannelSink());
+        stream.connection = this;
+        stream.streamId = streamId;
+        stream.headersReceived = true;
+        stream.sendWindow = remoteSettings.initialWindowSize();
+        stream.receiveWindow = localSettings.initialWindowSize();
+
+        Http2ChannelConfig config = stream.getConfig();
+        config.setRemoteSettings(remoteSettings);
+        config.getReadHeaders().add(headers);
+        streams.put(streamId, stream);
+
+        stream.setLocalAddress(localAddress);
+        stream.setBound();
+        stream.setRemoteAddress(remoteAddress);
+        stream.setConnected();
+
+        fireLater(() -> {
+            fireChannelOpen(stream);
+            fireChannelBound(stream, localAddress);
+            fireChannelConnected(stream, remoteAddress);
+        });
+
+        if (endStream) {
+            endStreamReceived(stream);
+        }
+    }
+
+    private void rstStreamReceived(Http2Frame frame) throws Http2Exception {
+        if (frame.streamId() == 0 || frame.payload().readableBytes() != 4) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid RST_STREAM frame");
+        }
+
+        Http2Error error = Http2Error.valueOf(frame.payload().readInt());
+        Http2StreamChannel stream = streams.get(frame.streamId());
+        if (stream != null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(format("HTTP/2 stream %d reset by peer: %s", stream.streamId, error));
+            }
+            stream.reset = true;
+            stream.reads.clear();
+            failWrites(stream, new ChannelException(format("HTTP/2 stream reset by peer: %s", error)));
+            streamClosed(stream);
+            abortStream(stream);
+        }
+    }
+
+    private void settingsReceived(Http2Frame frame) throws Http2Exception {
+        if (frame.streamId() != 0) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "SETTINGS on stream " + frame.streamId());
+        }
+
+        if (frame.hasFlag(Http2Frame.FLAG_ACK)) {
+            if (frame.payload().readable()) {
+                throw new Http2Exception(Http2Error.FRAME_SIZE_ERROR, "SETTINGS ACK with payload");
+            }
+            // local settings now apply to frames received from the peer
+            decoder.setMaxTableSize(localSettings.headerTableSize());
+            Http2FrameDecoder frameDecoder = transport.getPipeline().get(Http2FrameDecoder.class);
+            frameDecoder.setMaxFrameSize(localSettings.maxFrameSize());
+            return;
+        }
+
+        int oldInitialWindowSize = remoteSettings.initialWindowSize();
+        remoteSettings.decode(frame.payload());
+
+        int delta = remoteSettings.initialWindowSize() - oldInitialWindowSize;
+        if (delta != 0) {
+            for (Http2StreamChannel stream : streams.values()) {
+                long newSendWindow = (long) stream.sendWindow + delta;
+                if (newSendWindow > Http2Settings.MAX_WINDOW_SIZE) {
+                    throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, "Stream send window overflow");
+                }
+                stream.sendWindow = (int) newSendWindow;
+            }
+        }
+
+        encoder.setMaxTableSize(Math.min(remoteSettings.headerTableSize(), Http2Settings.DEFAULT_HEADER_TABLE_SIZE));
+        transport.write(Http2Frame.settingsAck().encode());
+
+        openPending();
+        flushBlocked();
+    }
+
+    private void pushPromiseReceived(ChannelHandlerContext ctx, Http2Frame frame) throws Http2Exception {
+        if (server || !localSettings.isPushEnabled()) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Unexpected PUSH_PROMISE");
+        }
+
+        ChannelBuffer fragment = removePadding(frame);
+        int promisedId = fragment.readInt() & 0x7fffffff;
+
+        if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+            pushPromiseBlockReceived(promisedId, fragment);
+        }
+        else {
+            continuationStreamId = frame.streamId();
+            continuationFlags = frame.flags();
+            promisedStreamId = promisedId;
+            headerBlock = dynamicBuffer(fragment.readableBytes() * 2);
+            headerBlock.writeBytes(fragment);
+        }
+    }
+
+    private void pushPromiseBlockReceived(int promisedId, ChannelBuffer block) throws Http2Exception {
+        // decode to keep HPACK state in sync, pushed streams are not supported so refuse them
+        decoder.decode(block, new Http2Headers());
+        transport.write(Http2Frame.rstStream(promisedId, Http2Error.REFUSED_STREAM).encode());
+    }
+
+    private void pingReceived(Http2Frame frame) throws Http2Exception {
+        if (frame.streamId() != 0 || frame.payload().readableBytes() != 8) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid PING frame");
+        }
+
+        if (!frame.hasFlag(Http2Frame.FLAG_ACK)) {
+            transport.write(Http2Frame.ping(Http2Frame.FLAG_ACK, frame.payload()).encode());
+        }
+    }
+
+    private void goAwayReceived(Http2Frame frame) throws Http2Exception {
+        if (frame.streamId() != 0 || frame.payload().readableBytes() < 8) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid GOAWAY frame");
+        }
+
+        int lastStreamId = frame.payload().readInt() & 0x7fffffff;
+        Http2Error error = Http2Error.valueOf(frame.payload().readInt());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(format("HTTP/2 GOAWAY received: lastStreamId=%d, error=%s", lastStreamId, error));
+        }
+
+        goAway = true;
+
+        // locally initiated streams beyond the last stream id were not processed by the peer
+        List<Http2StreamChannel> refused = new ArrayList<>(pendingOpens);
+        pendingOpens.clear();
+        for (Http2StreamChannel stream : streams.values()) {
+            boolean local = (stream.streamId & 0x01) == (server ? 0 : 1);
+            if (local && stream.streamId > lastStreamId) {
+                refused.add(stream);
+            }
+        }
+
+        for (Http2StreamChannel stream : refused) {
+            stream.reset = true;
+            stream.reads.clear();
+            failWrites(stream, new ChannelException(format("HTTP/2 stream refused by GOAWAY: %s", error)));
+            streamClosed(stream);
+            abortStream(stream);
+        }
+    }
+
+    private void windowUpdateReceived(Http2Frame frame) throws Http2Exception {
+        if (frame.payload().readableBytes() != 4) {
+            throw new Http2Exception(Http2Error.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE length");
+        }
+
+        int streamId = frame.streamId();
+        int increment = frame.payload().readInt() & 0x7fffffff;
+        if (increment == 0) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, streamId, "WINDOW_UPDATE increment of zero");
+        }
+
+        if (streamId == 0) {
+            if ((long) sendWindow + increment > Http2Settings.MAX_WINDOW_SIZE) {
+                throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, "Connection send window overflow");
+            }
+            sendWindow += increment;
+            flushBlocked();
+        }
+        else {
+            Http2StreamChannel stream = streams.get(streamId);
+            if (stream != null) {
+                if ((long) stream.sendWindow + increment > Http2Settings.MAX_WINDOW_SIZE) {
+                    throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, streamId, "Stream send window overflow");
+                }
+                stream.sendWindow += increment;
+                flush(stream);
+            }
+        }
+    }
+
+    private void endStreamReceived(Http2StreamChannel stream) {
+        stream.endStreamReceived = true;
+
+        if (stream.endStreamSent) {
+            streamClosed(stream);
+        }
+
+        deliver(stream);
+    }
+
+    // hands received DATA, then end of stream, to the stream pipeline once it is readable
+    private void deliver(Http2StreamChannel stream) {
+        if (stream.reset || !stream.isReadable()) {
+            return;
+        }
+
+        ChannelBuffer data;
+        while ((data = stream.reads.poll()) != null) {
+            ChannelBuffer message = data;
+            int length = message.readableBytes();
+            fireLater(() -> {
+                fireMessageReceived(stream, message);
+                consumed(stream, length);
+            });
+        }
+
+        if (stream.endStreamReceived && !stream.endStreamDelivered) {
+            stream.endStreamDelivered = true;
+            boolean closed = stream.setReadClosed();
+            fireLater(() -> {
+                fireInputShutdown(stream);
+                if (closed) {
+                    fireChannelDisconnected(stream);
+                    fireChannelUnbound(stream);
+                    fireChannelClosed(stream);
+                }
+            });
+        }
+    }
+
+    // credits the peer with DATA the stream pipeline has read, once half the initial window is consumed
+    private synchronized void consumed(Http2StreamChannel stream, int length) {
+        stream.consumed += length;
+
+        if (stream.endStreamReceived || stream.reset) {
+            return;
+        }
+
+        int increment = stream.consumed;
+        if (increment > 0 && increment >= localSettings.initialWindowSize() / 2) {
+            stream.consumed = 0;
+            stream.receiveWindow += increment;
+            transport.write(Http2Frame.windowUpdate(stream.streamId, increment).encode());
+        }
+    }
+
+    private void queueHeaders(Http2StreamChannel stream, ChannelFuture future) {
+        if (!stream.headersQueued) {
+            stream.headersQueued = true;
+            stream.writes.add(Http2Write.headers(future));
+        }
+    }
+
+    private void flush(Http2StreamChannel stream) {
+        Deque<Http2Write> writes = stream.writes;
+        while (!writes.isEmpty() && !stream.reset) {
+            Http2Write write = writes.peek();
+            switch (write.kind) {
+            case HEADERS: {
+                if (stream.streamId == 0 && !open(stream)) {
+                    return;
+                }
+                writes.poll();
+
+                // elide an empty DATA frame by ending the stream on the HEADERS frame
+                Http2Write next = writes.peek();
+                boolean endStream = next != null && next.kind == Http2Write.Kind.END_STREAM &&
+                        stream.getConfig().getWriteTrailers().isEmpty();
+                if (endStream) {
+                    writes.poll();
+                }
+
+                Http2ChannelConfig config = stream.getConfig();
+                Http2Headers headers = stream.isServerStream() ? responseHeaders(stream) : requestHeaders(stream);
+                ChannelFuture future = writeHeaders(stream.streamId, headers, endStream, config.isHuffman(),
+                        config.getIndexing(), write.future);
+                if (endStream) {
+                    endStreamSent(stream, future, next.future);
+                }
+
+                int credit = stream.receiveWindow - localSettings.initialWindowSize();
+                if (credit > 0 && !stream.isServerStream()) {
+                    transport.write(Http2Frame.windowUpdate(stream.streamId, credit).encode());
+                }
+                break;
+            }
+            case DATA: {
+                ChannelBuffer data = write.data;
+                int length = data.readableBytes();
+                int available = Math.min(Math.min(stream.sendWindow, sendWindow), remoteSettings.maxFrameSize());
+                if (length > 0 && available <= 0) {
+                    blocked.add(stream);
+                    return;
+                }
+
+                int size = Math.min(length, available);
+                ChannelBuffer payload = data.readSlice(size);
+                stream.sendWindow -= size;
+                sendWindow -= size;
+
+                boolean last = !data.readable();
+                Http2Write next = last ? peekSecond(writes) : null;
+                boolean endStream = next != null && next.kind == Http2Write.Kind.END_STREAM &&
+                        stream.getConfig().getWriteTrailers().isEmpty();
+
+                ChannelFuture future = transport.write(Http2Frame.data(stream.streamId, payload, endStream).encode());
+                if (last) {
+                    writes.poll();
+                    if (write.future != null) {
+                        chainFutures(future, write.future);
+                    }
+                    if (endStream) {
+                        writes.poll();
+                        endStreamSent(stream, future, next.future);
+                    }
+                }
+                break;
+            }
+            case END_STREAM: {
+                writes.poll();
+                Http2Headers trailers = stream.getConfig().getWriteTrailers();
+                ChannelFuture future;
+                if (trailers.isEmpty()) {
+                    future = transport.write(Http2Frame.data(stream.streamId, EMPTY_BUFFER, true).encode());
+                }
+                else {
+                    Http2ChannelConfig config = stream.getConfig();
+                    future = writeHeaders(stream.streamId, trailers, true, config.isHuffman(), config.getIndexing(), null);
+                }
+                endStreamSent(stream, future, write.future);
+                break;
+            }
+            }
+        }
+
+        blocked.remove(stream);
+    }
+
+    private static Http2Write peekSecond(Deque<Http2Write> writes) {
+        Iterator<Http2Write> iterator = writes.iterator();
+        iterator.next();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void endStreamSent(Http2StreamChannel stream, ChannelFuture writeFuture, ChannelFuture future) {
+        stream.endStreamSent = true;
+        if (future != null) {
+            chainFutures(writeFuture, future);
+        }
+
+        if (stream.endStreamReceived) {
+            streamClosed(stream);
+        }
+
+        if (stream.setWriteClosed()) {
+            fireLater(() -> {
+                fireChannelDisconnected(stream);
+                fireChannelUnbound(stream);
+                fireChannelClosed(stream);
+            });
+        }
+    }
+
+    private boolean open(Http2StreamChannel stream) {
+        if (goAway) {
+            stream.reset = true;
+            stream.reads.clear();
+            failWrites(stream, new ChannelException("HTTP/2 connection is going away"));
+            abortStream(stream);
+            return false;
+        }
+
+        if (activeLocalStreams >= remoteSettings.maxConcurrentStreams()) {
+            if (!pendingOpens.contains(stream)) {
+                pendingOpens.add(stream);
+            }
+            return false;
+        }
+
+        stream.streamId = nextStreamId;
+        nextStreamId += 2;
+        stream.sendWindow = remoteSettings.initialWindowSize();
+        // retain any window granted by read option before the stream was opened
+        stream.receiveWindow += localSettings.initialWindowSize();
+        streams.put(stream.streamId, stream);
+        activeLocalStreams++;
+        return true;
+    }
+
+    private void openPending() {
+        while (!pendingOpens.isEmpty() && activeLocalStreams < remoteSettings.maxConcurrentStreams()) {
+            flush(pendingOpens.poll());
+        }
+    }
+
+    private void flushBlocked() {
+        for (Http2StreamChannel stream : new ArrayList<>(blocked)) {
+            if (sendWindow <= 0) {
+                break;
+            }
+            flush(stream);
+        }
+    }
+
+    private void streamClosed(Http2StreamChannel stream) {
+        if (stream.streamId != 0 && streams.remove(stream.streamId, stream)) {
+            boolean local = (stream.streamId & 0x01) == (server ? 0 : 1);
+            if (local) {
+                activeLocalStreams--;
+                openPending();
+            }
+        }
+        pendingOpens.remove(stream);
+        blocked.remove(stream);
+    }
+
+    private ChannelFuture writeHeaders(
+            int streamId,
+            Http2Headers headers,
+            boolean endStream,
+            boolean huffman,
+            HpackIndexing indexing,
+            ChannelFuture future) {
+
+        ChannelBuffer block = dynamicBuffer(256);
+        encoder.encode(headers, block, huffman, indexing);
+
+        int maxFrameSize = remoteSettings.maxFrameSize();
+        int type = Http2Frame.HEADERS;
+        int flags = endStream ? Http2Frame.FLAG_END_STREAM : 0;
+        ChannelFuture writeFuture;
+        do {
+            int size = Math.min(block.readableBytes(), maxFrameSize);
+            ChannelBuffer fragment = block.readSlice(size);
+            if (!block.readable()) {
+                flags |= Http2Frame.FLAG_END_HEADERS;
+            }
+            writeFuture = transport.write(new Http2Frame(type, flags, streamId, fragment).encode());
+            type = Http2Frame.CONTINUATION;
+            flags = 0;
+        } while (block.readable());
+
+        if (future != null) {
+            chainFutures(writeFuture, future);
+        }
+
+        return writeFuture;
+    }
+
+    private Http2Headers requestHeaders(Http2StreamChannel stream) {
+        Http2Headers writeHeaders = stream.getConfig().getWriteHeaders();
+        URI location = stream.getRemoteAddress().getLocation();
+        ChannelAddress transportAddress = stream.getRemoteAddress().getTransport();
+        boolean secure = transportAddress != null && "tls".equals(transportAddress.getLocation().getScheme());
+
+        String path = location.getRawPath();
+        if (location.getRawQuery() != null) {
+            path = format("%s?%s", path, location.getRawQuery());
+        }
+
+        Http2Headers headers = new Http2Headers();
+        headers.add(":method", valueOrDefault(writeHeaders, ":method", "GET"));
+        headers.add(":scheme", valueOrDefault(writeHeaders, ":scheme", secure ? "https" : "http"));
+        headers.add(":authority", valueOrDefault(writeHeaders, ":authority", location.getAuthority()));
+        headers.add(":path", valueOrDefault(writeHeaders, ":path", path));
+        addRegularHeaders(headers, writeHeaders);
+        return headers;
+    }
+
+    private Http2Headers responseHeaders(Http2StreamChannel stream) {
+        Http2Headers writeHeaders = stream.getConfig().getWriteHeaders();
+
+        Http2Headers headers = new Http2Headers();
+        headers.add(":status", valueOrDefault(writeHeaders, ":status", "200"));
+        addRegularHeaders(headers, writeHeaders);
+        return headers;
+    }
+
+    private static String valueOrDefault(Http2Headers headers, String name, String defaultValue) {
+        String value = headers.get(name);
+        return (value != null) ? value : defaultValue;
+    }
+
+    private static void addRegularHeaders(Http2Headers headers, Http2Headers writeHeaders) {
+        // see RFC 7540 section 8.1.2.1, pseudo-header fields precede regular header fields
+        for (int i = 0; i < writeHeaders.size(); i++) {
+            String name = writeHeaders.name(i);
+            if (!name.startsWith(":")) {
+                headers.add(name, writeHeaders.value(i));
+            }
+        }
+    }
+
+    private static ChannelBuffer removePadding(Http2Frame frame) throws Http2Exception {
+        ChannelBuffer payload = frame.payload();
+        if (!frame.hasFlag(Http2Frame.FLAG_PADDED)) {
+            return payload;
+        }
+
+        if (!payload.readable()) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Missing pad length");
+        }
+
+        int padLength = payload.readUnsignedByte();
+        if (padLength > payload.readableBytes()) {
+            throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Pad length exceeds payload");
+        }
+
+        return payload.readSlice(payload.readableBytes() - padLength);
+    }
+
+    private void connectionError(Channel transport, Http2Exception ex) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("HTTP/2 connection error", ex);
+        }
+
+        int lastStreamId;
+        synchronized (this) {
+            goAway = true;
+            lastStreamId = lastRemoteStreamId;
+        }
+
+        transport.write(Http2Frame.goAway(lastStreamId, ex.getError()).encode());
+        transport.close();
+    }
+
+    private void streamError(Http2Exception ex) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("HTTP/2 stream error", ex);
+        }
+
+        synchronized (this) {
+            Http2StreamChannel stream = streams.get(ex.getStreamId());
+            if (stream == null) {
+                transport.write(Http2Frame.rstStream(ex.getStreamId(), ex.getError()).encode());
+                return;
+            }
+            reset(stream, ex.getError());
+            abortStream(stream);
+        }
+    }
+
+    private void failWrites(Http2StreamChannel stream, Throwable cause) {
+        Http2Write write;
+        while ((write = stream.writes.poll()) != null) {
+            ChannelFuture future = write.future;
+            if (future != null) {
+                fireLater(() -> future.setFailure(cause));
+            }
+        }
+    }
+
+    private void abortStream(Http2StreamChannel stream) {
+        boolean readAborted = !stream.isReadClosed() && stream.setReadAborted();
+        boolean writeAborted = !stream.isWriteClosed() && stream.setWriteAborted();
+        boolean wasConnected = stream.isConnected();
+        boolean wasBound = stream.isBound();
+        boolean closed = stream.setClosed();
+
+        fireLater(() -> {
+            if (readAborted) {
+                fireInputAborted(stream);
+            }
+            if (writeAborted) {
+                fireOutputAborted(stream);
+            }
+            if (closed) {
+                if (wasConnected) {
+                    fireChannelDisconnected(stream);
+                }
+                if (wasBound) {
+                    fireChannelUnbound(stream);
+                }
+                fireChannelClosed(stream);
+            }
+        });
+    }
+
+    // queues a stream event while holding the connection monitor
+    private void fireLater(Runnable event) {
+        assert Thread.holdsLock(this);
+        events.add(event);
+    }
+
+    // fires queued stream events without holding the connection monitor, one thread at a time to preserve their order
+    private void fireEvents() {
+        if (Thread.holdsLock(this)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (firing) {
+                return;
+            }
+            firing = true;
+        }
+
+        try {
+            Runnable event;
+            while ((event = nextEvent()) != null) {
+                event.run();
+            }
+        }
+        catch (RuntimeException | Error e) {
+            synchronized (this) {
+                firing = false;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized Runnable nextEvent() {
+        Runnable event = events.poll();
+        firing = event != null;
+        return event;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.lang.String.format;
+
+/**
+ * HTTP/2 connection or stream error, a stream id of zero indicates a connection error.
+ */
+public class Http2Exception extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Http2Error error;
+    private final int streamId;
+
+    public Http2Exception(Http2Error error, String message) {
+        this(error, 0, message);
+    }
+
+    public Http2Exception(Http2Error error, int streamId, String message) {
+        super(format("%s: %s", error, message));
+        this.error = error;
+        this.streamId = streamId;
+    }
+
+    public Http2Error getError() {
+        return error;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public boolean isConnectionError() {
+        return streamId == 0;
+    }
+}
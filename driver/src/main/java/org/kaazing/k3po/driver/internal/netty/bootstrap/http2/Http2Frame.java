@@ -0,0 +1,131 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.lang.String.format;
+import static org.jboss.netty.buffer.ChannelBuffers.EMPTY_BUFFER;
+import static org.jboss.netty.buffer.ChannelBuffers.buffer;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * HTTP/2 frame, see RFC 7540 section 4.1.
+ */
+public final class Http2Frame {
+
+    public static final int HEADER_LENGTH = 9;
+
+    public static final int DATA = 0x00;
+    public static final int HEADERS = 0x01;
+    public static final int PRIORITY = 0x02;
+    public static final int RST_STREAM = 0x03;
+    public static final int SETTINGS = 0x04;
+    public static final int PUSH_PROMISE = 0x05;
+    public static final int PING = 0x06;
+    public static final int GOAWAY = 0x07;
+    public static final int WINDOW_UPDATE = 0x08;
+    public static final int CONTINUATION = 0x09;
+
+    public static final int FLAG_END_STREAM = 0x01;
+    public static final int FLAG_ACK = 0x01;
+    public static final int FLAG_END_HEADERS = 0x04;
+    public static final int FLAG_PADDED = 0x08;
+    public static final int FLAG_PRIORITY = 0x20;
+
+    private final int type;
+    private final int flags;
+    private final int streamId;
+    private final ChannelBuffer payload;
+
+    public Http2Frame(int type, int flags, int streamId, ChannelBuffer payload) {
+        this.type = type;
+        this.flags = flags;
+        this.streamId = streamId;
+        this.payload = payload;
+    }
+
+    public int type() {
+        return type;
+    }
+
+    public int flags() {
+        return flags;
+    }
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public int streamId() {
+        return streamId;
+    }
+
+    public ChannelBuffer payload() {
+        return payload;
+    }
+
+    public ChannelBuffer encode() {
+        ChannelBuffer header = buffer(HEADER_LENGTH);
+        header.writeMedium(payload.readableBytes());
+        header.writeByte(type);
+        header.writeByte(flags);
+        header.writeInt(streamId & 0x7fffffff);
+        return payload.readable() ? wrappedBuffer(header, payload) : header;
+    }
+
+    public static Http2Frame settings(Http2Settings settings) {
+        ChannelBuffer payload = buffer(36);
+        settings.encode(payload);
+        return new Http2Frame(SETTINGS, 0, 0, payload);
+    }
+
+    public static Http2Frame settingsAck() {
+        return new Http2Frame(SETTINGS, FLAG_ACK, 0, EMPTY_BUFFER);
+    }
+
+    public static Http2Frame ping(int flags, ChannelBuffer opaque) {
+        return new Http2Frame(PING, flags, 0, opaque);
+    }
+
+    public static Http2Frame rstStream(int streamId, Http2Error error) {
+        ChannelBuffer payload = buffer(4);
+        payload.writeInt(error.code());
+        return new Http2Frame(RST_STREAM, 0, streamId, payload);
+    }
+
+    public static Http2Frame goAway(int lastStreamId, Http2Error error) {
+        ChannelBuffer payload = buffer(8);
+        payload.writeInt(lastStreamId);
+        payload.writeInt(error.code());
+        return new Http2Frame(GOAWAY, 0, 0, payload);
+    }
+
+    public static Http2Frame windowUpdate(int streamId, int increment) {
+        ChannelBuffer payload = buffer(4);
+        payload.writeInt(increment);
+        return new Http2Frame(WINDOW_UPDATE, 0, streamId, payload);
+    }
+
+    public static Http2Frame data(int streamId, ChannelBuffer data, boolean endStream) {
+        return new Http2Frame(DATA, endStream ? FLAG_END_STREAM : 0, streamId, data);
+    }
+
+    @Override
+    public String toString() {
+        return format("[type=%d, flags=0x%02x, streamId=%d, length=%d]", type, flags, streamId, payload.readableBytes());
+    }
+}
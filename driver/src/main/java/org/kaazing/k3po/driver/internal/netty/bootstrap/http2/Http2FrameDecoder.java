@@ -0,0 +1,86 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Decodes transport bytes into {@link Http2Frame}s, verifying the client connection preface first on server connections.
+ */
+public class Http2FrameDecoder extends FrameDecoder {
+
+    static final ChannelBuffer CONNECTION_PREFACE = wrappedBuffer("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII));
+
+    private boolean prefaceExpected;
+    private volatile int maxFrameSize;
+
+    public Http2FrameDecoder(boolean server) {
+        this.prefaceExpected = server;
+        this.maxFrameSize = Http2Settings.DEFAULT_MAX_FRAME_SIZE;
+    }
+
+    /**
+     * Updates the maximum frame size advertised in local SETTINGS_MAX_FRAME_SIZE.
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+
+        if (prefaceExpected) {
+            int prefaceLength = CONNECTION_PREFACE.readableBytes();
+            if (buffer.readableBytes() < prefaceLength) {
+                return null;
+            }
+
+            ChannelBuffer preface = buffer.readSlice(prefaceLength);
+            if (!CONNECTION_PREFACE.equals(preface)) {
+                throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid connection preface");
+            }
+            prefaceExpected = false;
+        }
+
+        if (buffer.readableBytes() < Http2Frame.HEADER_LENGTH) {
+            return null;
+        }
+
+        int readerIndex = buffer.readerIndex();
+        int length = buffer.getUnsignedMedium(readerIndex);
+        if (length > maxFrameSize) {
+            throw new Http2Exception(Http2Error.FRAME_SIZE_ERROR, "Frame length " + length + " exceeds " + maxFrameSize);
+        }
+
+        if (buffer.readableBytes() < Http2Frame.HEADER_LENGTH + length) {
+            return null;
+        }
+
+        int type = buffer.getUnsignedByte(readerIndex + 3);
+        int flags = buffer.getUnsignedByte(readerIndex + 4);
+        int streamId = buffer.getInt(readerIndex + 5) & 0x7fffffff;
+        ChannelBuffer payload = extractFrame(buffer, readerIndex + Http2Frame.HEADER_LENGTH, length);
+        buffer.skipBytes(Http2Frame.HEADER_LENGTH + length);
+
+        return new Http2Frame(type, flags, streamId, payload);
+    }
+}
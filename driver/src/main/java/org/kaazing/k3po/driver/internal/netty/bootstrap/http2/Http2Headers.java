@@ -0,0 +1,127 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ordered HTTP/2 header list, including pseudo-header fields such as {@code :path}.
+ *
+ * Header names are lower case, as required by RFC 7540 section 8.1.2.
+ */
+public final class Http2Headers {
+
+    private final List<String> names;
+    private final List<String> values;
+
+    public Http2Headers() {
+        this.names = new ArrayList<>();
+        this.values = new ArrayList<>();
+    }
+
+    public Http2Headers add(String name, String value) {
+        names.add(name.toLowerCase(Locale.ROOT));
+        values.add(value);
+        return this;
+    }
+
+    public Http2Headers set(String name, String value) {
+        remove(name);
+        return add(name, value);
+    }
+
+    public Http2Headers add(Http2Headers headers) {
+        names.addAll(headers.names);
+        values.addAll(headers.values);
+        return this;
+    }
+
+    public void remove(String name) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        for (int i = names.size() - 1; i >= 0; i--) {
+            if (names.get(i).equals(lowerName)) {
+                names.remove(i);
+                values.remove(i);
+            }
+        }
+    }
+
+    public String get(String name) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equals(lowerName)) {
+                return values.get(i);
+            }
+        }
+        return null;
+    }
+
+    public List<String> getAll(String name) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equals(lowerName)) {
+                all.add(values.get(i));
+            }
+        }
+        return all;
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    public String value(int index) {
+        return values.get(index);
+    }
+
+    public List<String> names() {
+        return unmodifiableList(names);
+    }
+
+    public void clear() {
+        names.clear();
+        values.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < names.size(); i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append(names.get(i)).append(": ").append(values.get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.netty.channel.ChannelException;
+
+/**
+ * Maps accept and connect option names to local HTTP/2 SETTINGS parameters.
+ */
+final class Http2Options {
+
+    static final String HEADER_TABLE_SIZE = "headerTableSize";
+    static final String ENABLE_PUSH = "enablePush";
+    static final String MAX_CONCURRENT_STREAMS = "maxConcurrentStreams";
+    static final String INITIAL_WINDOW_SIZE = "initialWindowSize";
+    static final String MAX_FRAME_SIZE = "maxFrameSize";
+    static final String MAX_HEADER_LIST_SIZE = "maxHeaderListSize";
+
+    private static final Map<String, Integer> SETTINGS;
+
+    static {
+        Map<String, Integer> settings = new HashMap<>();
+        settings.put(HEADER_TABLE_SIZE, Http2Settings.HEADER_TABLE_SIZE);
+        settings.put(ENABLE_PUSH, Http2Settings.ENABLE_PUSH);
+        settings.put(MAX_CONCURRENT_STREAMS, Http2Settings.MAX_CONCURRENT_STREAMS);
+        settings.put(INITIAL_WINDOW_SIZE, Http2Settings.INITIAL_WINDOW_SIZE);
+        settings.put(MAX_FRAME_SIZE, Http2Settings.MAX_FRAME_SIZE);
+        settings.put(MAX_HEADER_LIST_SIZE, Http2Settings.MAX_HEADER_LIST_SIZE);
+        SETTINGS = unmodifiableMap(settings);
+    }
+
+    private Http2Options() {
+        // utility class
+    }
+
+    static boolean setSetting(Http2Settings settings, String key, Object value) {
+        Integer id = SETTINGS.get(key);
+        if (id == null) {
+            return false;
+        }
+
+        try {
+            settings.set(id, toLong(value));
+        }
+        catch (Http2Exception e) {
+            throw new ChannelException(e.getMessage(), e);
+        }
+
+        return true;
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1L : 0L;
+        }
+        else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(String.valueOf(value));
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static java.lang.String.format;
+import static org.jboss.netty.channel.Channels.fireChannelBound;
+import static org.jboss.netty.channel.Channels.fireChannelClosed;
+import static org.jboss.netty.channel.Channels.fireChannelUnbound;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ChildChannelStateEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.ChannelGroupFuture;
+import org.jboss.netty.channel.group.ChannelGroupFutureListener;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.util.internal.ConcurrentHashMap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.AbstractServerChannelSink;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+public class Http2ServerChannelSink extends AbstractServerChannelSink<Http2ServerChannel> {
+
+    private final ConcurrentNavigableMap<ChannelAddress, Http2ServerChannel> http2Bindings;
+    private final ConcurrentMap<ChannelAddress, Http2Transport> http2Transports;
+
+    public Http2ServerChannelSink() {
+        this(new ConcurrentSkipListMap<ChannelAddress, Http2ServerChannel>(ChannelAddress.ADDRESS_COMPARATOR));
+    }
+
+    private Http2ServerChannelSink(ConcurrentNavigableMap<ChannelAddress, Http2ServerChannel> http2Bindings) {
+        this.http2Bindings = http2Bindings;
+        this.http2Transports = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    protected void bindRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        final Http2ServerChannel http2BindChannel = (Http2ServerChannel) evt.getChannel();
+        final ChannelFuture http2BindFuture = evt.getFuture();
+        final ChannelAddress http2LocalAddress = (ChannelAddress) evt.getValue();
+        URI http2Location = http2LocalAddress.getLocation();
+
+        Http2ServerChannel http2BoundChannel = http2Bindings.putIfAbsent(http2LocalAddress, http2BindChannel);
+        if (http2BoundChannel != null) {
+            http2BindFuture.setFailure(new ChannelException(format("Duplicate bind failed: %s", http2Location)));
+        }
+
+        ChannelAddress address = http2LocalAddress.getTransport();
+        Http2Transport http2Transport = http2Transports.get(address);
+        if (http2Transport == null) {
+            String schemeName = address.getLocation().getScheme();
+            String http2SchemeName = http2LocalAddress.getLocation().getScheme();
+
+            ServerBootstrap bootstrap = bootstrapFactory.newServerBootstrap(schemeName);
+            bootstrap.setParentHandler(createParentHandler(http2BindChannel, address));
+            // local SETTINGS are taken from the first binding on each transport address
+            Http2Settings localSettings = http2BindChannel.getConfig().getLocalSettings();
+            bootstrap.setPipelineFactory(new Http2ChildChannelPipelineFactory(http2Bindings, localSettings));
+            bootstrap.setOptions(http2BindChannel.getConfig().getTransportOptions());
+            bootstrap.setOption(format("%s.nextProtocol", schemeName), http2SchemeName);
+
+            // bind transport
+            ChannelFuture bindFuture = bootstrap.bindAsync(address);
+            Http2Transport newHttp2Transport = new Http2Transport(bindFuture, 1);
+            http2Transport = http2Transports.putIfAbsent(address, newHttp2Transport);
+            if (http2Transport == null) {
+                http2Transport = newHttp2Transport;
+            }
+        }
+        else {
+            http2Transport.count.incrementAndGet();
+        }
+
+        if (http2Transport.future.isDone()) {
+            handleHttp2TransportBindComplete(http2BindChannel, http2BindFuture, http2LocalAddress, http2Transport.future);
+        }
+        else {
+            http2Transport.future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    handleHttp2TransportBindComplete(http2BindChannel, http2BindFuture, http2LocalAddress, future);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void unbindRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        final Http2ServerChannel http2UnbindChannel = (Http2ServerChannel) evt.getChannel();
+        final ChannelFuture http2UnbindFuture = evt.getFuture();
+        ChannelAddress http2LocalAddress = http2UnbindChannel.getLocalAddress();
+
+        if (!http2Bindings.remove(http2LocalAddress, http2UnbindChannel)) {
+            http2UnbindFuture.setFailure(new ChannelException("Channel not bound"));
+            return;
+        }
+
+        ChannelAddress address = http2LocalAddress.getTransport();
+        Http2Transport http2Transport = http2Transports.get(address);
+        assert http2Transport != null;
+
+        if (http2Transport.count.decrementAndGet() == 0) {
+            // ensure only zero count is removed
+            Http2Transport oldHttp2Transport = new Http2Transport(http2Transport.future);
+            if (http2Transports.remove(address, oldHttp2Transport)) {
+                // unbind transport
+                Channel transport = http2UnbindChannel.getTransport();
+                ChannelFuture unbindFuture = transport.unbind();
+                if (unbindFuture.isDone()) {
+                    handleHttp2TransportUnbindComplete(http2UnbindChannel, http2UnbindFuture, unbindFuture);
+                }
+                else {
+                    unbindFuture.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture unbindFuture) throws Exception {
+                            handleHttp2TransportUnbindComplete(http2UnbindChannel, http2UnbindFuture, unbindFuture);
+                        }
+                    });
+                }
+            }
+        }
+        else {
+            fireChannelUnbound(http2UnbindChannel);
+            http2UnbindFuture.setSuccess();
+        }
+    }
+
+    @Override
+    protected void closeRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        final Http2ServerChannel http2CloseChannel = (Http2ServerChannel) evt.getChannel();
+        final ChannelFuture http2CloseFuture = evt.getFuture();
+        boolean wasBound = http2CloseChannel.isBound();
+        if (!http2CloseFuture.isDone()) {
+            if (wasBound) {
+                unbindRequested(pipeline, evt);
+            }
+
+            Channel transport = http2CloseChannel.getTransport();
+            if (transport != null) {
+                ChannelFuture closeFuture = transport.close();
+                if (closeFuture.isDone()) {
+                    handleHttp2TransportCloseComplete(http2CloseChannel, http2CloseFuture, closeFuture);
+                }
+                else {
+                    closeFuture.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture closeFuture) throws Exception {
+                            handleHttp2TransportCloseComplete(http2CloseChannel, http2CloseFuture, closeFuture);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private ChannelHandler createParentHandler(Http2ServerChannel channel, final ChannelAddress address) {
+        return new SimpleChannelHandler() {
+
+            private final ChannelGroup childChannels = new DefaultChannelGroup();
+
+            @Override
+            public void childChannelOpen(ChannelHandlerContext ctx, ChildChannelStateEvent e) throws Exception {
+                e.getChannel().setAttachment(address);
+                childChannels.add(e.getChildChannel());
+                super.childChannelOpen(ctx, e);
+            }
+
+            @Override
+            public void childChannelClosed(ChannelHandlerContext ctx, ChildChannelStateEvent e) throws Exception {
+                childChannels.remove(e.getChildChannel());
+                super.childChannelClosed(ctx, e);
+            }
+
+            @Override
+            public void closeRequested(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception {
+                // close up any transports previously in use for HTTP/2
+                childChannels.close().addListener(new ChannelGroupFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelGroupFuture future) throws Exception {
+                        ctx.sendDownstream(e);
+                    }
+                });
+            }
+
+        };
+    }
+
+    private static void handleHttp2TransportBindComplete(
+            Http2ServerChannel http2BindChannel,
+            ChannelFuture http2BindFuture,
+            ChannelAddress http2LocalAddress,
+            ChannelFuture bindFuture) {
+
+        if (bindFuture.isSuccess()) {
+            http2BindChannel.setTransport(bindFuture.getChannel());
+            http2BindChannel.setLocalAddress(http2LocalAddress);
+            http2BindChannel.setBound();
+
+            fireChannelBound(http2BindChannel, http2BindChannel.getLocalAddress());
+            http2BindFuture.setSuccess();
+        }
+        else {
+            http2BindFuture.setFailure(bindFuture.getCause());
+        }
+    }
+
+    private static void handleHttp2TransportUnbindComplete(
+            Http2ServerChannel http2UnbindChannel,
+            ChannelFuture http2UnbindFuture,
+            ChannelFuture unbindFuture) {
+
+        if (unbindFuture.isSuccess()) {
+            fireChannelUnbound(http2UnbindChannel);
+            http2UnbindFuture.setSuccess();
+        }
+        else {
+            http2UnbindFuture.setFailure(unbindFuture.getCause());
+        }
+    }
+
+    private static void handleHttp2TransportCloseComplete(
+            Http2ServerChannel http2CloseChannel,
+            ChannelFuture http2CloseFuture,
+            ChannelFuture closeFuture) {
+
+        if (closeFuture.isSuccess()) {
+            fireChannelClosed(http2CloseChannel);
+            http2CloseChannel.setClosed();
+        }
+        else {
+            http2CloseFuture.setFailure(closeFuture.getCause());
+        }
+    }
+
+    private static final class Http2Transport {
+        final ChannelFuture future;
+        final AtomicInteger count;
+
+        Http2Transport(ChannelFuture future) {
+            this(future, 0);
+        }
+
+        Http2Transport(ChannelFuture future, int count) {
+            this.future = future;
+            this.count = new AtomicInteger(count);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(future, count);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            Http2Transport that = (Http2Transport) obj;
+            return Objects.equals(this.future, that.future) &&
+                    this.count.get() == that.count.get();
+        }
+
+        @Override
+        public String toString() {
+            return format("[future=@%d, count=%d]", Objects.hashCode(future), count.get());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * HTTP/2 SETTINGS parameters, see RFC 7540 section 6.5.2.
+ */
+public final class Http2Settings {
+
+    public static final int HEADER_TABLE_SIZE = 0x01;
+    public static final int ENABLE_PUSH = 0x02;
+    public static final int MAX_CONCURRENT_STREAMS = 0x03;
+    public static final int INITIAL_WINDOW_SIZE = 0x04;
+    public static final int MAX_FRAME_SIZE = 0x05;
+    public static final int MAX_HEADER_LIST_SIZE = 0x06;
+
+    public static final int DEFAULT_HEADER_TABLE_SIZE = 4096;
+    public static final int DEFAULT_INITIAL_WINDOW_SIZE = 65535;
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    public static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private static final int MAX_MAX_FRAME_SIZE = 16777215;
+    private static final long UNLIMITED = 0xffffffffL;
+
+    private final long[] values;
+    private int explicit;
+
+    public Http2Settings() {
+        this.values = new long[] {
+            0L,
+            DEFAULT_HEADER_TABLE_SIZE,
+            1L,
+            UNLIMITED,
+            DEFAULT_INITIAL_WINDOW_SIZE,
+            DEFAULT_MAX_FRAME_SIZE,
+            UNLIMITED
+        };
+    }
+
+    public long get(int id) {
+        return values[id];
+    }
+
+    public int headerTableSize() {
+        return (int) Math.min(values[HEADER_TABLE_SIZE], Integer.MAX_VALUE);
+    }
+
+    public boolean isPushEnabled() {
+        return values[ENABLE_PUSH] == 1L;
+    }
+
+    public long maxConcurrentStreams() {
+        return values[MAX_CONCURRENT_STREAMS];
+    }
+
+    public int initialWindowSize() {
+        return (int) values[INITIAL_WINDOW_SIZE];
+    }
+
+    public int maxFrameSize() {
+        return (int) values[MAX_FRAME_SIZE];
+    }
+
+    public long maxHeaderListSize() {
+        return values[MAX_HEADER_LIST_SIZE];
+    }
+
+    public boolean isSet(int id) {
+        return (explicit & (1 << id)) != 0;
+    }
+
+    public Http2Settings set(int id, long value) throws Http2Exception {
+        switch (id) {
+        case ENABLE_PUSH:
+            if (value != 0L && value != 1L) {
+                throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH " + value);
+            }
+            break;
+        case INITIAL_WINDOW_SIZE:
+            if (value > MAX_WINDOW_SIZE) {
+                throw new Http2Exception(Http2Error.FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE " + value);
+            }
+            break;
+        case MAX_FRAME_SIZE:
+            if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_MAX_FRAME_SIZE) {
+                throw new Http2Exception(Http2Error.PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE " + value);
+            }
+            break;
+        case HEADER_TABLE_SIZE:
+        case MAX_CONCURRENT_STREAMS:
+        case MAX_HEADER_LIST_SIZE:
+            break;
+        default:
+            // see RFC 7540 section 6.5.2, unsupported settings are ignored
+            return this;
+        }
+
+        values[id] = value;
+        explicit |= 1 << id;
+        return this;
+    }
+
+    /**
+     * Applies a received SETTINGS payload, see RFC 7540 section 6.5.1.
+     */
+    public void decode(ChannelBuffer payload) throws Http2Exception {
+        if (payload.readableBytes() % 6 != 0) {
+            throw new Http2Exception(Http2Error.FRAME_SIZE_ERROR, "Invalid SETTINGS length " + payload.readableBytes());
+        }
+
+        while (payload.readable()) {
+            int id = payload.readUnsignedShort();
+            long value = payload.readUnsignedInt();
+            set(id, value);
+        }
+    }
+
+    /**
+     * Writes the explicitly configured settings as a SETTINGS payload.
+     */
+    public void encode(ChannelBuffer payload) {
+        for (int id = HEADER_TABLE_SIZE; id <= MAX_HEADER_LIST_SIZE; id++) {
+            if (isSet(id)) {
+                payload.writeShort(id);
+                payload.writeInt((int) values[id]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[headerTableSize=%d, enablePush=%d, maxConcurrentStreams=%d, initialWindowSize=%d, " +
+                "maxFrameSize=%d, maxHeaderListSize=%d]", values[1], values[2], values[3], values[4], values[5], values[6]);
+    }
+}
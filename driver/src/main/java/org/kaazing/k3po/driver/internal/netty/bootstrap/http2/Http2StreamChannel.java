@@ -0,0 +1,134 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelSink;
+import org.jboss.netty.channel.ServerChannel;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.AbstractChannel;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+/**
+ * HTTP/2 stream, multiplexed with other streams over the transport connection of an {@link Http2ConnectionHandler}.
+ *
+ * Stream state is guarded by the owning connection handler.
+ */
+public class Http2StreamChannel extends AbstractChannel<Http2ChannelConfig> {
+
+    final Deque<Http2Write> writes;
+    final Deque<ChannelBuffer> reads;
+
+    Http2ConnectionHandler connection;
+    int streamId;
+    int sendWindow;
+    int receiveWindow;
+    int consumed;
+    boolean headersQueued;
+    boolean headersReceived;
+    boolean endStreamSent;
+    boolean endStreamReceived;
+    boolean endStreamDelivered;
+    boolean reset;
+
+    Http2StreamChannel(ServerChannel parent, ChannelFactory factory, ChannelPipeline pipeline, ChannelSink sink) {
+        super(parent, factory, pipeline, sink, new DefaultHttp2ChannelConfig());
+        this.writes = new ArrayDeque<>();
+        this.reads = new ArrayDeque<>();
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Grows the stream receive window, sending WINDOW_UPDATE once the stream is open.
+     */
+    public void windowUpdate(int increment) {
+        Http2ConnectionHandler connection = this.connection;
+        if (connection == null) {
+            throw new IllegalStateException("HTTP/2 stream not connected");
+        }
+        connection.windowUpdate(this, increment);
+    }
+
+    boolean isServerStream() {
+        return getParent() != null;
+    }
+
+    @Override
+    protected void setLocalAddress(ChannelAddress localAddress) {
+        super.setLocalAddress(localAddress);
+    }
+
+    @Override
+    protected void setRemoteAddress(ChannelAddress remoteAddress) {
+        super.setRemoteAddress(remoteAddress);
+    }
+
+    @Override
+    protected void setBound() {
+        super.setBound();
+    }
+
+    @Override
+    protected void setConnected() {
+        super.setConnected();
+    }
+
+    @Override
+    protected boolean setClosed() {
+        return super.setClosed();
+    }
+
+    @Override
+    protected boolean isReadClosed() {
+        return super.isReadClosed();
+    }
+
+    @Override
+    protected boolean isWriteClosed() {
+        return super.isWriteClosed();
+    }
+
+    @Override
+    protected boolean setReadClosed() {
+        return super.setReadClosed();
+    }
+
+    @Override
+    protected boolean setWriteClosed() {
+        return super.setWriteClosed();
+    }
+
+    @Override
+    protected boolean setReadAborted() {
+        return super.setReadAborted();
+    }
+
+    @Override
+    protected boolean setWriteAborted() {
+        return super.setWriteAborted();
+    }
+
+    protected void setInterestOpsNow(int interestOps) {
+        super.setInternalInterestOps(interestOps);
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.channel.Channels.fireChannelClosed;
+import static org.jboss.netty.channel.Channels.fireChannelUnbound;
+import static org.jboss.netty.channel.Channels.future;
+import static org.kaazing.k3po.driver.internal.channel.Channels.chainFutures;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.AbstractChannelSink;
+import org.kaazing.k3po.driver.internal.netty.channel.FlushEvent;
+import org.kaazing.k3po.driver.internal.netty.channel.ReadAbortEvent;
+import org.kaazing.k3po.driver.internal.netty.channel.ShutdownOutputEvent;
+import org.kaazing.k3po.driver.internal.netty.channel.WriteAbortEvent;
+
+public class Http2StreamChannelSink extends AbstractChannelSink {
+
+    @Override
+    public ChannelFuture execute(ChannelPipeline http2Pipeline, Runnable task) {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) http2Pipeline.getChannel();
+        Http2ConnectionHandler connection = http2Channel.connection;
+
+        if (connection != null) {
+            Channel transport = connection.getTransport();
+            ChannelPipeline pipeline = transport.getPipeline();
+            ChannelFuture future = pipeline.execute(task);
+            ChannelFuture http2Future = future(http2Channel);
+            chainFutures(future, http2Future);
+            return http2Future;
+        }
+
+        return super.execute(http2Pipeline, task);
+    }
+
+    @Override
+    protected void setInterestOpsRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        ChannelFuture http2Future = evt.getFuture();
+        Http2StreamChannel http2Channel = (Http2StreamChannel) evt.getChannel();
+        http2Channel.setInterestOpsNow((int) evt.getValue());
+        http2Future.setSuccess();
+
+        // deliver any DATA held back while the stream was not readable
+        Http2ConnectionHandler connection = http2Channel.connection;
+        if (connection != null && http2Channel.isReadable()) {
+            connection.readableChanged(http2Channel);
+        }
+    }
+
+    @Override
+    protected void writeRequested(ChannelPipeline pipeline, MessageEvent e) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = e.getFuture();
+        ChannelBuffer http2Content = (ChannelBuffer) e.getMessage();
+
+        Http2ConnectionHandler connection = connection(http2Channel, http2Future);
+        if (connection != null) {
+            connection.write(http2Channel, http2Content, http2Future);
+        }
+    }
+
+    @Override
+    protected void flushRequested(ChannelPipeline pipeline, FlushEvent evt) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = evt.getFuture();
+
+        Http2ConnectionHandler connection = connection(http2Channel, http2Future);
+        if (connection != null) {
+            connection.flush(http2Channel, http2Future);
+        }
+    }
+
+    @Override
+    protected void shutdownOutputRequested(ChannelPipeline pipeline, ShutdownOutputEvent evt) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = evt.getFuture();
+
+        Http2ConnectionHandler connection = connection(http2Channel, http2Future);
+        if (connection != null) {
+            connection.shutdownOutput(http2Channel, http2Future);
+        }
+    }
+
+    @Override
+    protected void abortInputRequested(ChannelPipeline pipeline, ReadAbortEvent evt) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = evt.getFuture();
+
+        Http2ConnectionHandler connection = connection(http2Channel, http2Future);
+        if (connection != null) {
+            connection.abort(http2Channel, Http2Error.CANCEL);
+            http2Future.setSuccess();
+        }
+    }
+
+    @Override
+    protected void abortOutputRequested(ChannelPipeline pipeline, WriteAbortEvent evt) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = evt.getFuture();
+
+        Http2ConnectionHandler connection = connection(http2Channel, http2Future);
+        if (connection != null) {
+            connection.abort(http2Channel, Http2Error.CANCEL);
+            http2Future.setSuccess();
+        }
+    }
+
+    @Override
+    protected void closeRequested(ChannelPipeline pipeline, ChannelStateEvent evt) throws Exception {
+        Http2StreamChannel http2Channel = (Http2StreamChannel) pipeline.getChannel();
+        ChannelFuture http2Future = evt.getFuture();
+        Http2ConnectionHandler connection = http2Channel.connection;
+
+        if (connection != null) {
+            connection.close(http2Channel);
+        }
+        else {
+            boolean wasBound = http2Channel.isBound();
+            if (http2Channel.setClosed()) {
+                if (wasBound) {
+                    fireChannelUnbound(http2Channel);
+                }
+                fireChannelClosed(http2Channel);
+            }
+        }
+
+        http2Future.setSuccess();
+    }
+
+    private static Http2ConnectionHandler connection(Http2StreamChannel http2Channel, ChannelFuture http2Future) {
+        Http2ConnectionHandler connection = http2Channel.connection;
+        if (connection == null) {
+            http2Future.setFailure(new ChannelException("HTTP/2 stream not connected"));
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelFuture;
+
+/**
+ * Pending stream write, queued until the stream is open and flow-control windows permit.
+ */
+final class Http2Write {
+
+    enum Kind { HEADERS, DATA, END_STREAM }
+
+    final Kind kind;
+    final ChannelBuffer data;
+    final ChannelFuture future;
+
+    private Http2Write(Kind kind, ChannelBuffer data, ChannelFuture future) {
+        this.kind = kind;
+        this.data = data;
+        this.future = future;
+    }
+
+    static Http2Write headers(ChannelFuture future) {
+        return new Http2Write(Kind.HEADERS, null, future);
+    }
+
+    static Http2Write data(ChannelBuffer data, ChannelFuture future) {
+        return new Http2Write(Kind.DATA, data, future);
+    }
+
+    static Http2Write endStream(ChannelFuture future) {
+        return new Http2Write(Kind.END_STREAM, null, future);
+    }
+}
@@ -27,8 +27,6 @@ import javax.annotation.Resource;
 
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelFuture;
-import org.jboss.netty.channel.socket.ClientSocketChannelFactory;
-import org.jboss.netty.channel.socket.ServerSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioClientBossPool;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioServerBossPool;
@@ -39,14 +37,18 @@ import org.kaazing.k3po.driver.internal.executor.ExecutorServiceFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedChannelFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedServerChannelFactory;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 
 public final class TcpBootstrapFactorySpi extends BootstrapFactorySpi implements ExternalResourceReleasable {
 
     private final Collection<ChannelFactory> channelFactories;
     private ExecutorServiceFactory executorServiceFactory;
-    private NioClientSocketChannelFactory clientChannelFactory;
-    private NioServerSocketChannelFactory serverChannelFactory;
+    private NioClientSocketChannelFactory sharedClientChannelFactory;
+    private NioServerSocketChannelFactory sharedServerChannelFactory;
+    private ChannelFactory clientChannelFactory;
+    private ChannelFactory serverChannelFactory;
 
     public TcpBootstrapFactorySpi() {
         channelFactories = new ConcurrentLinkedDeque<>();
@@ -59,12 +61,12 @@ public final class TcpBootstrapFactorySpi extends BootstrapFactorySpi implements
 
     @Resource
     public void setNioClientSocketChannelFactory(NioClientSocketChannelFactory clientChannelFactory) {
-        this.clientChannelFactory = clientChannelFactory;
+        this.sharedClientChannelFactory = clientChannelFactory;
     }
 
     @Resource
     public void setNioServerSocketChannelFactory(NioServerSocketChannelFactory serverChannelFactory) {
-        this.serverChannelFactory = serverChannelFactory;
+        this.sharedServerChannelFactory = serverChannelFactory;
     }
 
     /**
@@ -95,9 +97,11 @@ public final class TcpBootstrapFactorySpi extends BootstrapFactorySpi implements
     @Override
     public synchronized ClientBootstrap newClientBootstrap() throws Exception {
 
-        ClientSocketChannelFactory clientChannelFactory = this.clientChannelFactory;
-
-        if (clientChannelFactory == null) {
+        if (clientChannelFactory == null && sharedClientChannelFactory != null) {
+            // shared, only close channels created via this provider
+            clientChannelFactory = new SharedChannelFactory(sharedClientChannelFactory);
+            channelFactories.add(clientChannelFactory);
+        } else if (clientChannelFactory == null) {
             Executor bossExecutor = executorServiceFactory.newExecutorService("boss.client");
             NioClientBossPool bossPool = new NioClientBossPool(bossExecutor, 1);
             Executor workerExecutor = executorServiceFactory.newExecutorService("worker.client");
@@ -124,9 +128,11 @@ public final class TcpBootstrapFactorySpi extends BootstrapFactorySpi implements
     @Override
     public synchronized ServerBootstrap newServerBootstrap() throws Exception {
 
-        ServerSocketChannelFactory serverChannelFactory = this.serverChannelFactory;
-
-        if (serverChannelFactory == null) {
+        if (serverChannelFactory == null && sharedServerChannelFactory != null) {
+            // shared, only close channels created via this provider
+            serverChannelFactory = new SharedServerChannelFactory(sharedServerChannelFactory);
+            channelFactories.add(serverChannelFactory);
+        } else if (serverChannelFactory == null) {
             Executor bossExecutor = executorServiceFactory.newExecutorService("boss.server");
             NioServerBossPool bossPool = new NioServerBossPool(bossExecutor, 1);
             Executor workerExecutor = executorServiceFactory.newExecutorService("worker.server");
@@ -22,7 +22,6 @@ import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineException;
 import org.jboss.netty.channel.socket.nio.NioDatagramChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioDatagramWorkerPool;
-import org.jboss.netty.handler.timeout.IdleStateHandler;
 import org.jboss.netty.util.ExternalResourceReleasable;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timer;
@@ -30,6 +29,8 @@ import org.kaazing.k3po.driver.internal.executor.ExecutorServiceFactory;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactorySpi;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ClientBootstrap;
 import org.kaazing.k3po.driver.internal.netty.bootstrap.ServerBootstrap;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedChannelFactory;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.channel.SharedServerChannelFactory;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 import org.kaazing.k3po.driver.internal.netty.channel.udp.UdpChannelAddress;
 
@@ -40,19 +41,19 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
 
 public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements ExternalResourceReleasable {
 
     private final Collection<ChannelFactory> channelFactories;
     private ExecutorServiceFactory executorServiceFactory;
-    private NioDatagramChannelFactory clientChannelFactory;
-    private UdpServerChannelFactory serverChannelFactory;
-    private final Timer timer;
+    private NioDatagramWorkerPool sharedWorkerPool;
+    private Timer sharedTimer;
+    private ChannelFactory clientChannelFactory;
+    private ChannelFactory serverChannelFactory;
+    private Timer timer;
 
     public UdpBootstrapFactorySpi() {
         channelFactories = new ConcurrentLinkedDeque<>();
-        timer = new HashedWheelTimer();
     }
 
     @Resource
@@ -60,6 +61,16 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
         this.executorServiceFactory = executorServiceFactory;
     }
 
+    @Resource
+    public void setNioDatagramWorkerPool(NioDatagramWorkerPool workerPool) {
+        this.sharedWorkerPool = workerPool;
+    }
+
+    @Resource
+    public void setTimer(Timer timer) {
+        this.sharedTimer = timer;
+    }
+
     /**
      * Returns the name of the transport provided by factories using this service provider.
      */
@@ -80,7 +91,11 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
         for (ChannelFactory channelFactory : channelFactories) {
             channelFactory.releaseExternalResources();
         }
-        timer.stop();
+
+        // unshared
+        if (timer != null && timer != sharedTimer) {
+            timer.stop();
+        }
     }
 
     /**
@@ -89,7 +104,11 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
     @Override
     public synchronized ClientBootstrap newClientBootstrap() throws Exception {
 
-        if (clientChannelFactory == null) {
+        if (clientChannelFactory == null && sharedWorkerPool != null) {
+            // shared, only close channels created via this provider
+            clientChannelFactory = new SharedChannelFactory(new NioDatagramChannelFactory(sharedWorkerPool));
+            channelFactories.add(clientChannelFactory);
+        } else if (clientChannelFactory == null) {
             Executor workerExecutor = executorServiceFactory.newExecutorService("worker.client");
             NioDatagramWorkerPool workerPool = new NioDatagramWorkerPool(workerExecutor, 1);
             clientChannelFactory = new NioDatagramChannelFactory(workerPool);
@@ -98,7 +117,7 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
             channelFactories.add(clientChannelFactory);
         }
 
-        return new UdpClientBootstrap(clientChannelFactory, timer);
+        return new UdpClientBootstrap(clientChannelFactory, timer());
     }
 
     /**
@@ -106,10 +125,14 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
      */
     @Override
     public synchronized ServerBootstrap newServerBootstrap() throws Exception {
-        if (serverChannelFactory == null) {
+        if (serverChannelFactory == null && sharedWorkerPool != null) {
+            // shared, only close channels created via this provider
+            serverChannelFactory = new SharedServerChannelFactory(new UdpServerChannelFactory(sharedWorkerPool, timer()));
+            channelFactories.add(serverChannelFactory);
+        } else if (serverChannelFactory == null) {
             Executor workerExecutor = executorServiceFactory.newExecutorService("worker.server");
             NioDatagramWorkerPool workerPool = new NioDatagramWorkerPool(workerExecutor, 1);
-            serverChannelFactory = new UdpServerChannelFactory(workerPool, timer);
+            serverChannelFactory = new UdpServerChannelFactory(workerPool, timer());
 
             // unshared
             channelFactories.add(serverChannelFactory);
@@ -118,6 +141,13 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
         return new ServerBootstrap(serverChannelFactory);
     }
 
+    private Timer timer() {
+        if (timer == null) {
+            timer = (sharedTimer != null) ? sharedTimer : new HashedWheelTimer();
+        }
+        return timer;
+    }
+
     private static InetSocketAddress toInetSocketAddress(ChannelAddress channelAddress) {
         if (channelAddress == null) {
             return null;
@@ -160,9 +190,7 @@ public final class UdpBootstrapFactorySpi extends BootstrapFactorySpi implements
 
             long timeout = ((UdpChannelAddress) remoteChannelAddress).timeout();
             if (timeout != 0) {
-                IdleStateHandler idleStateHandler = new IdleStateHandler(timer, 0, 0, timeout, TimeUnit.MILLISECONDS);
-                pipeline.addFirst("idleHandler", new UdpIdleHandler());
-                pipeline.addFirst("idleStateHandler", idleStateHandler);
+                pipeline.addFirst("idleHandler", new UdpIdleHandler(timer, timeout));
             }
             setPipeline(pipeline);
 
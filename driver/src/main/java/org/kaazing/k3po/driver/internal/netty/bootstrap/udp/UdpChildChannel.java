@@ -28,7 +28,7 @@ import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
  * remote address
  *
  * Pipeline for UdpChildChannel :
- * IdleStateHandler (optional), UdpIdleHandler (optional), script pipeline
+ * UdpIdleHandler (optional), script pipeline
  */
 class UdpChildChannel extends AbstractChannel<ChannelConfig> {
 
@@ -26,7 +26,6 @@ import org.jboss.netty.channel.DefaultChannelConfig;
 import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.socket.nio.NioDatagramChannel;
-import org.jboss.netty.handler.timeout.IdleStateHandler;
 import org.jboss.netty.util.Timer;
 import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
 import org.kaazing.k3po.driver.internal.netty.channel.SimpleChannelHandler;
@@ -36,7 +35,6 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 import static org.jboss.netty.channel.Channels.fireChannelBound;
 import static org.jboss.netty.channel.Channels.fireChannelClosed;
@@ -108,9 +106,7 @@ class UdpChildChannelSource extends SimpleChannelHandler {
             }
 
             if (timeout != 0) {
-                IdleStateHandler idleStateHandler = new IdleStateHandler(timer, 0, 0, timeout, TimeUnit.MILLISECONDS);
-                pipeline.addFirst("idleHandler", new UdpIdleHandler());
-                pipeline.addFirst("idleStateHandler", idleStateHandler);
+                pipeline.addFirst("idleHandler", new UdpIdleHandler(timer, timeout));
             }
 
             ChannelConfig config = new DefaultChannelConfig();
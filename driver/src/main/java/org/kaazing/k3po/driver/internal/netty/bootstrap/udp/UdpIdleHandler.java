@@ -16,14 +16,82 @@
 
 package org.kaazing.k3po.driver.internal.netty.bootstrap.udp;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.handler.timeout.IdleStateAwareChannelHandler;
-import org.jboss.netty.handler.timeout.IdleStateEvent;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.WriteCompletionEvent;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+
+/*
+ * Closes an idle UdpChildChannel (on server side) or NioDatagramChannel (client side)
+ *
+ * Idleness is measured by the timer alone, rather than the wall clock like IdleStateHandler,
+ * so that a virtual timer collapses idle timeouts too.
+ */
+class UdpIdleHandler extends SimpleChannelHandler {
+
+    private final Timer timer;
+    private final long timeoutMillis;
+
+    private Timeout timeout;
+    private boolean closed;
+
+    UdpIdleHandler(Timer timer, long timeoutMillis) {
+        this.timer = timer;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        scheduleIdleTimeout(ctx);
+        super.channelOpen(ctx, e);
+    }
 
-class UdpIdleHandler extends IdleStateAwareChannelHandler {
     @Override
-    public void channelIdle(ChannelHandlerContext ctx, IdleStateEvent e) {
-        // Close idle UdpChildChannel (on server side) or NioDatagramChannel (client side)
-        e.getChannel().close();
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        scheduleIdleTimeout(ctx);
+        super.messageReceived(ctx, e);
+    }
+
+    @Override
+    public void writeComplete(ChannelHandlerContext ctx, WriteCompletionEvent e) throws Exception {
+        scheduleIdleTimeout(ctx);
+        super.writeComplete(ctx, e);
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        synchronized (this) {
+            closed = true;
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+        super.channelClosed(ctx, e);
+    }
+
+    private synchronized void scheduleIdleTimeout(final ChannelHandlerContext ctx) {
+        if (closed) {
+            return;
+        }
+
+        if (timeout != null) {
+            timeout.cancel();
+        }
+
+        timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                if (!timeout.isCancelled()) {
+                    ctx.getChannel().close();
+                }
+            }
+        }, timeoutMillis, MILLISECONDS);
     }
 }
@@ -17,12 +17,13 @@ package org.kaazing.k3po.driver.internal.netty.channel;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.jboss.netty.channel.ChannelException;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 
 public final class ChannelAddressFactory {
     private final Map<String, ChannelAddressFactorySpi> channelAddressFactories;
@@ -32,12 +33,11 @@ public final class ChannelAddressFactory {
     }
 
     public static ChannelAddressFactory newChannelAddressFactory() {
-        ServiceLoader<ChannelAddressFactorySpi> loader = loadChannelAddressFactorySpi();
-
-        // load ChannelAddressFactorySpi instances
+        // new ChannelAddressFactorySpi instances, as each is injected with its ChannelAddressFactory below
+        List<ChannelAddressFactorySpi> spis = ServiceRegistry.current().newServices(ChannelAddressFactorySpi.class);
         ConcurrentMap<String, ChannelAddressFactorySpi> channelAddressFactories =
                 new ConcurrentHashMap<>();
-        for (ChannelAddressFactorySpi channelAddressFactorySpi : loader) {
+        for (ChannelAddressFactorySpi channelAddressFactorySpi : spis) {
             String schemeName = channelAddressFactorySpi.getSchemeName();
             ChannelAddressFactorySpi oldChannelAddressFactorySpi = channelAddressFactories.putIfAbsent(schemeName,
                     channelAddressFactorySpi);
@@ -64,12 +64,6 @@ public final class ChannelAddressFactory {
         return channelAddressFactory.newChannelAddress(location, options);
     }
 
-    private static ServiceLoader<ChannelAddressFactorySpi> loadChannelAddressFactorySpi() {
-        Class<ChannelAddressFactorySpi> service = ChannelAddressFactorySpi.class;
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        return (classLoader != null) ? ServiceLoader.load(service, classLoader) : ServiceLoader.load(service);
-    }
-
     private ChannelAddressFactorySpi findChannelAddressFactory(String schemeName) throws ChannelException {
 
         if (schemeName == null) {
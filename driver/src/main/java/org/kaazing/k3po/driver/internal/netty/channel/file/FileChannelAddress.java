@@ -26,8 +26,12 @@ public class FileChannelAddress extends ChannelAddress {
 
     private static final long serialVersionUID = 1L;
 
+    // default length of the file regions mapped at a time, and of the chunks delivered to reads
+    public static final long DEFAULT_WINDOW = 64L * 1024 * 1024;
+
     private final String mode;
     private final long size;
+    private final long window;
 
     public FileChannelAddress(URI location, Map<String, Object> options) {
         super(location);
@@ -37,6 +41,12 @@ public class FileChannelAddress extends ChannelAddress {
 
         Long size = (Long) options.get("size");
         this.size = size == null ? 0L : size;
+
+        Long window = (Long) options.get("window");
+        if (window != null && window <= 0) {
+            throw new IllegalArgumentException(String.format("File window = %d must be positive", window));
+        }
+        this.window = window == null ? DEFAULT_WINDOW : window;
     }
 
     public String mode() {
@@ -47,6 +57,10 @@ public class FileChannelAddress extends ChannelAddress {
         return size;
     }
 
+    public long window() {
+        return window;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -55,14 +69,15 @@ public class FileChannelAddress extends ChannelAddress {
 
         if (o instanceof FileChannelAddress) {
             FileChannelAddress that = (FileChannelAddress) o;
-            return Objects.equals(mode, that.mode) && this.size == that.size && super.equals(o);
+            return Objects.equals(mode, that.mode) && this.size == that.size && this.window == that.window
+                    && super.equals(o);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return (int) (super.hashCode() + mode.hashCode() + size);
+        return (int) (super.hashCode() + mode.hashCode() + size + window);
     }
 
 }
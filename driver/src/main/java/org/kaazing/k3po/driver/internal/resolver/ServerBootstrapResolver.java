@@ -42,6 +42,7 @@ public class ServerBootstrapResolver {
     private final OptionsResolver optionsResolver;
     private final Barrier notifyBarrier;
 
+    private URI location;
     private ServerBootstrap bootstrap;
 
     public ServerBootstrapResolver(BootstrapFactory bootstrapFactory, ChannelAddressFactory addressFactory,
@@ -59,10 +60,17 @@ public class ServerBootstrapResolver {
         return notifyBarrier;
     }
 
+    public URI resolveLocation() {
+        if (location == null) {
+            location = locationResolver.get();
+        }
+        return location;
+    }
+
     // TODO: asynchronous, triggered by awaitBarrier
     public ServerBootstrap resolve() throws Exception {
         if (bootstrap == null) {
-            URI acceptURI = locationResolver.get();
+            URI acceptURI = resolveLocation();
             Map<String, Object> acceptOptions = optionsResolver.resolve();
             ChannelAddress localAddress = addressFactory.newChannelAddress(acceptURI, acceptOptions);
             LOGGER.debug("Initializing server Bootstrap binding to address " + localAddress);
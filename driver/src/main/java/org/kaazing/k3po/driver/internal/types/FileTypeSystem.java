@@ -31,6 +31,7 @@ public final class FileTypeSystem implements TypeSystemSpi
     public static final TypeInfo<String> OPTION_MODE = new TypeInfo<>("mode", String.class);
     public static final TypeInfo<Long> OPTION_SIZE = new TypeInfo<>("size", long.class);
     public static final TypeInfo<Long> OPTION_OFFSET = new TypeInfo<>("offset", long.class);
+    public static final TypeInfo<Long> OPTION_WINDOW = new TypeInfo<>("window", long.class);
 
     private final Set<TypeInfo<?>> acceptOptions;
     private final Set<TypeInfo<?>> connectOptions;
@@ -44,11 +45,13 @@ public final class FileTypeSystem implements TypeSystemSpi
         Set<TypeInfo<?>> acceptOptions = new LinkedHashSet<>();
         acceptOptions.add(OPTION_MODE);
         acceptOptions.add(OPTION_SIZE);
+        acceptOptions.add(OPTION_WINDOW);
         this.acceptOptions = unmodifiableSet(acceptOptions);
 
         Set<TypeInfo<?>> connectOptions = new LinkedHashSet<>();
         connectOptions.add(OPTION_MODE);
         connectOptions.add(OPTION_SIZE);
+        connectOptions.add(OPTION_WINDOW);
         this.connectOptions = unmodifiableSet(connectOptions);
 
         this.readOptions = singleton(OPTION_OFFSET);
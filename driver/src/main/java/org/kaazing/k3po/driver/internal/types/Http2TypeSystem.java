@@ -0,0 +1,118 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.types;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.kaazing.k3po.lang.types.StructuredTypeInfo;
+import org.kaazing.k3po.lang.types.TypeInfo;
+import org.kaazing.k3po.lang.types.TypeSystemSpi;
+
+public final class Http2TypeSystem implements TypeSystemSpi
+{
+    public static final TypeInfo<URI> OPTION_TRANSPORT = new TypeInfo<>("transport", URI.class);
+    public static final TypeInfo<Integer> OPTION_HEADER_TABLE_SIZE = new TypeInfo<>("headerTableSize", Integer.class);
+    public static final TypeInfo<Boolean> OPTION_ENABLE_PUSH = new TypeInfo<>("enablePush", Boolean.class);
+    public static final TypeInfo<Integer> OPTION_MAX_CONCURRENT_STREAMS = new TypeInfo<>("maxConcurrentStreams", Integer.class);
+    public static final TypeInfo<Integer> OPTION_INITIAL_WINDOW_SIZE = new TypeInfo<>("initialWindowSize", Integer.class);
+    public static final TypeInfo<Integer> OPTION_MAX_FRAME_SIZE = new TypeInfo<>("maxFrameSize", Integer.class);
+    public static final TypeInfo<Integer> OPTION_MAX_HEADER_LIST_SIZE = new TypeInfo<>("maxHeaderListSize", Integer.class);
+    public static final TypeInfo<Integer> OPTION_WINDOW = new TypeInfo<>("window", Integer.class);
+    public static final TypeInfo<Boolean> OPTION_HUFFMAN = new TypeInfo<>("huffman", Boolean.class);
+    public static final TypeInfo<String> OPTION_INDEXING = new TypeInfo<>("indexing", String.class);
+
+    public static final StructuredTypeInfo CONFIG_HEADER = new StructuredTypeInfo("http2", "header", singletonList(new TypeInfo<>("name", String.class)), Integer.MAX_VALUE);
+    public static final StructuredTypeInfo CONFIG_TRAILER = new StructuredTypeInfo("http2", "trailer", singletonList(new TypeInfo<>("name", String.class)), Integer.MAX_VALUE);
+
+    private final Set<TypeInfo<?>> acceptOptions;
+    private final Set<TypeInfo<?>> connectOptions;
+    private final Set<TypeInfo<?>> readOptions;
+    private final Set<TypeInfo<?>> writeOptions;
+    private final Set<StructuredTypeInfo> readConfigs;
+    private final Set<StructuredTypeInfo> writeConfigs;
+
+    public Http2TypeSystem()
+    {
+        Set<TypeInfo<?>> settingsOptions = new LinkedHashSet<>();
+        settingsOptions.add(OPTION_TRANSPORT);
+        settingsOptions.add(OPTION_HEADER_TABLE_SIZE);
+        settingsOptions.add(OPTION_ENABLE_PUSH);
+        settingsOptions.add(OPTION_MAX_CONCURRENT_STREAMS);
+        settingsOptions.add(OPTION_INITIAL_WINDOW_SIZE);
+        settingsOptions.add(OPTION_MAX_FRAME_SIZE);
+        settingsOptions.add(OPTION_MAX_HEADER_LIST_SIZE);
+        this.acceptOptions = unmodifiableSet(settingsOptions);
+        this.connectOptions = unmodifiableSet(settingsOptions);
+
+        this.readOptions = singleton(OPTION_WINDOW);
+        this.writeOptions = unmodifiableSet(new LinkedHashSet<>(asList(OPTION_HUFFMAN, OPTION_INDEXING)));
+
+        Set<StructuredTypeInfo> configs = new LinkedHashSet<>();
+        configs.add(CONFIG_HEADER);
+        configs.add(CONFIG_TRAILER);
+        this.readConfigs = unmodifiableSet(configs);
+        this.writeConfigs = unmodifiableSet(configs);
+    }
+
+    @Override
+    public String getName()
+    {
+        return "http2";
+    }
+
+    @Override
+    public Set<TypeInfo<?>> acceptOptions()
+    {
+        return acceptOptions;
+    }
+
+    @Override
+    public Set<TypeInfo<?>> connectOptions()
+    {
+        return connectOptions;
+    }
+
+    @Override
+    public Set<TypeInfo<?>> readOptions()
+    {
+        return readOptions;
+    }
+
+    @Override
+    public Set<TypeInfo<?>> writeOptions()
+    {
+        return writeOptions;
+    }
+
+    @Override
+    public Set<StructuredTypeInfo> readConfigs()
+    {
+        return readConfigs;
+    }
+
+    @Override
+    public Set<StructuredTypeInfo> writeConfigs()
+    {
+        return writeConfigs;
+    }
+}
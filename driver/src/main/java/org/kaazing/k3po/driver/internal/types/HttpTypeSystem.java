@@ -19,6 +19,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableSet;
 
 import java.net.URI;
 import java.util.LinkedHashSet;
@@ -31,6 +32,7 @@ import org.kaazing.k3po.lang.types.TypeSystemSpi;
 public final class HttpTypeSystem implements TypeSystemSpi
 {
     public static final TypeInfo<URI> OPTION_TRANSPORT = new TypeInfo<>("transport", URI.class);
+    public static final TypeInfo<Boolean> OPTION_KEEP_ALIVE = new TypeInfo<>("keepAlive", Boolean.class);
     public static final TypeInfo<String> OPTION_CHUNK_EXT = new TypeInfo<>("chunkExtension", String.class);
 
     public static final StructuredTypeInfo CONFIG_METHOD = new StructuredTypeInfo("http", "method", emptyList(), 1);
@@ -53,7 +55,7 @@ public final class HttpTypeSystem implements TypeSystemSpi
     public HttpTypeSystem()
     {
         this.acceptOptions = singleton(OPTION_TRANSPORT);
-        this.connectOptions = singleton(OPTION_TRANSPORT);
+        this.connectOptions = unmodifiableSet(new LinkedHashSet<>(asList(OPTION_TRANSPORT, OPTION_KEEP_ALIVE)));
         this.readOptions = singleton(OPTION_CHUNK_EXT);
         this.writeOptions = singleton(OPTION_CHUNK_EXT);
 
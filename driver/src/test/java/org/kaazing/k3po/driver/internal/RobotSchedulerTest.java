@@ -0,0 +1,151 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.Channels;
+import org.junit.Test;
+
+public class RobotSchedulerTest {
+
+    @Test
+    public void shouldRunOneRobotAtATimeByDefault() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(1);
+        ChannelFuture released1 = Channels.future(null);
+        ChannelFuture released2 = Channels.future(null);
+
+        ChannelFuture admitted1 = scheduler.admit(uris("tcp://localhost:8001"), released1);
+        ChannelFuture admitted2 = scheduler.admit(uris("tcp://localhost:8002"), released2);
+
+        assertTrue(admitted1.isSuccess());
+        assertFalse(admitted2.isDone());
+
+        released1.setSuccess();
+
+        assertTrue(admitted2.isSuccess());
+    }
+
+    @Test
+    public void shouldRunRobotsWithDistinctPortsConcurrently() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(4);
+
+        ChannelFuture admitted1 = scheduler.admit(uris("tcp://localhost:8001"), Channels.future(null));
+        ChannelFuture admitted2 = scheduler.admit(uris("http://localhost:8002/path"), Channels.future(null));
+        ChannelFuture admitted3 = scheduler.admit(emptyList(), Channels.future(null));
+
+        assertTrue(admitted1.isSuccess());
+        assertTrue(admitted2.isSuccess());
+        assertTrue(admitted3.isSuccess());
+    }
+
+    @Test
+    public void shouldQueueRobotsWithCollidingPorts() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(4);
+        ChannelFuture released1 = Channels.future(null);
+
+        ChannelFuture admitted1 = scheduler.admit(uris("tcp://localhost:8080"), released1);
+        ChannelFuture admitted2 = scheduler.admit(uris("http://localhost:8080/echo"), Channels.future(null));
+        ChannelFuture admitted3 = scheduler.admit(uris("ws://localhost:8081/echo"), Channels.future(null));
+
+        assertTrue(admitted1.isSuccess());
+        assertFalse(admitted2.isDone());
+        assertTrue(admitted3.isSuccess());
+
+        released1.setSuccess();
+
+        assertTrue(admitted2.isSuccess());
+    }
+
+    @Test
+    public void shouldQueueBehindCollidingPendingRobot() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(4);
+        ChannelFuture released1 = Channels.future(null);
+
+        scheduler.admit(uris("tcp://localhost:8001"), released1);
+        ChannelFuture admitted2 = scheduler.admit(uris("tcp://localhost:8001", "tcp://localhost:8002"),
+                Channels.future(null));
+        ChannelFuture admitted3 = scheduler.admit(uris("tcp://localhost:8002"), Channels.future(null));
+
+        assertFalse(admitted2.isDone());
+        assertFalse(admitted3.isDone());
+
+        released1.setSuccess();
+
+        assertTrue(admitted2.isSuccess());
+        assertFalse(admitted3.isDone());
+    }
+
+    @Test
+    public void shouldTreatUnresolvedAcceptLocationsAsColliding() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(4);
+        ChannelFuture released1 = Channels.future(null);
+
+        ChannelFuture admitted1 = scheduler.admit(null, released1);
+        ChannelFuture admitted2 = scheduler.admit(uris("tcp://localhost:8001"), Channels.future(null));
+
+        assertTrue(admitted1.isSuccess());
+        assertFalse(admitted2.isDone());
+
+        released1.setSuccess();
+
+        assertTrue(admitted2.isSuccess());
+    }
+
+    @Test
+    public void shouldCancelAdmissionWhenReleasedWhilePending() throws Exception {
+        RobotScheduler scheduler = new RobotScheduler(1);
+        ChannelFuture released1 = Channels.future(null);
+        ChannelFuture released2 = Channels.future(null);
+
+        scheduler.admit(uris("tcp://localhost:8001"), released1);
+        ChannelFuture admitted2 = scheduler.admit(uris("tcp://localhost:8002"), released2);
+        ChannelFuture admitted3 = scheduler.admit(uris("tcp://localhost:8003"), Channels.future(null));
+
+        released2.setSuccess();
+
+        assertTrue(admitted2.isCancelled());
+        assertFalse(admitted3.isDone());
+
+        released1.setSuccess();
+
+        assertTrue(admitted3.isSuccess());
+    }
+
+    @Test
+    public void shouldCollideOnlyWithSameLocationWithoutPort() throws Exception {
+        assertTrue(RobotScheduler.collides(URI.create("agrona://stream/bidirectional?reader=a&writer=b"),
+                URI.create("agrona://stream/bidirectional?reader=a&writer=b")));
+        assertFalse(RobotScheduler.collides(URI.create("file:/tmp/a"), URI.create("file:/tmp/b")));
+        assertFalse(RobotScheduler.collides(URI.create("tcp://localhost:0"), URI.create("tcp://localhost:0")));
+    }
+
+    private static Collection<URI> uris(String... locations) {
+        Collection<URI> uris = new ArrayList<>();
+        for (String location : asList(locations)) {
+            uris.add(URI.create(location));
+        }
+        return uris;
+    }
+}
@@ -15,11 +15,15 @@
  */
 package org.kaazing.k3po.driver.internal.behavior.handler.codec;
 
+import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
+import static org.jboss.netty.buffer.ChannelBuffers.directBuffer;
+import static org.jboss.netty.buffer.ChannelBuffers.unmodifiableBuffer;
 import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
 import static org.junit.Assert.assertEquals;
 import static org.kaazing.k3po.driver.internal.behavior.handler.codec.Maskers.newMasker;
-import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.synchronizedSupplier;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
 
+import java.util.Random;
 import java.util.function.Supplier;
 
 import javax.el.ExpressionFactory;
@@ -68,7 +72,7 @@ public class MaskerTest {
         ExpressionContext environment = new ExpressionContext();
         ExpressionFactory factory = ExpressionFactory.newInstance();
         ValueExpression expression = factory.createValueExpression(new byte[]{0x01, 0x02, 0x03, 0x04}, byte[].class);
-        Supplier<byte[]> supplier = synchronizedSupplier(expression, environment, byte[].class);
+        Supplier<byte[]> supplier = newSupplier(expression, environment, byte[].class);
 
         Masker decoder = newMasker(supplier);
         ChannelBuffer originalBuf = wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x14, 0x21, 0x22, 0x23, 0x24});
@@ -82,7 +86,7 @@ public class MaskerTest {
         ExpressionContext environment = new ExpressionContext();
         ExpressionFactory factory = ExpressionFactory.newInstance();
         ValueExpression expression = factory.createValueExpression(new byte[]{0x01, 0x02, 0x03, 0x04}, byte[].class);
-        Supplier<byte[]> supplier = synchronizedSupplier(expression, environment, byte[].class);
+        Supplier<byte[]> supplier = newSupplier(expression, environment, byte[].class);
 
         Masker decoder = newMasker(supplier);
         ChannelBuffer originalBuf1 = wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x14});
@@ -99,7 +103,7 @@ public class MaskerTest {
         ExpressionContext environment = new ExpressionContext();
         ExpressionFactory factory = ExpressionFactory.newInstance();
         ValueExpression expression = factory.createValueExpression(new byte[]{0x01, 0x02, 0x03, 0x04}, byte[].class);
-        Supplier<byte[]> supplier = synchronizedSupplier(expression, environment, byte[].class);
+        Supplier<byte[]> supplier = newSupplier(expression, environment, byte[].class);
 
         Masker decoder = newMasker(supplier);
         ChannelBuffer originalBuf1 = wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x14, 0x11});
@@ -110,4 +114,74 @@ public class MaskerTest {
         assertEquals(wrappedBuffer(new byte[]{0x10, 0x10, 0x10, 0x10, 0x10}), maskedBuf1);
         assertEquals(wrappedBuffer(new byte[]{0x20, 0x20, 0x20, 0x20}), maskedBuf2);
     }
+
+    @Test
+    public void shouldMaskDirectBuffer() throws Exception {
+        Masker decoder = newMasker(new byte[]{0x01, 0x02, 0x03, 0x04});
+        ChannelBuffer originalBuf = directBuffer(9);
+        originalBuf.writeBytes(new byte[]{0x11, 0x12, 0x13, 0x14, 0x21, 0x22, 0x23, 0x24, 0x31});
+        ChannelBuffer maskedBuf = decoder.applyMask(originalBuf);
+
+        assertEquals(wrappedBuffer(new byte[]{0x10, 0x10, 0x10, 0x10, 0x20, 0x20, 0x20, 0x20, 0x30}), maskedBuf);
+    }
+
+    @Test
+    public void shouldMaskCompositeBuffer() throws Exception {
+        Masker decoder = newMasker(new byte[]{0x01, 0x02, 0x03, 0x04});
+        ChannelBuffer originalBuf = wrappedBuffer(wrappedBuffer(new byte[]{0x11, 0x12, 0x13}),
+                wrappedBuffer(new byte[]{0x14, 0x21, 0x22, 0x23, 0x24}));
+        ChannelBuffer maskedBuf = decoder.applyMask(originalBuf);
+
+        assertEquals(wrappedBuffer(new byte[]{0x10, 0x10, 0x10, 0x10, 0x20, 0x20, 0x20, 0x20}), maskedBuf);
+    }
+
+    @Test
+    public void shouldMaskLargeFragmentedBufferLikeBytewiseMask() throws Exception {
+        byte[] maskingKey = new byte[]{0x01, 0x02, 0x03, 0x04};
+        byte[] payload = new byte[1021];
+        new Random().nextBytes(payload);
+
+        byte[] expected = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            expected[i] = (byte) (payload[i] ^ maskingKey[i % maskingKey.length]);
+        }
+
+        Masker decoder = newMasker(maskingKey);
+        ChannelBuffer maskedBuf1 = decoder.applyMask(copiedBuffer(payload, 0, 13));
+        ChannelBuffer maskedBuf2 = decoder.applyMask(copiedBuffer(payload, 13, payload.length - 13));
+
+        assertEquals(wrappedBuffer(expected), wrappedBuffer(maskedBuf1, maskedBuf2));
+    }
+
+    @Test
+    public void shouldMaskWithKeyNotDividingWord() throws Exception {
+        Masker decoder = newMasker(new byte[]{0x01, 0x02, 0x03});
+        ChannelBuffer originalBuf = wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x21, 0x22, 0x23, 0x31, 0x32, 0x33, 0x41});
+        ChannelBuffer maskedBuf = decoder.applyMask(originalBuf);
+
+        assertEquals(wrappedBuffer(new byte[]{0x10, 0x10, 0x10, 0x20, 0x20, 0x20, 0x30, 0x30, 0x30, 0x40}), maskedBuf);
+    }
+
+    @Test
+    public void shouldMaskCopyOfReadOnlyComponent() throws Exception {
+        Masker decoder = newMasker(new byte[]{0x01, 0x02, 0x03, 0x04});
+        ChannelBuffer readOnlyBuf = unmodifiableBuffer(wrappedBuffer(new byte[]{0x21, 0x22, 0x23, 0x24}));
+        ChannelBuffer originalBuf = wrappedBuffer(wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x14}), readOnlyBuf);
+        ChannelBuffer maskedBuf = decoder.applyMask(originalBuf);
+
+        assertEquals(wrappedBuffer(new byte[]{0x10, 0x10, 0x10, 0x10, 0x20, 0x20, 0x20, 0x20}), maskedBuf);
+        assertEquals(wrappedBuffer(new byte[]{0x11, 0x12, 0x13, 0x14, 0x21, 0x22, 0x23, 0x24}), originalBuf);
+    }
+
+    @Test
+    public void shouldUndoMask() throws Exception {
+        byte[] payload = new byte[100];
+        new Random().nextBytes(payload);
+
+        Masker masker = newMasker(new byte[]{0x01, 0x02, 0x03, 0x04});
+        ChannelBuffer maskedBuf = masker.applyMask(copiedBuffer(payload));
+        ChannelBuffer unmaskedBuf = masker.undoMask(maskedBuf);
+
+        assertEquals(wrappedBuffer(payload), unmaskedBuf);
+    }
 }
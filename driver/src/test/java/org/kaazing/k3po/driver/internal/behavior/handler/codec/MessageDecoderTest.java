@@ -0,0 +1,81 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec;
+
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+public class MessageDecoderTest {
+
+    @Test
+    public void shouldConsumeInputBuffer() throws Exception {
+        MessageDecoder decoder = new ReadExactBytesDecoder(new byte[]{0x01, 0x02});
+        ChannelBuffer input = wrappedBuffer(new byte[]{0x01});
+
+        assertNull(decoder.decode(input));
+        assertEquals(0, input.readableBytes());
+    }
+
+    @Test
+    public void shouldPassRemainingBytesWithoutCopy() throws Exception {
+        MessageDecoder decoder = new ReadExactBytesDecoder(new byte[]{0x01, 0x02});
+        byte[] bytes = new byte[]{0x01, 0x02, 0x03, 0x04};
+
+        ChannelBuffer remaining = decoder.decode(wrappedBuffer(bytes));
+        bytes[2] = 0x05;
+
+        assertEquals(wrappedBuffer(new byte[]{0x05, 0x04}), remaining);
+    }
+
+    @Test
+    public void shouldCumulateManyFragments() throws Exception {
+        byte[] expected = new byte[100];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+        MessageDecoder decoder = new ReadExactBytesDecoder(expected);
+
+        for (int i = 0; i < expected.length - 1; i++) {
+            assertNull(decoder.decode(wrappedBuffer(expected, i, 1)));
+        }
+        ChannelBuffer remaining = decoder.decode(wrappedBuffer(new byte[]{99, 100}));
+
+        assertEquals(wrappedBuffer(new byte[]{100}), remaining);
+    }
+
+    @Test
+    public void shouldCumulateFragmentsBeyondComponentLimit() throws Exception {
+        byte[] expected = new byte[65536];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) (i * 31);
+        }
+        MessageDecoder decoder = new ReadExactBytesDecoder(expected);
+
+        for (int i = 0; i < expected.length; i += 7) {
+            int length = Math.min(7, expected.length - i);
+            ChannelBuffer remaining = decoder.decode(wrappedBuffer(expected, i, length));
+            if (i + length < expected.length) {
+                assertNull(remaining);
+            } else {
+                assertEquals(0, remaining.readableBytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.handler.codec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
+import static org.jboss.netty.buffer.ChannelBuffers.directBuffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+import org.kaazing.k3po.driver.internal.behavior.ScriptProgressException;
+
+public class ReadDigestBytesDecoderTest {
+
+    private static final byte[] CRC32C_123456789 = new byte[] {(byte) 0xe3, 0x06, (byte) 0x92, (byte) 0x83};
+
+    private static final byte[] SHA256_ABC = new byte[] {
+        (byte) 0xba, 0x78, 0x16, (byte) 0xbf, (byte) 0x8f, 0x01, (byte) 0xcf, (byte) 0xea,
+        0x41, 0x41, 0x40, (byte) 0xde, 0x5d, (byte) 0xae, 0x22, 0x23,
+        (byte) 0xb0, 0x03, 0x61, (byte) 0xa3, (byte) 0x96, 0x17, 0x7a, (byte) 0x9c,
+        (byte) 0xb4, 0x10, (byte) 0xff, 0x61, (byte) 0xf2, 0x00, 0x15, (byte) 0xad
+    };
+
+    @Test
+    public void completeMatchOK() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(9, "crc32c", CRC32C_123456789);
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("123456789", UTF_8));
+        assertNotNull(remainingBuffer);
+        assertEquals(0, remainingBuffer.readableBytes());
+    }
+
+    @Test
+    public void completeSha256MatchOK() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(3, "sha256", SHA256_ABC);
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("abc", UTF_8));
+        assertNotNull(remainingBuffer);
+        assertEquals(0, remainingBuffer.readableBytes());
+    }
+
+    @Test(expected = ScriptProgressException.class)
+    public void noMatchOK() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(9, "crc32c", CRC32C_123456789);
+        decoder.decode(copiedBuffer("123456780", UTF_8));
+    }
+
+    @Test
+    public void fragmentedMatchOK() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(3, "sha256", SHA256_ABC);
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("a", UTF_8));
+        assertNull(remainingBuffer);
+        ChannelBuffer direct = directBuffer(1);
+        direct.writeByte('b');
+        remainingBuffer = decoder.decode(direct);
+        assertNull(remainingBuffer);
+        remainingBuffer = decoder.decode(copiedBuffer("c", UTF_8));
+        assertNotNull(remainingBuffer);
+        assertEquals(0, remainingBuffer.readableBytes());
+    }
+
+    @Test
+    public void completeMatchWithBytesLeftOverOK() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(9, "crc32c", CRC32C_123456789);
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("12345", UTF_8));
+        assertNull(remainingBuffer);
+        remainingBuffer = decoder.decode(copiedBuffer("6789AB", UTF_8));
+        assertNotNull(remainingBuffer);
+        assertEquals(copiedBuffer("AB", UTF_8), remainingBuffer);
+    }
+
+    @Test
+    public void shouldNotRetainConsumedBytes() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(9, "crc32c", CRC32C_123456789);
+        ChannelBuffer first = copiedBuffer("1234", UTF_8);
+        assertNull(decoder.decode(first));
+        assertEquals(0, first.readableBytes());
+        ChannelBuffer second = copiedBuffer("56789", UTF_8);
+        ChannelBuffer remainingBuffer = decoder.decode(second);
+        assertNotNull(remainingBuffer);
+        assertEquals(0, remainingBuffer.readableBytes());
+    }
+
+    @Test(expected = ScriptProgressException.class)
+    public void shortLastReadFails() throws Exception {
+        MessageDecoder decoder = new ReadDigestBytesDecoder(9, "crc32c", CRC32C_123456789);
+        decoder.decodeLast(copiedBuffer("1234", UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDigestOfWrongLength() throws Exception {
+        new ReadDigestBytesDecoder(3, "sha256", CRC32C_123456789);
+    }
+}
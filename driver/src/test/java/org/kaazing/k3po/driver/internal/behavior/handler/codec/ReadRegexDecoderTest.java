@@ -22,6 +22,9 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+
+import java.util.Arrays;
 
 import javax.el.ExpressionFactory;
 import javax.el.PropertyNotFoundException;
@@ -154,4 +157,97 @@ public class ReadRegexDecoderTest {
         ValueExpression expression = expressionFactory.createValueExpression(environment, "${var}", byte[].class);
         assertArrayEquals("Hello".getBytes(UTF_8), (byte[]) expression.getValue(environment));
     }
+
+    @Test
+    public void fragmentedMultiByteMatchWithCaptureOK() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("(?<var>H.*o)\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(pattern, UTF_8, environment);
+        byte[] bytes = "H\u00e9llo\n\u00e9".getBytes(UTF_8);
+
+        // split within the two byte encoding of the first accented character
+        assertNull(decoder.decode(copiedBuffer(bytes, 0, 2)));
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer(bytes, 2, bytes.length - 2));
+
+        assertEquals(copiedBuffer("\u00e9", UTF_8), remainingBuffer);
+        ValueExpression expression = expressionFactory.createValueExpression(environment, "${var}", byte[].class);
+        assertArrayEquals("H\u00e9llo".getBytes(UTF_8), (byte[]) expression.getValue(environment));
+    }
+
+    @Test
+    public void manyFragmentsMatchOK() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("[a-z]*\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(pattern, UTF_8, environment);
+
+        for (int i = 0; i < 1000; i++) {
+            assertNull(decoder.decode(copiedBuffer("abcdefgh", UTF_8)));
+        }
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("\nabc", UTF_8));
+
+        assertEquals(copiedBuffer("abc", UTF_8), remainingBuffer);
+    }
+
+    @Test
+    public void configuredMaxScanLengthBeyondDefault() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("[a-z]*\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(newSequential(0, 0), pattern, UTF_8, environment, 2 * 1024 * 1024);
+
+        char[] fragment = new char[65536];
+        Arrays.fill(fragment, 'a');
+        for (int i = 0; i < 24; i++) {
+            assertNull(decoder.decode(copiedBuffer(fragment, UTF_8)));
+        }
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer("\nabc", UTF_8));
+
+        assertEquals(copiedBuffer("abc", UTF_8), remainingBuffer);
+    }
+
+    @Test
+    public void noMatchWithinDefaultMaxScanLength() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("[a-z]*\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(pattern, UTF_8, environment);
+
+        char[] fragment = new char[65536];
+        Arrays.fill(fragment, 'a');
+        for (int i = 0; i < 15; i++) {
+            assertNull(decoder.decode(copiedBuffer(fragment, UTF_8)));
+        }
+
+        thrown.expect(ScriptProgressException.class);
+        decoder.decode(copiedBuffer(fragment, UTF_8));
+    }
+
+    @Test
+    public void completeMatchWithMalformedInputOK() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("a[^\\n]*\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(pattern, UTF_8, environment);
+
+        // each malformed byte decodes to one replacement character, which encodes to three bytes
+        byte[] bytes = new byte[] { 'a', (byte) 0xff, (byte) 0xfe, '\n', 'x', 'y', 'z' };
+        ChannelBuffer remainingBuffer = decoder.decode(copiedBuffer(bytes));
+
+        assertEquals(copiedBuffer("xyz", UTF_8), remainingBuffer);
+    }
+
+    @Test
+    public void noMatchWithinMaxScanLength() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("H.*o\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(newSequential(0, 0), pattern, UTF_8, environment, 8);
+
+        assertNull(decoder.decode(copiedBuffer("Hello", UTF_8)));
+
+        thrown.expect(ScriptProgressException.class);
+        decoder.decode(copiedBuffer(" World", UTF_8));
+    }
+
+    @Test
+    public void reusedAfterMatchOK() throws Exception {
+        NamedGroupPattern pattern = NamedGroupPattern.compile("H.*o\\n");
+        MessageDecoder decoder = new ReadRegexDecoder(pattern, UTF_8, environment);
+
+        assertNull(decoder.decode(copiedBuffer("Hel", UTF_8)));
+        assertEquals(0, decoder.decode(copiedBuffer("lo\n", UTF_8)).readableBytes());
+
+        assertNull(decoder.decode(copiedBuffer("Hel", UTF_8)));
+        assertEquals(0, decoder.decode(copiedBuffer("lo\n", UTF_8)).readableBytes());
+    }
 }
@@ -20,14 +20,21 @@ import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
 import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+import static org.jboss.netty.channel.Channel.OP_READ;
+import static org.jboss.netty.channel.Channel.OP_READ_WRITE;
 import static org.jboss.netty.channel.ChannelState.OPEN;
+import static org.jboss.netty.channel.Channels.fireChannelOpen;
 import static org.jboss.netty.channel.Channels.fireWriteComplete;
 import static org.jboss.netty.channel.Channels.pipeline;
 import static org.jboss.netty.util.CharsetUtil.UTF_8;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.kaazing.k3po.driver.internal.behavior.handler.codec.Maskers.newMasker;
-import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.synchronizedSupplier;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
 
+import java.io.ByteArrayInputStream;
+import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -37,6 +44,9 @@ import javax.el.ExpressionFactory;
 import javax.el.ValueExpression;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.AbstractChannel;
+import org.jboss.netty.channel.AbstractChannelSink;
+import org.jboss.netty.channel.ChannelConfig;
 import org.jboss.netty.channel.ChannelDownstreamHandler;
 import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelException;
@@ -44,6 +54,8 @@ import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelSink;
+import org.jboss.netty.channel.DefaultChannelConfig;
 import org.jboss.netty.channel.ChannelUpstreamHandler;
 import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.channel.MessageEvent;
@@ -124,7 +136,7 @@ public class WriteHandlerTest {
         ExpressionFactory expressionFactory = ExpressionFactory.newInstance();
         environment = new ExpressionContext();
         expression = expressionFactory.createValueExpression(environment, "${variable}", byte[].class);
-        Supplier<byte[]> supplier = synchronizedSupplier(expression, environment, byte[].class);
+        Supplier<byte[]> supplier = newSupplier(expression, environment, byte[].class);
         encoders.add(new WriteExpressionEncoder(supplier, expression));
 
         masker = newMasker(maskingKey);
@@ -211,4 +223,116 @@ public class WriteHandlerTest {
 
         context.assertIsSatisfied();
     }
+
+    @Test
+    public void shouldWriteStreamedExpressionInChunks() throws Exception {
+
+        byte[] payload = new byte[100000];
+        new Random().nextBytes(payload);
+        final ChannelBuffer expected = masker.applyMask(copiedBuffer(payload));
+
+        List<MessageEncoder> encoders = new ArrayList<>();
+        encoders.add(new WriteExpressionEncoder(() -> new ByteArrayInputStream(payload), expression));
+        WriteHandler handler = new WriteHandler(encoders, newMasker(maskingKey));
+        ExecutionHandler execution = new ExecutionHandler();
+
+        final List<ChannelBuffer> written = new ArrayList<>();
+        ChannelPipeline pipeline = pipeline(new SimpleChannelHandler() {
+            @Override
+            public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+                written.add((ChannelBuffer) e.getMessage());
+                e.getFuture().setSuccess();
+            }
+        }, execution, handler);
+
+        channelFactory.newChannel(pipeline);
+        execution.getHandlerFuture().setSuccess();
+        handler.getHandlerFuture().sync();
+
+        assertTrue(written.size() > 1);
+        assertEquals(expected, wrappedBuffer(written.toArray(new ChannelBuffer[written.size()])));
+    }
+
+    @Test
+    public void shouldWriteNextChunkOnlyOnceChannelWritable() throws Exception {
+
+        byte[] payload = new byte[100000];
+        new Random().nextBytes(payload);
+        final ChannelBuffer expected = masker.applyMask(copiedBuffer(payload));
+
+        List<MessageEncoder> encoders = new ArrayList<>();
+        encoders.add(new WriteExpressionEncoder(() -> new ByteArrayInputStream(payload), expression));
+        WriteHandler handler = new WriteHandler(encoders, newMasker(maskingKey));
+        ExecutionHandler execution = new ExecutionHandler();
+
+        // each write fills the outbound buffer, until completed by the test
+        final List<MessageEvent> pending = new ArrayList<>();
+        ChannelSink sink = new AbstractChannelSink() {
+            @Override
+            public void eventSunk(ChannelPipeline pipeline, ChannelEvent e) throws Exception {
+                if (e instanceof MessageEvent) {
+                    pending.add((MessageEvent) e);
+                    ((WritabilityChannel) e.getChannel()).setWritable(false);
+                }
+            }
+        };
+
+        WritabilityChannel channel = new WritabilityChannel(channelFactory, pipeline(execution, handler), sink);
+        execution.getHandlerFuture().setSuccess();
+
+        List<ChannelBuffer> written = new ArrayList<>();
+        while (!handler.getHandlerFuture().isDone()) {
+            assertEquals(1, pending.size());
+            assertFalse(channel.isWritable());
+
+            MessageEvent write = pending.remove(0);
+            written.add((ChannelBuffer) write.getMessage());
+            channel.setWritable(true);
+            write.getFuture().setSuccess();
+        }
+
+        assertTrue(pending.isEmpty());
+        assertTrue(written.size() > 1);
+        assertTrue(handler.getHandlerFuture().isSuccess());
+        assertEquals(expected, wrappedBuffer(written.toArray(new ChannelBuffer[written.size()])));
+    }
+
+    private static final class WritabilityChannel extends AbstractChannel {
+
+        private final ChannelConfig config = new DefaultChannelConfig();
+
+        WritabilityChannel(ChannelFactory factory, ChannelPipeline pipeline, ChannelSink sink) {
+            super(null, factory, pipeline, sink);
+            fireChannelOpen(this);
+        }
+
+        void setWritable(boolean writable) {
+            setInterestOpsNow(writable ? OP_READ : OP_READ_WRITE);
+        }
+
+        @Override
+        public ChannelConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public boolean isBound() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+    }
 }
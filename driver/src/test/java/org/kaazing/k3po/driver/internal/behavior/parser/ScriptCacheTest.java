@@ -0,0 +1,150 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.parser;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ScriptCacheTest {
+
+    private static final String SCRIPT = "connect \"tcp://localhost:8001\"\nconnected\nclose\nclosed\n";
+
+    // parses, but closes the write side twice
+    private static final String INVALID_SCRIPT =
+            "connect \"tcp://localhost:8001\"\nconnected\nwrite close\nwrite close\n";
+
+    @Test
+    public void shouldHitAfterRelease() throws Exception {
+        ScriptCache cache = new ScriptCache(4);
+        ScriptCache.Key key = new ScriptCache.Key(SCRIPT);
+
+        assertNull(cache.acquire(key));
+        CompiledScript compiled = cache.compile(key, SCRIPT);
+        cache.release(compiled);
+
+        assertSame(compiled, cache.acquire(key));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldMissWhileLeased() throws Exception {
+        ScriptCache cache = new ScriptCache(4);
+        ScriptCache.Key key = new ScriptCache.Key(SCRIPT);
+
+        CompiledScript compiled = cache.compile(key, SCRIPT);
+
+        assertNull(cache.acquire(key));
+        cache.release(compiled);
+        assertSame(compiled, cache.acquire(key));
+    }
+
+    @Test
+    public void shouldHitForSameContent() throws Exception {
+        ScriptCache cache = new ScriptCache(4);
+
+        CompiledScript compiled = cache.compile(new ScriptCache.Key(SCRIPT), SCRIPT);
+        cache.release(compiled);
+
+        // content read from elsewhere, such as sent by the client
+        assertSame(compiled, cache.acquire(new ScriptCache.Key(new String(SCRIPT.toCharArray()))));
+    }
+
+    @Test
+    public void shouldMissWhenContentChanged() throws Exception {
+        ScriptCache cache = new ScriptCache(4);
+        String overridden = SCRIPT.replace("8001", "8002");
+
+        cache.release(cache.compile(new ScriptCache.Key(SCRIPT), SCRIPT));
+
+        assertNull(cache.acquire(new ScriptCache.Key(overridden)));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        ScriptCache cache = new ScriptCache(2);
+        String script1 = SCRIPT;
+        String script2 = SCRIPT.replace("8001", "8002");
+        String script3 = SCRIPT.replace("8001", "8003");
+        ScriptCache.Key key1 = new ScriptCache.Key(script1);
+        ScriptCache.Key key2 = new ScriptCache.Key(script2);
+        ScriptCache.Key key3 = new ScriptCache.Key(script3);
+
+        CompiledScript compiled1 = cache.compile(key1, script1);
+        cache.release(compiled1);
+        cache.release(cache.compile(key2, script2));
+        cache.release(cache.acquire(key1));
+        cache.release(cache.compile(key3, script3));
+
+        assertNull(cache.acquire(key2));
+        assertSame(compiled1, cache.acquire(key1));
+    }
+
+    @Test
+    public void shouldLeaseSeededScript() throws Exception {
+        ScriptCache cache = new ScriptCache(4);
+        ScriptCache.Key key = new ScriptCache.Key(SCRIPT);
+        CompiledScript compiled = ScriptCache.compile(SCRIPT);
+        cache.seed(compiled);
+
+        assertSame(compiled, cache.acquire(key));
+        assertNull(cache.acquire(key));
+        cache.release(compiled);
+        assertSame(compiled, cache.acquire(key));
+    }
+
+    @Test
+    public void shouldNotValidateIndexedScripts() throws Exception {
+        ScriptIndex index = new ScriptIndex();
+        index.add("script1", SCRIPT);
+        index.add("script2", INVALID_SCRIPT);
+
+        ScriptCache cache = new ScriptCache(4);
+        cache.setIndex(index);
+        String text = SCRIPT + INVALID_SCRIPT;
+
+        cache.compile(new ScriptCache.Key(text), text, asList("script1", "script2"), asList(SCRIPT, INVALID_SCRIPT));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldValidateScriptsChangedSinceIndexed() throws Exception {
+        ScriptIndex index = new ScriptIndex();
+        index.add("script", SCRIPT);
+
+        ScriptCache cache = new ScriptCache(4);
+        cache.setIndex(index);
+
+        cache.compile(new ScriptCache.Key(INVALID_SCRIPT), INVALID_SCRIPT, singletonList("script"),
+                singletonList(INVALID_SCRIPT));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldValidateScriptsWithoutNames() throws Exception {
+        ScriptIndex index = new ScriptIndex();
+        index.add("script", INVALID_SCRIPT);
+
+        ScriptCache cache = new ScriptCache(4);
+        cache.setIndex(index);
+
+        cache.compile(new ScriptCache.Key(INVALID_SCRIPT), INVALID_SCRIPT, emptyList(), emptyList());
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.behavior.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScriptIndexTest {
+
+    private static final String SCRIPT = "connect \"tcp://localhost:8001\"\nconnected\nclose\nclosed\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldContainAddedScriptOnly() throws Exception {
+        ScriptIndex index = new ScriptIndex();
+        index.add("script", SCRIPT);
+
+        assertTrue(index.contains("script", SCRIPT));
+        assertFalse(index.contains("script", SCRIPT.replace("8001", "8002")));
+        assertFalse(index.contains("other", SCRIPT));
+    }
+
+    @Test
+    public void shouldReadWrittenIndex() throws Exception {
+        ScriptIndex index = new ScriptIndex();
+        index.add("client", SCRIPT);
+        index.add("server", "accept \"tcp://localhost:8001\"\naccepted\nconnected\n");
+
+        Path path = folder.newFile("scripts.idx").toPath();
+        index.write(path);
+        ScriptIndex read = ScriptIndex.read(path);
+
+        assertEquals(2, read.size());
+        assertTrue(read.contains("client", SCRIPT));
+        assertFalse(read.contains("server", SCRIPT));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnrecognizedIndex() throws Exception {
+        Path path = folder.newFile("scripts.idx").toPath();
+        Files.write(path, new byte[12]);
+
+        ScriptIndex.read(path);
+    }
+}
@@ -43,6 +43,22 @@ public class FileIT {
         k3po.finish();
     }
 
+    @Test
+    @TestSpecification({
+        "read.from.existing.file.in.windows"
+    })
+    public void shouldReadFromExistingFileInWindows() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "read.whole.file.across.windows"
+    })
+    public void shouldReadWholeFileAcrossWindows() throws Exception {
+        k3po.finish();
+    }
+
     @Test
     @TestSpecification({
         "create.and.write.to.file"
@@ -59,6 +75,14 @@ public class FileIT {
         k3po.finish();
     }
 
+    @Test
+    @TestSpecification({
+        "append.to.file"
+    })
+    public void shouldAppendToFile() throws Exception {
+        k3po.finish();
+    }
+
     @Test
     @TestSpecification({
         "echo.back.to.sender/sender",
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.http2;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.rules.RuleChain.outerRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.kaazing.k3po.driver.internal.test.utils.K3poTestRule;
+import org.kaazing.k3po.driver.internal.test.utils.TestSpecification;
+
+public class Http2IT {
+
+    private final K3poTestRule k3po = new K3poTestRule();
+
+    private final TestRule timeout = new DisableOnDebug(new Timeout(5, SECONDS));
+
+    @Rule
+    public final TestRule chain = outerRule(k3po).around(timeout);
+
+    @Test
+    @TestSpecification({
+        "http2.accept.get.request",
+        "http2.connect.get.request"
+    })
+    public void shouldConnectAndAcceptStream() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "http2.accept.two.streams",
+        "http2.connect.two.streams"
+    })
+    public void shouldAcceptMultiplexedChildStreams() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.two.streams",
+        "http2.connect.two.streams"
+    })
+    public void shouldMultiplexStreamsOverOneConnection() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.with.settings",
+        "http2.connect.with.settings"
+    })
+    public void shouldSendSettingsAndCreditStreamWindowAsRead() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.blocked.by.send.window",
+        "http2.connect.blocked.by.send.window"
+    })
+    public void shouldBlockWritesOnStreamSendWindow() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.read.option.window",
+        "http2.connect.read.option.window"
+    })
+    public void shouldUpdateStreamWindowWithReadOption() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.refused.by.goaway",
+        "http2.connect.refused.by.goaway"
+    })
+    public void shouldAbortStreamRefusedByGoAway() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.reset.by.server",
+        "http2.connect.reset.by.server"
+    })
+    public void shouldAbortStreamResetByPeer() throws Exception {
+        k3po.finish();
+    }
+
+    @Test
+    @TestSpecification({
+        "tcp.accept.write.abort",
+        "http2.connect.write.abort"
+    })
+    public void shouldResetStreamOnWriteAbort() throws Exception {
+        k3po.finish();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.load;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldBucketByPowerOfTwo() throws Exception {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(1, LatencyHistogram.bucket(1));
+        assertEquals(2, LatencyHistogram.bucket(3));
+        assertEquals(3, LatencyHistogram.bucket(4));
+        assertEquals(7L, LatencyHistogram.upperBound(3));
+    }
+
+    @Test
+    public void shouldReportPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100, MICROSECONDS);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(10, MILLISECONDS);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100L, histogram.getMinMicros());
+        assertEquals(10000L, histogram.getMaxMicros());
+        assertEquals(1090L, histogram.getMeanMicros());
+        assertEquals(127L, histogram.getPercentileMicros(50));
+        assertEquals(127L, histogram.getPercentileMicros(90));
+        assertEquals(10000L, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void shouldReportZeroWhenEmpty() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+
+        assertEquals(0L, histogram.getMinMicros());
+        assertEquals(0L, histogram.getMeanMicros());
+        assertEquals(0L, histogram.getPercentileMicros(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPercentile() throws Exception {
+        new LatencyHistogram("test").getPercentileMicros(101);
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.load;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime;
+
+public class LoadGeneratorIT {
+
+    private static final String SCRIPT =
+            "connect \"tcp://localhost:62345\"\n" +
+            "connected\n" +
+            "write \"Hello\"\n" +
+            "closed\n";
+
+    @Rule
+    public TestRule timeout = new DisableOnDebug(new Timeout(10, SECONDS));
+
+    private TransportRuntime runtime;
+    private ServerSocket server;
+    private Thread acceptor;
+
+    @Before
+    public void setup() throws Exception {
+        runtime = new TransportRuntime();
+        server = new ServerSocket();
+        server.bind(new InetSocketAddress("localhost", 62345));
+
+        // read the greeting, then close
+        acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        try (Socket accepted = server.accept()) {
+                            byte[] greeting = new byte[5];
+                            int offset = 0;
+                            while (offset < greeting.length) {
+                                offset += accepted.getInputStream().read(greeting, offset, greeting.length - offset);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            }
+        });
+        acceptor.start();
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        server.close();
+        acceptor.join();
+        runtime.releaseExternalResources();
+    }
+
+    @Test
+    public void shouldRunIterationsConcurrently() throws Exception {
+        LoadGenerator generator = new LoadGenerator(SCRIPT, runtime);
+        generator.setIterations(20);
+        generator.setConcurrency(4);
+
+        LoadReport report = generator.run();
+
+        assertEquals(20, report.getPassed());
+        assertEquals(0, report.getFailed());
+        assertEquals(20, report.getScriptLatency().getCount());
+        assertEquals(1, report.getStreamLatencies().size());
+        assertEquals(20, report.getStreamLatencies().get(0).getCount());
+    }
+
+    @Test
+    public void shouldStartIterationsAtRate() throws Exception {
+        LoadGenerator generator = new LoadGenerator(SCRIPT, runtime);
+        generator.setIterations(5);
+        generator.setConcurrency(5);
+        generator.setRate(20.0);
+
+        LoadReport report = generator.run();
+
+        assertEquals(5, report.getPassed());
+        assertEquals(true, report.getElapsedMillis() >= 200L);
+    }
+
+    @Test
+    public void shouldCountFailedIterations() throws Exception {
+        LoadGenerator generator = new LoadGenerator(SCRIPT.replace("Hello", "World\"\nread \"never"), runtime);
+        generator.setIterations(3);
+        generator.setConcurrency(3);
+
+        LoadReport report = generator.run();
+
+        assertEquals(0, report.getPassed());
+        assertEquals(3, report.getFailed());
+        assertEquals(3L, report.getStreamFailures().get(0).longValue());
+    }
+
+    @Test
+    public void shouldCaptureValuesPerIteration() throws Exception {
+        // each connection is sent a random token, and must echo the token it was sent
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try (ServerSocket echoServer = new ServerSocket()) {
+            echoServer.bind(new InetSocketAddress("localhost", 62347));
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            final Socket accepted = echoServer.accept();
+                            executor.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    try (Socket socket = accepted) {
+                                        byte[] token = new byte[8];
+                                        ThreadLocalRandom.current().nextBytes(token);
+                                        OutputStream out = socket.getOutputStream();
+                                        out.write(token);
+                                        out.flush();
+
+                                        byte[] echo = new byte[8];
+                                        new DataInputStream(socket.getInputStream()).readFully(echo);
+                                        out.write(Arrays.equals(token, echo) ? "OK".getBytes() : "KO".getBytes());
+                                        out.flush();
+                                    } catch (IOException e) {
+                                        // iteration failed
+                                    }
+                                }
+                            });
+                        }
+                    } catch (IOException e) {
+                        // server closed
+                    }
+                }
+            });
+
+            String script =
+                    "connect \"tcp://localhost:62347\"\n" +
+                    "connected\n" +
+                    "read ([0..8] :token)\n" +
+                    "write ${token}\n" +
+                    "read \"OK\"\n" +
+                    "closed\n";
+            LoadGenerator generator = new LoadGenerator(script, runtime);
+            generator.setIterations(40);
+            generator.setConcurrency(8);
+
+            LoadReport report = generator.run();
+
+            assertEquals(40, report.getPassed());
+            assertEquals(0, report.getFailed());
+            assertEquals(0L, report.getStreamFailures().get(0).longValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAcceptStreams() throws Exception {
+        LoadGenerator generator = new LoadGenerator("accept \"tcp://localhost:62346\"\naccepted\nconnected\n", runtime);
+        generator.run();
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VirtualTimerTest {
+
+    private VirtualTimer timer;
+
+    @Before
+    public void startTimer() {
+        timer = new VirtualTimer(1, MILLISECONDS);
+    }
+
+    @After
+    public void stopTimer() {
+        timer.stop();
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCollapseIdleWait() throws Exception {
+        final CountDownLatch expired = new CountDownLatch(1);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                expired.countDown();
+            }
+        }, 1, HOURS);
+
+        expired.await();
+
+        assertEquals(1L, timer.currentTime(HOURS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldExpireInDeadlineOrder() throws Exception {
+        final List<String> expired = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(4);
+
+        timer.newTimeout(task("c", expired, done), 30, SECONDS);
+        timer.newTimeout(task("a", expired, done), 10, SECONDS);
+        timer.newTimeout(task("b1", expired, done), 20, SECONDS);
+        timer.newTimeout(task("b2", expired, done), 20, SECONDS);
+
+        done.await();
+
+        assertEquals(asList("a", "b1", "b2", "c"), expired);
+        assertEquals(30L, timer.currentTime(SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldScheduleRelativeToVirtualTime() throws Exception {
+        final List<Long> expiredAt = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                expiredAt.add(timer.currentTime(SECONDS));
+                timer.newTimeout(new TimerTask() {
+                    @Override
+                    public void run(Timeout timeout) throws Exception {
+                        expiredAt.add(timer.currentTime(SECONDS));
+                        done.countDown();
+                    }
+                }, 5, SECONDS);
+            }
+        }, 5, SECONDS);
+
+        done.await();
+
+        assertEquals(asList(5L, 10L), expiredAt);
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimeout() throws Exception {
+        final CountDownLatch expired = new CountDownLatch(1);
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                expired.countDown();
+            }
+        }, 1, SECONDS);
+
+        timeout.cancel();
+
+        assertTrue(timeout.isCancelled());
+        assertFalse(expired.await(100, MILLISECONDS));
+        assertFalse(timeout.isExpired());
+        assertEquals(0L, timer.currentTime(SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldHoldClockUntilReplyArrivesAfterQuiescence() throws Exception {
+        final CountDownLatch expired = new CountDownLatch(1);
+        ChannelFuture reply = new DefaultChannelFuture(null, false);
+
+        timer.track(reply);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                expired.countDown();
+            }
+        }, 1, HOURS);
+
+        assertFalse(expired.await(100, MILLISECONDS));
+        assertEquals(0L, timer.currentTime(SECONDS));
+
+        reply.setSuccess();
+        expired.await();
+
+        assertEquals(1L, timer.currentTime(HOURS));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldNotAdvanceClockWhileTransportActive() throws Exception {
+        VirtualTimer timer = new VirtualTimer(100, MILLISECONDS);
+        try {
+            final CountDownLatch expired = new CountDownLatch(1);
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    expired.countDown();
+                }
+            }, 1, HOURS);
+
+            for (int i = 0; i < 30; i++) {
+                timer.activity();
+                assertFalse(expired.await(10, MILLISECONDS));
+            }
+            assertEquals(0L, timer.currentTime(SECONDS));
+
+            expired.await();
+
+            assertEquals(1L, timer.currentTime(HOURS));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private static TimerTask task(final String name, final List<String> expired, final CountDownLatch done) {
+        return new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                expired.add(name);
+                done.countDown();
+            }
+        };
+    }
+}
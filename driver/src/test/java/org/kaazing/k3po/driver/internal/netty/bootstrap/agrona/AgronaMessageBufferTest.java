@@ -0,0 +1,117 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.agrona;
+
+import static java.util.Collections.singletonList;
+import static org.jboss.netty.channel.Channels.fireMessageReceived;
+import static org.jboss.netty.channel.Channels.pipeline;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.k3po.driver.internal.behavior.handler.codec.Maskers.newMasker;
+import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.local.DefaultLocalClientChannelFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExactBytesDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.event.ReadHandler;
+
+import org.agrona.concurrent.UnsafeBuffer;
+
+public class AgronaMessageBufferTest {
+
+    private byte[] region;
+    private AgronaMessageBuffer message;
+
+    @Before
+    public void wrapRegion() {
+        region = new byte[16];
+        for (int i = 0; i < region.length; i++) {
+            region[i] = (byte) i;
+        }
+        message = new AgronaMessageBuffer();
+        message.wrap(0x01020304, new UnsafeBuffer(region), 8, 4);
+    }
+
+    @Test
+    public void shouldReadTypeIdThenPayloadInPlace() throws Exception {
+        assertEquals(8, message.readableBytes());
+        assertEquals(0x01020304, message.getInt(0));
+        assertEquals(0x03040809, message.getInt(2));
+        assertEquals(0x08090a0b, message.getInt(4));
+
+        byte[] bytes = new byte[8];
+        message.readBytes(bytes);
+        assertArrayEquals(new byte[] { 0x01, 0x02, 0x03, 0x04, 0x08, 0x09, 0x0a, 0x0b }, bytes);
+        assertFalse(message.isRetained());
+
+        region[9] = 0x7f;
+        assertEquals(0x7f, message.getByte(5));
+    }
+
+    @Test
+    public void shouldDetachRetainedSlice() throws Exception {
+        message.readInt();
+        ChannelBuffer slice = message.readSlice(2);
+        assertTrue(message.isRetained());
+
+        message.detach();
+        Arrays.fill(region, (byte) 0);
+
+        assertEquals(0x08, slice.getByte(0));
+        assertEquals(0x09, slice.getByte(1));
+        assertEquals(0x0a0b, message.getShort(6));
+    }
+
+    @Test
+    public void shouldRetainUnreadMessage() throws Exception {
+        assertTrue(message.isRetained());
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void shouldNotWrite() throws Exception {
+        message.setByte(4, 0);
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void shouldNotWriteToByteBuffer() throws Exception {
+        message.toByteBuffer().put(0, (byte) 0);
+    }
+
+    @Test
+    public void shouldReadMessageInPlaceThroughReadHandlers() throws Exception {
+        ReadHandler readTypeId = new ReadHandler(
+                singletonList(new ReadExactBytesDecoder(newSequential(0, 0), new byte[] { 0x01, 0x02, 0x03, 0x04 })),
+                newMasker(new byte[4]));
+        ReadHandler readPayload = new ReadHandler(
+                singletonList(new ReadExactBytesDecoder(newSequential(0, 0), new byte[] { 0x08, 0x09, 0x0a, 0x0b })),
+                newMasker(new byte[4]));
+
+        Channel channel = new DefaultLocalClientChannelFactory().newChannel(pipeline(readTypeId, readPayload));
+        fireMessageReceived(channel, message);
+
+        assertTrue(readTypeId.getHandlerFuture().isSuccess());
+        assertTrue(readPayload.getHandlerFuture().isSuccess());
+        assertFalse(message.isRetained());
+    }
+}
@@ -16,6 +16,7 @@
 package org.kaazing.k3po.driver.internal.netty.bootstrap.http;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.newSetFromMap;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
 import static org.jboss.netty.channel.Channels.pipeline;
@@ -37,6 +38,7 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jboss.netty.channel.Channel;
@@ -221,4 +223,44 @@ public class HttpClientBootstrapTest {
         assertEquals(123, transport.getConfig().getWriteBufferLowWaterMark());
         bootstrap.shutdown();
     }
+
+    @Test
+    public void shouldReuseKeepAliveConnection() throws Exception {
+
+        bootstrap.setPipeline(pipeline(new SimpleChannelHandler()));
+        bootstrap.setOption("keepAlive", true);
+
+        ChannelAddressFactory channelAddressFactory = newChannelAddressFactory();
+        ChannelAddress channelAddress = channelAddressFactory.newChannelAddress(URI.create("http://localhost:8000/path"));
+
+        final Set<InetSocketAddress> remoteAddresses = newSetFromMap(new ConcurrentHashMap<>());
+        HttpContext httpContext = httpServer.createContext("/path");
+        httpContext.setHandler(new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                remoteAddresses.add(exchange.getRemoteAddress());
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+
+        HttpConnectionPool connectionPool = null;
+        for (int i = 0; i < 3; i++) {
+            HttpClientChannel channel = (HttpClientChannel) bootstrap.connect(channelAddress).syncUninterruptibly().getChannel();
+            shutdownOutput(channel).syncUninterruptibly();
+            channel.getCloseFuture().syncUninterruptibly();
+
+            HttpClientChannelSink sink = (HttpClientChannelSink) channel.getPipeline().getSink();
+            Field field = sink.getClass().getDeclaredField("connectionPool");
+            field.setAccessible(true);
+            connectionPool = (HttpConnectionPool) field.get(sink);
+        }
+
+        bootstrap.shutdown();
+
+        assertEquals(1, remoteAddresses.size());
+        assertEquals(1, connectionPool.getConnectCount());
+        assertEquals(2, connectionPool.getReuseCount());
+    }
 }
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jboss.netty.channel.Channels.future;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory.newChannelAddressFactory;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.junit.Test;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddress;
+
+public class HttpConnectionPoolTest {
+
+    private final ChannelAddress address = newChannelAddressFactory().newChannelAddress(URI.create("tcp://localhost:8000"));
+    private final HttpConnectionPool.Key key = new HttpConnectionPool.Key(address, emptyMap());
+
+    @Test
+    public void shouldReuseReleasedConnection() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+        pool.release(key, first.get());
+
+        AtomicReference<Channel> second = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport()), acquired(second));
+
+        assertSame(transport, second.get());
+        assertEquals(1, pool.getConnectCount());
+        assertEquals(1, pool.getReuseCount());
+        assertEquals(0.5, pool.getReuseRatio(), 0.0);
+    }
+
+    @Test
+    public void shouldNotReuseConnectionWithDifferentTransportOptions() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+        pool.release(key, first.get());
+
+        HttpConnectionPool.Key tlsKey = new HttpConnectionPool.Key(address, singletonMap("tcp.nextProtocol", "https"));
+        AtomicReference<Channel> second = new AtomicReference<>();
+        pool.acquire(tlsKey, connector(newTransport()), acquired(second));
+
+        assertNotSame(transport, second.get());
+        assertEquals(2, pool.getConnectCount());
+        assertEquals(0, pool.getReuseCount());
+    }
+
+    @Test
+    public void shouldCountConnectionsInSharedMetrics() throws Exception {
+        HttpConnectionMetrics metrics = new HttpConnectionMetrics();
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        HttpConnectionPool otherPool = new HttpConnectionPool(1, 30, SECONDS);
+        pool.setMetrics(metrics);
+        otherPool.setMetrics(metrics);
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport()), acquired(first));
+        pool.release(key, first.get());
+        pool.acquire(key, connector(newTransport()), acquired(first));
+
+        AtomicReference<Channel> second = new AtomicReference<>();
+        otherPool.acquire(key, connector(newTransport()), acquired(second));
+
+        assertEquals(2, metrics.getConnects());
+        assertEquals(1, metrics.getReuses());
+        assertEquals(1.0 / 3.0, metrics.getReuseRatio(), 0.0);
+    }
+
+    @Test
+    public void shouldWaitForReleaseWhenHostLimitReached() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+
+        AtomicReference<Channel> second = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport()), acquired(second));
+        assertNull(second.get());
+
+        pool.release(key, first.get());
+
+        assertSame(transport, second.get());
+        assertEquals(1, pool.getConnectCount());
+    }
+
+    @Test
+    public void shouldConnectWhenWaitingAndConnectionClosed() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+
+        Channel newTransport = newTransport();
+        AtomicReference<Channel> second = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport), acquired(second));
+
+        close(transport);
+
+        assertSame(newTransport, second.get());
+        assertEquals(2, pool.getConnectCount());
+    }
+
+    @Test
+    public void shouldEvictIdleConnection() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0, MILLISECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+        pool.release(key, first.get());
+
+        Channel newTransport = newTransport();
+        AtomicReference<Channel> second = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport), acquired(second));
+
+        verify(transport).close();
+        assertEquals(1, pool.getEvictionCount());
+        assertEquals(0, pool.getReuseCount());
+    }
+
+    @Test
+    public void shouldEvictIdleConnectionOnTimer() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 0, MILLISECONDS);
+        Timer timer = mock(Timer.class);
+        Timeout timeout = mock(Timeout.class);
+        AtomicReference<TimerTask> evictTask = new AtomicReference<>();
+        when(timer.newTimeout(any(TimerTask.class), anyLong(), any(TimeUnit.class))).then(invocation -> {
+            evictTask.set((TimerTask) invocation.getArguments()[0]);
+            return timeout;
+        });
+        pool.setTimer(timer);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+        pool.release(key, first.get());
+
+        // evicted without using the pool again
+        evictTask.get().run(timeout);
+
+        verify(transport).close();
+        assertEquals(1, pool.getEvictionCount());
+    }
+
+    @Test
+    public void shouldCloseIdleConnectionsOnShutdown() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+        Channel transport = newTransport();
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(transport), acquired(first));
+        pool.release(key, first.get());
+
+        pool.shutdown();
+
+        verify(transport).close();
+    }
+
+    @Test
+    public void shouldFailPendingAcquireOnShutdown() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(1, 30, SECONDS);
+
+        AtomicReference<Channel> first = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport()), acquired(first));
+
+        AtomicReference<ChannelFuture> pending = new AtomicReference<>();
+        pool.acquire(key, connector(newTransport()), pending::set);
+        assertNull(pending.get());
+
+        pool.shutdown();
+
+        assertTrue(pending.get().isDone());
+        assertFalse(pending.get().isSuccess());
+        assertTrue(pending.get().getCause() instanceof ChannelException);
+    }
+
+    private static Channel newTransport() {
+        Channel transport = mock(Channel.class);
+        ChannelFuture closeFuture = future(transport);
+        AtomicBoolean connected = new AtomicBoolean(true);
+        when(transport.isConnected()).then(invocation -> connected.get());
+        when(transport.getCloseFuture()).thenReturn(closeFuture);
+        when(transport.close()).then(invocation -> {
+            connected.set(false);
+            closeFuture.setSuccess();
+            return closeFuture;
+        });
+        return transport;
+    }
+
+    private static void close(Channel transport) {
+        transport.close();
+    }
+
+    private static Supplier<ChannelFuture> connector(Channel transport) {
+        return () -> {
+            ChannelFuture connectFuture = future(transport);
+            connectFuture.setSuccess();
+            return connectFuture;
+        };
+    }
+
+    private static ChannelFutureListener acquired(AtomicReference<Channel> transport) {
+        return future -> transport.set(future.getChannel());
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+public class HpackTest {
+
+    @Test
+    public void shouldEncodeRequestWithoutHuffman() throws Exception {
+        // see RFC 7541 section C.3.1
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ChannelBuffer block = dynamicBuffer();
+
+        encoder.encode(newRequestHeaders(), block, false, HpackIndexing.INCREMENTAL);
+
+        assertEquals("828684410f7777772e6578616d706c652e636f6d", ChannelBuffers.hexDump(block));
+    }
+
+    @Test
+    public void shouldEncodeRequestWithHuffman() throws Exception {
+        // see RFC 7541 section C.4.1
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ChannelBuffer block = dynamicBuffer();
+
+        encoder.encode(newRequestHeaders(), block, true, HpackIndexing.INCREMENTAL);
+
+        assertEquals("828684418cf1e3c2e5f23a6ba0ab90f4ff", ChannelBuffers.hexDump(block));
+    }
+
+    @Test
+    public void shouldDecodeRequestWithHuffman() throws Exception {
+        // see RFC 7541 section C.4.1 and C.4.2
+        HpackDecoder decoder = new HpackDecoder(4096);
+
+        Http2Headers first = new Http2Headers();
+        decoder.decode(wrappedBuffer(hex("828684418cf1e3c2e5f23a6ba0ab90f4ff")), first);
+        assertEquals("www.example.com", first.get(":authority"));
+        assertEquals(57, decoder.tableSize());
+
+        Http2Headers second = new Http2Headers();
+        decoder.decode(wrappedBuffer(hex("828684be5886a8eb10649cbf")), second);
+        assertEquals("GET", second.get(":method"));
+        assertEquals("www.example.com", second.get(":authority"));
+        assertEquals("no-cache", second.get("cache-control"));
+        assertEquals(110, decoder.tableSize());
+    }
+
+    @Test
+    public void shouldRoundTripWithDynamicTable() throws Exception {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096);
+
+        for (int i = 0; i < 3; i++) {
+            Http2Headers headers = newRequestHeaders().add("x-request", "value-" + i).add("x-shared", "shared");
+            ChannelBuffer block = dynamicBuffer();
+            encoder.encode(headers, block, true, HpackIndexing.INCREMENTAL);
+
+            Http2Headers decoded = new Http2Headers();
+            decoder.decode(block, decoded);
+            assertEquals(headers.toString(), decoded.toString());
+        }
+    }
+
+    @Test
+    public void shouldNeverIndexAuthorization() throws Exception {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096);
+        ChannelBuffer block = dynamicBuffer();
+
+        encoder.encode(new Http2Headers().add("authorization", "secret"), block, false, HpackIndexing.INCREMENTAL);
+
+        // literal header field never indexed, see RFC 7541 section 6.2.3
+        assertEquals(0x10, block.getUnsignedByte(0) & 0xf0);
+
+        Http2Headers decoded = new Http2Headers();
+        decoder.decode(block, decoded);
+        assertEquals("secret", decoded.get("authorization"));
+        assertEquals(0, decoder.tableSize());
+    }
+
+    @Test(expected = Http2Exception.class)
+    public void shouldRejectInvalidIndex() throws Exception {
+        HpackDecoder decoder = new HpackDecoder(4096);
+        decoder.decode(wrappedBuffer(hex("be")), new Http2Headers());
+    }
+
+    @Test
+    public void shouldRoundTripHuffman() throws Exception {
+        byte[] octets = "custom-key: custom-value; q=0.9".getBytes("ISO-8859-1");
+
+        byte[] encoded = HpackHuffman.encode(octets);
+        assertEquals(HpackHuffman.encodedLength(octets), encoded.length);
+        assertFalse(encoded.length > octets.length);
+        assertEquals(new String(octets, "ISO-8859-1"), new String(HpackHuffman.decode(encoded), "ISO-8859-1"));
+    }
+
+    private static Http2Headers newRequestHeaders() {
+        return new Http2Headers()
+                .add(":method", "GET")
+                .add(":scheme", "http")
+                .add(":path", "/")
+                .add(":authority", "www.example.com");
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
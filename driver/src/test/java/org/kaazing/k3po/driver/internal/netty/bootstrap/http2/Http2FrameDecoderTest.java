@@ -0,0 +1,82 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.driver.internal.netty.bootstrap.http2;
+
+import static org.jboss.netty.buffer.ChannelBuffers.dynamicBuffer;
+import static org.jboss.netty.buffer.ChannelBuffers.wrappedBuffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+public class Http2FrameDecoderTest {
+
+    @Test
+    public void shouldDecodeSettingsAfterPreface() throws Exception {
+        Http2Settings settings = new Http2Settings();
+        settings.set(Http2Settings.MAX_CONCURRENT_STREAMS, 100);
+
+        ChannelBuffer buffer = dynamicBuffer();
+        buffer.writeBytes(Http2FrameDecoder.CONNECTION_PREFACE.duplicate());
+        buffer.writeBytes(Http2Frame.settings(settings).encode());
+
+        Http2FrameDecoder decoder = new Http2FrameDecoder(true);
+        Http2Frame frame = (Http2Frame) decoder.decode(null, null, buffer);
+
+        assertEquals(Http2Frame.SETTINGS, frame.type());
+        assertEquals(0, frame.streamId());
+
+        Http2Settings decoded = new Http2Settings();
+        decoded.decode(frame.payload());
+        assertEquals(100L, decoded.maxConcurrentStreams());
+        assertTrue(decoded.isSet(Http2Settings.MAX_CONCURRENT_STREAMS));
+    }
+
+    @Test
+    public void shouldWaitForCompleteFrame() throws Exception {
+        ChannelBuffer encoded = Http2Frame.data(1, wrappedBuffer(new byte[] { 1, 2, 3 }), true).encode();
+        ChannelBuffer buffer = dynamicBuffer();
+        buffer.writeBytes(encoded, encoded.readableBytes() - 1);
+
+        Http2FrameDecoder decoder = new Http2FrameDecoder(false);
+        assertNull(decoder.decode(null, null, buffer));
+
+        buffer.writeBytes(encoded);
+        Http2Frame frame = (Http2Frame) decoder.decode(null, null, buffer);
+        assertEquals(Http2Frame.DATA, frame.type());
+        assertEquals(1, frame.streamId());
+        assertTrue(frame.hasFlag(Http2Frame.FLAG_END_STREAM));
+        assertEquals(3, frame.payload().readableBytes());
+    }
+
+    @Test(expected = Http2Exception.class)
+    public void shouldRejectInvalidPreface() throws Exception {
+        ChannelBuffer buffer = dynamicBuffer();
+        buffer.writeBytes("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("US-ASCII"));
+
+        new Http2FrameDecoder(true).decode(null, null, buffer);
+    }
+
+    @Test(expected = Http2Exception.class)
+    public void shouldRejectOversizedFrame() throws Exception {
+        ChannelBuffer payload = wrappedBuffer(new byte[Http2Settings.DEFAULT_MAX_FRAME_SIZE + 1]);
+        ChannelBuffer buffer = Http2Frame.data(1, payload, false).encode();
+
+        new Http2FrameDecoder(false).decode(null, null, buffer);
+    }
+}
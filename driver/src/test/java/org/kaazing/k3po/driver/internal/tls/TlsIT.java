@@ -106,4 +106,13 @@ public class TlsIT {
     public void shouldReceiveClientSentWriteClose() throws Exception {
         k3po.finish();
     }
+
+    @Test
+    @TestSpecification({
+        "session.resumed/server",
+        "session.resumed/client"
+    })
+    public void shouldResumeSession() throws Exception {
+        k3po.finish();
+    }
 }
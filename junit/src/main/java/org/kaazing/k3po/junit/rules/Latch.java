@@ -16,6 +16,7 @@
 package org.kaazing.k3po.junit.rules;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -27,7 +28,7 @@ class Latch {
     private volatile Exception exception;
 
     private final CountDownLatch prepared;
-    private final CountDownLatch startable;
+    private final CompletableFuture<Void> startable;
     private final CountDownLatch finished;
     private volatile Thread testThread;
     
@@ -37,7 +38,7 @@ class Latch {
         state = State.INIT;
 
         prepared = new CountDownLatch(1);
-        startable = new CountDownLatch(1);
+        startable = new CompletableFuture<>();
         finished = new CountDownLatch(1);
     }
 
@@ -71,7 +72,7 @@ class Latch {
         switch (state) {
         case PREPARED:
             state = State.STARTABLE;
-            startable.countDown();
+            startable.complete(null);
             break;
         case STARTABLE:
         case FINISHED:
@@ -82,15 +83,12 @@ class Latch {
         }
     }
 
-    void awaitStartable() throws Exception {
-        startable.await();
-        if (exception != null) {
-            throw exception;
-        }
+    void whenStartable(Runnable action) {
+        startable.thenRun(action);
     }
 
     boolean isStartable() {
-        return startable.getCount() == 0L;
+        return startable.isDone();
     }
 
     void notifyFinished() {
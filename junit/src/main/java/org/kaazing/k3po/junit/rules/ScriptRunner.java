@@ -16,19 +16,20 @@
 package org.kaazing.k3po.junit.rules;
 
 import static java.lang.String.format;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.lang.management.ManagementFactory;
 import java.net.ConnectException;
-import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.kaazing.k3po.control.internal.Control;
+import org.kaazing.k3po.control.internal.ControlClient;
+import org.kaazing.k3po.control.internal.ControlListener;
+import org.kaazing.k3po.control.internal.ControlSession;
 import org.kaazing.k3po.control.internal.command.AbortCommand;
 import org.kaazing.k3po.control.internal.command.PrepareCommand;
 import org.kaazing.k3po.control.internal.command.StartCommand;
@@ -39,15 +40,21 @@ import org.kaazing.k3po.control.internal.event.NotifiedEvent;
 import org.kaazing.k3po.control.internal.event.PreparedEvent;
 import org.kaazing.k3po.junit.rules.internal.ScriptPair;
 
-final class ScriptRunner implements Callable<ScriptPair> {
+final class ScriptRunner implements ControlListener {
 
-    private final Control controller;
+    private final URL controlURL;
     private final List<String> names;
     private final Latch latch;
+    private final List<String> overridenScriptProperties;
+    private final Map<String, CountDownLatch> barriers;
+    private final CompletableFuture<ScriptPair> scripts;
+    private final AtomicBoolean completed;
+    private final AtomicBoolean abortWritten;
 
+    private volatile ControlSession controller;
     private volatile boolean abortScheduled;
-    private volatile Map<String, CountDownLatch> barriers;
-    private final List<String> overridenScriptProperties;
+    private volatile boolean preparedReceived;
+    private volatile String expectedScript;
 
     ScriptRunner(URL controlURL, List<String> names, Latch latch, List<String> overridenScriptProperties) {
 
@@ -59,11 +66,14 @@ final class ScriptRunner implements Callable<ScriptPair> {
             throw new NullPointerException("latch");
         }
 
-        this.controller = new Control(controlURL);
+        this.controlURL = controlURL;
         this.names = names;
         this.latch = latch;
-        this.barriers = new HashMap<String, CountDownLatch>();
+        this.barriers = new ConcurrentHashMap<String, CountDownLatch>();
         this.overridenScriptProperties = overridenScriptProperties;
+        this.scripts = new CompletableFuture<ScriptPair>();
+        this.completed = new AtomicBoolean();
+        this.abortWritten = new AtomicBoolean();
     }
 
     public void abort() {
@@ -71,101 +81,128 @@ final class ScriptRunner implements Callable<ScriptPair> {
         // we will send this on the wire to appear in the diff (https://github.com/k3po/k3po/issues/332)
         this.abortScheduled = true;
         latch.notifyAbort();
+
+        // once prepared, deliver the abort immediately rather than waiting for the next event
+        if (preparedReceived) {
+            sendAbortCommand();
+        }
     }
 
-    @Override
-    public ScriptPair call() throws Exception {
+    /**
+     * Connects to k3po and prepares the scripts, without blocking the calling thread.
+     * @return a future completed with the expected and observed scripts when k3po has finished
+     */
+    public CompletableFuture<ScriptPair> start() {
+
+        // We are already done if abort before we start
+        if (abortScheduled) {
+            complete(new ScriptPair());
+            return scripts;
+        }
 
         try {
-            // We are already done if abort before we start
-            if (abortScheduled) {
-                return new ScriptPair();
-            }
+            ControlClient.getDefault().connect(controlURL, this).whenComplete((session, cause) -> {
+                if (cause != null) {
+                    fail(cause);
+                } else {
+                    controller = session;
 
-            controller.connect();
-
-            // send PREPARE command
-            PrepareCommand prepare = new PrepareCommand();
-            prepare.setNames(names);
-            prepare.setOverriddenScriptProperties(overridenScriptProperties);
-
-            controller.writeCommand(prepare);
-
-            boolean abortWritten = false;
-            String expectedScript = null;
-            while (true) {
-                try {
-                    // validate event name matches command name
-                    CommandEvent event = controller.readEvent(200, MILLISECONDS);
-
-                    // process event
-                    switch (event.getKind()) {
-                    case PREPARED:
-                        PreparedEvent prepared = (PreparedEvent) event;
-                        expectedScript = prepared.getScript();
-                        for (String barrier : prepared.getBarriers()) {
-                            barriers.put(barrier, new CountDownLatch(1));
-                        }
-
-                        // notify script is prepared
-                        latch.notifyPrepared();
-
-                        latch.awaitStartable();
-
-                        // Send ABORT if we were asked to abort otherwise send start command
-                        if (abortScheduled && !abortWritten) {
-                            sendAbortCommand();
-                            abortWritten = true;
-                        } else {
-                            // send START command
-                            StartCommand start = new StartCommand();
-                            controller.writeCommand(start);
-                        }
-                        break;
-                    case STARTED:
-                        break;
-                    case NOTIFIED:
-                        NotifiedEvent notifiedEvent = (NotifiedEvent) event;
-                        String barrier = notifiedEvent.getBarrier();
-                        CountDownLatch notifiedLatch = barriers.get(barrier);
-                        notifiedLatch.countDown();
-                        break;
-                    case ERROR:
-                        ErrorEvent error = (ErrorEvent) event;
-                        throw new SpecificationException(format("%s:%s", error.getSummary(), error.getDescription()));
-                    case FINISHED:
-                        FinishedEvent finished = (FinishedEvent) event;
-                        // notify all barriers
-                        notifyBarriers(finished);
-                        // note: observed script is possibly incomplete
-                        String observedScript = finished.getScript();
-                        return new ScriptPair(expectedScript, observedScript);
-                    default:
-                        throw new IllegalArgumentException("Unrecognized event kind: " + event.getKind());
-                    }
-                } catch (SocketTimeoutException e) {
-                    if (abortScheduled && !abortWritten) {
-                        sendAbortCommand();
-                        abortWritten = true;
-                    }
+                    // send PREPARE command
+                    PrepareCommand prepare = new PrepareCommand();
+                    prepare.setNames(names);
+                    prepare.setOverriddenScriptProperties(overridenScriptProperties);
 
-                    // defensive clean-up in case Robot control server stalls during response to ABORT
-                    if (Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
+                    session.writeCommand(prepare);
+                }
+            });
+        } catch (Exception e) {
+            fail(e);
+        }
+
+        return scripts;
+    }
+
+    @Override
+    public void onEvent(CommandEvent event) {
+        try {
+            switch (event.getKind()) {
+            case PREPARED:
+                PreparedEvent prepared = (PreparedEvent) event;
+                for (String barrier : prepared.getBarriers()) {
+                    barriers.put(barrier, new CountDownLatch(1));
                 }
+                expectedScript = prepared.getScript();
+                preparedReceived = true;
+
+                // notify script is prepared
+                latch.notifyPrepared();
+
+                latch.whenStartable(() -> {
+                    // Send ABORT if we were asked to abort otherwise send start command
+                    if (abortScheduled) {
+                        sendAbortCommand();
+                    } else {
+                        // send START command
+                        StartCommand start = new StartCommand();
+                        controller.writeCommand(start);
+                    }
+                });
+                break;
+            case STARTED:
+                break;
+            case NOTIFIED:
+                NotifiedEvent notifiedEvent = (NotifiedEvent) event;
+                String barrier = notifiedEvent.getBarrier();
+                CountDownLatch notifiedLatch = barriers.get(barrier);
+                notifiedLatch.countDown();
+                break;
+            case ERROR:
+                ErrorEvent error = (ErrorEvent) event;
+                throw new SpecificationException(format("%s:%s", error.getSummary(), error.getDescription()));
+            case FINISHED:
+                FinishedEvent finished = (FinishedEvent) event;
+                // notify all barriers
+                notifyBarriers(finished);
+                // note: observed script is possibly incomplete
+                String observedScript = finished.getScript();
+                complete(new ScriptPair(expectedScript, observedScript));
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized event kind: " + event.getKind());
             }
-        } catch (ConnectException e) {
-            Exception exception = new Exception("Failed to connect. Is K3PO ready?", e);
-            exception.fillInStackTrace();
-            latch.notifyException(exception);
-            throw e;
         } catch (Exception e) {
-            latch.notifyException(e);
-            throw e;
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onClosed(Throwable cause) {
+        fail(cause != null ? cause : new IllegalStateException("Control connection closed before script finished"));
+    }
 
-        } finally {
+    private void complete(ScriptPair scriptPair) {
+        if (completed.compareAndSet(false, true)) {
             latch.notifyFinished();
+            scripts.complete(scriptPair);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (completed.compareAndSet(false, true)) {
+            try {
+                if (cause instanceof ConnectException) {
+                    Exception exception = new Exception("Failed to connect. Is K3PO ready?", cause);
+                    exception.fillInStackTrace();
+                    latch.notifyException(exception);
+                } else if (cause instanceof Exception) {
+                    latch.notifyException((Exception) cause);
+                } else {
+                    latch.notifyException(new Exception(cause));
+                }
+            } finally {
+                latch.notifyFinished();
+                scripts.completeExceptionally(cause);
+            }
         }
     }
 
@@ -177,9 +214,11 @@ final class ScriptRunner implements Callable<ScriptPair> {
         }
     }
 
-    private void sendAbortCommand() throws Exception {
-        AbortCommand abort = new AbortCommand();
-        controller.writeCommand(abort);
+    private void sendAbortCommand() {
+        if (abortWritten.compareAndSet(false, true)) {
+            AbortCommand abort = new AbortCommand();
+            controller.writeCommand(abort);
+        }
     }
 
     public void awaitBarrier(String barrierName) throws Exception {
@@ -205,7 +244,11 @@ final class ScriptRunner implements Callable<ScriptPair> {
     }
 
     public void dispose() throws Exception {
-        if (controller.isConnected())
+        // the test is over, so a connection closed by dispose is not a script failure
+        completed.set(true);
+
+        ControlSession controller = this.controller;
+        if (controller != null && controller.isConnected())
             controller.disconnect();
     }
 
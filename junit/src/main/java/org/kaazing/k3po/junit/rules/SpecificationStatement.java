@@ -23,8 +23,8 @@ import static org.junit.Assert.assertTrue;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
 
 import org.junit.AssumptionViolatedException;
 import org.junit.ComparisonFailure;
@@ -50,12 +50,10 @@ final class SpecificationStatement extends Statement {
 
         latch.setInterruptOnException(Thread.currentThread());
 
-        FutureTask<ScriptPair> scriptFuture = new FutureTask<>(scriptRunner);
+        // start the script execution
+        CompletableFuture<ScriptPair> scriptFuture = scriptRunner.start();
 
         try {
-            // start the script execution
-            new Thread(scriptFuture).start();
-
             try {
                 // wait for script to be prepared (all binds ready for incoming connections from statement)
                 latch.awaitPrepared();
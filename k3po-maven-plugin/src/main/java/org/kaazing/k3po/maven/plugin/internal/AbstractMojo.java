@@ -15,6 +15,15 @@
  */
 package org.kaazing.k3po.maven.plugin.internal;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -27,6 +36,7 @@ import org.kaazing.k3po.driver.internal.RobotServer;
 public abstract class AbstractMojo extends org.apache.maven.plugin.AbstractMojo {
 
     private static final ThreadLocal<RobotServer> ROBOT_SERVER = new ThreadLocal<>();
+    private static final ThreadLocal<CompiledScripts> COMPILED_SCRIPTS = new ThreadLocal<>();
 
     @Parameter(defaultValue = "${project}", readonly = true)
     protected MavenProject project;
@@ -63,4 +73,29 @@ public abstract class AbstractMojo extends org.apache.maven.plugin.AbstractMojo
         return ROBOT_SERVER.get();
     }
 
+    void setCompiledScripts(CompiledScripts scripts) {
+        COMPILED_SCRIPTS.set(scripts);
+    }
+
+    CompiledScripts takeCompiledScripts() {
+        CompiledScripts scripts = COMPILED_SCRIPTS.get();
+        COMPILED_SCRIPTS.remove();
+        return scripts;
+    }
+
+    protected ClassLoader createTestClassLoader(File scriptDir)
+            throws DependencyResolutionRequiredException, MalformedURLException {
+        List<URL> scriptPath = new LinkedList<>();
+        if (scriptDir != null) {
+            scriptPath.add(scriptDir.getAbsoluteFile().toURI().toURL());
+        }
+        for (Object scriptPathEntry : project.getTestClasspathElements()) {
+            URI scriptPathURI = new File(scriptPathEntry.toString()).getAbsoluteFile().toURI();
+            scriptPath.add(scriptPathURI.toURL());
+        }
+
+        ClassLoader parent = getClass().getClassLoader();
+        return new URLClassLoader(scriptPath.toArray(new URL[scriptPath.size()]), parent);
+    }
+
 }
@@ -0,0 +1,215 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.maven.plugin.internal;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.currentThread;
+import static org.apache.maven.plugins.annotations.LifecyclePhase.PROCESS_TEST_CLASSES;
+import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptIndex;
+import org.kaazing.k3po.driver.internal.control.handler.ControlServerHandler;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
+
+/**
+ * Compile K3PO scripts on the script path, failing the build on project scripts that do not parse or validate, and
+ * index them for the start goal
+ */
+@Mojo(name = "compile", defaultPhase = PROCESS_TEST_CLASSES, requiresDependencyResolution = TEST)
+public class CompileMojo extends AbstractMojo {
+
+    private static final String SCRIPT_EXTENSION = ".rpt";
+
+    @Parameter(defaultValue = "src/test/scripts")
+    private File scriptDir;
+
+    @Parameter(defaultValue = "${project.build.directory}/k3po/scripts.idx", property = "maven.k3po.scriptIndex")
+    private File scriptIndex;
+
+    @Override
+    protected void executeImpl() throws MojoExecutionException, MojoFailureException {
+
+        Log log = getLog();
+        long checkpoint = currentTimeMillis();
+
+        Map<String, Boolean> scriptNames;
+        ClassLoader testClassLoader;
+        try {
+            scriptNames = findScriptNames();
+            testClassLoader = createTestClassLoader(scriptDir);
+        }
+        catch (Exception e) {
+            throw new MojoExecutionException("K3PO failed to find scripts", e);
+        }
+
+        ScriptIndex index = new ScriptIndex();
+        CompiledScripts compiled = new CompiledScripts(scriptDir, testClassLoader, index);
+        Map<String, String> failures = new TreeMap<>();
+
+        // discover function mappers and type systems once for all scripts
+        ServiceRegistry services = ServiceRegistry.register(testClassLoader);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Map<String, Future<String>> results = new TreeMap<>();
+            for (String scriptName : scriptNames.keySet()) {
+                results.put(scriptName, executor.submit(() -> compile(scriptName, testClassLoader, compiled)));
+            }
+
+            for (Map.Entry<String, Future<String>> result : results.entrySet()) {
+                String failure = result.getValue().get();
+                if (failure != null) {
+                    failures.put(result.getKey(), failure);
+                }
+            }
+        }
+        catch (Exception e) {
+            throw new MojoExecutionException("K3PO failed to compile scripts", e);
+        }
+        finally {
+            executor.shutdownNow();
+            services.unregister();
+        }
+
+        // scripts of dependencies are not indexed when they fail, but only the project's own scripts fail the build
+        int projectFailures = 0;
+        for (Map.Entry<String, String> failure : failures.entrySet()) {
+            String scriptName = failure.getKey();
+            String message = format("%s: %s", scriptName, failure.getValue());
+            if (scriptNames.get(scriptName)) {
+                log.error(message);
+                projectFailures++;
+            }
+            else {
+                log.warn(message);
+            }
+        }
+
+        if (projectFailures != 0) {
+            throw new MojoFailureException(format("K3PO failed to compile %d of %d scripts", projectFailures,
+                    scriptNames.size()));
+        }
+
+        try {
+            Path indexPath = scriptIndex.toPath();
+            Files.createDirectories(indexPath.toAbsolutePath().getParent());
+            index.write(indexPath);
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException(format("K3PO failed to write script index [%s]", scriptIndex), e);
+        }
+
+        setCompiledScripts(compiled);
+
+        float duration = (currentTimeMillis() - checkpoint) / 1000.0f;
+        log.info(format("K3PO compiled %d of %d scripts in %.3fsec", index.size(), scriptNames.size(), duration));
+    }
+
+    /*
+     * Compiles a script as read for a prepare, returning the failure message if any
+     */
+    private static String compile(String scriptName, ClassLoader testClassLoader, CompiledScripts compiled) {
+        Thread currentThread = currentThread();
+        ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(testClassLoader);
+
+            String text = ControlServerHandler.readScript(scriptName, testClassLoader, new ArrayList<URL>());
+            if (text == null) {
+                return "Script not found";
+            }
+
+            CompiledScript script = ScriptCache.compile(text);
+            compiled.getIndex().add(scriptName, text);
+            compiled.add(scriptName, script);
+            return null;
+        }
+        catch (Exception e) {
+            return (e.getMessage() != null) ? e.getMessage() : e.toString();
+        }
+        finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /*
+     * Finds the names of scripts on the script path, mapped to whether the script belongs to the project
+     */
+    private Map<String, Boolean> findScriptNames() throws Exception {
+        Path basedir = project.getBasedir().getAbsoluteFile().toPath().normalize();
+
+        List<File> scriptPath = new ArrayList<>();
+        if (scriptDir != null) {
+            scriptPath.add(scriptDir);
+        }
+        for (Object scriptPathEntry : project.getTestClasspathElements()) {
+            scriptPath.add(new File(scriptPathEntry.toString()));
+        }
+
+        Map<String, Boolean> scriptNames = new TreeMap<>();
+        for (File scriptPathEntry : scriptPath) {
+            Path scriptRoot = scriptPathEntry.getAbsoluteFile().toPath().normalize();
+            boolean projectScript = scriptRoot.startsWith(basedir);
+            if (Files.isDirectory(scriptRoot)) {
+                try (Stream<Path> paths = Files.walk(scriptRoot)) {
+                    paths.filter(path -> path.toString().endsWith(SCRIPT_EXTENSION) && Files.isRegularFile(path))
+                         .map(path -> scriptRoot.relativize(path).toString().replace(File.separatorChar, '/'))
+                         .forEach(name -> scriptNames.putIfAbsent(scriptName(name), projectScript));
+                }
+            }
+            else if (Files.isRegularFile(scriptRoot)) {
+                try (JarFile jar = new JarFile(scriptRoot.toFile())) {
+                    for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                        JarEntry entry = entries.nextElement();
+                        String name = entry.getName();
+                        if (!entry.isDirectory() && name.endsWith(SCRIPT_EXTENSION)) {
+                            scriptNames.putIfAbsent(scriptName(name), projectScript);
+                        }
+                    }
+                }
+            }
+        }
+        return scriptNames;
+    }
+
+    private static String scriptName(String path) {
+        return path.substring(0, path.length() - SCRIPT_EXTENSION.length());
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.maven.plugin.internal;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptIndex;
+
+/**
+ * Scripts parsed by the compile goal, handed to the server started by the start goal of the same build so that the
+ * first run of each script is not parsed again.
+ *
+ * Parsed scripts resolve functions and types through the class loader they were parsed with, so the server uses the
+ * same script loader. Parsed scripts are softly referenced, the garbage collector may reclaim them under pressure.
+ */
+final class CompiledScripts {
+
+    private final File scriptDir;
+    private final ClassLoader scriptLoader;
+    private final ScriptIndex index;
+    private final Map<String, SoftReference<CompiledScript>> scripts;
+
+    CompiledScripts(File scriptDir, ClassLoader scriptLoader, ScriptIndex index) {
+        this.scriptDir = scriptDir;
+        this.scriptLoader = scriptLoader;
+        this.index = index;
+        this.scripts = new ConcurrentHashMap<>();
+    }
+
+    ClassLoader getScriptLoader() {
+        return scriptLoader;
+    }
+
+    ScriptIndex getIndex() {
+        return index;
+    }
+
+    boolean isCompiledFrom(File scriptDir) {
+        return (this.scriptDir != null) ? this.scriptDir.equals(scriptDir) : scriptDir == null;
+    }
+
+    void add(String scriptName, CompiledScript script) {
+        scripts.put(scriptName, new SoftReference<>(script));
+    }
+
+    /**
+     * Seeds each script not yet reclaimed, for a prepare of the same content, such as naming only that script
+     * without origin or overrides
+     */
+    int seed(ScriptCache scriptCache) {
+        int seeded = 0;
+        for (SoftReference<CompiledScript> reference : scripts.values()) {
+            CompiledScript script = reference.get();
+            if (script != null) {
+                scriptCache.seed(script);
+                seeded++;
+            }
+        }
+        scripts.clear();
+        return seeded;
+    }
+}
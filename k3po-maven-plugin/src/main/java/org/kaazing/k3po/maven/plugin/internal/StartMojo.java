@@ -23,15 +23,9 @@ import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
 import static org.jboss.netty.logging.InternalLoggerFactory.setDefaultFactory;
 
 import java.io.File;
-import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
-import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -39,6 +33,7 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.kaazing.k3po.driver.internal.RobotServer;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptIndex;
 import org.kaazing.k3po.maven.plugin.internal.logging.MavenLoggerFactory;
 
 /**
@@ -56,9 +51,15 @@ public class StartMojo extends AbstractMojo {
     @Parameter(defaultValue = "src/test/scripts")
     private File scriptDir;
 
+    @Parameter(defaultValue = "${project.build.directory}/k3po/scripts.idx", property = "maven.k3po.scriptIndex")
+    private File scriptIndex;
+
     @Parameter(defaultValue = "false", property = "maven.k3po.verbose")
     private boolean verbose;
 
+    @Parameter(defaultValue = "1", property = "maven.k3po.concurrency")
+    private int concurrency;
+
     @Parameter(property = "basedir")
     private File workingDirectory;
 
@@ -82,9 +83,33 @@ public class StartMojo extends AbstractMojo {
             }
             System.setProperty("user.dir", workingDirectory.getAbsolutePath());
 
-            ClassLoader testClassLoader = createTestClassLoader();
+            // scripts compiled earlier in this build first run unparsed, with the class loader they were parsed by
+            CompiledScripts compiledScripts = takeCompiledScripts();
+            if (compiledScripts != null && !compiledScripts.isCompiledFrom(scriptDir)) {
+                compiledScripts = null;
+            }
+
+            ClassLoader testClassLoader = (compiledScripts != null)
+                    ? compiledScripts.getScriptLoader()
+                    : createTestClassLoader(scriptDir);
 
-            RobotServer server = new RobotServer(getControl(), verbose, testClassLoader);
+            RobotServer server = new RobotServer(getControl(), verbose, testClassLoader, concurrency);
+
+            // scripts aggregated from indexed scripts are only parsed, not validated again
+            if (compiledScripts != null) {
+                server.setScriptIndex(compiledScripts.getIndex());
+                int seeded = compiledScripts.seed(server.getScriptCache());
+                if (log.isDebugEnabled()) {
+                    log.debug(format("Seeded %d of %d compiled scripts", seeded, compiledScripts.getIndex().size()));
+                }
+            }
+            else if (scriptIndex != null && scriptIndex.isFile()) {
+                ScriptIndex index = ScriptIndex.read(scriptIndex.toPath());
+                if (log.isDebugEnabled()) {
+                    log.debug(format("Read index of %d compiled scripts from [%s]", index.size(), scriptIndex));
+                }
+                server.setScriptIndex(index);
+            }
 
             Map<?, ?> pluginsAsMap = project.getBuild().getPluginsAsMap();
             Plugin plugin = (Plugin) pluginsAsMap.get("org.kaazing:k3po-maven-plugin");
@@ -147,19 +172,4 @@ public class StartMojo extends AbstractMojo {
             currentThread().setContextClassLoader(contextClassLoader);
         }
     }
-
-    private ClassLoader createTestClassLoader()
-            throws DependencyResolutionRequiredException, MalformedURLException {
-        List<URL> scriptPath = new LinkedList<>();
-        if (scriptDir != null) {
-            scriptPath.add(scriptDir.getAbsoluteFile().toURI().toURL());
-        }
-        for (Object scriptPathEntry : project.getTestClasspathElements()) {
-            URI scriptPathURI = new File(scriptPathEntry.toString()).getAbsoluteFile().toURI();
-            scriptPath.add(scriptPathURI.toURL());
-        }
-
-        ClassLoader parent = getClass().getClassLoader();
-        return new URLClassLoader(scriptPath.toArray(new URL[scriptPath.size()]), parent);
-    }
 }
@@ -41,6 +41,10 @@ public class StopMojo extends AbstractMojo {
                 float duration = (currentTimeMillis() - checkpoint) / 1000.0f;
                 getLog().debug(format("K3PO [%08x] stopped in %.3fsec", identityHashCode(server), duration));
 
+                for (String metric : server.getMetricsReport().split("\\r?\\n")) {
+                    getLog().info(format("K3PO %s", metric));
+                }
+
                 setServer(null);
             }
             catch (Exception e) {
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.evaluate;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
+
+import java.util.function.Supplier;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.kaazing.k3po.lang.internal.el.ExpressionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluates and captures expression values through an {@link ExpressionContext}, as done by reads and writes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ExpressionBenchmark {
+
+    private ExpressionContext environment;
+    private ValueExpression variable;
+    private ValueExpression arithmetic;
+    private ValueExpression capture;
+    private Supplier<Integer> compiledArithmetic;
+    private byte[] captured;
+
+    @Setup
+    public void init() {
+        ExpressionFactory factory = newExpressionFactory();
+        environment = new ExpressionContext();
+
+        variable = factory.createValueExpression(environment, "${greeting}", byte[].class);
+        arithmetic = factory.createValueExpression(environment, "${count + 1}", Integer.class);
+        capture = factory.createValueExpression(environment, "${captured}", Object.class);
+
+        factory.createValueExpression(environment, "${greeting}", Object.class).setValue(environment, "Hello, world");
+        factory.createValueExpression(environment, "${count}", Object.class).setValue(environment, 41);
+        captured = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+        compiledArithmetic = newSupplier(arithmetic, environment, Integer.class);
+    }
+
+    @Benchmark
+    public byte[] evaluateVariable() {
+        return evaluate(variable, environment, byte[].class);
+    }
+
+    @Benchmark
+    public Integer evaluateArithmetic() {
+        return evaluate(arithmetic, environment, Integer.class);
+    }
+
+    @Benchmark
+    public Integer evaluateCompiledArithmetic() {
+        return compiledArithmetic.get();
+    }
+
+    @Benchmark
+    public void captureValue() {
+        capture.setValue(environment, captured);
+    }
+}
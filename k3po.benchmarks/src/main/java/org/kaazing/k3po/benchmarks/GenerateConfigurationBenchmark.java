@@ -0,0 +1,77 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory.newBootstrapFactory;
+import static org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory.newChannelAddressFactory;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kaazing.k3po.driver.internal.behavior.Configuration;
+import org.kaazing.k3po.driver.internal.behavior.parser.CompiledScript;
+import org.kaazing.k3po.driver.internal.behavior.parser.ScriptCache;
+import org.kaazing.k3po.driver.internal.behavior.visitor.GenerateConfigurationVisitor;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.BootstrapFactory;
+import org.kaazing.k3po.driver.internal.netty.channel.ChannelAddressFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates the pipelines of a parsed script, as done for every PREPARE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GenerateConfigurationBenchmark {
+
+    private ChannelAddressFactory addressFactory;
+    private BootstrapFactory bootstrapFactory;
+    private CompiledScript script;
+
+    @Setup
+    public void init() throws Exception {
+        addressFactory = newChannelAddressFactory();
+        bootstrapFactory = newBootstrapFactory(
+                Collections.<Class<?>, Object>singletonMap(ChannelAddressFactory.class, addressFactory));
+        script = ScriptCache.compile(Scripts.ECHO);
+    }
+
+    @TearDown
+    public void destroy() {
+        bootstrapFactory.shutdown();
+        bootstrapFactory.releaseExternalResources();
+    }
+
+    @Benchmark
+    public Configuration generate() {
+        GenerateConfigurationVisitor visitor = new GenerateConfigurationVisitor(bootstrapFactory, addressFactory);
+        return script.getAst().accept(visitor, new GenerateConfigurationVisitor.State(new ConcurrentHashMap<>()));
+    }
+}
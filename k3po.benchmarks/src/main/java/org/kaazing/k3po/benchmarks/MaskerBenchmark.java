@@ -0,0 +1,103 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.jboss.netty.buffer.ChannelBuffers.buffer;
+import static org.jboss.netty.buffer.ChannelBuffers.directBuffer;
+
+import java.util.Random;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.Masker;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.Maskers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the word-at-a-time {@link Maskers} against the byte-at-a-time masking it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class MaskerBenchmark {
+
+    @Param({"125", "65536"})
+    public int length;
+
+    @Param({"true", "false"})
+    public boolean direct;
+
+    private byte[] maskingKey;
+    private Masker masker;
+    private ChannelBuffer payload;
+    private int offset;
+
+    @Setup
+    public void init() {
+        maskingKey = new byte[] { 0x01, 0x02, 0x03, 0x04 };
+        masker = Maskers.newMasker(maskingKey);
+
+        byte[] bytes = new byte[length];
+        new Random(0).nextBytes(bytes);
+
+        payload = direct ? directBuffer(length) : buffer(length);
+        payload.writeBytes(bytes);
+    }
+
+    @Benchmark
+    public ChannelBuffer wordMask() {
+        return masker.applyMask(payload);
+    }
+
+    @Benchmark
+    public ChannelBuffer byteMask() {
+        return applyMaskBytewise(payload, maskingKey);
+    }
+
+    // masking as previously implemented by Maskers, for reference
+    private ChannelBuffer applyMaskBytewise(ChannelBuffer buffer, byte[] maskingKey) {
+
+        int readerIndex = buffer.readerIndex();
+        int writerIndex = buffer.writerIndex();
+
+        for (int index = readerIndex; index < writerIndex; index++) {
+            int maskIndex = (index + offset) % maskingKey.length;
+            byte mask = maskingKey[maskIndex];
+            if (mask != 0x00) {
+                byte value = buffer.getByte(index);
+                value ^= mask;
+                buffer.setByte(index, value);
+            }
+        }
+
+        offset = (offset + writerIndex - readerIndex) % maskingKey.length;
+
+        return buffer;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jboss.netty.buffer.ChannelBuffers.copiedBuffer;
+import static org.kaazing.k3po.lang.internal.RegionInfo.newSequential;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
+
+import java.util.Arrays;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExactBytesDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadExpressionDecoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.ReadRegexDecoder;
+import org.kaazing.k3po.lang.internal.RegionInfo;
+import org.kaazing.k3po.lang.internal.el.ExpressionContext;
+import org.kaazing.k3po.lang.internal.regex.NamedGroupPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matches a read arriving in a given number of fragments with each kind of read decoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ReadDecoderBenchmark {
+
+    private static final RegionInfo REGION_INFO = newSequential(0, 0);
+
+    @Param({"64", "4096"})
+    public int length;
+
+    @Param({"1", "4"})
+    public int fragments;
+
+    private ChannelBuffer[] payload;
+
+    private MessageDecoder exactBytesDecoder;
+    private MessageDecoder regexDecoder;
+    private MessageDecoder expressionDecoder;
+
+    @Setup
+    public void init() {
+        byte[] text = new byte[length];
+        Arrays.fill(text, (byte) 'a');
+        text[length - 2] = '\r';
+        text[length - 1] = '\n';
+
+        payload = new ChannelBuffer[fragments];
+        int fragmentLength = length / fragments;
+        for (int i = 0; i < fragments; i++) {
+            int offset = i * fragmentLength;
+            int limit = (i == fragments - 1) ? length : offset + fragmentLength;
+            payload[i] = copiedBuffer(text, offset, limit - offset);
+        }
+
+        ExpressionFactory factory = newExpressionFactory();
+        ExpressionContext environment = new ExpressionContext();
+        ValueExpression expression = factory.createValueExpression(environment, "${expected}", byte[].class);
+        expression.setValue(environment, text);
+
+        exactBytesDecoder = new ReadExactBytesDecoder(REGION_INFO, text);
+        regexDecoder = new ReadRegexDecoder(REGION_INFO, NamedGroupPattern.compile("(?<line>a+)\\r\\n"), UTF_8, environment);
+        expressionDecoder = new ReadExpressionDecoder(REGION_INFO, expression, environment);
+    }
+
+    @Benchmark
+    public ChannelBuffer exactBytes() throws Exception {
+        return decode(exactBytesDecoder);
+    }
+
+    @Benchmark
+    public ChannelBuffer regex() throws Exception {
+        return decode(regexDecoder);
+    }
+
+    @Benchmark
+    public ChannelBuffer expression() throws Exception {
+        return decode(expressionDecoder);
+    }
+
+    private ChannelBuffer decode(MessageDecoder decoder) throws Exception {
+        ChannelBuffer remaining = null;
+        for (ChannelBuffer fragment : payload) {
+            remaining = decoder.decode(fragment.duplicate());
+        }
+        return remaining;
+    }
+}
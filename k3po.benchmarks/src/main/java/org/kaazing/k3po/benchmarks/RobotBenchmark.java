@@ -0,0 +1,75 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.Map;
+
+import org.kaazing.k3po.driver.internal.Robot;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a script end to end over tcp loopback, from prepare through start to finish, as driven by the control protocol.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RobotBenchmark {
+
+    private TransportRuntime transportRuntime;
+    private Map<Class<?>, Object> injectables;
+
+    @Setup
+    public void init() {
+        transportRuntime = new TransportRuntime();
+        injectables = transportRuntime.getInjectables();
+    }
+
+    @TearDown
+    public void destroy() {
+        transportRuntime.releaseExternalResources();
+    }
+
+    @Benchmark
+    public String prepareStartFinish() throws Exception {
+        Robot robot = new Robot(injectables);
+        try {
+            robot.prepare(Scripts.ECHO).sync();
+            robot.start().sync();
+            robot.finish().sync();
+            return robot.getObservedScript();
+        }
+        finally {
+            // dispose always completes with a failure cause, only completion matters here
+            robot.dispose().awaitUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+final class Scripts {
+
+    // echo over tcp loopback, with literal, regex and expression matchers
+    static final String ECHO =
+            "property greeting \"Hello, world\"\n" +
+            "\n" +
+            "accept \"tcp://localhost:8001\"\n" +
+            "accepted\n" +
+            "connected\n" +
+            "read \"GET /echo HTTP/1.1\\r\\n\"\n" +
+            "read /Host: (?<host>[^\\r]+)\\r\\n/\n" +
+            "read \"\\r\\n\"\n" +
+            "read ${greeting}\n" +
+            "write \"HTTP/1.1 200 OK\\r\\n\"\n" +
+            "write \"Host: \" ${host} \"\\r\\n\"\n" +
+            "write \"\\r\\n\"\n" +
+            "write ${greeting}\n" +
+            "closed\n" +
+            "\n" +
+            "connect \"tcp://localhost:8001\"\n" +
+            "connected\n" +
+            "write \"GET /echo HTTP/1.1\\r\\n\"\n" +
+            "write \"Host: localhost:8001\\r\\n\"\n" +
+            "write \"\\r\\n\"\n" +
+            "write ${greeting}\n" +
+            "read \"HTTP/1.1 200 OK\\r\\n\"\n" +
+            "read \"Host: localhost:8001\\r\\n\"\n" +
+            "read \"\\r\\n\"\n" +
+            "read ${greeting}\n" +
+            "close\n" +
+            "closed\n";
+
+    private Scripts() {
+        // utility class
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jboss.netty.channel.Channels.pipeline;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newSupplier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.local.DefaultLocalClientChannelFactory;
+import org.kaazing.k3po.driver.internal.behavior.handler.ExecutionHandler;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.Masker;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.Maskers;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.MessageEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.WriteBytesEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.WriteExpressionEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.codec.WriteTextEncoder;
+import org.kaazing.k3po.driver.internal.behavior.handler.command.WriteHandler;
+import org.kaazing.k3po.lang.internal.el.ExpressionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Executes a write of literal, text and expression values through a {@link WriteHandler}, optionally masked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class WriteHandlerBenchmark {
+
+    @Param({"64", "65536"})
+    public int length;
+
+    @Param({"false", "true"})
+    public boolean masked;
+
+    private List<MessageEncoder> encoders;
+    private byte[] maskingKey;
+    private ChannelFactory channelFactory;
+    private SimpleChannelHandler sink;
+
+    @Setup
+    public void init() {
+        ExpressionFactory factory = newExpressionFactory();
+        ExpressionContext environment = new ExpressionContext();
+        ValueExpression expression = factory.createValueExpression(environment, "${payload}", byte[].class);
+        expression.setValue(environment, new byte[length]);
+
+        encoders = new ArrayList<>();
+        encoders.add(new WriteBytesEncoder(new byte[] { 0x01, 0x02, 0x03, 0x04 }));
+        encoders.add(new WriteTextEncoder("Hello, world", UTF_8));
+        encoders.add(new WriteExpressionEncoder(newSupplier(expression, environment, byte[].class), expression));
+
+        maskingKey = masked ? new byte[] { 0x01, 0x02, 0x03, 0x04 } : new byte[] { 0x00, 0x00, 0x00, 0x00 };
+
+        channelFactory = new DefaultLocalClientChannelFactory();
+        sink = new SimpleChannelHandler() {
+            @Override
+            public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) {
+                e.getFuture().setSuccess();
+            }
+        };
+    }
+
+    @TearDown
+    public void destroy() {
+        channelFactory.releaseExternalResources();
+    }
+
+    @Benchmark
+    public ChannelFuture write() throws Exception {
+        Masker masker = Maskers.newMasker(maskingKey);
+        ExecutionHandler execution = new ExecutionHandler();
+        WriteHandler handler = new WriteHandler(encoders, masker);
+
+        ChannelPipeline pipeline = pipeline(sink, execution, handler);
+        Channel channel = channelFactory.newChannel(pipeline);
+        execution.getHandlerFuture().setSuccess();
+
+        ChannelFuture handlerFuture = handler.getHandlerFuture();
+        channel.close();
+        return handlerFuture;
+    }
+}
@@ -15,39 +15,54 @@
  */
 package org.kaazing.k3po.pcap.converter.internal;
 
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 
 import org.kaazing.k3po.pcap.converter.internal.author.RptScriptCreator;
 import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+import org.kaazing.k3po.pcap.converter.internal.parser.PacketSource;
 import org.kaazing.k3po.pcap.converter.internal.parser.Parser;
+import org.kaazing.k3po.pcap.converter.internal.parser.PcapReader;
 
 /**
  * Converts the tcpdump into rupert script
  */
 public class PcapConverter {
 
-    private Parser pdmlParser;
+    private PacketSource packetSource;
 
     public PcapConverter(InputStream tcpDumpFileLocation, InputStream pdmlOutputFileDestination) {
+        this(new Parser(tcpDumpFileLocation, pdmlOutputFileDestination));
+    }
+
+    /**
+     * Converts the packets of a source, e.g. a {@link PcapReader} reading the capture without tshark
+     * @param packetSource
+     */
+    public PcapConverter(PacketSource packetSource) {
         super();
-        pdmlParser = new Parser(tcpDumpFileLocation, pdmlOutputFileDestination);
+        this.packetSource = packetSource;
     }
 
     public void convertTcpDumpToRpt() throws PcapConverterFailureException {
         RptScriptCreator creator = new RptScriptCreator();
         creator.saveMemory();
         Packet packet;
-        while ((packet = pdmlParser.getNextPacket()) != null) {
+        while ((packet = packetSource.getNextPacket()) != null) {
             creator.addPacketToScripts(packet);
         }
         creator.commitToFile();
     }
     
-    public static void main(String... args) throws FileNotFoundException{
-    	if(args.length != 2){
-    		System.out.println("Usage arg[0] = tcpDumpFile, arg[1] = pdmlOutputFile");
+    public static void main(String... args) throws IOException{
+    	if(args.length == 1){
+    		try (PcapReader reader = new PcapReader(new File(args[0]))) {
+    			new PcapConverter(reader).convertTcpDumpToRpt();
+    		}
+    	}else if(args.length != 2){
+    		System.out.println("Usage arg[0] = tcpDumpFile, [arg[1] = pdmlOutputFile]");
     	}else{
     		PcapConverter converter = new PcapConverter(new FileInputStream(args[0]), new FileInputStream(args[1]));
     		converter.convertTcpDumpToRpt();
@@ -71,7 +71,7 @@ public class ConversationId {
         if ( obj.getClass() != getClass() ) {
             return false;
         }
-        if ( id.equals(rcn.getId()) ) {
+        if ( id.equals(rcn.getId()) && protocol == rcn.getProtocol() ) {
             return true;
         }
         return false;
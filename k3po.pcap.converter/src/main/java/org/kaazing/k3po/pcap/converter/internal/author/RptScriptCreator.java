@@ -18,8 +18,11 @@ package org.kaazing.k3po.pcap.converter.internal.author;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-import org.kaazing.k3po.pcap.converter.internal.author.composer.ComposerFactory;
 import org.kaazing.k3po.pcap.converter.internal.author.composer.GenericComposerFactory;
 import org.kaazing.k3po.pcap.converter.internal.author.coordinator.Coordinator;
 import org.kaazing.k3po.pcap.converter.internal.author.coordinator.CoordinatorFactory;
@@ -35,10 +38,17 @@ import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
  * 
  * Creates the Rupert Scripts by feeding it a packet at a time
  * 
+ * Conversations are sharded by ConversationId across worker threads, each conversation is always authored on the
+ * same worker so its packets are handled in capture order. Coordinators are committed as soon as they finish.
+ * 
  */
 public class RptScriptCreator {
 
+    // packets queued per worker before addPacketToScripts blocks, bounds memory when the reader is faster
+    private static final int MAX_QUEUED_PACKETS = 4096;
+
     private final Map<ConversationId, Stack<Coordinator>> coordinators;
+    private final Shard[] shards;
     private final EmitterFactory emitterFactory;
     private final CoordinatorFactory coordinatorFactory;
 
@@ -52,49 +62,59 @@ public class RptScriptCreator {
 
     
     public RptScriptCreator() {
-        emitterFactory = new EmitterFactoryImpl();
-        ComposerFactory composerFactory = new GenericComposerFactory(emitterFactory);
-        coordinatorFactory = new CoordinatorFactoryImpl(composerFactory, emitterFactory);
-        creatorNote = emitterFactory.getNoteEmitter(OutputType.CREATOR, CREATOR_NOTE_HEADER);
-        coordinators = new HashMap<>();
+        this(new EmitterFactoryImpl(), Runtime.getRuntime().availableProcessors());
+    }
 
+    private RptScriptCreator(EmitterFactory emitterFactory, int workers) {
+        this(emitterFactory, new CoordinatorFactoryImpl(new GenericComposerFactory(emitterFactory), emitterFactory),
+                workers);
     }
     
     public RptScriptCreator(EmitterFactory emitterFactory, CoordinatorFactory coordinatorFactory){
+        this(emitterFactory, coordinatorFactory, 1);
+    }
+
+    /**
+     * @param emitterFactory
+     * @param coordinatorFactory
+     * @param workers number of threads conversations are authored on, with 1 packets are handled on the calling thread
+     */
+    public RptScriptCreator(EmitterFactory emitterFactory, CoordinatorFactory coordinatorFactory, int workers){
+        if ( workers < 1 ) {
+            throw new IllegalArgumentException("workers must be at least 1: " + workers);
+        }
         this.emitterFactory = emitterFactory;
         this.coordinatorFactory = coordinatorFactory;
         creatorNote = emitterFactory.getNoteEmitter(OutputType.CREATOR, CREATOR_NOTE_HEADER);
         coordinators = new HashMap<>();
+        shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new Shard(workers > 1 ? newWorker(i) : null);
+        }
     }
 
     public void addPacketToScripts(Packet packet) {
+        final SupportedProtocol protocol;
         if ( packet.isTcp() ) {
-            ConversationId conversationId = new ConversationId(packet, SupportedProtocol.TCP);
-            
-            if ( !coordinators.containsKey(conversationId) ) { // if no key for host pair create it
-                coordinators.put(conversationId, new Stack<Coordinator>());
-            }
-            
-            Stack<Coordinator> set = coordinators.get(conversationId);
-            if ( set.empty() || set.peek().isFinished() ) {
-                Coordinator coordinator = coordinatorFactory.getCoordinator(conversationId);
-                coordinator.startScript(packet);
-                set.push(coordinator);
-                coordinators.put(conversationId, set);
-            }
-            else {
-                set.peek().conversation(packet);
-            }
+            protocol = SupportedProtocol.TCP;
+        }
+        else if ( packet.isUdp() ) {
+            protocol = SupportedProtocol.UDP;
+        }
+        else {
             return;
         }
-        return;
+        final ConversationId conversationId = new ConversationId(packet, protocol);
+        shards[(conversationId.hashCode() & 0x7fffffff) % shards.length].add(conversationId, packet);
     }
 
     public void commitToFile() {
-        for (Stack<Coordinator> stack : coordinators.values()) {
-            for (Coordinator cord : stack) {
-                cord.commitToFile();
-            }
+        for (Shard shard : shards) {
+            shard.commit();
+        }
+        for (Shard shard : shards) {
+            shard.await();
+            coordinators.putAll(shard.coordinators);
         }
 
         KeyToEmitterHashMap topLevelEmitters = new KeyToEmitterHashMap();
@@ -161,4 +181,114 @@ public class RptScriptCreator {
 	public void saveMemory() {
 		emitterFactory.setMemSaver(true);	
 	}
+
+    private static ExecutorService newWorker(final int index) {
+        ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_PACKETS), runnable -> {
+                    Thread thread = new Thread(runnable, "rpt-script-creator-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // wait for room in the queue rather than reorder or drop packets
+        worker.setRejectedExecutionHandler((runnable, executor) -> {
+            if ( executor.isShutdown() ) {
+                throw new RptScriptsCreatorFailureException("Scripts have already been committed to file");
+            }
+            try {
+                executor.getQueue().put(runnable);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RptScriptsCreatorFailureException("Interrupted adding packet to scripts");
+            }
+        });
+        return worker;
+    }
+
+    /**
+     * The conversations authored on one worker, or on the calling thread when there is no worker
+     * 
+     */
+    private final class Shard {
+
+        private final Map<ConversationId, Stack<Coordinator>> coordinators = new HashMap<>();
+        private final ExecutorService worker;
+        private volatile RuntimeException failure;
+
+        Shard(ExecutorService worker) {
+            this.worker = worker;
+        }
+
+        void add(final ConversationId conversationId, final Packet packet) {
+            execute(() -> addPacket(conversationId, packet));
+        }
+
+        void commit() {
+            execute(() -> {
+                // earlier coordinators were committed when they finished
+                for (Stack<Coordinator> stack : coordinators.values()) {
+                    stack.peek().commitToFile();
+                }
+            });
+        }
+
+        void await() {
+            if ( worker != null ) {
+                worker.shutdown();
+                try {
+                    worker.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                }
+                catch (InterruptedException e) {
+                    worker.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new RptScriptsCreatorFailureException("Interrupted committing scripts to file");
+                }
+            }
+            checkFailure();
+        }
+
+        private void addPacket(ConversationId conversationId, Packet packet) {
+            if ( !coordinators.containsKey(conversationId) ) { // if no key for host pair create it
+                coordinators.put(conversationId, new Stack<Coordinator>());
+            }
+            
+            Stack<Coordinator> set = coordinators.get(conversationId);
+            if ( set.empty() || set.peek().isFinished() ) {
+                if ( !set.empty() ) {
+                    // flush the finished scripts now, rather than holding them until the end of the capture
+                    set.peek().commitToFile();
+                }
+                Coordinator coordinator = coordinatorFactory.getCoordinator(conversationId);
+                coordinator.startScript(packet);
+                set.push(coordinator);
+            }
+            else {
+                set.peek().conversation(packet);
+            }
+        }
+
+        private void execute(Runnable task) {
+            checkFailure();
+            if ( worker == null ) {
+                task.run();
+                return;
+            }
+            worker.execute(() -> {
+                if ( failure == null ) {
+                    try {
+                        task.run();
+                    }
+                    catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+            });
+        }
+
+        private void checkFailure() {
+            if ( failure != null ) {
+                throw failure;
+            }
+        }
+    }
 }
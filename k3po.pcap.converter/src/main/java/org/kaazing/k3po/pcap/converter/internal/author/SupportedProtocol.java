@@ -16,5 +16,5 @@
 package org.kaazing.k3po.pcap.converter.internal.author;
 
 public enum SupportedProtocol {
-    TCP
+    TCP, UDP
 }
@@ -57,6 +57,19 @@ public class GenericComposerFactory implements ComposerFactory {
             }
 
         }
+        else if ( sp == SupportedProtocol.UDP ) {
+            if ( et == ComposerType.CLIENT ) {
+                return new UdpClientComposer(emitterFactory, emitterFactory.getRptScriptEmitter(
+                        OutputType.UDP_CLIENT_COMPOSER, identifier), endpointIp);
+            }
+            else if ( et == ComposerType.SERVER ) {
+                return new UdpServerComposer(emitterFactory, emitterFactory.getRptScriptEmitter(
+                        OutputType.UDP_SERVER_COMPOSER, identifier), endpointIp);
+            }
+            else {
+                throw new ComposerTypeException("Endpoint type of " + et + " not supported with " + sp);
+            }
+        }
         else {
             throw new SupportedProtocolException("Supported Protocol has unimplemented method 'getComposer', protocol:"
                     + sp);
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.author.composer;
+
+import java.util.logging.Logger;
+
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.Emitter;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.EmitterFactory;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.OutputType;
+import org.kaazing.k3po.pcap.converter.internal.author.script.ScriptState;
+import org.kaazing.k3po.pcap.converter.internal.author.script.UdpScript;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Composes the rupert scripts of the client side of udp flows, writing the datagrams it sends and reading the ones
+ * it receives
+ *
+ */
+public class UdpClientComposer extends UdpComposer {
+
+    private final static Logger LOG = Logger.getLogger(UdpClientComposer.class.getName());
+    protected final static OutputType OUTPUT_TYPE = OutputType.UDP_CLIENT_SCRIPT;
+
+    public UdpClientComposer(EmitterFactory emitterFactory, Emitter emitter, String ipaddress) {
+        super(emitterFactory, emitter, ipaddress);
+        LOG.fine("Creating udp client composer for " + this.ipaddress);
+    }
+
+    @Override
+    protected UdpScript newScript(Packet packet, long idleTimeout) {
+        String serverIp = packet.getDestIpAddr();
+        int serverPort = packet.getDestPort();
+        int clientPort = packet.getSrcPort();
+        UdpClientScript script = new UdpClientScript(emitterFactory.getRptScriptEmitter(OUTPUT_TYPE, "udp-server-"
+                + serverIp + "-" + serverPort + "-client-" + ipaddress + "-" + clientPort + "-ClientSide"));
+        script.writeConnect(serverIp, serverPort, packet);
+        return script;
+    }
+
+    @Override
+    protected void closeScript(UdpScript script, double date) {
+        // the client chooses when to stop using its socket, which is after its last datagram
+        script.writeClose(date);
+        script.writeClosed();
+    }
+
+    @Override
+    protected void fromClient(UdpScript script, Packet packet) {
+        script.writeDatagram(packet);
+    }
+
+    @Override
+    protected void toClient(UdpScript script, Packet packet) {
+        script.readDatagram(packet);
+    }
+
+    private class UdpClientScript extends UdpScript {
+
+        public UdpClientScript(Emitter emitter) {
+            super(emitter);
+        }
+
+        public void writeConnect(String serverIp, int serverPort, Packet packet) {
+            setLastActionTime(packet.getTimeInMicroSecondsFromEpoch());
+            writeMetaData("Connect occured at epoch " + packet.getTimeStamp() + "  -  "
+                    + packet.getTimeInMicroSecondsFromEpoch());
+            setState(ScriptState.CONNECT);
+            writeln("connect \"" + formatUri(serverIp, serverPort) + "\"");
+            writeConnected(packet.getTimeInMicroSecondsFromEpoch());
+        }
+    }
+}
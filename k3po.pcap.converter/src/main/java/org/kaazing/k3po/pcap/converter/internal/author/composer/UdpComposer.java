@@ -0,0 +1,135 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.author.composer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kaazing.k3po.pcap.converter.internal.author.RptScriptsCreatorFailureException;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.Emitter;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.EmitterFactory;
+import org.kaazing.k3po.pcap.converter.internal.author.script.AbstractScript;
+import org.kaazing.k3po.pcap.converter.internal.author.script.ScriptState;
+import org.kaazing.k3po.pcap.converter.internal.author.script.UdpScript;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Composes the rupert scripts of one side of udp flows, udp has no handshake so flows are opened and closed by the
+ * coordinator, which decides which side is the client and when a flow has gone idle
+ *
+ */
+public abstract class UdpComposer extends AbstractComposer {
+
+    // open flows by flow id, a flow that is closed and seen again gets a new script
+    private final Map<String, UdpScript> flows = new HashMap<>();
+    private final List<UdpScript> scripts = new ArrayList<>();
+
+    public UdpComposer(EmitterFactory emitterFactory, Emitter emitter, String ipaddress) {
+        super(emitterFactory, emitter, ipaddress);
+    }
+
+    /**
+     * Starts the script of a new flow
+     * @param packet the first datagram of the flow, sent by the client
+     * @param idleTimeout milliseconds without a datagram after which the flow is closed
+     */
+    public final void openFlow(Packet packet, long idleTimeout) {
+        String flowId = flowId(packet.getSrcIpAddr(), packet.getSrcPort(), packet.getDestIpAddr(),
+                packet.getDestPort());
+        if ( flows.containsKey(flowId) ) {
+            throw new RptScriptsCreatorFailureException("Attempting to open already opened udp flow:" + flowId);
+        }
+        UdpScript script = newScript(packet, idleTimeout);
+        flows.put(flowId, script);
+        scripts.add(script);
+    }
+
+    /**
+     * Ends the script of a flow
+     * @param flowId as returned by {@link #flowId(String, int, String, int)}
+     * @param date of the last datagram of the flow
+     */
+    public final void closeFlow(String flowId, double date) {
+        UdpScript script = flows.remove(flowId);
+        if ( script != null ) {
+            closeScript(script, date);
+        }
+    }
+
+    @Override
+    public final void emitConversation(Packet packet) {
+        UdpScript script = flows.get(flowId(packet.getSrcIpAddr(), packet.getSrcPort(), packet.getDestIpAddr(),
+                packet.getDestPort()));
+        if ( script != null ) {
+            fromClient(script, packet);
+            return;
+        }
+        script = flows.get(flowId(packet.getDestIpAddr(), packet.getDestPort(), packet.getSrcIpAddr(),
+                packet.getSrcPort()));
+        if ( script != null ) {
+            toClient(script, packet);
+        }
+    }
+
+    @Override
+    public final boolean isFinished() {
+        for (UdpScript script : scripts) {
+            if ( script.getState() != ScriptState.CLOSED && script.getState() != ScriptState.NOT_INITED ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public final void writeToFile() {
+        for (UdpScript script : scripts) {
+            script.writeBufferToFile();
+        }
+        addScriptFragmentsIntoBuffer();
+        commitToFile();
+    }
+
+    @Override
+    public final String getScript() {
+        addScriptFragmentsIntoBuffer();
+        return getBuffer();
+    }
+
+    /**
+     * @return the id of the flow between the client and server endpoints
+     */
+    public static String flowId(String clientIp, int clientPort, String serverIp, int serverPort) {
+        return clientIp + ":" + clientPort + ">" + serverIp + ":" + serverPort;
+    }
+
+    protected abstract UdpScript newScript(Packet packet, long idleTimeout);
+
+    protected abstract void closeScript(UdpScript script, double date);
+
+    protected abstract void fromClient(UdpScript script, Packet packet);
+
+    protected abstract void toClient(UdpScript script, Packet packet);
+
+    private void addScriptFragmentsIntoBuffer() {
+        clearBuffer();
+        for (AbstractScript script : scripts) {
+            addToScript(script.getBuffer());
+        }
+    }
+}
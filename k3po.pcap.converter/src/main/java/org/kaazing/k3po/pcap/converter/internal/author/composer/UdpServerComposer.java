@@ -0,0 +1,88 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.author.composer;
+
+import java.util.logging.Logger;
+
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.Emitter;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.EmitterFactory;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.OutputType;
+import org.kaazing.k3po.pcap.converter.internal.author.script.ScriptState;
+import org.kaazing.k3po.pcap.converter.internal.author.script.UdpScript;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Composes the rupert scripts of the server side of udp flows, reading the datagrams of the client and writing
+ * the replies
+ *
+ */
+public class UdpServerComposer extends UdpComposer {
+
+    private final static Logger LOG = Logger.getLogger(UdpServerComposer.class.getName());
+    protected final static OutputType OUTPUT_TYPE = OutputType.UDP_SERVER_SCRIPT;
+
+    public UdpServerComposer(EmitterFactory emitterFactory, Emitter emitter, String ipaddress) {
+        super(emitterFactory, emitter, ipaddress);
+        LOG.fine("Creating udp server composer for " + ipaddress);
+    }
+
+    @Override
+    protected UdpScript newScript(Packet packet, long idleTimeout) {
+        String serverIp = packet.getDestIpAddr();
+        int serverPort = packet.getDestPort();
+        String clientIp = packet.getSrcIpAddr();
+        int clientPort = packet.getSrcPort();
+        UdpServerScript script = new UdpServerScript(emitterFactory.getRptScriptEmitter(OUTPUT_TYPE, "udp-server-"
+                + serverIp + "-" + serverPort + "-client-" + clientIp + "-" + clientPort + "-ServerSide"));
+        script.writeAccept(serverIp, serverPort, idleTimeout, packet);
+        return script;
+    }
+
+    @Override
+    protected void closeScript(UdpScript script, double date) {
+        // the server cannot tell that the client has gone, its child channel closes on the idle timeout
+        script.writeln("# closed because of idle timeout");
+        script.writeClosed();
+    }
+
+    @Override
+    protected void fromClient(UdpScript script, Packet packet) {
+        script.readDatagram(packet);
+    }
+
+    @Override
+    protected void toClient(UdpScript script, Packet packet) {
+        script.writeDatagram(packet);
+    }
+
+    private class UdpServerScript extends UdpScript {
+
+        public UdpServerScript(Emitter emitter) {
+            super(emitter);
+        }
+
+        public void writeAccept(String ipAddress, int port, long idleTimeout, Packet packet) {
+            setLastActionTime(packet.getTimeInMicroSecondsFromEpoch());
+            writeMetaData("Accepting at epoch " + packet.getTimeStamp() + "  -  "
+                    + packet.getTimeInMicroSecondsFromEpoch());
+            writeln("accept \"" + formatUri(ipAddress, port) + "\"");
+            writeln("       option udp:timeout " + idleTimeout);
+            writeln("accepted");
+            setState(ScriptState.ACCEPT);
+            writeConnected(packet.getTimeInMicroSecondsFromEpoch());
+        }
+    }
+}
@@ -25,12 +25,24 @@ public class CoordinatorFactoryImpl implements CoordinatorFactory {
     private ComposerFactory composerFactory;
     private EmitterFactory emitterFactory;
     private boolean verbose = true;
+    private long udpIdleTimeout = UdpCoordinator.DEFAULT_IDLE_TIMEOUT;
 
     public CoordinatorFactoryImpl(ComposerFactory composerFactoryImpl, EmitterFactory emitterFactory) {
         this.composerFactory = composerFactoryImpl;
         this.emitterFactory = emitterFactory;
     }
 
+    /**
+     * @param composerFactoryImpl
+     * @param emitterFactory
+     * @param udpIdleTimeout milliseconds without a datagram after which a udp flow is closed
+     */
+    public CoordinatorFactoryImpl(ComposerFactory composerFactoryImpl, EmitterFactory emitterFactory,
+            long udpIdleTimeout) {
+        this(composerFactoryImpl, emitterFactory);
+        this.udpIdleTimeout = udpIdleTimeout;
+    }
+
     @Override
     public Coordinator getCoordinator(ConversationId cID) {
         if ( cID.getProtocol() == SupportedProtocol.TCP ) {
@@ -39,6 +51,9 @@ public class CoordinatorFactoryImpl implements CoordinatorFactory {
             }
             return new TcpCoordinator(emitterFactory, cID, composerFactory);
         }
+        else if ( cID.getProtocol() == SupportedProtocol.UDP ) {
+            return new UdpCoordinator(emitterFactory, cID, composerFactory, udpIdleTimeout);
+        }
         else {
             throw new SupportedProtocolException(
                     "Supported Protocol has unimplemented method 'getCoordinator', protocol:" + cID.getProtocol());
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.author.coordinator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kaazing.k3po.pcap.converter.internal.author.ConversationId;
+import org.kaazing.k3po.pcap.converter.internal.author.SupportedProtocol;
+import org.kaazing.k3po.pcap.converter.internal.author.composer.ComposerFactory;
+import org.kaazing.k3po.pcap.converter.internal.author.composer.ComposerType;
+import org.kaazing.k3po.pcap.converter.internal.author.composer.UdpComposer;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.EmitterFactory;
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.OutputType;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Coordinates the udp flows between two hosts, and the composers that will each write one side of them
+ *
+ * Udp has no handshake, so the sender of the first datagram of a flow is taken to be the client, and a flow without
+ * a datagram for longer than the idle timeout is closed, a later datagram between the same ports starts a new flow.
+ *
+ */
+public class UdpCoordinator extends AbstractCoordinator implements Coordinator {
+
+    /**
+     * Default milliseconds without a datagram after which a flow is closed
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000L;
+
+    private final long idleTimeout;
+
+    // Maps flow ids to the open flows, and ipaddresses to clients or servers
+    private final Map<String, Flow> flows = new HashMap<>();
+    private final Map<String, UdpComposer> clients = new HashMap<>(2);
+    private final Map<String, UdpComposer> servers = new HashMap<>(2);
+
+    public UdpCoordinator(EmitterFactory emitterFactory, ConversationId conversationId,
+            ComposerFactory composerFactory) {
+        this(emitterFactory, conversationId, composerFactory, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public UdpCoordinator(EmitterFactory emitterFactory, ConversationId conversationId,
+            ComposerFactory composerFactory, long idleTimeout) {
+        super(emitterFactory, emitterFactory.getRptScriptEmitter(OutputType.UDP_COORDINATOR,
+                conversationId.getIpAddr1()), emitterFactory.getRptScriptEmitter(OutputType.UDP_COORDINATOR,
+                conversationId.getIpAddr2()), conversationId, composerFactory);
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public void startScript(Packet packet) {
+        conversation(packet);
+    }
+
+    @Override
+    public void conversation(Packet packet) {
+        double date = packet.getTimeInMicroSecondsFromEpoch();
+        String outbound = UdpComposer.flowId(packet.getSrcIpAddr(), packet.getSrcPort(), packet.getDestIpAddr(),
+                packet.getDestPort());
+        Flow flow = flows.get(outbound);
+        if ( flow == null ) {
+            flow = flows.get(UdpComposer.flowId(packet.getDestIpAddr(), packet.getDestPort(),
+                    packet.getSrcIpAddr(), packet.getSrcPort()));
+        }
+        if ( flow != null && (date - flow.lastDate) * 1000 > idleTimeout ) {
+            closeFlow(flow);
+            flow = null;
+        }
+        if ( flow == null ) {
+            flow = openFlow(outbound, packet);
+        }
+        flow.lastDate = date;
+
+        clients.get(flow.clientIp).emitConversation(packet);
+        servers.get(flow.serverIp).emitConversation(packet);
+    }
+
+    @Override
+    public boolean isFinished() {
+        // flows are split on idle time by this coordinator, so it stays in charge of the conversation
+        return false;
+    }
+
+    @Override
+    public void commitToFile() {
+        for (Flow flow : flows.values().toArray(new Flow[flows.size()])) {
+            closeFlow(flow);
+        }
+        for (UdpComposer composer : clients.values()) {
+            if ( composer.getIp().equals(ipAddr1) ) {
+                ip1Emitter.add(composer.getScript());
+            }
+            else {
+                ip2Emitter.add(composer.getScript());
+            }
+            composer.writeToFile();
+        }
+        for (UdpComposer composer : servers.values()) {
+            if ( composer.getIp().equals(ipAddr1) ) {
+                ip1Emitter.add(composer.getScript());
+            }
+            else {
+                ip2Emitter.add(composer.getScript());
+            }
+            composer.writeToFile();
+        }
+        ip1Emitter.commitToFile();
+        ip2Emitter.commitToFile();
+    }
+
+    @Override
+    public String getScriptsByIp(String ip) {
+        return getClientScriptsByIp(ip) + getServerScriptsByIp(ip);
+    }
+
+    @Override
+    public String getClientScriptsByIp(String ip) {
+        String scripts = "";
+        for (UdpComposer composer : clients.values()) {
+            if ( composer.getIp().equals(ip) ) {
+                scripts += composer.getScript();
+            }
+        }
+        return scripts;
+    }
+
+    @Override
+    public String getServerScriptsByIp(String ip) {
+        String scripts = "";
+        for (UdpComposer composer : servers.values()) {
+            if ( composer.getIp().equals(ip) ) {
+                scripts += composer.getScript();
+            }
+        }
+        return scripts;
+    }
+
+    private Flow openFlow(String flowId, Packet packet) {
+        Flow flow = new Flow(flowId, packet.getSrcIpAddr(), packet.getDestIpAddr());
+        flows.put(flowId, flow);
+
+        if ( !clients.containsKey(flow.clientIp) ) {
+            clients.put(flow.clientIp, (UdpComposer) composerFactory.getComposer(SupportedProtocol.UDP,
+                    ComposerType.CLIENT, flow.clientIp, packet.getSrcIpAddr() + "-" + packet.getDestIpAddr()));
+        }
+        clients.get(flow.clientIp).openFlow(packet, idleTimeout);
+
+        if ( !servers.containsKey(flow.serverIp) ) {
+            servers.put(flow.serverIp, (UdpComposer) composerFactory.getComposer(SupportedProtocol.UDP,
+                    ComposerType.SERVER, flow.serverIp, packet.getDestIpAddr() + "-" + packet.getSrcIpAddr()));
+        }
+        servers.get(flow.serverIp).openFlow(packet, idleTimeout);
+        return flow;
+    }
+
+    private void closeFlow(Flow flow) {
+        flows.remove(flow.id);
+        clients.get(flow.clientIp).closeFlow(flow.id, flow.lastDate);
+        servers.get(flow.serverIp).closeFlow(flow.id, flow.lastDate);
+    }
+
+    private static final class Flow {
+        private final String id;
+        private final String clientIp;
+        private final String serverIp;
+        private double lastDate;
+
+        Flow(String id, String clientIp, String serverIp) {
+            this.id = id;
+            this.clientIp = clientIp;
+            this.serverIp = serverIp;
+        }
+    }
+}
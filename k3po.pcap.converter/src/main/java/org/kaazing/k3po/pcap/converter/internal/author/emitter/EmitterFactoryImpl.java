@@ -17,7 +17,8 @@ package org.kaazing.k3po.pcap.converter.internal.author.emitter;
 
 import java.io.File;
 import java.util.HashMap;
-import java.util.Stack;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.kaazing.k3po.pcap.converter.internal.author.RptScriptsCreatorFailureException;
 
@@ -46,15 +47,15 @@ public class EmitterFactoryImpl implements EmitterFactory {
 
     @Override
     public Emitter getRptScriptEmitter(OutputType ot, String name) {
-        if(ot != OutputType.TCP_CLIENT_SCRIPT && ot != OutputType.TCP_SERVER_SCRIPT){
+        if(!isScript(ot)){
             return new NullEmitter(memSaver);
         }
         return getRptScriptEmitterWithUniqueOutputPath(getOutputFilePath(ot, name));
     }
 
     @Override
-    public Emitter getNoteEmitter(OutputType ot, String noteHeader) {
-        if(ot != OutputType.TCP_CLIENT_SCRIPT && ot != OutputType.TCP_SERVER_SCRIPT){
+    public synchronized Emitter getNoteEmitter(OutputType ot, String noteHeader) {
+        if(!isScript(ot)){
             return new NullEmitter(memSaver);
         }
         if ( !notes.containsKey(ot) ) {
@@ -69,15 +70,30 @@ public class EmitterFactoryImpl implements EmitterFactory {
         return notes.get(ot);
     }
 
-    final private static Stack<String> fileAlreadyCreated = new Stack<>();
+    private static boolean isScript(OutputType ot) {
+        switch (ot) {
+        case TCP_CLIENT_SCRIPT:
+        case TCP_SERVER_SCRIPT:
+        case UDP_CLIENT_SCRIPT:
+        case UDP_SERVER_SCRIPT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    // conversations are authored in parallel, and a large capture creates many files, so this is a set
+    final private static Set<String> fileAlreadyCreated = new HashSet<>();
     private GenericEmitter getRptScriptEmitterWithUniqueOutputPath(String suggestedPathName) {
-        int cnt = 1;
-        File outputFile = new File(suggestedPathName + CNT_SEP + cnt + RUPERT_SCRIPT_ENDING);
-        while (fileAlreadyCreated.contains(outputFile.getAbsolutePath())) {
-            outputFile = new File(suggestedPathName + CNT_SEP + cnt++ + RUPERT_SCRIPT_ENDING);
+        synchronized (fileAlreadyCreated) {
+            int cnt = 1;
+            File outputFile = new File(suggestedPathName + CNT_SEP + cnt + RUPERT_SCRIPT_ENDING);
+            while (fileAlreadyCreated.contains(outputFile.getAbsolutePath())) {
+                outputFile = new File(suggestedPathName + CNT_SEP + cnt++ + RUPERT_SCRIPT_ENDING);
+            }
+            fileAlreadyCreated.add(outputFile.getAbsolutePath());
+            return new GenericEmitter(outputFile);
         }
-        fileAlreadyCreated.add(outputFile.getAbsolutePath());
-        return new GenericEmitter(outputFile);
     }
     
     private String getOutputFilePath(OutputType ot, String name){
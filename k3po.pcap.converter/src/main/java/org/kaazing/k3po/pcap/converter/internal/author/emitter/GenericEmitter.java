@@ -19,39 +19,72 @@ import java.io.File;
 import java.io.IOException;
 
 import org.apache.commons.io.FileUtils;
+import org.kaazing.k3po.pcap.converter.internal.author.RptScriptsCreatorFailureException;
 
+/**
+ * Emits to a file, appending to it whenever the buffer fills up so a long conversation is not held in memory
+ *
+ */
 public class GenericEmitter implements Emitter {
+
+    // buffered characters past which the buffer is appended to the output file
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
     private StringBuilder buffer = new StringBuilder();
     private File outputFile;
+    private boolean written;
     
     protected GenericEmitter(File outputFilePath){
         this.outputFile = outputFilePath;
     }
     
-    public void add(String str){
+    public synchronized void add(String str){
         buffer.append(str);
+        if ( buffer.length() >= MAX_BUFFER_SIZE ) {
+            flush();
+        }
     }
     
-    public void clearBuffer() {
+    public synchronized void clearBuffer() {
         buffer = new StringBuilder(); 
+        if ( written ) {
+            FileUtils.deleteQuietly(outputFile);
+            written = false;
+        }
     }
     
-    public String getBuffer() {
-        return buffer.toString();
+    public synchronized String getBuffer() {
+        if ( !written ) {
+            return buffer.toString();
+        }
+        try {
+            return FileUtils.readFileToString(outputFile) + buffer;
+        }
+        catch (IOException e) {
+            throw new RptScriptsCreatorFailureException("Failed to read back rupert script from file: " + outputFile
+                    + " " + e.getMessage());
+        }
+    }
+
+    public synchronized void commitToFile() {
+        if ( buffer.length() != 0 ) {
+            flush();
+        }
+        else if ( !written ) {
+            FileUtils.deleteQuietly(outputFile);        //just to have no empty files
+        }
     }
 
-    public void commitToFile() {
+    private void flush() {
         try {
-            if(buffer.length() != 0){
-                FileUtils.deleteQuietly(outputFile);        //Clean File
-                FileUtils.write(outputFile, buffer);
-            }else{
-                FileUtils.deleteQuietly(outputFile);        //just to have no empty files
-            }
+            // the first write replaces whatever an earlier run left behind
+            FileUtils.write(outputFile, buffer, written);
+            written = true;
+            buffer = new StringBuilder();
         }
         catch (IOException e) {
             e.printStackTrace();
-            new RuntimeException("Failed to flush rupert script to file: " + outputFile
+            throw new RptScriptsCreatorFailureException("Failed to flush rupert script to file: " + outputFile
                     + e.getMessage());
         }
     }
@@ -16,5 +16,6 @@
 package org.kaazing.k3po.pcap.converter.internal.author.emitter;
 
 public enum OutputType {
-    CREATOR, TCP_COORDINATOR, TCP_CLIENT_COMPOSER, TCP_SERVER_COMPOSER, TCP_CLIENT_SCRIPT, TCP_SERVER_SCRIPT
+    CREATOR, TCP_COORDINATOR, TCP_CLIENT_COMPOSER, TCP_SERVER_COMPOSER, TCP_CLIENT_SCRIPT, TCP_SERVER_SCRIPT,
+    UDP_COORDINATOR, UDP_CLIENT_COMPOSER, UDP_SERVER_COMPOSER, UDP_CLIENT_SCRIPT, UDP_SERVER_SCRIPT
 }
@@ -28,9 +28,17 @@ public abstract class AbstractScript {
     protected double lastActionTime;
     
     public AbstractScript(Emitter emitter) {
+        this(emitter, false);
+    }
+
+    /**
+     * @param emitter
+     * @param datagram whether each read or write of bytes must stay a single command, e.g. one udp datagram
+     */
+    protected AbstractScript(Emitter emitter, boolean datagram) {
         this.emitter = emitter;
-        readWriter = new ByteArrayWriter(ByteArrayWriter.Type.READ, emitter);
-        writeWriter = new ByteArrayWriter(ByteArrayWriter.Type.WRITE, emitter);
+        readWriter = new ByteArrayWriter(ByteArrayWriter.Type.READ, emitter, datagram);
+        writeWriter = new ByteArrayWriter(ByteArrayWriter.Type.WRITE, emitter, datagram);
     }
 
     public final void writeln(String str) {
@@ -77,7 +85,8 @@ public abstract class AbstractScript {
         return bytes.length;
     }
     
-    private final static CharsetEncoder asciiEncoder = Charset.forName("US-ASCII").newEncoder();
+    // encoders are not thread safe, and scripts of different conversations are written in parallel
+    private final CharsetEncoder asciiEncoder = Charset.forName("US-ASCII").newEncoder();
     
     protected int writeWriteBytesInStringFormat(byte[] bytes){
     	String stringToWrite = new String(bytes).replace("\r", "\\r").replace("\n", "\\n");
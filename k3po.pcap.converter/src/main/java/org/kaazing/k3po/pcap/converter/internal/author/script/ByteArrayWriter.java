@@ -45,6 +45,7 @@ public class ByteArrayWriter {
     private State state;
 
     final String textStart, textEnd, binaryStart, binaryEnd;
+    final String continuedTextStart, continuedBinaryStart;
     final int maxBinaryBytesPerLine;
     final int maxTextBytesPerLine;
     final Emitter emitter;
@@ -52,18 +53,32 @@ public class ByteArrayWriter {
     int start; // position up to which bytes have been written
     int startCandidateText; // possible start of text bytes (CANDIDATE_TEXT state only)
     int position; // position of the byte which is being processed
+    boolean continued; // whether a line of these bytes has already been written
     byte[] bytes;
     
     public ByteArrayWriter(Type type, Emitter emitter) {
-        this(emitter, type + " \"", "\"", type + " [", "]");
+        this(type, emitter, false);
+    }
+
+    /**
+     * @param type
+     * @param emitter
+     * @param datagram when true the lines of one write are values of a single read or write command, continuation
+     * lines are indented instead of repeating the command, so the bytes are matched or sent as one datagram
+     */
+    public ByteArrayWriter(Type type, Emitter emitter, boolean datagram) {
+        this(emitter, type + " \"", "\"", type + " [", "]", datagram ? indent(type + " ") : type + " ");
     }
     
-    private ByteArrayWriter(Emitter emitter, String textStart, String textEnd, String hexStart, String hexEnd) {
+    private ByteArrayWriter(Emitter emitter, String textStart, String textEnd, String hexStart, String hexEnd,
+            String continuation) {
         this.emitter = emitter;
         this.textStart = textStart;
         this.textEnd = textEnd;
         this.binaryStart = hexStart;
         this.binaryEnd = hexEnd;
+        this.continuedTextStart = continuation + "\"";
+        this.continuedBinaryStart = continuation + "[";
         // each output binary byte (0xhh) takes 5 characters including a space after
         maxBinaryBytesPerLine = (MAX_HEX_LINE_SIZE - textStart.length() - textEnd.length() + 1) / 5;
         maxTextBytesPerLine = (MAX_TEXT_LINE_SIZE - textStart.length() - textEnd.length());
@@ -71,6 +86,7 @@ public class ByteArrayWriter {
     
     public void write(byte[] bytes) {
         this.bytes = bytes;
+        continued = false;
         start = 0;
         state = State.BINARY;
         for (position=0; position < bytes.length; position++) {
@@ -162,7 +178,8 @@ public class ByteArrayWriter {
         int outputLength = binaryStart.length() + binaryEnd.length()
                 + 5 * (end - fromInclusive) - 1;
         StringBuilder sb = new StringBuilder(outputLength);
-        sb.append(binaryStart);
+        sb.append(continued ? continuedBinaryStart : binaryStart);
+        continued = true;
         int i;
         for (i=fromInclusive; i < end; i++) {
             sb.append(String.format("0x%02X ", bytes[i]));
@@ -187,7 +204,8 @@ public class ByteArrayWriter {
     
     private void writeTextLine(String line, int from) {
         int end = Math.min(line.length() - from, maxTextBytesPerLine) + from;
-        emitter.add(textStart);
+        emitter.add(continued ? continuedTextStart : textStart);
+        continued = true;
         emitter.add(line.substring(from, end));
         emitter.add(textEnd);
         emitter.add("\n");
@@ -196,4 +214,8 @@ public class ByteArrayWriter {
         }
     }
 
+    private static String indent(String command) {
+        return new String(new char[command.length()]).replace('\0', ' ');
+    }
+
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.author.script;
+
+import java.util.logging.Logger;
+
+import org.kaazing.k3po.pcap.converter.internal.author.emitter.Emitter;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * UdpScript extends AbstractScript with specific knowledge of how Udp works, each datagram is written as a single
+ * read or write so that it is matched or sent as one datagram
+ *
+ */
+public abstract class UdpScript extends AbstractScript {
+    private ScriptState state;
+    private final static Logger LOG = Logger.getLogger(UdpScript.class.getName());
+
+    public UdpScript(Emitter emitter) {
+        super(emitter, true);
+        this.setState(ScriptState.NOT_INITED);
+    }
+
+    public final ScriptState getState() {
+        return state;
+    }
+
+    public final void setState(ScriptState state) {
+        this.state = state;
+    }
+
+    public final void readDatagram(Packet packet) {
+        byte[] payload = packet.getUdpPayload();
+        logPayload(payload);
+        if ( payload.length == 0 ) {
+            writeWaitAndSwapDate(packet.getTimeInMicroSecondsFromEpoch());
+            writeln("# empty datagram read");
+            return;
+        }
+        writeReadBytes(payload, packet.getTimeInMicroSecondsFromEpoch());
+    }
+
+    public final void writeDatagram(Packet packet) {
+        byte[] payload = packet.getUdpPayload();
+        logPayload(payload);
+        if ( payload.length == 0 ) {
+            writeWaitAndSwapDate(packet.getTimeInMicroSecondsFromEpoch());
+            writeln("# empty datagram written");
+            return;
+        }
+        writeWriteBytes(payload, packet.getTimeInMicroSecondsFromEpoch());
+    }
+
+    @Override
+    public final void writeConnected(double date) {
+        state = ScriptState.CONNECTED;
+        super.writeConnected(date);
+    }
+
+    @Override
+    public final void writeClosed() {
+        super.writeClosed();
+        state = ScriptState.CLOSED;
+    }
+
+    @Override
+    public final void writeBufferToFile() {
+        if ( this.state == ScriptState.NOT_INITED )
+            return;
+        if ( this.state != ScriptState.CLOSED )
+            LOG.warning("Writing script to file that did not complete lifecycle: (ie not in closed state)");
+        super.writeBufferToFile();
+    }
+
+    /**
+     * @param ipAddress
+     * @param port
+     * @return the udp uri of the address, with IPv6 addresses in brackets
+     */
+    protected static String formatUri(String ipAddress, int port) {
+        String host = ipAddress.indexOf(':') != -1 ? "[" + ipAddress + "]" : ipAddress;
+        return "udp://" + host + ":" + port;
+    }
+}
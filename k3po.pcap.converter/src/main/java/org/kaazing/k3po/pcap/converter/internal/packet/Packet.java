@@ -49,8 +49,8 @@ public class Packet {
     private int tcpDestPort;
     private int tcpStream;
     private int tcpLen;
-    private int tcpRelativeSeqNum;
-    private int tcpNextRelativeSeqNum;
+    private long tcpRelativeSeqNum;
+    private long tcpNextRelativeSeqNum;
     private int tcpPayloadStart;
     private int tcpPayloadSize;
     private byte[] tcpPayload;
@@ -63,6 +63,13 @@ public class Packet {
     private long tcpSequenceNumber;
     private long tcpAcknowledgementNumber;
 
+    // udp
+    private int udpSrcPort;
+    private int udpDestPort;
+    private int udpPayloadStart;
+    private int udpPayloadSize;
+    private byte[] udpPayload;
+
     public Packet() {
 
     }
@@ -205,11 +212,11 @@ public class Packet {
         return timestamp;
     }
 
-    public int getRelativeTcpSeqNum() {
+    public long getRelativeTcpSeqNum() {
         return tcpRelativeSeqNum;
     }
 
-    public void setRelativeTcpSeqNum(int tcpSeq) {
+    public void setRelativeTcpSeqNum(long tcpSeq) {
         this.tcpRelativeSeqNum = tcpSeq;
     }
 
@@ -229,24 +236,68 @@ public class Packet {
         this.tcpFlagsReset = tcpFlagsReset;
     }
 
-    public int getTcpNextRelativeSeqNum() {
+    public long getTcpNextRelativeSeqNum() {
         return tcpNextRelativeSeqNum;
     }
 
-    public void setTcpNextRelativeSeqNum(int tcpNextSeq) {
+    public void setTcpNextRelativeSeqNum(long tcpNextSeq) {
         this.tcpNextRelativeSeqNum = tcpNextSeq;
     }
 
+    public int getUdpSrcPort() {
+        return udpSrcPort;
+    }
+
+    public void setUdpSrcPort(int udpSrcPort) {
+        this.udpSrcPort = udpSrcPort;
+    }
+
+    public int getUdpDestPort() {
+        return udpDestPort;
+    }
+
+    public void setUdpDestPort(int udpDestPort) {
+        this.udpDestPort = udpDestPort;
+    }
+
+    public int getUdpPayloadStart() {
+        return udpPayloadStart;
+    }
+
+    public void setUdpPayloadStart(int udpPayloadStart) {
+        this.udpPayloadStart = udpPayloadStart;
+    }
+
+    public int getUdpPayloadSize() {
+        return udpPayloadSize;
+    }
+
+    public void setUdpPayloadLength(int udpPayloadSize) {
+        this.udpPayloadSize = udpPayloadSize;
+    }
+
+    public byte[] getUdpPayload() {
+        return udpPayload;
+    }
+
+    public void setUdpPayload(byte[] udpPayload) {
+        this.udpPayload = udpPayload;
+    }
+
     public int getDestPort() {
         if(isTcp())
             return getTcpDestPort();
-        throw new PacketFailureException("Asking for packet dest port when that has not been decoded, (ONLY TCP HAS BEEN IMPLEMENTED so far )");
+        if(isUdp())
+            return getUdpDestPort();
+        throw new PacketFailureException("Asking for packet dest port when that has not been decoded, (ONLY TCP AND UDP HAVE BEEN IMPLEMENTED so far )");
     }
     
     public int getSrcPort() {
         if(isTcp())
             return getTcpSrcPort();
-        throw new PacketFailureException("Asking for packet src port when that has not been decoded, (ONLY TCP HAS BEEN IMPLEMENTED so far)");
+        if(isUdp())
+            return getUdpSrcPort();
+        throw new PacketFailureException("Asking for packet src port when that has not been decoded, (ONLY TCP AND UDP HAVE BEEN IMPLEMENTED so far)");
     }
     
     public double getTimeInMicroSecondsFromEpoch() {
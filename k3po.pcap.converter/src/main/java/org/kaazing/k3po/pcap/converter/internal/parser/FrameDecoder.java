@@ -0,0 +1,321 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.parser;
+
+import java.nio.ByteBuffer;
+
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Decodes the link, network and transport headers of a captured frame into a Packet, reading the headers in place
+ * and only copying the transport payload
+ *
+ */
+final class FrameDecoder {
+
+    // link types, see http://www.tcpdump.org/linktypes.html
+    static final int LINKTYPE_NULL = 0;
+    static final int LINKTYPE_ETHERNET = 1;
+    static final int LINKTYPE_RAW = 101;
+    static final int LINKTYPE_LOOP = 108;
+    static final int LINKTYPE_LINUX_SLL = 113;
+    static final int LINKTYPE_IPV4 = 228;
+    static final int LINKTYPE_IPV6 = 229;
+    static final int LINKTYPE_LINUX_SLL2 = 276;
+
+    private static final int ETHERTYPE_IPV4 = 0x0800;
+    private static final int ETHERTYPE_IPV6 = 0x86dd;
+    private static final int ETHERTYPE_VLAN = 0x8100;
+    private static final int ETHERTYPE_QINQ = 0x88a8;
+    private static final int ETHERTYPE_QINQ_OLD = 0x9100;
+
+    private static final int PROTOCOL_TCP = 6;
+    private static final int PROTOCOL_UDP = 17;
+
+    private static final int TCP_FIN = 0x01;
+    private static final int TCP_SYN = 0x02;
+    private static final int TCP_RST = 0x04;
+    private static final int TCP_ACK = 0x10;
+
+    private FrameDecoder() {
+        // utility
+    }
+
+    /**
+     * Decodes a frame into packet
+     * @param linkType the link type of the capture interface
+     * @param frame the captured bytes, in network byte order
+     * @param offset of the frame in the buffer
+     * @param length of the captured frame
+     * @param packet to decode into
+     * @return true if the frame carries IPv4 or IPv6, otherwise the packet is left unset
+     */
+    static boolean decode(int linkType, ByteBuffer frame, int offset, int length, Packet packet) {
+        int limit = offset + length;
+        int etherType;
+        int position;
+
+        switch (linkType) {
+        case LINKTYPE_ETHERNET:
+            if (length < 14) {
+                return false;
+            }
+            position = offset + 12;
+            etherType = frame.getShort(position) & 0xffff;
+            position += 2;
+            while ((etherType == ETHERTYPE_VLAN || etherType == ETHERTYPE_QINQ || etherType == ETHERTYPE_QINQ_OLD)
+                    && position + 4 <= limit) {
+                etherType = frame.getShort(position + 2) & 0xffff;
+                position += 4;
+            }
+            break;
+        case LINKTYPE_LINUX_SLL:
+            if (length < 16) {
+                return false;
+            }
+            etherType = frame.getShort(offset + 14) & 0xffff;
+            position = offset + 16;
+            break;
+        case LINKTYPE_LINUX_SLL2:
+            if (length < 20) {
+                return false;
+            }
+            etherType = frame.getShort(offset) & 0xffff;
+            position = offset + 20;
+            break;
+        case LINKTYPE_NULL:
+        case LINKTYPE_LOOP:
+            // address family, in the byte order of the capturing host for NULL
+            if (length < 4) {
+                return false;
+            }
+            position = offset + 4;
+            etherType = ipVersion(frame, position, limit);
+            break;
+        case LINKTYPE_RAW:
+        case LINKTYPE_IPV4:
+        case LINKTYPE_IPV6:
+            position = offset;
+            etherType = ipVersion(frame, position, limit);
+            break;
+        default:
+            throw new ParserFailureException("Unsupported link type: " + linkType);
+        }
+
+        switch (etherType) {
+        case ETHERTYPE_IPV4:
+            return decodeIpv4(frame, offset, position, limit, packet);
+        case ETHERTYPE_IPV6:
+            return decodeIpv6(frame, offset, position, limit, packet);
+        default:
+            return false;
+        }
+    }
+
+    private static int ipVersion(ByteBuffer frame, int position, int limit) {
+        if (position >= limit) {
+            return -1;
+        }
+        switch ((frame.get(position) >> 4) & 0x0f) {
+        case 4:
+            return ETHERTYPE_IPV4;
+        case 6:
+            return ETHERTYPE_IPV6;
+        default:
+            return -1;
+        }
+    }
+
+    private static boolean decodeIpv4(ByteBuffer frame, int offset, int position, int limit, Packet packet) {
+        if (position + 20 > limit) {
+            return false;
+        }
+
+        int headerLength = (frame.get(position) & 0x0f) << 2;
+        int totalLength = frame.getShort(position + 2) & 0xffff;
+        int fragment = frame.getShort(position + 6) & 0x3fff;
+        int protocol = frame.get(position + 9) & 0xff;
+
+        packet.setIp(true);
+        packet.setSrcIpAddr(ipv4(frame, position + 12));
+        packet.setDestIpAddr(ipv4(frame, position + 16));
+
+        if (fragment != 0 || headerLength < 20) {
+            // fragments are not reassembled, only the addresses are known
+            return true;
+        }
+
+        // ethernet frames may be padded past the end of the datagram
+        int end = (totalLength >= headerLength) ? Math.min(limit, position + totalLength) : limit;
+        decodeTransport(protocol, frame, offset, position + headerLength, end, packet);
+        return true;
+    }
+
+    private static boolean decodeIpv6(ByteBuffer frame, int offset, int position, int limit, Packet packet) {
+        if (position + 40 > limit) {
+            return false;
+        }
+
+        int payloadLength = frame.getShort(position + 4) & 0xffff;
+        int nextHeader = frame.get(position + 6) & 0xff;
+
+        packet.setIp(true);
+        packet.setSrcIpAddr(ipv6(frame, position + 8));
+        packet.setDestIpAddr(ipv6(frame, position + 24));
+
+        int end = (payloadLength != 0) ? Math.min(limit, position + 40 + payloadLength) : limit;
+        position += 40;
+
+        // skip extension headers
+        while (position + 8 <= end) {
+            switch (nextHeader) {
+            case 0:     // hop-by-hop options
+            case 43:    // routing
+            case 60:    // destination options
+                nextHeader = frame.get(position) & 0xff;
+                position += ((frame.get(position + 1) & 0xff) + 1) << 3;
+                continue;
+            case 51:    // authentication header
+                nextHeader = frame.get(position) & 0xff;
+                position += ((frame.get(position + 1) & 0xff) + 2) << 2;
+                continue;
+            case 44:    // fragments are not reassembled
+                return true;
+            default:
+                break;
+            }
+            break;
+        }
+
+        decodeTransport(nextHeader, frame, offset, position, end, packet);
+        return true;
+    }
+
+    private static void decodeTransport(int protocol, ByteBuffer frame, int offset, int position, int end,
+            Packet packet) {
+        switch (protocol) {
+        case PROTOCOL_TCP:
+            decodeTcp(frame, offset, position, end, packet);
+            break;
+        case PROTOCOL_UDP:
+            decodeUdp(frame, offset, position, end, packet);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static void decodeTcp(ByteBuffer frame, int offset, int position, int end, Packet packet) {
+        if (position + 20 > end) {
+            return;
+        }
+
+        int headerLength = ((frame.get(position + 12) >> 4) & 0x0f) << 2;
+        int flags = frame.getShort(position + 12) & 0x01ff;
+        int payloadStart = position + headerLength;
+        if (headerLength < 20 || payloadStart > end) {
+            return;
+        }
+
+        packet.setTcp(true);
+        packet.setTcpSrcPort(frame.getShort(position) & 0xffff);
+        packet.setTcpDestPort(frame.getShort(position + 2) & 0xffff);
+        packet.setTcpSequenceNumber(frame.getInt(position + 4) & 0xffffffffL);
+        packet.setTcpAcknowledgementNumber(frame.getInt(position + 8) & 0xffffffffL);
+        packet.setTcpFlags(flags);
+        packet.setTcpFlagsFin((flags & TCP_FIN) != 0);
+        packet.setTcpFlagsSyn((flags & TCP_SYN) != 0);
+        packet.setTcpFlagsReset((flags & TCP_RST) != 0);
+        packet.setTcpFlagsAck((flags & TCP_ACK) != 0);
+
+        int payloadLength = end - payloadStart;
+        packet.setTcpPayloadStart(payloadStart - offset);
+        packet.setTcpLen(payloadLength);
+        packet.setTcpPayloadLength(payloadLength);
+        packet.setTcpPayload(copy(frame, payloadStart, payloadLength));
+    }
+
+    private static void decodeUdp(ByteBuffer frame, int offset, int position, int end, Packet packet) {
+        if (position + 8 > end) {
+            return;
+        }
+
+        int length = frame.getShort(position + 4) & 0xffff;
+        int payloadStart = position + 8;
+        int payloadEnd = (length >= 8) ? Math.min(end, position + length) : end;
+
+        packet.setUdp(true);
+        packet.setUdpSrcPort(frame.getShort(position) & 0xffff);
+        packet.setUdpDestPort(frame.getShort(position + 2) & 0xffff);
+        packet.setUdpPayloadStart(payloadStart - offset);
+        packet.setUdpPayloadLength(payloadEnd - payloadStart);
+        packet.setUdpPayload(copy(frame, payloadStart, payloadEnd - payloadStart));
+    }
+
+    private static byte[] copy(ByteBuffer frame, int position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = frame.get(position + i);
+        }
+        return bytes;
+    }
+
+    private static String ipv4(ByteBuffer frame, int position) {
+        return (frame.get(position) & 0xff) + "." + (frame.get(position + 1) & 0xff) + "."
+                + (frame.get(position + 2) & 0xff) + "." + (frame.get(position + 3) & 0xff);
+    }
+
+    /*
+     * Formats an IPv6 address the way wireshark shows it, with the longest run of zero groups compressed
+     */
+    private static String ipv6(ByteBuffer frame, int position) {
+        int[] groups = new int[8];
+        for (int i = 0; i < 8; i++) {
+            groups[i] = frame.getShort(position + (i << 1)) & 0xffff;
+        }
+
+        int zerosStart = -1;
+        int zerosLength = 0;
+        for (int i = 0; i < 8;) {
+            if (groups[i] != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && groups[i] == 0) {
+                i++;
+            }
+            if (i - start > zerosLength && i - start > 1) {
+                zerosStart = start;
+                zerosLength = i - start;
+            }
+        }
+
+        StringBuilder address = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == zerosStart) {
+                address.append("::");
+                i += zerosLength - 1;
+                continue;
+            }
+            if (address.length() != 0 && address.charAt(address.length() - 1) != ':') {
+                address.append(':');
+            }
+            address.append(Integer.toHexString(groups[i]));
+        }
+        return address.toString();
+    }
+}
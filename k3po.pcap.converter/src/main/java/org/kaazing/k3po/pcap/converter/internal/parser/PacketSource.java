@@ -0,0 +1,32 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.parser;
+
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Source of the packets of a capture, in capture order
+ *
+ */
+public interface PacketSource {
+
+    /**
+     * Returns the next Packet that can be parsed, or null if all packets have been read
+     * @return Packet
+     */
+    Packet getNextPacket();
+
+}
@@ -36,7 +36,7 @@ import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
  * properties of what was just read
  *
  */
-public class Parser {
+public class Parser implements PacketSource {
 
     private final static Logger LOG = Logger.getLogger(Parser.class.getName());
     private final XmlPullParser parser;
@@ -83,6 +83,7 @@ public class Parser {
      * Returns the next Packet that can be parsed, or null if all packets have been read
      * @return Packet
      */
+    @Override
     public Packet getNextPacket() {
         Packet parsedPacket = parseNextPacketFromPdml();
         
@@ -112,6 +113,11 @@ public class Parser {
             int payloadStart = parsedPacket.getTcpPayloadStart();
             parsedPacket.setTcpPayload(tcpdumpReader.getPayload(payloadStart, payloadSize));
         }
+        else if ( parsedPacket.isUdp() ) {
+            int payloadSize = parsedPacket.getUdpPayloadSize();
+            int payloadStart = parsedPacket.getUdpPayloadStart();
+            parsedPacket.setUdpPayload(tcpdumpReader.getPayload(payloadStart, payloadSize));
+        }
         
         tcpdumpReader.packetReadComplete();
         
@@ -203,6 +209,11 @@ public class Parser {
             currentPacket.setTcpPayloadStart(Integer.parseInt(attributes.get("pos"))
                     + (Integer.parseInt(attributes.get("size"))));
         } 
+        else if ( attributes.checkIfEqual("name", "udp") ) {
+            currentPacket.setUdp(true);
+            currentPacket.setUdpPayloadStart(Integer.parseInt(attributes.get("pos"))
+                    + (Integer.parseInt(attributes.get("size"))));
+        }
         else if ( attributes.checkIfEqual("name", "fake-field-wrapper") ) {
             currentPacket.setFragmented(true);
         } 
@@ -242,10 +253,10 @@ public class Parser {
             currentPacket.setTcpFlags(flags);
         }
         if ( attributes.checkIfEqual("name", "tcp.seq") ) {
-            currentPacket.setRelativeTcpSeqNum(Integer.parseInt(attributes.get("show")));
+            currentPacket.setRelativeTcpSeqNum(Long.parseLong(attributes.get("show")));
         }
         if ( attributes.checkIfEqual("name", "tcp.nxtseq") ) {
-            currentPacket.setTcpNextRelativeSeqNum(Integer.parseInt(attributes.get("show")));
+            currentPacket.setTcpNextRelativeSeqNum(Long.parseLong(attributes.get("show")));
         }
         if ( attributes.checkIfEqual("name", "tcp.flags.ack") ) {
             String value = attributes.get("value");
@@ -275,6 +286,17 @@ public class Parser {
                     : Integer.parseInt(value);
             currentPacket.setTcpFlagsReset(1 == flagV);
         }
+        //udp
+        if ( attributes.checkIfEqual("name", "udp.srcport") ) {
+            currentPacket.setUdpSrcPort(Integer.parseInt(attributes.get("show")));
+        }
+        if ( attributes.checkIfEqual("name", "udp.dstport") ) {
+            currentPacket.setUdpDestPort(Integer.parseInt(attributes.get("show")));
+        }
+        if ( attributes.checkIfEqual("name", "udp.length") ) {
+            // the length includes the 8 byte udp header
+            currentPacket.setUdpPayloadLength(Integer.parseInt(attributes.get("show")) - 8);
+        }
         if ( attributes.checkIfEqual("name", "ip.src_host") ){
             currentPacket.setIp(true);
             currentPacket.setSrcIpAddr(attributes.get("show"));
@@ -0,0 +1,333 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.parser;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Reads pcap and pcapng captures natively, without tshark, decoding the Ethernet, IPv4, IPv6, TCP and UDP headers
+ * of each frame and putting tcp segments back in sequence order
+ *
+ * The capture is memory-mapped a window at a time and read in a single pass, so captures larger than the address
+ * space can be converted. Http is not dissected, use the pdml Parser for that.
+ *
+ */
+public class PcapReader implements PacketSource, Closeable {
+
+    private final static Logger LOG = Logger.getLogger(PcapReader.class.getName());
+
+    private static final int PCAP_MAGIC_MICROS = 0xa1b2c3d4;
+    private static final int PCAP_MAGIC_NANOS = 0xa1b23c4d;
+    private static final int PCAPNG_BYTE_ORDER_MAGIC = 0x1a2b3c4d;
+
+    private static final int PCAPNG_SECTION_HEADER_BLOCK = 0x0a0d0d0a;
+    private static final int PCAPNG_INTERFACE_DESCRIPTION_BLOCK = 1;
+    private static final int PCAPNG_PACKET_BLOCK = 2;
+    private static final int PCAPNG_SIMPLE_PACKET_BLOCK = 3;
+    private static final int PCAPNG_ENHANCED_PACKET_BLOCK = 6;
+    private static final int PCAPNG_OPTION_END = 0;
+    private static final int PCAPNG_OPTION_IF_TSRESOL = 9;
+
+    private static final long MICROS_PER_SECOND = 1000000L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final boolean pcapng;
+    private final TcpReassembler reassembler = new TcpReassembler();
+
+    // link type and timestamp units per second, of the pcap file or of each pcapng interface
+    private final List<Integer> linkTypes = new ArrayList<>();
+    private final List<Long> timestampUnits = new ArrayList<>();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private boolean littleEndian;
+    private boolean endOfCapture;
+    private int packetsCnted = 0;
+
+    /**
+     * Opens a pcap or pcapng capture
+     * @param captureFile the capture to read
+     * @throws IOException if the capture cannot be read
+     * @throws ParserFailureException if the file is not a pcap or pcapng capture
+     */
+    public PcapReader(File captureFile) throws IOException {
+        file = new RandomAccessFile(captureFile, "r");
+        channel = file.getChannel();
+        fileSize = channel.size();
+
+        try {
+            if ( fileSize == 0 ) {
+                // nothing was captured
+                pcapng = false;
+                endOfCapture = true;
+                return;
+            }
+            if ( fileSize < 12 ) {
+                throw new ParserFailureException("Not a pcap or pcapng capture: " + captureFile);
+            }
+
+            int magic = readRawInt(0);
+            if ( magic == PCAPNG_SECTION_HEADER_BLOCK ) {
+                pcapng = true;
+            }
+            else {
+                pcapng = false;
+                littleEndian = magic == Integer.reverseBytes(PCAP_MAGIC_MICROS)
+                        || magic == Integer.reverseBytes(PCAP_MAGIC_NANOS);
+                int fileMagic = readInt(0);
+                if ( fileMagic != PCAP_MAGIC_MICROS && fileMagic != PCAP_MAGIC_NANOS ) {
+                    throw new ParserFailureException("Not a pcap or pcapng capture: " + captureFile);
+                }
+                if ( fileSize < 24 ) {
+                    throw new ParserFailureException("Truncated pcap header: " + captureFile);
+                }
+                // the upper bits of the link type hold the FCS length
+                linkTypes.add(readInt(20) & 0xffff);
+                timestampUnits.add(fileMagic == PCAP_MAGIC_NANOS ? NANOS_PER_SECOND : MICROS_PER_SECOND);
+                position = 24;
+            }
+        }
+        catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Packet getNextPacket() {
+        Packet packet = reassembler.poll();
+        while ( packet == null && !endOfCapture ) {
+            try {
+                endOfCapture = pcapng ? !readBlock() : !readRecord();
+            }
+            catch (IOException e) {
+                throw new ParserFailureException("Failed reading capture: " + e);
+            }
+            if ( endOfCapture ) {
+                reassembler.flush();
+            }
+            packet = reassembler.poll();
+        }
+        return packet;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+
+    /*
+     * Reads the next pcap record, returns false at the end of the capture
+     */
+    private boolean readRecord() throws IOException {
+        if ( position + 16 > fileSize ) {
+            return truncated(position != fileSize);
+        }
+
+        long seconds = readInt(position) & 0xffffffffL;
+        long fraction = readInt(position + 4) & 0xffffffffL;
+        int capturedLength = readInt(position + 8);
+        if ( capturedLength < 0 || position + 16 + capturedLength > fileSize ) {
+            return truncated(true);
+        }
+
+        long units = timestampUnits.get(0);
+        frame(linkTypes.get(0), position + 16, capturedLength, seconds * units + fraction, units);
+        position += 16 + capturedLength;
+        return true;
+    }
+
+    /*
+     * Reads the next pcapng block, returns false at the end of the capture
+     */
+    private boolean readBlock() throws IOException {
+        if ( position + 12 > fileSize ) {
+            return truncated(position != fileSize);
+        }
+
+        int blockType = readInt(position);
+        if ( blockType == PCAPNG_SECTION_HEADER_BLOCK ) {
+            // each section may have its own byte order and interfaces
+            int byteOrderMagic = readRawInt(position + 8);
+            if ( byteOrderMagic == PCAPNG_BYTE_ORDER_MAGIC ) {
+                littleEndian = false;
+            }
+            else if ( byteOrderMagic == Integer.reverseBytes(PCAPNG_BYTE_ORDER_MAGIC) ) {
+                littleEndian = true;
+            }
+            else {
+                throw new ParserFailureException("Invalid pcapng byte order magic at offset " + position);
+            }
+            linkTypes.clear();
+            timestampUnits.clear();
+        }
+
+        long blockLength = readInt(position + 4) & 0xffffffffL;
+        if ( blockLength < 12 || (blockLength & 3) != 0 ) {
+            throw new ParserFailureException("Invalid pcapng block length " + blockLength + " at offset " + position);
+        }
+        if ( position + blockLength > fileSize ) {
+            return truncated(true);
+        }
+
+        switch (blockType) {
+        case PCAPNG_INTERFACE_DESCRIPTION_BLOCK:
+            readInterface(position, blockLength);
+            break;
+        case PCAPNG_ENHANCED_PACKET_BLOCK:
+            readPacket(readInt(position + 8), position, blockLength);
+            break;
+        case PCAPNG_PACKET_BLOCK:
+            readPacket(readShort(position + 8), position, blockLength);
+            break;
+        case PCAPNG_SIMPLE_PACKET_BLOCK:
+            int originalLength = readInt(position + 8);
+            int capturedLength = (int) Math.min(originalLength & 0xffffffffL, blockLength - 16);
+            // simple packets carry no timestamp
+            frame(linkType(0), position + 12, capturedLength, 0, timestampUnits(0));
+            break;
+        default:
+            break;
+        }
+
+        position += blockLength;
+        return true;
+    }
+
+    private void readInterface(long block, long blockLength) throws IOException {
+        long units = MICROS_PER_SECOND;
+        long option = block + 16;
+        long end = block + blockLength - 4;
+        while ( option + 4 <= end ) {
+            int code = readShort(option);
+            int length = readShort(option + 2);
+            if ( code == PCAPNG_OPTION_END ) {
+                break;
+            }
+            if ( code == PCAPNG_OPTION_IF_TSRESOL && length >= 1 ) {
+                int offset = map(option + 4, 1);
+                int resolution = window.get(offset);
+                units = ((resolution & 0x80) != 0) ? 1L << (resolution & 0x7f) : pow10(resolution);
+            }
+            option += 4 + ((length + 3) & ~3);
+        }
+        linkTypes.add(readShort(block + 8));
+        timestampUnits.add(units);
+    }
+
+    private void readPacket(int interfaceId, long block, long blockLength) throws IOException {
+        long timestamp = ((readInt(block + 12) & 0xffffffffL) << 32) | (readInt(block + 16) & 0xffffffffL);
+        int capturedLength = readInt(block + 20);
+        if ( capturedLength < 0 || capturedLength > blockLength - 32 ) {
+            throw new ParserFailureException("Invalid pcapng captured length " + capturedLength
+                    + " at offset " + block);
+        }
+        frame(linkType(interfaceId), block + 28, capturedLength, timestamp, timestampUnits(interfaceId));
+    }
+
+    private void frame(int linkType, long frameStart, int capturedLength, long timestamp, long units)
+            throws IOException {
+        Packet packet = new Packet();
+        packet.setPacketNumber(packetsCnted++);
+        packet.setPacketSize(capturedLength);
+
+        long seconds = timestamp / units;
+        long fraction = timestamp % units;
+        packet.setTimeStamp(new Date(seconds * 1000 + (long) (fraction * (1000.0 / units))));
+        packet.setTimeInSecondsFromEpoch(seconds + (double) fraction / units);
+
+        int offset = map(frameStart, capturedLength);
+        FrameDecoder.decode(linkType, window, offset, capturedLength, packet);
+        reassembler.add(packet);
+    }
+
+    private int linkType(int interfaceId) {
+        if ( interfaceId < 0 || interfaceId >= linkTypes.size() ) {
+            throw new ParserFailureException("Packet for undescribed pcapng interface " + interfaceId);
+        }
+        return linkTypes.get(interfaceId);
+    }
+
+    private long timestampUnits(int interfaceId) {
+        linkType(interfaceId);
+        return timestampUnits.get(interfaceId);
+    }
+
+    private boolean truncated(boolean truncated) {
+        if ( truncated ) {
+            LOG.warning("Capture is truncated, ignoring the incomplete packet at offset " + position);
+        }
+        return false;
+    }
+
+    private int readInt(long at) throws IOException {
+        int value = readRawInt(at);
+        return littleEndian ? Integer.reverseBytes(value) : value;
+    }
+
+    private int readShort(long at) throws IOException {
+        int offset = map(at, 2);
+        short value = window.getShort(offset);
+        return (littleEndian ? Short.reverseBytes(value) : value) & 0xffff;
+    }
+
+    private int readRawInt(long at) throws IOException {
+        int offset = map(at, 4);
+        return window.getInt(offset);
+    }
+
+    /*
+     * Maps the window holding length bytes at the given file position, returns their offset in the window
+     */
+    private int map(long at, int length) throws IOException {
+        if ( window == null || at < windowStart || at + length > windowStart + window.capacity() ) {
+            long size = Math.min(Math.max(WINDOW_SIZE, length), fileSize - at);
+            window = channel.map(READ_ONLY, at, size);
+            window.order(ByteOrder.BIG_ENDIAN);
+            windowStart = at;
+        }
+        return (int) (at - windowStart);
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
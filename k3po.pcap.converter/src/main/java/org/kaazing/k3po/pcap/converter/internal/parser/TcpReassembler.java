@@ -0,0 +1,212 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal.parser;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+
+/**
+ * Puts the tcp segments of each direction of a connection back in sequence order, dropping retransmitted bytes,
+ * and numbers tcp streams and relative sequence numbers the way wireshark does
+ *
+ * Packets come out in capture order, except that a segment received ahead of a gap is held back until the gap
+ * is filled, much like the receiving host would.
+ *
+ */
+final class TcpReassembler {
+
+    private final static Logger LOG = Logger.getLogger(TcpReassembler.class.getName());
+
+    // segments held back behind a gap that never fills, e.g. lost by the capture, are released past this
+    private static final int MAX_PENDING_SEGMENTS = 1024;
+
+    private final Queue<Packet> ready = new ArrayDeque<>();
+    private final Map<String, Flow> flows = new HashMap<>();
+    private final Map<String, Integer> streams = new HashMap<>();
+    private int nextStream;
+
+    /**
+     * Adds a decoded packet, tcp segments are released once in sequence
+     * @param packet
+     */
+    void add(Packet packet) {
+        if ( !packet.isTcp() ) {
+            ready.add(packet);
+            return;
+        }
+
+        String source = packet.getSrcIpAddr() + ":" + packet.getTcpSrcPort();
+        String destination = packet.getDestIpAddr() + ":" + packet.getTcpDestPort();
+        String flowKey = source + ">" + destination;
+        String streamKey = (source.compareTo(destination) < 0) ? flowKey : destination + ">" + source;
+
+        Flow flow = flows.get(flowKey);
+        boolean opening = packet.isTcpFlagsSyn() && !packet.isTcpFlagsAck();
+        if ( flow == null || (opening && flow.closed) ) {
+            if ( opening || !streams.containsKey(streamKey) ) {
+                streams.put(streamKey, nextStream++);
+            }
+            flow = new Flow(packet);
+            flows.put(flowKey, flow);
+        }
+
+        packet.setTcpStream(streams.get(streamKey));
+        flow.add(packet);
+    }
+
+    /**
+     * Releases every segment still held back, at the end of the capture
+     */
+    void flush() {
+        for (Flow flow : flows.values()) {
+            flow.releasePending();
+        }
+        flows.clear();
+    }
+
+    /**
+     * @return the next packet in order, or null if none is ready
+     */
+    Packet poll() {
+        return ready.poll();
+    }
+
+    private final class Flow {
+
+        private final long initialSequenceNumber;
+        private final TreeMap<Long, Packet> pending = new TreeMap<>();
+
+        // unwrapped, keeps growing past the 4 GB of the tcp sequence space
+        private long nextRelativeSeqNum;
+        private boolean closed;
+
+        Flow(Packet first) {
+            // the relative sequence number of the first data byte is 1
+            long sequenceNumber = first.getTcpSequenceNumber();
+            initialSequenceNumber = first.isTcpFlagsSyn() ? sequenceNumber : sequenceNumber - 1;
+            nextRelativeSeqNum = relative(sequenceNumber);
+        }
+
+        void add(Packet packet) {
+            long relativeSeqNum = relative(packet.getTcpSequenceNumber());
+            // shown wrapped to 32 bits, as wireshark does
+            packet.setRelativeTcpSeqNum(relativeSeqNum & 0xffffffffL);
+            packet.setTcpNextRelativeSeqNum((relativeSeqNum + length(packet)) & 0xffffffffL);
+
+            if ( packet.isTcpFlagsReset() ) {
+                closed = true;
+                releasePending();
+                ready.add(packet);
+                return;
+            }
+
+            if ( length(packet) == 0 ) {
+                // acknowledgements take no sequence space
+                ready.add(packet);
+                return;
+            }
+
+            if ( relativeSeqNum > nextRelativeSeqNum ) {
+                Packet previous = pending.get(relativeSeqNum);
+                if ( previous == null || length(previous) < length(packet) ) {
+                    pending.put(relativeSeqNum, packet);
+                }
+                if ( pending.size() > MAX_PENDING_SEGMENTS ) {
+                    LOG.fine("Skipping missing tcp segment before packet "
+                            + pending.firstEntry().getValue().getPacketNumber());
+                    nextRelativeSeqNum = pending.firstKey();
+                    releaseInOrder();
+                }
+                return;
+            }
+
+            release(packet, relativeSeqNum);
+            releaseInOrder();
+        }
+
+        void releasePending() {
+            while ( !pending.isEmpty() ) {
+                nextRelativeSeqNum = Math.max(nextRelativeSeqNum, pending.firstKey());
+                releaseInOrder();
+            }
+        }
+
+        private void releaseInOrder() {
+            while ( !pending.isEmpty() && pending.firstKey() <= nextRelativeSeqNum ) {
+                Map.Entry<Long, Packet> first = pending.pollFirstEntry();
+                release(first.getValue(), first.getKey());
+            }
+        }
+
+        private void release(Packet packet, long relativeSeqNum) {
+            long end = relativeSeqNum + length(packet);
+            if ( end <= nextRelativeSeqNum ) {
+                LOG.fine("Dropping retransmitted tcp segment, packet " + packet.getPacketNumber());
+                return;
+            }
+
+            // a retransmitted SYN takes the first byte of sequence space ahead of the payload
+            int overlap = (int) (nextRelativeSeqNum - relativeSeqNum) - (packet.isTcpFlagsSyn() ? 1 : 0);
+            if ( overlap > 0 ) {
+                trim(packet, overlap);
+            }
+
+            if ( packet.isTcpFlagsFin() ) {
+                closed = true;
+            }
+
+            nextRelativeSeqNum = end;
+            ready.add(packet);
+        }
+
+        /*
+         * Unwraps a sequence number to the relative sequence number nearest the next expected one, counting the
+         * wraps of the sequence space so that streams longer than 4 GB stay in order
+         */
+        private long relative(long sequenceNumber) {
+            long wrapped = (sequenceNumber - initialSequenceNumber) & 0xffffffffL;
+            return nextRelativeSeqNum + (int) (wrapped - nextRelativeSeqNum);
+        }
+    }
+
+    /*
+     * Drops bytes already released by an earlier segment
+     */
+    private static void trim(Packet packet, int overlap) {
+        byte[] payload = packet.getTcpPayload();
+        int remaining = payload.length - overlap;
+        packet.setTcpPayload(Arrays.copyOfRange(payload, overlap, payload.length));
+        packet.setTcpPayloadLength(remaining);
+        packet.setTcpLen(remaining);
+        packet.setTcpPayloadStart(packet.getTcpPayloadStart() + overlap);
+        packet.setTcpSequenceNumber((packet.getTcpSequenceNumber() + overlap) & 0xffffffffL);
+        packet.setRelativeTcpSeqNum((packet.getRelativeTcpSeqNum() + overlap) & 0xffffffffL);
+    }
+
+    /*
+     * Sequence space taken by a segment, SYN and FIN count as one byte each
+     */
+    private static long length(Packet packet) {
+        return packet.getTcpPayloadSize() + (packet.isTcpFlagsSyn() ? 1 : 0) + (packet.isTcpFlagsFin() ? 1 : 0);
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.pcap.converter.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaazing.k3po.pcap.converter.internal.filter.Filter;
+import org.kaazing.k3po.pcap.converter.internal.filter.NonEmptyDestPortTcpPacketFilter;
+import org.kaazing.k3po.pcap.converter.internal.packet.Packet;
+import org.kaazing.k3po.pcap.converter.internal.parser.PcapReader;
+
+public class PcapReaderTest {
+
+    private static final int SYN = 0x02;
+    private static final int ACK = 0x10;
+
+    private static final long ISN = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPcapReaderParsing() throws Exception {
+        URL captureFile = getClass().getClassLoader().getResource("tcpdumps/ServerHelloRobot.cap");
+        Assert.assertNotNull(captureFile);
+
+        Filter simpleFilter = new NonEmptyDestPortTcpPacketFilter(57321);
+        int packetsCnted = 0;
+        int tcpPacketsCnted = 0;
+        int matchingPackets = 0;
+        try (PcapReader reader = new PcapReader(new File(captureFile.toURI()))) {
+            Packet packet;
+            while ((packet = reader.getNextPacket()) != null) {
+                packetsCnted++;
+                if ( packet.isTcp() ) {
+                    tcpPacketsCnted++;
+                }
+                if ( simpleFilter.passesFilter(packet) ) {
+                    Assert.assertEquals("Hello Robot\n", new String(packet.getTcpPayload()));
+                    Assert.assertEquals(1, packet.getTcpStream());
+                    Assert.assertEquals(1, packet.getRelativeTcpSeqNum());
+                    matchingPackets++;
+                }
+            }
+        }
+        // same packets as the pdml of the capture
+        Assert.assertEquals(21, packetsCnted);
+        Assert.assertEquals(13, tcpPacketsCnted);
+        Assert.assertEquals(1, matchingPackets);
+    }
+
+    @Test
+    public void testPcapReaderEmptyCapture() throws Exception {
+        URL captureFile = getClass().getClassLoader().getResource("tcpdumps/EmptyTCP.cap");
+        try (PcapReader reader = new PcapReader(new File(captureFile.toURI()))) {
+            Assert.assertNull(reader.getNextPacket());
+        }
+    }
+
+    @Test
+    public void testPcapngCapture() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(tcpv4(ISN, SYN, ""));
+        frames.add(tcpv4(ISN + 1, ACK, "Hello Robot\n"));
+
+        List<Packet> packets = read(pcapng(frames));
+        Assert.assertEquals(2, packets.size());
+        Packet packet = packets.get(1);
+        Assert.assertEquals("10.0.0.1", packet.getSrcIpAddr());
+        Assert.assertEquals("10.0.0.2", packet.getDestIpAddr());
+        Assert.assertEquals(8080, packet.getTcpDestPort());
+        Assert.assertEquals("Hello Robot\n", new String(packet.getTcpPayload()));
+        Assert.assertEquals(1, packet.getRelativeTcpSeqNum());
+        Assert.assertEquals(13, packet.getTcpNextRelativeSeqNum());
+    }
+
+    @Test
+    public void testIpv6Capture() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(tcpv6(ISN, SYN, ""));
+        frames.add(tcpv6(ISN + 1, ACK, "Hello Robot\n"));
+
+        List<Packet> packets = read(pcap(frames));
+        Assert.assertEquals(2, packets.size());
+        Packet packet = packets.get(1);
+        Assert.assertEquals("2001:db8::1", packet.getSrcIpAddr());
+        Assert.assertEquals("2001:db8::2", packet.getDestIpAddr());
+        Assert.assertEquals("Hello Robot\n", new String(packet.getTcpPayload()));
+        Assert.assertEquals(1, packet.getRelativeTcpSeqNum());
+    }
+
+    @Test
+    public void testOutOfOrderSegments() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(tcpv4(ISN, SYN, ""));
+        frames.add(tcpv4(ISN + 7, ACK, "Robot\n"));
+        frames.add(tcpv4(ISN + 1, ACK, "Hello "));
+
+        List<Packet> packets = read(pcap(frames));
+        Assert.assertEquals(3, packets.size());
+        Assert.assertEquals("Hello ", new String(packets.get(1).getTcpPayload()));
+        Assert.assertEquals(1, packets.get(1).getRelativeTcpSeqNum());
+        Assert.assertEquals("Robot\n", new String(packets.get(2).getTcpPayload()));
+        Assert.assertEquals(7, packets.get(2).getRelativeTcpSeqNum());
+    }
+
+    @Test
+    public void testRetransmittedSegments() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(tcpv4(ISN, SYN, ""));
+        frames.add(tcpv4(ISN + 1, ACK, "Hello"));
+        frames.add(tcpv4(ISN + 1, ACK, "Hello"));
+        frames.add(tcpv4(ISN + 4, ACK, "lo Robot\n"));
+
+        List<Packet> packets = read(pcap(frames));
+        Assert.assertEquals(3, packets.size());
+        Assert.assertEquals("Hello", new String(packets.get(1).getTcpPayload()));
+        Assert.assertEquals(" Robot\n", new String(packets.get(2).getTcpPayload()));
+        Assert.assertEquals(6, packets.get(2).getRelativeTcpSeqNum());
+    }
+
+    @Test
+    public void testSequenceNumbersPast4GB() throws Exception {
+        // segments more than 1024 ahead of a gap are released past it, which jumps the stream forward
+        long[] jumps = { 0x60000000L, 0xc0000000L, 0x120000000L };
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(tcpv4(ISN, SYN, ""));
+        for (long jump : jumps) {
+            for (int i = 0; i < 1025; i++) {
+                frames.add(tcpv4(ISN + jump + i, ACK, "x"));
+            }
+        }
+        frames.add(tcpv4(ISN + 0x120000000L + 1025, ACK, "Hello Robot\n"));
+
+        List<Packet> packets = read(pcap(frames));
+        Assert.assertEquals(frames.size(), packets.size());
+        for (Packet packet : packets) {
+            Assert.assertTrue(packet.getRelativeTcpSeqNum() >= 0);
+        }
+        Packet last = packets.get(packets.size() - 1);
+        Assert.assertEquals("Hello Robot\n", new String(last.getTcpPayload()));
+        Assert.assertEquals(0x20000401L, last.getRelativeTcpSeqNum());
+    }
+
+    private List<Packet> read(File capture) throws IOException {
+        List<Packet> packets = new ArrayList<>();
+        try (PcapReader reader = new PcapReader(capture)) {
+            Packet packet;
+            while ((packet = reader.getNextPacket()) != null) {
+                packets.add(packet);
+            }
+        }
+        return packets;
+    }
+
+    private File pcap(List<byte[]> frames) throws IOException {
+        File capture = folder.newFile();
+        try (OutputStream out = new FileOutputStream(capture)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            header.putInt(0xa1b2c3d4).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0).putInt(65535)
+                  .putInt(1);
+            out.write(header.array());
+            for (byte[] frame : frames) {
+                ByteBuffer record = ByteBuffer.allocate(16);
+                record.putInt(0).putInt(0).putInt(frame.length).putInt(frame.length);
+                out.write(record.array());
+                out.write(frame);
+            }
+        }
+        return capture;
+    }
+
+    private File pcapng(List<byte[]> frames) throws IOException {
+        File capture = folder.newFile();
+        try (OutputStream out = new FileOutputStream(capture)) {
+            ByteBuffer section = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+            section.putInt(0x0a0d0d0a).putInt(28).putInt(0x1a2b3c4d).putShort((short) 1).putShort((short) 0)
+                   .putLong(-1L).putInt(28);
+            out.write(section.array());
+            ByteBuffer description = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            description.putInt(1).putInt(20).putShort((short) 1).putShort((short) 0).putInt(65535).putInt(20);
+            out.write(description.array());
+            for (byte[] frame : frames) {
+                int length = 32 + ((frame.length + 3) & ~3);
+                ByteBuffer block = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+                block.putInt(6).putInt(length).putInt(0).putInt(0).putInt(0).putInt(frame.length).putInt(frame.length);
+                block.put(frame);
+                block.putInt(length - 4, length);
+                out.write(block.array());
+            }
+        }
+        return capture;
+    }
+
+    private static byte[] tcpv4(long sequenceNumber, int flags, String payload) {
+        ByteBuffer frame = ByteBuffer.allocate(14 + 20 + 20 + payload.length());
+        frame.position(12);
+        frame.putShort((short) 0x0800);
+        frame.put((byte) 0x45).put((byte) 0).putShort((short) (40 + payload.length())).putInt(0);
+        frame.put((byte) 64).put((byte) 6).putShort((short) 0);
+        frame.put(new byte[] { 10, 0, 0, 1 }).put(new byte[] { 10, 0, 0, 2 });
+        tcp(frame, sequenceNumber, flags, payload);
+        return frame.array();
+    }
+
+    private static byte[] tcpv6(long sequenceNumber, int flags, String payload) {
+        ByteBuffer frame = ByteBuffer.allocate(14 + 40 + 20 + payload.length());
+        frame.position(12);
+        frame.putShort((short) 0x86dd);
+        frame.putInt(0x60000000).putShort((short) (20 + payload.length())).put((byte) 6).put((byte) 64);
+        frame.putLong(0x20010db800000000L).putLong(1L);
+        frame.putLong(0x20010db800000000L).putLong(2L);
+        tcp(frame, sequenceNumber, flags, payload);
+        return frame.array();
+    }
+
+    private static void tcp(ByteBuffer frame, long sequenceNumber, int flags, String payload) {
+        frame.putShort((short) 50000).putShort((short) 8080);
+        frame.putInt((int) sequenceNumber).putInt(0);
+        frame.putShort((short) (0x5000 | flags)).putShort((short) 65535).putInt(0);
+        frame.put(payload.getBytes());
+    }
+}
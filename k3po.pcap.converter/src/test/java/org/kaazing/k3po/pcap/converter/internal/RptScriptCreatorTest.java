@@ -16,6 +16,7 @@
 package org.kaazing.k3po.pcap.converter.internal;
 
 import org.jmock.Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
 import org.junit.Test;
 import org.kaazing.k3po.pcap.converter.internal.author.ConversationId;
 import org.kaazing.k3po.pcap.converter.internal.author.RptScriptCreator;
@@ -238,4 +239,59 @@ public class RptScriptCreatorTest {
         
     }
 
+    @Test
+    public void testCommitToFileOnWorkers(){
+        final Mockery context = new Mockery();
+        context.setThreadingPolicy(new Synchroniser());
+        final EmitterFactory emitterFactory = context.mock(EmitterFactory.class);
+        final CoordinatorFactory coordinatorFactory = context.mock(CoordinatorFactory.class);
+        final Emitter creatorNote = context.mock(Emitter.class);
+        final Packet p1 = PacketUtil.createBasicTcpPacket(ip1, ip2, port1, port2);
+        final Packet p2 = PacketUtil.createBasicTcpPacket(ip1, ip2, port2, port1);
+        final Packet p3 = PacketUtil.createBasicTcpPacket(ip3, ip2, port3, port2);
+        final Coordinator coord1 = context.mock(Coordinator.class, "coord1");
+        final Coordinator coord2 = context.mock(Coordinator.class, "coord2");
+        final Coordinator coord3 = context.mock(Coordinator.class, "coord3");
+        final Emitter dummyEmitter = context.mock(Emitter.class, "dummyEmitter");
+
+        context.checking(new RptScriptCreatorExpectations() {
+            {
+                willInitCreator(emitterFactory, creatorNote, dummyEmitter);
+                oneOf(coordinatorFactory).getCoordinator(with(equal(new ConversationId(p1, SupportedProtocol.TCP))));
+                will(returnValue(coord1));
+                allowing(coord1).isFinished();
+                will(returnValue(true));
+                oneOf(coord1).startScript(p1);
+
+                // finished coordinator is committed once, when the next one starts
+                oneOf(coordinatorFactory).getCoordinator(with(equal(new ConversationId(p2, SupportedProtocol.TCP))));
+                will(returnValue(coord2));
+                allowing(coord2).isFinished();
+                will(returnValue(false));
+                oneOf(coord1).commitToFile();
+                oneOf(coord2).startScript(p2);
+
+                oneOf(coordinatorFactory).getCoordinator(with(equal(new ConversationId(p3, SupportedProtocol.TCP))));
+                will(returnValue(coord3));
+                allowing(coord3).isFinished();
+                will(returnValue(false));
+                oneOf(coord3).startScript(p3);
+
+                allowGettingScripts(coord1);
+                allowGettingScripts(coord2);
+                allowGettingScripts(coord3);
+
+                oneOf(coord2).commitToFile();
+                oneOf(coord3).commitToFile();
+            }
+        });
+
+        RptScriptCreator creator = new RptScriptCreator(emitterFactory, coordinatorFactory, 4);
+        creator.addPacketToScripts(p1);
+        creator.addPacketToScripts(p2);
+        creator.addPacketToScripts(p3);
+        creator.commitToFile();
+        context.assertIsSatisfied();
+    }
+
 }
@@ -296,6 +296,28 @@ public class ByteArrayWriterTest {
         writer.write(bytes);
     }
     
+    @Test
+    public void shouldIndentContinuationLinesOfDatagram() throws Exception {
+        Mockery context = new Mockery();
+        final Emitter emitter = context.mock(Emitter.class);
+        ByteArrayWriter writer = new ByteArrayWriter(Type.WRITE, emitter, true);
+
+        context.checking(new Expectations() {
+            {
+                oneOf(emitter).add("write \"");
+                oneOf(emitter).add("Hello\\n");
+                exactly(2).of(emitter).add("\"");
+                exactly(3).of(emitter).add("\n");
+                oneOf(emitter).add("      \"");
+                oneOf(emitter).add("World");
+                oneOf(emitter).add("      [0x00 0x01]");
+            }
+        });
+
+        writer.write("Hello\nWorld\u0000\u0001".getBytes(UTF8));
+        context.assertIsSatisfied();
+    }
+
     // TODO: add more tests, including:
     // - mixed binary and text
     // - mixed binary and short text (LT 5 chars)
@@ -246,6 +246,7 @@ matcher
     | exactBytesMatcher
     | regexMatcher
     | expressionMatcher
+    | digestBytesMatcher
     | fixedLengthBytesMatcher
     | variableLengthBytesMatcher
     ;
@@ -270,6 +271,10 @@ expressionMatcher
     : expression=ExpressionLiteral
     ;
 
+digestBytesMatcher
+    : '[0..' length=DecimalLiteral ']' algorithm=Name digest=BytesLiteral
+    ;
+
 fixedLengthBytesMatcher
     : '[0..' lastIndex=DecimalLiteral ']'
     | '([0..' lastIndex=DecimalLiteral ']' capture=CaptureLiteral ')'
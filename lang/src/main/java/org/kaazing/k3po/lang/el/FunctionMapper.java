@@ -17,13 +17,13 @@ package org.kaazing.k3po.lang.el;
 
 import java.lang.reflect.Method;
 import java.util.Map;
-import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import javax.el.ELException;
 
 import org.kaazing.k3po.lang.el.spi.FunctionMapperSpi;
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 
 /**
  * Spi for Function in the K3PO Language.
@@ -42,11 +42,9 @@ public final class FunctionMapper extends javax.el.FunctionMapper {
      * @return returns an instance of the FunctionMapper
      */
     public static FunctionMapper newFunctionMapper() {
-        ServiceLoader<FunctionMapperSpi> loader = loadFunctionMapperSpi();
-
         // load FunctionMapperSpi instances
         ConcurrentMap<String, FunctionMapperSpi> functionMappers = new ConcurrentHashMap<>();
-        for (FunctionMapperSpi functionMapperSpi : loader) {
+        for (FunctionMapperSpi functionMapperSpi : ServiceRegistry.current().services(FunctionMapperSpi.class)) {
             String prefixName = functionMapperSpi.getPrefixName();
             FunctionMapperSpi oldFunctionMapperSpi = functionMappers.putIfAbsent(prefixName, functionMapperSpi);
             if (oldFunctionMapperSpi != null) {
@@ -68,12 +66,6 @@ public final class FunctionMapper extends javax.el.FunctionMapper {
         return functionMapperSpi.resolveFunction(localName);
     }
 
-    private static ServiceLoader<FunctionMapperSpi> loadFunctionMapperSpi() {
-        Class<FunctionMapperSpi> service = FunctionMapperSpi.class;
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        return (classLoader != null) ? ServiceLoader.load(service, classLoader) : ServiceLoader.load(service);
-    }
-
     private FunctionMapperSpi findFunctionMapperSpi(String prefix) throws ELException {
 
         if (prefix == null) {
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Discovers the service providers of a class loader once, rather than scanning every {@code META-INF/services}
+ * resource on its class path each time a robot, parser or expression context is created.
+ *
+ * A server registers the registry of its class loaders while it runs, see {@link #register(ClassLoader)}, so that
+ * all of its robots share the discovered providers. Looking up a class loader that is not registered discovers its
+ * providers on each use, as {@link ServiceLoader} does.
+ */
+public final class ServiceRegistry {
+
+    private static final ConcurrentMap<ClassLoader, ServiceRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    private final ClassLoader classLoader;
+    private final ConcurrentMap<Class<?>, Providers<?>> providers;
+
+    // guarded by REGISTRIES
+    private int registrations;
+
+    private ServiceRegistry(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        this.providers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registers the registry of a class loader until {@link #unregister()}, registrations are counted so servers
+     * sharing a class loader share its registry
+     * @param classLoader the class loader, or null for the system class loader
+     * @return the registry
+     */
+    public static ServiceRegistry register(ClassLoader classLoader) {
+        return REGISTRIES.compute(key(classLoader), (k, registry) -> {
+            if (registry == null) {
+                registry = new ServiceRegistry(k);
+            }
+            registry.registrations++;
+            return registry;
+        });
+    }
+
+    /**
+     * @param classLoader the class loader, or null for the system class loader
+     * @return the registered registry of the class loader, or else a registry discarded after use
+     */
+    public static ServiceRegistry lookup(ClassLoader classLoader) {
+        ClassLoader key = key(classLoader);
+        ServiceRegistry registry = REGISTRIES.get(key);
+        return (registry != null) ? registry : new ServiceRegistry(key);
+    }
+
+    /**
+     * @return the registry of the thread context class loader
+     */
+    public static ServiceRegistry current() {
+        return lookup(Thread.currentThread().getContextClassLoader());
+    }
+
+    public void unregister() {
+        REGISTRIES.computeIfPresent(classLoader, (k, registry) -> {
+            if (registry != this) {
+                return registry;
+            }
+            return (--registry.registrations == 0) ? null : registry;
+        });
+    }
+
+    /**
+     * Discovers the providers of services now rather than on first use
+     * @param services the service types
+     */
+    public void discover(Class<?>... services) {
+        for (Class<?> service : services) {
+            providers(service);
+        }
+    }
+
+    /**
+     * Forgets the discovered providers, so providers added to or removed from the class path are seen on next use
+     */
+    public void refresh() {
+        providers.clear();
+    }
+
+    /**
+     * @param service the service type
+     * @return the provider instances shared by all callers, for services without per-use state
+     */
+    public <S> List<S> services(Class<S> service) {
+        return providers(service).instances;
+    }
+
+    /**
+     * @param service the service type
+     * @return new provider instances, for services holding state such as injected resources
+     */
+    public <S> List<S> newServices(Class<S> service) {
+        List<Class<? extends S>> types = providers(service).types;
+        List<S> services = new ArrayList<>(types.size());
+        for (Class<? extends S> type : types) {
+            try {
+                services.add(type.getConstructor().newInstance());
+            }
+            catch (ReflectiveOperationException e) {
+                throw new ServiceConfigurationError(format("%s: Provider %s could not be instantiated",
+                        service.getName(), type.getName()), e);
+            }
+        }
+        return services;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S> Providers<S> providers(Class<S> service) {
+        Providers<?> serviceProviders = providers.get(service);
+        if (serviceProviders == null) {
+            Providers<S> newProviders = new Providers<>(ServiceLoader.load(service, classLoader));
+            serviceProviders = providers.putIfAbsent(service, newProviders);
+            if (serviceProviders == null) {
+                serviceProviders = newProviders;
+            }
+        }
+        return (Providers<S>) serviceProviders;
+    }
+
+    private static ClassLoader key(ClassLoader classLoader) {
+        return (classLoader != null) ? classLoader : ClassLoader.getSystemClassLoader();
+    }
+
+    private static final class Providers<S> {
+
+        private final List<S> instances;
+        private final List<Class<? extends S>> types;
+
+        @SuppressWarnings("unchecked")
+        Providers(ServiceLoader<S> loader) {
+            List<S> instances = new ArrayList<>();
+            List<Class<? extends S>> types = new ArrayList<>();
+            for (S instance : loader) {
+                instances.add(instance);
+                types.add((Class<? extends S>) instance.getClass());
+            }
+            this.instances = unmodifiableList(instances);
+            this.types = unmodifiableList(types);
+        }
+    }
+}
@@ -18,8 +18,6 @@ package org.kaazing.k3po.lang.internal.ast;
 import static java.lang.String.format;
 import static org.kaazing.k3po.lang.internal.ast.util.AstUtil.equivalent;
 
-import javax.el.ELResolver;
-
 import org.kaazing.k3po.lang.internal.ast.value.AstValue;
 import org.kaazing.k3po.lang.internal.el.ExpressionContext;
 
@@ -56,11 +54,7 @@ public class AstPropertyNode extends AstNode {
 
     public Object resolve() {
         Object value = propertyValue.getValue();
-        ELResolver resolver = environment.getELResolver();
-        // ELResolver.setValue is not thread-safe
-        synchronized (environment) {
-            resolver.setValue(environment, null, propertyName, value);
-        }
+        environment.publish(propertyName, value);
         return value;
     }
 
@@ -19,6 +19,7 @@ import javax.el.ValueExpression;
 
 import org.kaazing.k3po.lang.internal.ast.AstReadValueNode;
 import org.kaazing.k3po.lang.internal.ast.AstStreamNode;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstDigestBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactTextMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExpressionMatcher;
@@ -59,6 +60,11 @@ public class AstReadNodeBuilder extends AbstractAstStreamableNodeBuilder<AstRead
         return this;
     }
 
+    public AstReadNodeBuilder addDigestBytes(long length, String algorithm, byte[] digest) {
+        node.addMatcher(new AstDigestBytesMatcher(length, algorithm, digest));
+        return this;
+    }
+
     public AstReadNodeBuilder addRegex(NamedGroupPattern pattern, ExpressionContext environment) {
         node.addMatcher(new AstRegexMatcher(pattern, environment));
         return this;
@@ -115,6 +121,11 @@ public class AstReadNodeBuilder extends AbstractAstStreamableNodeBuilder<AstRead
             return this;
         }
 
+        public StreamNested<R> addDigestBytes(long length, String algorithm, byte[] digest) {
+            node.addMatcher(new AstDigestBytesMatcher(length, algorithm, digest));
+            return this;
+        }
+
         public StreamNested<R> addRegex(NamedGroupPattern pattern, ExpressionContext environment) {
             node.addMatcher(new AstRegexMatcher(pattern, environment));
             return this;
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal.ast.matcher;
+
+import static java.lang.String.format;
+import static org.kaazing.k3po.lang.internal.ast.util.AstUtil.equivalent;
+
+import java.util.Arrays;
+
+import org.kaazing.k3po.lang.internal.ast.AstRegion;
+
+/**
+ * Matches a fixed number of bytes by length and digest only, so that very large payloads
+ * can be verified as they arrive without being buffered.
+ */
+public final class AstDigestBytesMatcher extends AstValueMatcher {
+
+    private final long length;
+    private final String algorithm;
+    private final byte[] digest;
+
+    public AstDigestBytesMatcher(long length, String algorithm, byte[] digest) {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm");
+        }
+        if (digest == null) {
+            throw new NullPointerException("digest");
+        }
+        this.length = length;
+        this.algorithm = algorithm;
+        this.digest = digest;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    @Override
+    public <R, P> R accept(Visitor<R, P> visitor, P parameter) {
+        return visitor.visit(this, parameter);
+    }
+
+    @Override
+    protected int hashTo() {
+        int hashCode = getClass().hashCode();
+
+        hashCode <<= 4;
+        hashCode ^= Long.hashCode(length);
+
+        hashCode <<= 4;
+        hashCode ^= algorithm.hashCode();
+
+        hashCode <<= 4;
+        hashCode ^= Arrays.hashCode(digest);
+
+        return hashCode;
+    }
+
+    @Override
+    protected boolean equalTo(AstRegion that) {
+        return that instanceof AstDigestBytesMatcher && equalTo((AstDigestBytesMatcher) that);
+    }
+
+    protected boolean equalTo(AstDigestBytesMatcher that) {
+        return equivalent(this.length, that.length) && equivalent(this.algorithm, that.algorithm) &&
+                equivalent(this.digest, that.digest);
+    }
+
+    @Override
+    protected void describe(StringBuilder buf) {
+        buf.append(format("[0..%d] %s [", length, algorithm));
+        for (int i = 0; i < digest.length; i++) {
+            if (i > 0) {
+                buf.append(' ');
+            }
+            buf.append(format("0x%02x", digest[i]));
+        }
+        buf.append(']');
+    }
+}
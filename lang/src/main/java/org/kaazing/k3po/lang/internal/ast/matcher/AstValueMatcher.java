@@ -27,6 +27,8 @@ public abstract class AstValueMatcher extends AstRegion {
 
         R visit(AstFixedLengthBytesMatcher matcher, P parameter);
 
+        R visit(AstDigestBytesMatcher matcher, P parameter);
+
         R visit(AstRegexMatcher matcher, P parameter);
 
         R visit(AstExactTextMatcher matcher, P parameter);
@@ -17,7 +17,7 @@ package org.kaazing.k3po.lang.internal.ast.value;
 
 import static java.lang.String.format;
 import static org.kaazing.k3po.lang.internal.ast.util.AstUtil.equivalent;
-import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.synchronizedValue;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.evaluate;
 
 import javax.el.ValueExpression;
 
@@ -28,6 +28,7 @@ public final class AstExpressionValue<T> extends AstValue<T> {
 
     private final ValueExpression expression;
     private final ExpressionContext environment;
+    private final ExpressionContext scope;
 
     public AstExpressionValue(ValueExpression expression, ExpressionContext environment) {
         if (expression == null) {
@@ -35,16 +36,18 @@ public final class AstExpressionValue<T> extends AstValue<T> {
         }
         this.expression = expression;
         this.environment = environment;
+        this.scope = (environment != null) ? environment.newScope() : null;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public T getValue() {
-        return (T) synchronizedValue(expression, environment, expression.getExpectedType());
+        return (T) getValue(expression.getExpectedType());
     }
 
     public <R> R getValue(Class<R> expectedType) {
-        return synchronizedValue(expression, environment, expectedType);
+        // may be called from any stream, so evaluate in a scope of its own, or a new one while it is in use
+        return evaluate(expression, scope, expectedType);
     }
 
     public ValueExpression getExpression() {
@@ -0,0 +1,468 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal.el;
+
+import static java.lang.invoke.MethodType.genericMethodType;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.el.ELException;
+import javax.el.PropertyNotFoundException;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+
+import de.odysseus.el.misc.LocalMessages;
+import de.odysseus.el.misc.NumberOperations;
+import de.odysseus.el.misc.TypeConverter;
+
+/**
+ * Compiles the common subset of expressions, literals, variables, prefixed function calls and arithmetic, into
+ * suppliers that invoke functions through method handles, rather than interpreting the JUEL tree and invoking
+ * functions reflectively on each evaluation.
+ *
+ * Anything outside the subset, such as property access, comparisons or deferred expressions, is not compiled and
+ * should be evaluated by JUEL instead.
+ */
+public final class ExpressionCompiler {
+
+    private static final TypeConverter CONVERTER = new TypeConverterImpl();
+
+    private static final NotCompiledException NOT_COMPILED = new NotCompiledException();
+
+    private final String text;
+    private final ExpressionContext environment;
+    private int position;
+
+    private ExpressionCompiler(String text, ExpressionContext environment) {
+        this.text = text;
+        this.environment = environment;
+    }
+
+    /**
+     * Compiles an expression.
+     * @param expression the expression text, such as {@code ${ws:randomBytes(length)}}
+     * @param environment the environment resolving functions and variables, only used by one evaluation at a time
+     * @param expectedType the type the value is coerced to
+     * @return a supplier of the expression value, or null if the expression is outside the compiled subset
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> compile(String expression, ExpressionContext environment, Class<T> expectedType) {
+        Supplier<Object> compiled;
+        try {
+            compiled = new ExpressionCompiler(expression, environment).composite();
+        }
+        catch (NotCompiledException e) {
+            return null;
+        }
+
+        if (expectedType == Object.class) {
+            return (Supplier<T>) compiled;
+        }
+
+        return () -> CONVERTER.convert(compiled.get(), expectedType);
+    }
+
+    private Supplier<Object> composite() {
+        List<Supplier<Object>> parts = new ArrayList<>();
+
+        while (position < text.length()) {
+            int start = text.indexOf("${", position);
+            int end = (start != -1) ? start : text.length();
+            if (end > position) {
+                String literal = text.substring(position, end);
+                if (literal.indexOf('\\') != -1 || literal.contains("#{")) {
+                    // escaped or deferred
+                    throw NOT_COMPILED;
+                }
+                parts.add(constant(literal));
+            }
+
+            if (start == -1) {
+                break;
+            }
+
+            position = start + 2;
+            parts.add(additive());
+            expect('}');
+        }
+
+        switch (parts.size()) {
+        case 0:
+            return constant("");
+        case 1:
+            return parts.get(0);
+        default:
+            @SuppressWarnings("unchecked")
+            Supplier<Object>[] values = parts.toArray(new Supplier[parts.size()]);
+            return () -> {
+                StringBuilder concatenated = new StringBuilder();
+                for (Supplier<Object> value : values) {
+                    concatenated.append(CONVERTER.convert(value.get(), String.class));
+                }
+                return concatenated.toString();
+            };
+        }
+    }
+
+    private Supplier<Object> additive() {
+        Supplier<Object> value = multiplicative();
+        for (;;) {
+            if (accept('+')) {
+                Supplier<Object> left = value;
+                Supplier<Object> right = multiplicative();
+                value = () -> NumberOperations.add(CONVERTER, left.get(), right.get());
+            }
+            else if (accept('-')) {
+                Supplier<Object> left = value;
+                Supplier<Object> right = multiplicative();
+                value = () -> NumberOperations.sub(CONVERTER, left.get(), right.get());
+            }
+            else {
+                return value;
+            }
+        }
+    }
+
+    private Supplier<Object> multiplicative() {
+        Supplier<Object> value = unary();
+        for (;;) {
+            if (accept('*')) {
+                Supplier<Object> left = value;
+                Supplier<Object> right = unary();
+                value = () -> NumberOperations.mul(CONVERTER, left.get(), right.get());
+            }
+            else if (accept('/') || acceptKeyword("div")) {
+                Supplier<Object> left = value;
+                Supplier<Object> right = unary();
+                value = () -> NumberOperations.div(CONVERTER, left.get(), right.get());
+            }
+            else if (accept('%') || acceptKeyword("mod")) {
+                Supplier<Object> left = value;
+                Supplier<Object> right = unary();
+                value = () -> NumberOperations.mod(CONVERTER, left.get(), right.get());
+            }
+            else {
+                return value;
+            }
+        }
+    }
+
+    private Supplier<Object> unary() {
+        if (accept('-')) {
+            Supplier<Object> operand = unary();
+            return () -> NumberOperations.neg(CONVERTER, operand.get());
+        }
+        return primary();
+    }
+
+    private Supplier<Object> primary() {
+        skipWhitespace();
+        if (position == text.length()) {
+            throw NOT_COMPILED;
+        }
+
+        char ch = text.charAt(position);
+        if (ch == '(') {
+            position++;
+            Supplier<Object> nested = additive();
+            expect(')');
+            return nested;
+        }
+        else if (ch >= '0' && ch <= '9') {
+            return constant(number());
+        }
+        else if (ch == '\'' || ch == '"') {
+            return constant(string(ch));
+        }
+        else if (Character.isJavaIdentifierStart(ch)) {
+            String identifier = identifier();
+            switch (identifier) {
+            case "true":
+                return constant(Boolean.TRUE);
+            case "false":
+                return constant(Boolean.FALSE);
+            case "null":
+                return constant(null);
+            default:
+                break;
+            }
+
+            if (isReserved(identifier)) {
+                throw NOT_COMPILED;
+            }
+
+            if (accept(':')) {
+                skipWhitespace();
+                if (position == text.length() || !Character.isJavaIdentifierStart(text.charAt(position))) {
+                    throw NOT_COMPILED;
+                }
+                return function(identifier, identifier());
+            }
+
+            return variable(identifier);
+        }
+
+        throw NOT_COMPILED;
+    }
+
+    private Supplier<Object> variable(String name) {
+        ExpressionContext scope = environment;
+        VariableMapper variables = scope.getVariableMapper();
+        return () -> {
+            ValueExpression variable = variables.resolveVariable(name);
+            if (variable == null) {
+                throw new PropertyNotFoundException("Cannot find property " + name);
+            }
+            return variable.getValue(scope);
+        };
+    }
+
+    private Supplier<Object> function(String prefix, String localName) {
+        expect('(');
+        List<Supplier<Object>> arguments = new ArrayList<>();
+        if (!accept(')')) {
+            do {
+                arguments.add(additive());
+            } while (accept(','));
+            expect(')');
+        }
+
+        Method method;
+        MethodHandle handle;
+        try {
+            method = environment.getFunctionMapper().resolveFunction(prefix, localName);
+            if (method == null || method.isVarArgs() || method.getParameterCount() != arguments.size()) {
+                throw NOT_COMPILED;
+            }
+            handle = MethodHandles.publicLookup().unreflect(method);
+        }
+        catch (ELException | IllegalAccessException e) {
+            throw NOT_COMPILED;
+        }
+
+        String name = prefix + ':' + localName;
+        Class<?>[] types = method.getParameterTypes();
+        switch (arguments.size()) {
+        case 0: {
+            MethodHandle invoker = handle.asType(genericMethodType(0));
+            return () -> {
+                try {
+                    return (Object) invoker.invokeExact();
+                }
+                catch (Throwable t) {
+                    throw new ELException(LocalMessages.get("error.function.invocation", name), t);
+                }
+            };
+        }
+        case 1: {
+            MethodHandle invoker = handle.asType(genericMethodType(1));
+            Supplier<Object> argument = arguments.get(0);
+            Class<?> type = types[0];
+            return () -> {
+                Object value = CONVERTER.convert(argument.get(), type);
+                try {
+                    return (Object) invoker.invokeExact(value);
+                }
+                catch (Throwable t) {
+                    throw new ELException(LocalMessages.get("error.function.invocation", name), t);
+                }
+            };
+        }
+        case 2: {
+            MethodHandle invoker = handle.asType(genericMethodType(2));
+            Supplier<Object> argument0 = arguments.get(0);
+            Supplier<Object> argument1 = arguments.get(1);
+            Class<?> type0 = types[0];
+            Class<?> type1 = types[1];
+            return () -> {
+                Object value0 = CONVERTER.convert(argument0.get(), type0);
+                Object value1 = CONVERTER.convert(argument1.get(), type1);
+                try {
+                    return (Object) invoker.invokeExact(value0, value1);
+                }
+                catch (Throwable t) {
+                    throw new ELException(LocalMessages.get("error.function.invocation", name), t);
+                }
+            };
+        }
+        default: {
+            MethodHandle invoker = handle.asSpreader(Object[].class, types.length)
+                                         .asType(methodType(Object.class, Object[].class));
+            @SuppressWarnings("unchecked")
+            Supplier<Object>[] argumentArray = arguments.toArray(new Supplier[arguments.size()]);
+            return () -> {
+                Object[] values = new Object[argumentArray.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = CONVERTER.convert(argumentArray[i].get(), types[i]);
+                }
+                try {
+                    return (Object) invoker.invokeExact(values);
+                }
+                catch (Throwable t) {
+                    throw new ELException(LocalMessages.get("error.function.invocation", name), t);
+                }
+            };
+        }
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        boolean floating = false;
+        skipDigits();
+        if (position + 1 < text.length() && text.charAt(position) == '.' && isDigit(text.charAt(position + 1))) {
+            floating = true;
+            position++;
+            skipDigits();
+        }
+        if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            floating = true;
+            position++;
+            if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+                position++;
+            }
+            if (position == text.length() || !isDigit(text.charAt(position))) {
+                throw NOT_COMPILED;
+            }
+            skipDigits();
+        }
+
+        String literal = text.substring(start, position);
+        if (floating) {
+            return Double.valueOf(literal);
+        }
+
+        try {
+            return Long.valueOf(literal);
+        }
+        catch (NumberFormatException e) {
+            return new BigInteger(literal);
+        }
+    }
+
+    private String string(char quote) {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char ch = text.charAt(position++);
+            if (ch == quote) {
+                return value.toString();
+            }
+            if (ch == '\\') {
+                if (position == text.length()) {
+                    break;
+                }
+                ch = text.charAt(position++);
+                if (ch != '\\' && ch != '\'' && ch != '"') {
+                    throw NOT_COMPILED;
+                }
+            }
+            value.append(ch);
+        }
+        throw NOT_COMPILED;
+    }
+
+    private String identifier() {
+        int start = position++;
+        while (position < text.length() && Character.isJavaIdentifierPart(text.charAt(position))) {
+            position++;
+        }
+        return text.substring(start, position);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (text.startsWith(keyword, position) &&
+                (end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean accept(char expected) {
+        skipWhitespace();
+        if (position < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!accept(expected)) {
+            throw NOT_COMPILED;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private void skipDigits() {
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isReserved(String identifier) {
+        switch (identifier) {
+        case "and":
+        case "or":
+        case "not":
+        case "eq":
+        case "ne":
+        case "lt":
+        case "gt":
+        case "le":
+        case "ge":
+        case "div":
+        case "mod":
+        case "empty":
+        case "instanceof":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static Supplier<Object> constant(Object value) {
+        return () -> value;
+    }
+
+    private static final class NotCompiledException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotCompiledException() {
+            super(null, null, false, false);
+        }
+    }
+}
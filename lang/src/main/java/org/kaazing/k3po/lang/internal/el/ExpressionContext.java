@@ -16,22 +16,89 @@
 package org.kaazing.k3po.lang.internal.el;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
+import javax.el.ELResolver;
 import javax.el.FunctionMapper;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.ResourceBundleELResolver;
 import javax.el.ValueExpression;
 import javax.el.VariableMapper;
 
 import de.odysseus.el.util.SimpleContext;
 
+/**
+ * The expression environment of a script.
+ *
+ * Properties and captured values are held by a concurrent variable mapper, and resolved through a stateless resolver,
+ * both shared by every scope of the script. The only state of a context is that of the evaluation in progress, so
+ * concurrent streams each evaluate in a scope of their own, see {@link #newScope()}, rather than locking the
+ * script environment. A scope may still be reached from more than one thread, such as a write triggered by a
+ * barrier while a read of the same stream evaluates on its I/O thread, so an evaluation that finds its scope in use
+ * evaluates in a new one instead, see {@link ExpressionFactoryUtils#evaluate(ValueExpression, ExpressionContext,
+ * Class)}, and values are published without using the state of a scope, see {@link #publish(String, Object)}.
+ */
 public class ExpressionContext extends SimpleContext {
 
     protected FunctionMapper functionMapper;
     protected VariableMapper variableMapper;
 
+    private final AtomicBoolean evaluating = new AtomicBoolean();
+
     public ExpressionContext() {
-        super();
-        this.functionMapper = org.kaazing.k3po.lang.el.FunctionMapper.newFunctionMapper();
-        this.variableMapper = new org.kaazing.k3po.lang.internal.el.VariableMapper();
+        this(org.kaazing.k3po.lang.el.FunctionMapper.newFunctionMapper(),
+                new org.kaazing.k3po.lang.internal.el.VariableMapper());
+    }
+
+    private ExpressionContext(FunctionMapper functionMapper,
+            org.kaazing.k3po.lang.internal.el.VariableMapper variableMapper) {
+        this(functionMapper, variableMapper, newResolver(variableMapper));
+    }
+
+    private ExpressionContext(FunctionMapper functionMapper, VariableMapper variableMapper, ELResolver resolver) {
+        super(resolver);
+        this.functionMapper = functionMapper;
+        this.variableMapper = variableMapper;
+    }
+
+    /**
+     * Creates a scope layered over this environment, sharing its functions, variables and resolver.
+     *
+     * A scope is meant for the handlers of a single stream, it is only used by one evaluation at a time.
+     */
+    public ExpressionContext newScope() {
+        return new ExpressionContext(functionMapper, variableMapper, getELResolver());
+    }
+
+    /**
+     * Publishes a property or captured value to every scope of this environment, replacing any previous value.
+     */
+    public void publish(String name, Object value) {
+        VariableResolver.publish((org.kaazing.k3po.lang.internal.el.VariableMapper) variableMapper, name, value);
+    }
+
+    /**
+     * Discards all properties and captured values, in every scope of this environment.
+     */
+    public void clearVariables() {
+        ((org.kaazing.k3po.lang.internal.el.VariableMapper) variableMapper).clear();
+    }
+
+    /**
+     * @return this scope if no other evaluation is using it, or a new scope otherwise, see {@link #release}
+     */
+    ExpressionContext acquire() {
+        return evaluating.compareAndSet(false, true) ? this : newScope();
+    }
+
+    void release(ExpressionContext scope) {
+        if (scope == this) {
+            evaluating.set(false);
+        }
     }
 
     @Override
@@ -53,4 +120,15 @@ public class ExpressionContext extends SimpleContext {
     public ValueExpression setVariable(String name, ValueExpression expr) {
         return variableMapper.setVariable(name, expr);
     }
+
+    private static ELResolver newResolver(org.kaazing.k3po.lang.internal.el.VariableMapper variableMapper) {
+        CompositeELResolver resolver = new CompositeELResolver();
+        resolver.add(new VariableResolver(variableMapper));
+        resolver.add(new ArrayELResolver(false));
+        resolver.add(new ListELResolver(false));
+        resolver.add(new MapELResolver(false));
+        resolver.add(new ResourceBundleELResolver());
+        resolver.add(new BeanELResolver(false));
+        return resolver;
+    }
 }
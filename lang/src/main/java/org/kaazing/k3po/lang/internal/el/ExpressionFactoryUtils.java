@@ -51,15 +51,27 @@ public final class ExpressionFactoryUtils {
         // utility class
     }
 
+    /**
+     * Evaluates an expression without locking, in the given scope, or in a new scope if a concurrent evaluation is
+     * using it, see {@link ExpressionContext#newScope()}.
+     */
     @SuppressWarnings("unchecked")
-    public static <T> T synchronizedValue(ValueExpression expression, ExpressionContext environment, Class<T> expectedType) {
-        // ValueExpression.getValue(...) is not thread-safe
-        synchronized (environment) {
-            return (T) expression.getValue(environment);
+    public static <T> T evaluate(ValueExpression expression, ExpressionContext environment, Class<T> expectedType) {
+        ExpressionContext scope = environment.acquire();
+        try {
+            return (T) expression.getValue(scope);
+        }
+        finally {
+            environment.release(scope);
         }
     }
 
-    public static <T> Supplier<T> synchronizedSupplier(ValueExpression expression, ExpressionContext environment, Class<T> expectedType) {
-        return () -> synchronizedValue(expression, environment, expectedType);
+    /**
+     * Creates a supplier of the value of an expression, compiled when possible, see {@link ExpressionCompiler}, so
+     * the expression should be created once and evaluated many times.
+     */
+    public static <T> Supplier<T> newSupplier(ValueExpression expression, ExpressionContext environment, Class<T> expectedType) {
+        Supplier<T> compiled = ExpressionCompiler.compile(expression.getExpressionString(), environment, expectedType);
+        return (compiled != null) ? compiled : () -> evaluate(expression, environment, expectedType);
     }
 }
@@ -38,4 +38,8 @@ public class VariableMapper extends javax.el.VariableMapper {
                                        ValueExpression expr) {
         return expr == null ? variables.remove(name) : variables.put(name, expr);
     }
+
+    public void clear() {
+        variables.clear();
+    }
 }
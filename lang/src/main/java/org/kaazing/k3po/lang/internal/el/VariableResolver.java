@@ -0,0 +1,160 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal.el;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+import java.util.Objects;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.PropertyNotFoundException;
+import javax.el.ValueExpression;
+
+/**
+ * Resolves top-level identifiers, such as properties and captured values, from the variable mapper shared by all
+ * scopes of a script, so values published on one stream are visible to expressions evaluated on any other.
+ */
+final class VariableResolver extends ELResolver {
+
+    private final VariableMapper variables;
+
+    VariableResolver(VariableMapper variables) {
+        this.variables = variables;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        if (!resolve(context, base, property)) {
+            return null;
+        }
+
+        ValueExpression variable = variables.resolveVariable((String) property);
+        if (variable == null) {
+            throw new PropertyNotFoundException("Cannot find property " + property);
+        }
+        return variable.getValue(context);
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        return resolve(context, base, property) ? Object.class : null;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        if (!resolve(context, base, property)) {
+            return;
+        }
+
+        publish(variables, (String) property, value);
+    }
+
+    /**
+     * Publishes a value atomically, so concurrent publishes of the same name never replace a published variable.
+     */
+    static void publish(VariableMapper variables, String name, Object value) {
+        variables.variables.compute(name, (key, variable) -> {
+            if (variable instanceof Variable) {
+                // update in place, expressions created since it was first published are bound to this instance
+                ((Variable) variable).value = value;
+                return variable;
+            }
+            return new Variable(value);
+        });
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        resolve(context, base, property);
+        return false;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return (base == null) ? String.class : null;
+    }
+
+    private static boolean resolve(ELContext context, Object base, Object property) {
+        boolean resolved = base == null && property instanceof String;
+        if (resolved) {
+            context.setPropertyResolved(true);
+        }
+        return resolved;
+    }
+
+    private static final class Variable extends ValueExpression {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile Object value;
+
+        Variable(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getValue(ELContext context) {
+            return value;
+        }
+
+        @Override
+        public void setValue(ELContext context, Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context) {
+            return false;
+        }
+
+        @Override
+        public Class<?> getType(ELContext context) {
+            Object value = this.value;
+            return (value != null) ? value.getClass() : Object.class;
+        }
+
+        @Override
+        public Class<?> getExpectedType() {
+            return Object.class;
+        }
+
+        @Override
+        public String getExpressionString() {
+            return null;
+        }
+
+        @Override
+        public boolean isLiteralText() {
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Variable && Objects.equals(value, ((Variable) obj).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(value);
+        }
+    }
+}
@@ -76,6 +76,7 @@ import org.kaazing.k3po.lang.internal.ast.AstWriteNotifyNode;
 import org.kaazing.k3po.lang.internal.ast.AstWriteOptionNode;
 import org.kaazing.k3po.lang.internal.ast.AstWriteValueNode;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstByteLengthBytesMatcher;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstDigestBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactTextMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExpressionMatcher;
@@ -111,6 +112,7 @@ import org.kaazing.k3po.lang.parser.v2.RobotParser.CommandNodeContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.ConnectNodeContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.ConnectOptionContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.ConnectedNodeContext;
+import org.kaazing.k3po.lang.parser.v2.RobotParser.DigestBytesMatcherContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.DisconnectNodeContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.DisconnectedNodeContext;
 import org.kaazing.k3po.lang.parser.v2.RobotParser.EventNodeContext;
@@ -498,6 +500,15 @@ public abstract class ScriptParseStrategy<T extends AstRegion> {
             }
         };
 
+    public static final ScriptParseStrategy<AstDigestBytesMatcher> DIGEST_BYTES_MATCHER =
+        new ScriptParseStrategy<AstDigestBytesMatcher>() {
+            @Override
+            public AstDigestBytesMatcher parse(RobotParser parser, ExpressionFactory factory,
+                ExpressionContext environment) throws RecognitionException {
+                return new AstDigestBytesMatcherVisitor(factory, environment).visit(parser.digestBytesMatcher());
+            }
+        };
+
     public static final ScriptParseStrategy<AstFixedLengthBytesMatcher> FIXED_LENGTH_BYTES_MATCHER =
         new ScriptParseStrategy<AstFixedLengthBytesMatcher>() {
             @Override
@@ -1659,6 +1670,18 @@ public abstract class ScriptParseStrategy<T extends AstRegion> {
             return matcher;
         }
 
+        @Override
+        public AstDigestBytesMatcher visitDigestBytesMatcher(DigestBytesMatcherContext ctx) {
+
+            AstDigestBytesMatcherVisitor visitor = new AstDigestBytesMatcherVisitor(factory, environment);
+            AstDigestBytesMatcher matcher = visitor.visit(ctx);
+            if (matcher != null) {
+                childInfos().add(matcher.getRegionInfo());
+            }
+
+            return matcher;
+        }
+
         @Override
         public AstFixedLengthBytesMatcher visitFixedLengthBytesMatcher(FixedLengthBytesMatcherContext ctx) {
 
@@ -1780,6 +1803,31 @@ public abstract class ScriptParseStrategy<T extends AstRegion> {
 
     }
 
+    private static class AstDigestBytesMatcherVisitor extends AstVisitor<AstDigestBytesMatcher> {
+
+        public AstDigestBytesMatcherVisitor(ExpressionFactory factory, ExpressionContext environment) {
+            super(factory, environment);
+        }
+
+        @Override
+        public AstDigestBytesMatcher visitDigestBytesMatcher(DigestBytesMatcherContext ctx) {
+            long length = Long.parseLong(ctx.length.getText());
+            String algorithm = ctx.algorithm.getText();
+            switch (algorithm) {
+            case "sha256":
+            case "crc32c":
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized digest algorithm: " + algorithm);
+            }
+            byte[] digest = parseHexBytes(ctx.digest.getText());
+            AstDigestBytesMatcher matcher = new AstDigestBytesMatcher(length, algorithm, digest);
+            matcher.setRegionInfo(asSequentialRegion(childInfos, ctx));
+            return matcher;
+        }
+
+    }
+
     private static class AstFixedLengthBytesMatcherVisitor extends AstVisitor<AstFixedLengthBytesMatcher> {
 
         public AstFixedLengthBytesMatcherVisitor(ExpressionFactory factory, ExpressionContext environment) {
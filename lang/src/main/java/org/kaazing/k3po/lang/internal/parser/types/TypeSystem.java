@@ -15,13 +15,13 @@
  */
 package org.kaazing.k3po.lang.internal.parser.types;
 
-import static java.util.ServiceLoader.load;
 
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Function;
 
+import org.kaazing.k3po.lang.internal.ServiceRegistry;
 import org.kaazing.k3po.lang.types.StructuredTypeInfo;
 import org.kaazing.k3po.lang.types.TypeInfo;
 import org.kaazing.k3po.lang.types.TypeSystemSpi;
@@ -130,6 +130,6 @@ public final class TypeSystem {
     }
 
     public static final TypeSystem newInstance() {
-        return new TypeSystem(load(TypeSystemSpi.class));
+        return new TypeSystem(ServiceRegistry.current().services(TypeSystemSpi.class));
     }
 }
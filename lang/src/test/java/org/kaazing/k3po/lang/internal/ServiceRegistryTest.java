@@ -0,0 +1,99 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.k3po.lang.el.spi.FunctionMapperSpi;
+
+public class ServiceRegistryTest {
+
+    private URLClassLoader classLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        // a class loader of its own, so registrations are not shared with other tests
+        classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        classLoader.close();
+    }
+
+    @Test
+    public void shouldShareRegisteredProviders() throws Exception {
+        ServiceRegistry registry = ServiceRegistry.register(classLoader);
+        try {
+            registry.discover(FunctionMapperSpi.class);
+            List<FunctionMapperSpi> services = ServiceRegistry.lookup(classLoader).services(FunctionMapperSpi.class);
+
+            assertSame(registry, ServiceRegistry.lookup(classLoader));
+            assertSame(services, registry.services(FunctionMapperSpi.class));
+            assertFalse(services.isEmpty());
+        }
+        finally {
+            registry.unregister();
+        }
+
+        assertNotSame(registry, ServiceRegistry.lookup(classLoader));
+    }
+
+    @Test
+    public void shouldCountRegistrations() throws Exception {
+        ServiceRegistry registry = ServiceRegistry.register(classLoader);
+        assertSame(registry, ServiceRegistry.register(classLoader));
+
+        registry.unregister();
+        assertSame(registry, ServiceRegistry.lookup(classLoader));
+
+        registry.unregister();
+        assertNotSame(registry, ServiceRegistry.lookup(classLoader));
+    }
+
+    @Test
+    public void shouldCreateNewProviders() throws Exception {
+        ServiceRegistry registry = ServiceRegistry.lookup(classLoader);
+        List<FunctionMapperSpi> services = registry.services(FunctionMapperSpi.class);
+        List<FunctionMapperSpi> newServices = registry.newServices(FunctionMapperSpi.class);
+
+        assertEquals(services.size(), newServices.size());
+        for (int i = 0; i < services.size(); i++) {
+            assertSame(services.get(i).getClass(), newServices.get(i).getClass());
+            assertNotSame(services.get(i), newServices.get(i));
+        }
+    }
+
+    @Test
+    public void shouldDiscoverAgainOnRefresh() throws Exception {
+        ServiceRegistry registry = ServiceRegistry.lookup(classLoader);
+        List<FunctionMapperSpi> services = registry.services(FunctionMapperSpi.class);
+
+        registry.refresh();
+
+        assertNotSame(services, registry.services(FunctionMapperSpi.class));
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal.el;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.kaazing.k3po.lang.internal.el.ExpressionCompiler.compile;
+
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpressionCompilerTest {
+
+    private ExpressionContext environment;
+
+    @Before
+    public void setUp() throws Exception {
+        environment = new ExpressionContext();
+        environment.getELResolver().setValue(environment, null, "left", 3);
+        environment.getELResolver().setValue(environment, null, "name", "world");
+    }
+
+    @Test
+    public void shouldCompileFunctionCall() throws Exception {
+        Supplier<Integer> supplier = compile("${test:add(left, 4)}", environment, Integer.class);
+
+        assertEquals(Integer.valueOf(7), supplier.get());
+    }
+
+    @Test
+    public void shouldCompileArithmetic() throws Exception {
+        Supplier<Object> supplier = compile("${(left + 1) * 2 - 10 mod 3}", environment, Object.class);
+
+        assertEquals(7L, supplier.get());
+    }
+
+    @Test
+    public void shouldCompileConcatenation() throws Exception {
+        Supplier<byte[]> supplier = compile("Hello, ${name}!", environment, byte[].class);
+
+        assertArrayEquals("Hello, world!".getBytes("UTF-8"), supplier.get());
+    }
+
+    @Test
+    public void shouldResolveVariableOnEachEvaluation() throws Exception {
+        Supplier<Object> supplier = compile("${name}", environment, Object.class);
+        environment.getELResolver().setValue(environment, null, "name", "again");
+
+        assertEquals("again", supplier.get());
+    }
+
+    @Test
+    public void shouldNotCompilePropertyAccess() throws Exception {
+        assertNull(compile("${name.bytes}", environment, Object.class));
+    }
+
+    @Test
+    public void shouldNotCompileComparison() throws Exception {
+        assertNull(compile("${left > 1}", environment, Object.class));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2007-2015, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.k3po.lang.internal.el;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.evaluate;
+import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.el.ExpressionFactory;
+import javax.el.PropertyNotFoundException;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpressionContextTest {
+
+    private ExpressionFactory factory;
+    private ExpressionContext environment;
+
+    @Before
+    public void setUp() throws Exception {
+        factory = newExpressionFactory();
+        environment = new ExpressionContext();
+    }
+
+    @Test
+    public void shouldPublishCapturedValueToOtherScopes() throws Exception {
+        ExpressionContext reader = environment.newScope();
+        ExpressionContext writer = environment.newScope();
+        ValueExpression expression = factory.createValueExpression(writer, "${captured}", String.class);
+
+        reader.getELResolver().setValue(reader, null, "captured", "Hello");
+
+        assertEquals("Hello", expression.getValue(writer));
+    }
+
+    @Test
+    public void shouldUpdateValueBoundAfterPublish() throws Exception {
+        ExpressionContext scope = environment.newScope();
+        scope.getELResolver().setValue(scope, null, "captured", 1);
+        ValueExpression expression = factory.createValueExpression(scope, "${captured + 1}", Integer.class);
+
+        scope.getELResolver().setValue(scope, null, "captured", 41);
+
+        assertEquals(42, expression.getValue(environment.newScope()));
+    }
+
+    @Test
+    public void shouldEvaluateConcurrentlyInSameScope() throws Exception {
+        ExpressionContext scope = environment.newScope();
+        // created before the value is published, so each evaluation resolves it through the scope
+        ValueExpression expression = factory.createValueExpression(scope, "${captured}", String.class);
+        scope.publish("captured", "Hello");
+
+        ExecutorService executor = newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        scope.publish("captured", "Hello");
+                        assertEquals("Hello", evaluate(expression, scope, String.class));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void shouldNotResolveClearedVariable() throws Exception {
+        ValueExpression expression = factory.createValueExpression(environment, "${captured}", Object.class);
+        environment.getELResolver().setValue(environment, null, "captured", "Hello");
+
+        environment.clearVariables();
+
+        expression.getValue(environment.newScope());
+    }
+}
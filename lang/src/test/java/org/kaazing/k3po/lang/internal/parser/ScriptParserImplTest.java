@@ -20,6 +20,7 @@ import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.ACCEPT;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.CLOSE;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.CLOSED;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.CONNECTED;
+import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.DIGEST_BYTES_MATCHER;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.EXACT_BYTES_MATCHER;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.EXPRESSION_MATCHER;
 import static org.kaazing.k3po.lang.internal.parser.ScriptParseStrategy.FIXED_LENGTH_BYTES_MATCHER;
@@ -102,6 +103,7 @@ import org.kaazing.k3po.lang.internal.ast.builder.AstWriteNodeBuilder;
 import org.kaazing.k3po.lang.internal.ast.builder.AstWriteNotifyNodeBuilder;
 import org.kaazing.k3po.lang.internal.ast.builder.AstWriteOptionNodeBuilder;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstByteLengthBytesMatcher;
+import org.kaazing.k3po.lang.internal.ast.matcher.AstDigestBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactBytesMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExactTextMatcher;
 import org.kaazing.k3po.lang.internal.ast.matcher.AstExpressionMatcher;
@@ -333,6 +335,56 @@ public class ScriptParserImplTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void shouldParseDigestBytesMatcher() throws Exception {
+
+        String scriptFragment = "[0..104857600] crc32c [0x01 0x02 0x03 0x04]";
+
+        ScriptParserImpl parser = new ScriptParserImpl();
+        AstDigestBytesMatcher actual = parser.parseWithStrategy(scriptFragment, DIGEST_BYTES_MATCHER);
+
+        AstDigestBytesMatcher expected = new AstDigestBytesMatcher(104857600, "crc32c", new byte[] {0x01, 0x02, 0x03, 0x04});
+        assertEquals(expected, actual);
+    }
+
+    @Test(
+        expected = IllegalArgumentException.class)
+    public void shouldNotParseDigestBytesMatcherWithUnknownAlgorithm() throws Exception {
+
+        String scriptFragment = "[0..104857600] md5 [0x01 0x02 0x03 0x04]";
+
+        ScriptParserImpl parser = new ScriptParserImpl();
+        parser.parseWithStrategy(scriptFragment, DIGEST_BYTES_MATCHER);
+    }
+
+    @Test
+    public void shouldParseReadNotifyBarrierNamedAfterDigestAlgorithm() throws Exception {
+
+        String scriptFragment = "read notify sha256";
+
+        ScriptParserImpl parser = new ScriptParserImpl();
+        AstReadNotifyNode actual = parser.parseWithStrategy(scriptFragment, READ_NOTIFY);
+
+        AstReadNotifyNode expected = new AstReadNotifyNodeBuilder().setBarrierName("sha256").done();
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void shouldParseReadDigestBytesFollowedByFixedLengthBytes() throws Exception {
+
+        String scriptFragment = "read [0..8] crc32c [0x01 0x02 0x03 0x04] [0..4]";
+
+        ScriptParserImpl parser = new ScriptParserImpl();
+        AstReadValueNode actual = parser.parseWithStrategy(scriptFragment, READ);
+
+        AstReadValueNode expected = new AstReadValueNode();
+        expected.setMatchers(Arrays.<AstValueMatcher>asList(
+                new AstDigestBytesMatcher(8, "crc32c", new byte[] {0x01, 0x02, 0x03, 0x04}),
+                new AstFixedLengthBytesMatcher(4)));
+        assertEquals(expected, actual);
+    }
+
     @Test
     public void shouldParseVariableLengthBytesMatcher() throws Exception {
 
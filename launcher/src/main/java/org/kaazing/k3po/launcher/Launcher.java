@@ -20,6 +20,7 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
@@ -30,6 +31,9 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.Parser;
 import org.apache.commons.cli.PosixParser;
 import org.kaazing.k3po.driver.internal.RobotServer;
+import org.kaazing.k3po.driver.internal.control.handler.ControlServerHandler;
+import org.kaazing.k3po.driver.internal.load.LoadGenerator;
+import org.kaazing.k3po.driver.internal.netty.bootstrap.TransportRuntime;
 
 /**
  * Launcher / CLI to run the K3PO.
@@ -73,9 +77,40 @@ public final class Launcher {
 
             boolean verbose = cmd.hasOption("verbose");
 
+            boolean virtualTime = cmd.hasOption("virtual-time");
+
+            int concurrency = Integer.parseInt(cmd.getOptionValue("concurrency", "1"));
+
             URLClassLoader scriptLoader = new URLClassLoader(scriptUrls.toArray(new URL[0]));
-            RobotServer server = new RobotServer(URI.create(controlURI), verbose, scriptLoader);
+
+            String loadScriptName = cmd.getOptionValue("load");
+            if (loadScriptName != null) {
+                List<String> scriptNames = Collections.singletonList(loadScriptName);
+                String script = ControlServerHandler.aggregateScript(scriptNames, scriptLoader);
+                TransportRuntime runtime = new TransportRuntime();
+                Thread currentThread = Thread.currentThread();
+                ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+                try {
+                    // robots discover transports and functions through the context class loader
+                    currentThread.setContextClassLoader(scriptLoader);
+
+                    LoadGenerator generator = new LoadGenerator(script, runtime);
+                    generator.setIterations(Integer.parseInt(cmd.getOptionValue("load-iterations", "1")));
+                    generator.setConcurrency(concurrency);
+                    generator.setRate(Double.parseDouble(cmd.getOptionValue("load-rate", "0")));
+                    generator.setTimeout(Long.parseLong(cmd.getOptionValue("load-timeout", "0")));
+                    System.out.print(generator.run());
+                } finally {
+                    currentThread.setContextClassLoader(contextClassLoader);
+                    runtime.releaseExternalResources();
+                }
+                return;
+            }
+
+            RobotServer server = new RobotServer(URI.create(controlURI), verbose, scriptLoader, concurrency, virtualTime);
             server.start();
+            // the server runs until the launcher is interrupted, so report its metrics on the way out
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(server.getMetricsReport())));
             server.join();
         } catch (ParseException ex) {
             HelpFormatter helpFormatter = new HelpFormatter();
@@ -89,10 +124,28 @@ public final class Launcher {
         Option scriptPath = new Option(null, "scriptpath", true,
                 "Path(s) to directory/jar for script(s) lookup. Multiple entries should be separated by semicolon.");
         Option control = new Option(null, "control", true, "location to listen for K3PO control connections");
+        Option concurrency = new Option(null, "concurrency", true,
+                "maximum number of scripts to run concurrently, scripts with colliding accept locations never overlap, "
+                + "or of load script replays");
+        Option load = new Option(null, "load", true,
+                "script to replay as a load generator instead of listening for control connections, connect streams only");
+        Option loadIterations = new Option(null, "load-iterations", true, "number of times to replay the load script");
+        Option loadRate = new Option(null, "load-rate", true,
+                "target number of load script replays started per second, 0 for as fast as concurrency allows");
+        Option loadTimeout = new Option(null, "load-timeout", true,
+                "milliseconds after which a load script replay is aborted, 0 to wait indefinitely");
+        Option virtualTime = new Option(null, "virtual-time", false,
+                "advance timers such as udp idle timeouts instantly once every stream is blocked on time");
         Option verbose = new Option(null, "verbose", false, "verbose");
         Option version = new Option(null, "version", false, "version");
         options.addOption(scriptPath);
         options.addOption(control);
+        options.addOption(concurrency);
+        options.addOption(load);
+        options.addOption(loadIterations);
+        options.addOption(loadRate);
+        options.addOption(loadTimeout);
+        options.addOption(virtualTime);
         options.addOption(verbose);
         options.addOption(version);
         return options;
@@ -15,6 +15,7 @@
  */
 package org.kaazing.specification.http.internal;
 
+import java.io.InputStream;
 import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -99,6 +100,15 @@ public final class Functions {
         return bytes;
     }
 
+    /**
+     * Streams random UTF-8 bytes, generated a chunk at a time, so that large writes such as
+     * {@code write ${http:randomBytesUTF8Stream(100000000)}} never materialize the whole payload.
+     */
+    @Function
+    public static InputStream randomBytesUTF8Stream(long length) {
+        return new RandomBytesUTF8Stream(length);
+    }
+
     private static void randomBytesUTF8(byte[] bytes, int start, int end) {
         for (int offset = start; offset < end;) {
             int remaining = end - offset;
@@ -134,6 +144,58 @@ public final class Functions {
         return offset;
     }
 
+    private static final class RandomBytesUTF8Stream extends InputStream {
+
+        private final byte[] chunk = new byte[8192];
+
+        private long remaining;
+        private int offset;
+        private int limit;
+
+        RandomBytesUTF8Stream(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (offset == limit && !nextChunk()) {
+                return -1;
+            }
+            return chunk[offset++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (offset == limit && !nextChunk()) {
+                return -1;
+            }
+            int length = Math.min(len, limit - offset);
+            System.arraycopy(chunk, offset, b, off, length);
+            offset += length;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return limit - offset;
+        }
+
+        // each chunk ends on a character boundary, so the stream is valid UTF-8 as a whole
+        private boolean nextChunk() {
+            if (remaining == 0) {
+                return false;
+            }
+            limit = (int) Math.min(chunk.length, remaining);
+            randomBytesUTF8(chunk, 0, limit);
+            remaining -= limit;
+            offset = 0;
+            return true;
+        }
+    }
+
     private Functions() {
         // utility
     }
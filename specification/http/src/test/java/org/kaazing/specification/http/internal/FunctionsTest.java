@@ -15,8 +15,15 @@
  */
 package org.kaazing.specification.http.internal;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
 import static org.kaazing.k3po.lang.internal.el.ExpressionFactoryUtils.newExpressionFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+
 import javax.el.ELContext;
 import javax.el.ExpressionFactory;
 import javax.el.ValueExpression;
@@ -45,4 +52,24 @@ public class FunctionsTest {
         System.out.println(randomBytes);
     }
 
+    @Test
+    public void shouldStreamRandomBytesUTF8() throws Exception {
+        String expressionText = "${http:randomBytesUTF8Stream(100000)}";
+        ValueExpression expression = factory.createValueExpression(ctx, expressionText, Object.class);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream input = (InputStream) expression.getValue(ctx)) {
+            byte[] chunk = new byte[1000];
+            for (int length; (length = input.read(chunk)) != -1;) {
+                bytes.write(chunk, 0, length);
+            }
+        }
+
+        assertEquals(100000, bytes.size());
+        UTF_8.newDecoder()
+             .onMalformedInput(CodingErrorAction.REPORT)
+             .onUnmappableCharacter(CodingErrorAction.REPORT)
+             .decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
 }
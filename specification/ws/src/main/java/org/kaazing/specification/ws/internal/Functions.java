@@ -19,6 +19,7 @@ import static java.lang.Character.toLowerCase;
 import static java.lang.Character.toUpperCase;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -80,6 +81,23 @@ public final class Functions {
         return bytes;
     }
 
+    /**
+     * Streams random bytes, generated a chunk at a time, so that large writes such as
+     * {@code write ${ws:randomBytesStream(100000000)}} never materialize the whole payload.
+     */
+    @Function
+    public static InputStream randomBytesStream(long length) {
+        return new RandomBytesStream(length, false);
+    }
+
+    /**
+     * Streams random UTF-8 bytes, generated a chunk at a time.
+     */
+    @Function
+    public static InputStream randomBytesUTF8Stream(long length) {
+        return new RandomBytesStream(length, true);
+    }
+
     @Function
     public static byte[] randomBytesInvalidUTF8(int length) {
         // TODO: make invalid UTF-8 bytes less like valid UTF-8 (!)
@@ -218,6 +236,64 @@ public final class Functions {
 
     }
 
+    private static final class RandomBytesStream extends InputStream {
+
+        private final byte[] chunk = new byte[8192];
+        private final boolean utf8;
+
+        private long remaining;
+        private int offset;
+        private int limit;
+
+        RandomBytesStream(long length, boolean utf8) {
+            this.remaining = length;
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public int read() {
+            if (offset == limit && !nextChunk()) {
+                return -1;
+            }
+            return chunk[offset++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (offset == limit && !nextChunk()) {
+                return -1;
+            }
+            int length = Math.min(len, limit - offset);
+            System.arraycopy(chunk, offset, b, off, length);
+            offset += length;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return limit - offset;
+        }
+
+        // each UTF-8 chunk ends on a character boundary, so the stream is valid UTF-8 as a whole
+        private boolean nextChunk() {
+            if (remaining == 0) {
+                return false;
+            }
+            limit = (int) Math.min(chunk.length, remaining);
+            if (utf8) {
+                randomBytesUTF8(chunk, 0, limit);
+            } else {
+                RANDOM.nextBytes(chunk);
+            }
+            remaining -= limit;
+            offset = 0;
+            return true;
+        }
+    }
+
     private Functions() {
         // utility
     }